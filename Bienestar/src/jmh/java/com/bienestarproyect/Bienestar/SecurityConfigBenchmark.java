@@ -0,0 +1,24 @@
+package com.bienestarproyect.Bienestar;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción del cuerpo JSON que escribe el successHandler del login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityConfigBenchmark {
+
+    private String username = "admin";
+
+    @Benchmark
+    public String loginSuccessJson() {
+        return SecurityConfig.loginSuccessJson(username);
+    }
+}
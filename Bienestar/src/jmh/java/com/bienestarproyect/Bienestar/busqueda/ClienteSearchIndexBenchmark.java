@@ -0,0 +1,54 @@
+package com.bienestarproyect.Bienestar.busqueda;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de /api/clientes/buscar contra el índice en memoria con un millón de clientes.
+ * Ejecutar con -Djmh.include=ClienteSearchIndex (la carga del estado tarda unos segundos y ~1 GB de heap).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ClienteSearchIndexBenchmark {
+
+    private static final String[] NOMBRES = {"juan", "maría", "josé", "ana", "luis", "carmen", "pedro", "laura", "carlos", "sofía", "miguel", "lucía"};
+    private static final String[] APELLIDOS = {"garcía", "rodríguez", "gonzález", "fernández", "lópez", "martínez", "sánchez", "pérez",
+            "gómez", "martín", "jiménez", "ruiz", "hernández", "díaz", "moreno", "álvarez"};
+
+    @Param({"1000000"})
+    public int clientes;
+
+    @Param({"laura", "juan garcia", "gonzales", "600123", "lopez.moreno"})
+    public String consulta;
+
+    private ClienteSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new ClienteSearchIndex();
+        Random r = new Random(42);
+        for (int i = 1; i <= clientes; i++) {
+            String nombre = NOMBRES[r.nextInt(NOMBRES.length)] + " " + APELLIDOS[r.nextInt(APELLIDOS.length)] + " "
+                    + APELLIDOS[r.nextInt(APELLIDOS.length)];
+            Cliente c = new Cliente();
+            c.setId((long) i);
+            c.setNombre(nombre);
+            c.setEmail(nombre.replace(' ', '.') + i + "@example.com");
+            c.setTelefono("+34 " + (600_000_000 + r.nextInt(99_999_999)));
+            index.indexar(c);
+        }
+    }
+
+    @Benchmark
+    public List<Cliente> buscar() {
+        return index.buscar(consulta, 20);
+    }
+}
@@ -0,0 +1,119 @@
+package com.bienestarproyect.Bienestar.config;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Factura;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Coste en CPU de codificar las listas de citas y facturas (historial del cliente) en JSON, CBOR y Smile,
+ * con y sin gzip (el nivel por defecto, el mismo que usa Tomcat). Los bytes de cada combinación se
+ * imprimen en el setup, una línea "[codificacion] ..." por ejecución.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodificacionBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String formato;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"50", "500"})
+    private int elementos;
+
+    private ObjectMapper mapper;
+    private List<Cita> citas;
+    private List<Factura> facturas;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setup() throws Exception {
+        // misma configuración que los convertidores de Spring Boot (fechas ISO, no timestamps)
+        mapper = switch (formato) {
+            case "cbor" -> CBORMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            case "smile" -> SmileMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+            default -> JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        };
+
+        Cliente cliente = new Cliente();
+        cliente.setId(1L);
+        cliente.setNombre("Juan Pérez");
+        cliente.setEmail("juan@example.com");
+        cliente.setTelefono("+34 600 123 456");
+
+        Servicio servicio = new Servicio();
+        servicio.setId(2L);
+        servicio.setNombre("Masaje relajante");
+        servicio.setDescripcion("Masaje de cuerpo completo, 60 minutos");
+        servicio.setPrecio(new BigDecimal("45.00"));
+
+        citas = new ArrayList<>(elementos);
+        facturas = new ArrayList<>(elementos);
+        for (int i = 0; i < elementos; i++) {
+            Cita c = new Cita();
+            c.setId((long) i + 1);
+            c.setCliente(cliente);
+            c.setServicio(servicio);
+            c.setFechaHora(LocalDateTime.of(2030, 1, 1, 9, 0).plusHours(i));
+            c.setEstado(EstadoCita.ATENDIDA);
+            c.setVersion(0L);
+            citas.add(c);
+
+            Factura f = new Factura();
+            f.setId((long) i + 1);
+            f.setCliente(cliente);
+            f.setTotal(new BigDecimal("45.00"));
+            f.setFecha(LocalDateTime.of(2030, 1, 1, 10, 0).plusHours(i));
+            f.setDescripcion("Masaje relajante");
+            f.setVersion(0L);
+            facturas.add(f);
+        }
+
+        System.out.printf("[codificacion] %s%s n=%d: citas %d bytes, facturas %d bytes%n",
+                formato, gzip ? "+gzip" : "", elementos, codificar(citas), codificar(facturas));
+    }
+
+    private int codificar(Object valor) throws Exception {
+        buffer.reset();
+        if (gzip) {
+            try (OutputStream out = new GZIPOutputStream(buffer, 8192)) {
+                mapper.writeValue(out, valor);
+            }
+        } else {
+            mapper.writeValue(buffer, valor);
+        }
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int listaCitas() throws Exception {
+        return codificar(citas);
+    }
+
+    @Benchmark
+    public int listaFacturas() throws Exception {
+        return codificar(facturas);
+    }
+}
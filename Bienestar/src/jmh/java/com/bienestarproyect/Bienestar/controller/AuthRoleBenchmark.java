@@ -0,0 +1,58 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.entity.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolución del rol principal en GET /api/auth/user-info. Cada escenario
+ * recorre un número distinto de bucles antes de encontrar coincidencia.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthRoleBenchmark {
+
+    private Set<Role> admin;
+    private Set<Role> client;
+    private Set<Role> desconocido;
+
+    @Setup
+    public void setup() {
+        admin = roles("RECEPTIONIST", "ADMIN");
+        client = roles("CLIENT");
+        desconocido = roles("AUDITOR");
+    }
+
+    private static Set<Role> roles(String... nombres) {
+        Set<Role> out = new LinkedHashSet<>();
+        long id = 1;
+        for (String n : nombres) {
+            Role r = new Role(n);
+            r.setId(id++);
+            out.add(r);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public String adminYRecepcion() {
+        return AuthController.determineMainRole(admin);
+    }
+
+    @Benchmark
+    public String soloCliente() {
+        return AuthController.determineMainRole(client);
+    }
+
+    @Benchmark
+    public String rolDesconocido() {
+        return AuthController.determineMainRole(desconocido);
+    }
+}
@@ -0,0 +1,49 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.monitoring.ErrorReporter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.ResponseEntity;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error storm: 8 threads pushing the same few exceptions (DB down) through handleAll.
+ * Throughput should stay flat with the number of errors because only the first occurrence
+ * per fingerprint and interval reaches the logger.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ValidationExceptionHandlerBenchmark {
+
+    private ValidationExceptionHandler handler;
+    private Exception dbDown;
+    private Exception illegalArgument;
+
+    @Setup
+    public void setup() {
+        handler = new ValidationExceptionHandler(new ErrorReporter(Duration.ofMinutes(1), new SimpleMeterRegistry()));
+        dbDown = new DataAccessResourceFailureException("Unable to acquire JDBC Connection",
+                new SQLTransientConnectionException("HikariPool-1 - Connection is not available, request timed out after 30000ms."));
+        illegalArgument = new IllegalArgumentException("id must not be null");
+    }
+
+    @Benchmark
+    public ResponseEntity<String> dbDownStorm() {
+        return handler.handleAll(dbDown);
+    }
+
+    @Benchmark
+    public ResponseEntity<String> mixedErrors() {
+        handler.handleAll(dbDown);
+        return handler.handleAll(illegalArgument);
+    }
+}
@@ -0,0 +1,74 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización Jackson del grafo Cita -> Cliente/Servicio, tal y como lo
+ * devuelven los controladores (una cita y un historial completo).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CitaJsonBenchmark {
+
+    @Param({"1", "50"})
+    private int citas;
+
+    // misma configuración que el ObjectMapper de Spring Boot (fechas ISO, no timestamps)
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private Cita cita;
+    private List<Cita> historial;
+
+    @Setup
+    public void setup() {
+        Cliente cliente = new Cliente();
+        cliente.setId(1L);
+        cliente.setNombre("Juan Pérez");
+        cliente.setEmail("juan@example.com");
+        cliente.setTelefono("+34 600 123 456");
+
+        Servicio servicio = new Servicio();
+        servicio.setId(2L);
+        servicio.setNombre("Masaje relajante");
+        servicio.setDescripcion("Masaje de cuerpo completo, 60 minutos");
+        servicio.setPrecio(new BigDecimal("45.00"));
+
+        historial = new ArrayList<>(citas);
+        for (int i = 0; i < citas; i++) {
+            Cita c = new Cita();
+            c.setId((long) i + 1);
+            c.setCliente(cliente);
+            c.setServicio(servicio);
+            c.setFechaHora(LocalDateTime.of(2030, 1, 1, 9, 0).plusHours(i));
+            c.setEstado(EstadoCita.AGENDADA);
+            historial.add(c);
+        }
+        cita = historial.get(0);
+    }
+
+    @Benchmark
+    public byte[] serializarCita() throws Exception {
+        return mapper.writeValueAsBytes(cita);
+    }
+
+    @Benchmark
+    public byte[] serializarHistorial() throws Exception {
+        return mapper.writeValueAsBytes(historial);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bienestarproyect.Bienestar.mapper;
+
+import com.bienestarproyect.Bienestar.dto.CitaDTO;
+import com.bienestarproyect.Bienestar.dto.ClienteDTO;
+import com.bienestarproyect.Bienestar.dto.FacturaDTO;
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.Factura;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de las conversiones DTO -> entidad que se hacen en cada POST/PUT.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DTOMapperBenchmark {
+
+    private ClienteDTO clienteDto;
+    private FacturaDTO facturaDto;
+    private CitaDTO citaDto;
+    private Cliente cliente;
+    private Servicio servicio;
+
+    @Setup
+    public void setup() {
+        clienteDto = new ClienteDTO();
+        clienteDto.setNombre("Juan Pérez");
+        clienteDto.setEmail("juan@example.com");
+        clienteDto.setTelefono("+34 600 123 456");
+
+        facturaDto = new FacturaDTO();
+        facturaDto.setClienteId(1L);
+        facturaDto.setTotal(new BigDecimal("50.00"));
+        facturaDto.setDescripcion("Masaje completo");
+
+        citaDto = new CitaDTO();
+        citaDto.setClienteId(1L);
+        citaDto.setServicioId(2L);
+        citaDto.setFechaHora(LocalDateTime.of(2030, 1, 15, 10, 30));
+
+        cliente = new Cliente();
+        cliente.setId(1L);
+        servicio = new Servicio();
+        servicio.setId(2L);
+    }
+
+    @Benchmark
+    public Cliente clienteToEntity() {
+        return DTOMapper.toEntity(clienteDto);
+    }
+
+    @Benchmark
+    public Factura facturaToEntity() {
+        return DTOMapper.toEntity(facturaDto, cliente);
+    }
+
+    @Benchmark
+    public Cita citaToEntity() {
+        return DTOMapper.toEntity(citaDto, cliente, servicio);
+    }
+}
@@ -0,0 +1,82 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TipoRecurso;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primer hueco "terapeuta con habilidad + sala libre" en una clínica con 40 terapeutas y 12 salas,
+ * con la agenda de las próximas dos semanas ocupada al {@code ocupacion} por ciento en horario 8-20.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarioRecursosBenchmark {
+
+    private static final String[] HABILIDADES = {"masaje", "fisio", "osteopatia", "yoga"};
+    private static final LocalDateTime LUNES = LocalDateTime.of(2025, 6, 2, 8, 0);
+
+    @Param({"50", "90"})
+    public int ocupacion;
+
+    private CalendarioRecursos calendario;
+    private Requisito requisito;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Recurso> recursos = new ArrayList<>();
+        for (long i = 1; i <= 40; i++) recursos.add(recurso(i, TipoRecurso.TERAPEUTA, HABILIDADES[(int) i % HABILIDADES.length]));
+        for (long i = 100; i < 112; i++) recursos.add(recurso(i, TipoRecurso.SALA, null));
+        calendario = new CalendarioRecursos();
+        calendario.reiniciar(recursos);
+
+        Random r = new Random(42);
+        Servicio media = servicio(1L, 30, null, false);
+        Requisito r30 = Requisito.de(media);
+        for (Recurso rec : recursos) {
+            for (int d = 0; d < 14; d++) {
+                for (int q = 0; q < 48; q += 2) {
+                    if (r.nextInt(100) >= ocupacion) continue;
+                    LocalDateTime inicio = LUNES.plusDays(d).plusMinutes(q * 15L);
+                    calendario.restaurar(r30, new Hueco(inicio, inicio.plusMinutes(30), List.of(rec.getId())));
+                }
+            }
+        }
+        requisito = Requisito.de(servicio(2L, 60, "osteopatia", true));
+    }
+
+    @Benchmark
+    public Optional<Hueco> primerHueco() {
+        return calendario.buscar(requisito, LUNES, 14);
+    }
+
+    private static Servicio servicio(Long id, int minutos, String habilidad, boolean sala) {
+        Servicio s = new Servicio();
+        s.setId(id);
+        s.setDuracionMinutos(minutos);
+        s.setHabilidad(habilidad);
+        s.setRequiereSala(sala);
+        return s;
+    }
+
+    private static Recurso recurso(Long id, TipoRecurso tipo, String habilidad) {
+        Recurso r = new Recurso();
+        r.setId(id);
+        r.setNombre(tipo + "-" + id);
+        r.setTipo(tipo);
+        r.setHabilidades(habilidad != null ? Set.of(habilidad) : Set.of());
+        return r;
+    }
+}
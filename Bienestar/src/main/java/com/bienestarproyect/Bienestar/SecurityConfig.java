@@ -1,10 +1,15 @@
 package com.bienestarproyect.Bienestar;
 
+import com.bienestarproyect.Bienestar.audit.AuditService;
+import com.bienestarproyect.Bienestar.audit.AuditTipo;
 import com.bienestarproyect.Bienestar.service.UsuarioDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.dao.*;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -13,9 +18,11 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     private final UsuarioDetailsService usuarioDetailsService;
+    private final AuditService auditService;
 
-    public SecurityConfig(UsuarioDetailsService usuarioDetailsService) {
+    public SecurityConfig(UsuarioDetailsService usuarioDetailsService, AuditService auditService) {
         this.usuarioDetailsService = usuarioDetailsService;
+        this.auditService = auditService;
     }
 
     @Bean
@@ -32,6 +39,27 @@ public class SecurityConfig {
         return p;
     }
 
+    /**
+     * Actuator endpoints (Prometheus scrape). Separate stateless chain with HTTP Basic so a
+     * scraper can authenticate without the form-login/session flow used by the app.
+     * Only /actuator/health is public; everything else requires ADMIN.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+          .securityMatcher("/actuator/**")
+          .authenticationProvider(authenticationProvider())
+          .authorizeHttpRequests(auth -> auth
+              .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+              .anyRequest().hasRole("ADMIN")
+          )
+          .httpBasic(Customizer.withDefaults())
+          .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+          .csrf(csrf -> csrf.disable());
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.authenticationProvider(authenticationProvider());
@@ -57,15 +85,17 @@ public class SecurityConfig {
               // ================== SOLUCIÓN PARA API/ANDROID ==================
               // CRÍTICO: Deshabilitar TODAS las redirecciones
               .successHandler((request, response, authentication) -> {
-                  // NO hacer nada más que escribir la respuesta
+                  // NO hacer nada más que escribir la respuesta (la auditoría es asíncrona)
+                  auditService.registrar(AuditTipo.LOGIN_OK, authentication.getName(), request.getRemoteAddr());
                   response.setStatus(200);
                   response.setContentType("application/json");
                   response.setCharacterEncoding("UTF-8");
-                  response.getWriter().write("{\"message\":\"Login successful\",\"username\":\"" 
-                      + authentication.getName() + "\"}");
+                  response.getWriter().write(loginSuccessJson(authentication.getName()));
                   response.getWriter().flush();
               })
               .failureHandler((request, response, exception) -> {
+                  auditService.registrar(AuditTipo.LOGIN_FALLIDO, request.getParameter("username"),
+                      request.getRemoteAddr() + " " + exception.getMessage());
                   response.setStatus(401);
                   response.setContentType("application/json");
                   response.setCharacterEncoding("UTF-8");
@@ -82,6 +112,9 @@ public class SecurityConfig {
               .permitAll()
               // Handler para API/Android: devuelve 200 OK sin redirección
               .logoutSuccessHandler((request, response, authentication) -> {
+                  if (authentication != null) {
+                      auditService.registrar(AuditTipo.LOGOUT, authentication.getName(), request.getRemoteAddr());
+                  }
                   response.setStatus(200); // HTTP 200 OK
                   response.setContentType("application/json");
                   response.setCharacterEncoding("UTF-8");
@@ -105,4 +138,12 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    /**
+     * Cuerpo JSON devuelto por el successHandler del login.
+     * Package-private para poder medirlo desde los benchmarks JMH.
+     */
+    static String loginSuccessJson(String username) {
+        return "{\"message\":\"Login successful\",\"username\":\"" + username + "\"}";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import java.time.LocalDateTime;
+
+public record AuditEvento(AuditTipo tipo, String usuario, String detalle, LocalDateTime instante) {}
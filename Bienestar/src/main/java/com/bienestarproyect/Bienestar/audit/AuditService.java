@@ -0,0 +1,135 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit pipeline for logins, logouts and bookings.
+ *
+ * Request threads only do a lock-free {@link MpscRingBuffer#offer}; a single daemon thread
+ * drains the buffer in batches into the configured {@link AuditSink} (app.audit.sink=jdbc|file).
+ * Overflow policy is DROP_NEWEST: when the buffer is full the event is discarded and counted,
+ * the request is never blocked.
+ */
+@Service
+public class AuditService {
+
+    public static final String OVERFLOW_POLICY = "DROP_NEWEST";
+
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
+    private final MpscRingBuffer<AuditEvento> buffer;
+    private final AuditSink sink;
+    private final int batchSize;
+    private final long idleParkNanos;
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public AuditService(Environment env, JdbcTemplate jdbc, MeterRegistry meterRegistry) {
+        this.buffer = new MpscRingBuffer<>(env.getProperty("app.audit.capacity", Integer.class, 8192));
+        this.batchSize = env.getProperty("app.audit.batch-size", Integer.class, 256);
+        this.idleParkNanos = TimeUnit.MILLISECONDS.toNanos(env.getProperty("app.audit.flush-interval-ms", Long.class, 200L));
+        this.sink = "file".equalsIgnoreCase(env.getProperty("app.audit.sink", "jdbc"))
+                ? new FileAuditSink(Path.of(env.getProperty("app.audit.file.dir", "logs/audit")))
+                : new JdbcAuditSink(jdbc);
+
+        Gauge.builder("bienestar.audit.buffer.size", buffer, MpscRingBuffer::size).register(meterRegistry);
+        FunctionCounter.builder("bienestar.audit.eventos", offered, LongAdder::sum).tag("resultado", "aceptado").register(meterRegistry);
+        FunctionCounter.builder("bienestar.audit.eventos", dropped, LongAdder::sum).tag("resultado", "descartado").register(meterRegistry);
+        FunctionCounter.builder("bienestar.audit.eventos", written, LongAdder::sum).tag("resultado", "escrito").register(meterRegistry);
+        FunctionCounter.builder("bienestar.audit.eventos", failed, LongAdder::sum).tag("resultado", "fallido").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        writer = new Thread(this::runWriter, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        if (sink instanceof FileAuditSink f) {
+            try { f.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    /** Records an event for the currently authenticated user. */
+    public void registrar(AuditTipo tipo, String detalle) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        registrar(tipo, auth != null ? auth.getName() : null, detalle);
+    }
+
+    public void registrar(AuditTipo tipo, String usuario, String detalle) {
+        if (detalle != null && detalle.length() > 500) detalle = detalle.substring(0, 500);
+        if (buffer.offer(new AuditEvento(tipo, usuario, detalle, LocalDateTime.now()))) {
+            offered.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public Map<String, Object> estado() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("overflowPolicy", OVERFLOW_POLICY);
+        m.put("sink", sink.getClass().getSimpleName());
+        m.put("capacity", buffer.capacity());
+        m.put("size", buffer.size());
+        m.put("accepted", offered.sum());
+        m.put("dropped", dropped.sum());
+        m.put("written", written.sum());
+        m.put("failed", failed.sum());
+        m.put("batches", batches.sum());
+        return m;
+    }
+
+    private void runWriter() {
+        List<AuditEvento> lote = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drainTo(lote, batchSize);
+            if (lote.isEmpty()) {
+                if (running) LockSupport.parkNanos(idleParkNanos);
+                else break;
+                continue;
+            }
+            try {
+                sink.escribir(lote);
+                written.add(lote.size());
+                batches.increment();
+            } catch (Exception e) {
+                // audit must not take the app down; count and move on
+                failed.add(lote.size());
+                log.warn("Could not write {} audit events: {}", lote.size(), e.getMessage());
+            }
+            lote.clear();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import java.util.List;
+
+/**
+ * Destination of audit batches. Called only from the audit writer thread.
+ */
+public interface AuditSink {
+    void escribir(List<AuditEvento> lote) throws Exception;
+}
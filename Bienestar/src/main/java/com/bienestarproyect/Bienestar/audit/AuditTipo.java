@@ -0,0 +1,9 @@
+package com.bienestarproyect.Bienestar.audit;
+
+public enum AuditTipo {
+    LOGIN_OK,
+    LOGIN_FALLIDO,
+    LOGOUT,
+    CITA_AGENDADA,
+    CITA_CANCELADA
+}
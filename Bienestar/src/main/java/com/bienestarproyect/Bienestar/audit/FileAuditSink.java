@@ -0,0 +1,55 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Appends audit batches to one file per day: audit-YYYY-MM-DD.log (tab separated).
+ */
+public class FileAuditSink implements AuditSink {
+
+    private final Path dir;
+    private LocalDate currentDay;
+    private BufferedWriter writer;
+
+    public FileAuditSink(Path dir) {
+        this.dir = dir;
+    }
+
+    @Override
+    public void escribir(List<AuditEvento> lote) throws IOException {
+        BufferedWriter w = writerFor(LocalDate.now());
+        for (AuditEvento e : lote) {
+            w.write(e.instante().toString());
+            w.write('\t');
+            w.write(e.tipo().name());
+            w.write('\t');
+            w.write(String.valueOf(e.usuario()));
+            w.write('\t');
+            w.write(e.detalle() == null ? "" : e.detalle().replace('\n', ' ').replace('\t', ' '));
+            w.newLine();
+        }
+        w.flush();
+    }
+
+    private BufferedWriter writerFor(LocalDate day) throws IOException {
+        if (!day.equals(currentDay)) {
+            if (writer != null) writer.close();
+            Files.createDirectories(dir);
+            writer = Files.newBufferedWriter(dir.resolve("audit-" + day + ".log"), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            currentDay = day;
+        }
+        return writer;
+    }
+
+    void close() throws IOException {
+        if (writer != null) writer.close();
+    }
+}
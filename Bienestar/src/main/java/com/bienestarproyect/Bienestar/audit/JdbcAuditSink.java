@@ -0,0 +1,30 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Batched INSERT into the auditoria table (V3 migration).
+ */
+public class JdbcAuditSink implements AuditSink {
+
+    private static final String SQL = "INSERT INTO auditoria (tipo, usuario, detalle, instante) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+
+    public JdbcAuditSink(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void escribir(List<AuditEvento> lote) {
+        jdbc.batchUpdate(SQL, lote, lote.size(), (ps, e) -> {
+            ps.setString(1, e.tipo().name());
+            ps.setString(2, e.usuario());
+            ps.setString(3, e.detalle());
+            ps.setTimestamp(4, Timestamp.valueOf(e.instante()));
+        });
+    }
+}
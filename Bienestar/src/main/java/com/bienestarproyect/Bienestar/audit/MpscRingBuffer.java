@@ -0,0 +1,80 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer (Vyukov-style sequence per slot).
+ *
+ * Producers never block: when the buffer is full {@link #offer} returns false and the caller
+ * decides what to do (the audit pipeline drops the newest event and counts it).
+ * {@link #poll} and {@link #drainTo} must only be called from one consumer thread.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) throw new IllegalArgumentException("capacity must be >= 2");
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) sequences.set(i, i);
+    }
+
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        while (true) {
+            long t = tail.get();
+            int idx = (int) (t & mask);
+            long diff = sequences.get(idx) - t;
+            if (diff == 0) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    slots.lazySet(idx, e);
+                    sequences.set(idx, t + 1); // publish to the consumer
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // full: the slot still holds an element from the previous lap
+            }
+            // diff > 0: another producer claimed this position, retry with the new tail
+        }
+    }
+
+    public E poll() {
+        long h = head;
+        int idx = (int) (h & mask);
+        if (sequences.get(idx) != h + 1) return null; // empty or producer not yet published
+        E e = slots.get(idx);
+        slots.lazySet(idx, null);
+        sequences.set(idx, h + capacity); // free the slot for the next lap
+        head = h + 1;
+        return e;
+    }
+
+    public int drainTo(List<? super E> target, int max) {
+        int n = 0;
+        E e;
+        while (n < max && (e = poll()) != null) {
+            target.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int capacity() { return capacity; }
+
+    /** Approximate number of elements; exact only when producers are idle. */
+    public int size() {
+        long s = tail.get() - head;
+        return (int) Math.max(0, Math.min(s, capacity));
+    }
+}
@@ -0,0 +1,213 @@
+package com.bienestarproyect.Bienestar.batch;
+
+import com.bienestarproyect.Bienestar.dto.LotePeticion;
+import com.bienestarproyect.Bienestar.dto.LoteRespuesta;
+import com.bienestarproyect.Bienestar.monitoring.PersistenceWatchdog;
+import com.bienestarproyect.Bienestar.replica.ReplicaRoutingDataSource;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta las operaciones de POST /api/batch a través del propio DispatcherServlet, sin salir por la red:
+ * mismos controladores, validación, manejadores de errores y enrutado a réplicas que una petición suelta.
+ *
+ * Las operaciones se ejecutan en orden. Las lecturas (GET) seguidas se lanzan a la vez en un pool acotado
+ * ({@code app.batch.hilos}); una escritura espera a todo lo anterior y lo siguiente espera a la escritura,
+ * así que cada operación ve los cambios de las anteriores. Con el pool lleno, la operación se ejecuta en el
+ * hilo de la petición.
+ *
+ * La petición del lote ya pasó la cadena de Spring Security, pero sus operaciones no: cada una se autoriza
+ * con las mismas reglas de URL ({@link WebInvocationPrivilegeEvaluator}) antes de despacharla (403 si no).
+ * No se admiten lotes anidados.
+ *
+ * Todo lo que lee la petición o la sesión del lote (autorización, {@link SubPeticion}, si las lecturas van a
+ * la primaria por una escritura reciente) se resuelve en el hilo del lote antes de lanzar cada tramo; los
+ * hilos del pool solo despachan. Cada operación abre su propio recuento en {@link PersistenceWatchdog}.
+ */
+@Service
+public class LoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoteService.class);
+    private static final Set<String> METODOS = Set.of("GET", "POST", "PUT", "PATCH", "DELETE");
+    public static final String RUTA = "/api/batch";
+
+    /** Operación lista para despachar, o ya resuelta ({@code rechazo}) sin llegar al DispatcherServlet. */
+    private record Preparada(LotePeticion.Operacion op, SubPeticion req, LoteRespuesta.Resultado rechazo) {}
+
+    private final DispatcherServlet dispatcher;
+    private final WebInvocationPrivilegeEvaluator autorizacion;
+    private final PersistenceWatchdog watchdog;
+    private final ObjectMapper mapper;
+    private final ThreadPoolExecutor pool;
+    private final int maxOperaciones;
+    private final Timer tiempo;
+    private final Counter operaciones;
+    private final Counter paralelas;
+
+    public LoteService(DispatcherServlet dispatcher, WebInvocationPrivilegeEvaluator autorizacion, PersistenceWatchdog watchdog,
+                       ObjectMapper mapper, Environment env, MeterRegistry meterRegistry) {
+        this.dispatcher = dispatcher;
+        this.autorizacion = autorizacion;
+        this.watchdog = watchdog;
+        this.mapper = mapper;
+        this.maxOperaciones = env.getProperty("app.batch.max-operaciones", Integer.class, 20);
+        int hilos = env.getProperty("app.batch.hilos", Integer.class, 4);
+        int cola = env.getProperty("app.batch.cola", Integer.class, 64);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cola), r -> {
+            Thread t = new Thread(r, "batch-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.tiempo = Timer.builder("bienestar.batch").register(meterRegistry);
+        this.operaciones = Counter.builder("bienestar.batch.operaciones").register(meterRegistry);
+        this.paralelas = Counter.builder("bienestar.batch.operaciones.paralelas").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /** Motivo para rechazar el lote entero (400), o null. */
+    public String rechazo(List<LotePeticion.Operacion> ops) {
+        return ops.size() > maxOperaciones ? "Como mucho " + maxOperaciones + " operaciones por lote" : null;
+    }
+
+    public LoteRespuesta ejecutar(List<LotePeticion.Operacion> ops, HttpServletRequest peticion, HttpServletResponse respuesta) {
+        return tiempo.record(() -> {
+            LoteRespuesta.Resultado[] resultados = new LoteRespuesta.Resultado[ops.size()];
+            SecurityContext seguridad = SecurityContextHolder.getContext();
+            boolean escrito = false;
+            int i = 0;
+            while (i < ops.size()) {
+                int fin = i + 1;
+                if (lectura(ops.get(i))) {
+                    while (fin < ops.size() && lectura(ops.get(fin))) fin++;
+                }
+                // tras una escritura del lote, sus lecturas van a la primaria aunque no haya sesión que marcar
+                boolean primaria = escrito || ReplicaRoutingDataSource.escrituraReciente();
+                List<Preparada> tramo = new ArrayList<>(fin - i);
+                for (int k = i; k < fin; k++) tramo.add(preparar(ops.get(k), peticion, primaria));
+                if (fin - i == 1) {
+                    resultados[i] = despachar(tramo.get(0), respuesta);
+                    if (!lectura(ops.get(i))) escrito = true;
+                } else {
+                    List<CompletableFuture<Void>> futuros = new ArrayList<>(fin - i);
+                    for (int k = i; k < fin; k++) {
+                        int idx = k;
+                        Preparada p = tramo.get(k - i);
+                        futuros.add(CompletableFuture.runAsync(() -> {
+                            // con el pool lleno corre en el hilo de la petición: se deja el contexto como estaba
+                            SecurityContext previo = SecurityContextHolder.getContext();
+                            SecurityContextHolder.setContext(seguridad);
+                            try {
+                                resultados[idx] = despachar(p, respuesta);
+                            } finally {
+                                SecurityContextHolder.setContext(previo);
+                            }
+                        }, pool));
+                    }
+                    CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).join();
+                    paralelas.increment(fin - i);
+                }
+                i = fin;
+            }
+            operaciones.increment(ops.size());
+            return new LoteRespuesta(List.of(resultados));
+        });
+    }
+
+    private static boolean lectura(LotePeticion.Operacion op) {
+        return op.metodo() != null && "GET".equalsIgnoreCase(op.metodo().trim());
+    }
+
+    // en el hilo del lote: valida, autoriza y copia de la petición lo que la operación necesita
+    private Preparada preparar(LotePeticion.Operacion op, HttpServletRequest peticion, boolean primaria) {
+        String metodo = op.metodo() != null ? op.metodo().trim().toUpperCase(Locale.ROOT) : "";
+        String ruta = op.ruta() != null ? op.ruta().trim() : "";
+        String rechazo = rechazo(metodo, ruta);
+        if (rechazo != null) return new Preparada(op, null, error(op, HttpStatus.BAD_REQUEST, rechazo));
+
+        String soloRuta = ruta.contains("?") ? ruta.substring(0, ruta.indexOf('?')) : ruta;
+        if (!autorizacion.isAllowed(peticion.getContextPath(), soloRuta, metodo, SecurityContextHolder.getContext().getAuthentication())) {
+            return new Preparada(op, null, error(op, HttpStatus.FORBIDDEN, "Acceso denegado a " + metodo + " " + soloRuta));
+        }
+        try {
+            byte[] cuerpo = op.cuerpo() != null && !op.cuerpo().isNull() ? mapper.writeValueAsBytes(op.cuerpo()) : null;
+            return new Preparada(op, new SubPeticion(peticion, metodo, ruta, op.cabeceras(), cuerpo, primaria), null);
+        } catch (IOException e) {
+            return new Preparada(op, null, error(op, HttpStatus.BAD_REQUEST, "Cuerpo no válido"));
+        }
+    }
+
+    private LoteRespuesta.Resultado despachar(Preparada p, HttpServletResponse respuesta) {
+        if (p.rechazo() != null) return p.rechazo();
+        SubPeticion req = p.req();
+        watchdog.beginRequest();
+        try {
+            SubRespuesta res = new SubRespuesta(respuesta);
+            dispatcher.service(req, res);
+            return new LoteRespuesta.Resultado(p.op().id(), res.status(), res.cabeceras(), cuerpo(res));
+        } catch (Exception e) {
+            log.warn("Operación {} {} del lote falló: {}", req.getMethod(), req.getServletPath(), e.toString());
+            return error(p.op(), HttpStatus.INTERNAL_SERVER_ERROR, "Error interno");
+        } finally {
+            // el mismo nombre que una petición suelta (/api/citas/{id}): se agrupan con ellas
+            Object patron = req.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            watchdog.endRequest(req.getMethod() + " " + (patron != null ? patron : req.getRequestURI()));
+        }
+    }
+
+    private static String rechazo(String metodo, String ruta) {
+        if (!METODOS.contains(metodo)) return "Método no admitido: " + metodo;
+        if (!ruta.startsWith("/api/") || ruta.contains("..") || ruta.contains("//") || ruta.contains("#")) {
+            return "Ruta no válida: " + ruta;
+        }
+        if (ruta.equals(RUTA) || ruta.startsWith(RUTA + "?") || ruta.startsWith(RUTA + "/")) return "No se admiten lotes anidados";
+        return null;
+    }
+
+    private JsonNode cuerpo(SubRespuesta res) throws IOException {
+        byte[] b = res.cuerpo();
+        if (b.length == 0) return null;
+        String tipo = res.getContentType();
+        if (tipo != null && tipo.toLowerCase(Locale.ROOT).contains("json")) return mapper.readTree(b);
+        return TextNode.valueOf(new String(b, StandardCharsets.UTF_8));
+    }
+
+    private static LoteRespuesta.Resultado error(LotePeticion.Operacion op, HttpStatus status, String mensaje) {
+        return new LoteRespuesta.Resultado(op.id(), status.value(), Map.of(), TextNode.valueOf(mensaje));
+    }
+}
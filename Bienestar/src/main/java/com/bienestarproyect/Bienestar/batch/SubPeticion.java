@@ -0,0 +1,202 @@
+package com.bienestarproyect.Bienestar.batch;
+
+import com.bienestarproyect.Bienestar.replica.ReplicaRoutingDataSource;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Una operación de un lote vista como petición HTTP propia: método, ruta, query, cabeceras y cuerpo son los
+ * de la operación; usuario y conexión son los de la petición del lote.
+ *
+ * Se construye en el hilo del lote y copia lo que necesita de la petición original, porque las lecturas se
+ * despachan en los hilos del pool y la petición del contenedor no es thread-safe. Por lo mismo, una lectura
+ * (GET) no tiene sesión: trae ya decidido si lee de la primaria ({@link ReplicaRoutingDataSource#PETICION_PRIMARIA}).
+ * Las escrituras, que corren de una en una en el hilo del lote, usan la sesión del lote.
+ *
+ * Los atributos no se comparten con la petición original: DispatcherServlet guarda en ellos la ruta
+ * resuelta, el handler y las variables de la URI, y las operaciones de un lote se despachan a la vez.
+ * Las cabeceras de contenido, condicionales (If-*), Accept e Idempotency-Key no se heredan del lote
+ * (cada operación puede llevar la suya en {@code cabeceras}).
+ */
+class SubPeticion extends HttpServletRequestWrapper {
+
+    private final String metodo;
+    private final String ruta;
+    private final String query;
+    private final Map<String, String[]> parametros;
+    private final Map<String, List<String>> cabeceras = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, Object> atributos = new HashMap<>();
+    private final byte[] cuerpo;
+    private final String contextPath;
+    private final String scheme;
+    private final String serverName;
+    private final int serverPort;
+    private final boolean secure;
+    private final String remoteAddr;
+    private final List<Locale> locales;
+
+    SubPeticion(HttpServletRequest lote, String metodo, String rutaConQuery, Map<String, String> propias, byte[] cuerpo,
+                boolean primaria) {
+        super(lote);
+        this.contextPath = lote.getContextPath();
+        this.scheme = lote.getScheme();
+        this.serverName = lote.getServerName();
+        this.serverPort = lote.getServerPort();
+        this.secure = lote.isSecure();
+        this.remoteAddr = lote.getRemoteAddr();
+        this.locales = Collections.list(lote.getLocales());
+        atributos.put(ReplicaRoutingDataSource.PETICION_PRIMARIA, primaria);
+        int q = rutaConQuery.indexOf('?');
+        this.metodo = metodo;
+        this.ruta = q >= 0 ? rutaConQuery.substring(0, q) : rutaConQuery;
+        this.query = q >= 0 ? rutaConQuery.substring(q + 1) : null;
+        this.parametros = parsear(query);
+        this.cuerpo = cuerpo != null ? cuerpo : new byte[0];
+
+        for (Enumeration<String> e = lote.getHeaderNames(); e.hasMoreElements(); ) {
+            String nombre = e.nextElement();
+            if (heredable(nombre)) cabeceras.put(nombre, Collections.list(lote.getHeaders(nombre)));
+        }
+        cabeceras.put(HttpHeaders.ACCEPT, List.of("application/json"));
+        if (this.cuerpo.length > 0) cabeceras.put(HttpHeaders.CONTENT_TYPE, List.of("application/json"));
+        if (propias != null) propias.forEach((k, v) -> cabeceras.put(k, List.of(v)));
+    }
+
+    private static boolean heredable(String nombre) {
+        String n = nombre.toLowerCase(Locale.ROOT);
+        return !(n.startsWith("content-") || n.startsWith("if-") || n.equals("accept") || n.equals("accept-encoding")
+                || n.equals("transfer-encoding") || n.equals("idempotency-key"));
+    }
+
+    private static Map<String, String[]> parsear(String query) {
+        Map<String, List<String>> m = new LinkedHashMap<>();
+        if (query != null && !query.isEmpty()) {
+            for (String par : query.split("&")) {
+                if (par.isEmpty()) continue;
+                int i = par.indexOf('=');
+                String k = URLDecoder.decode(i >= 0 ? par.substring(0, i) : par, StandardCharsets.UTF_8);
+                String v = i >= 0 ? URLDecoder.decode(par.substring(i + 1), StandardCharsets.UTF_8) : "";
+                m.computeIfAbsent(k, x -> new ArrayList<>()).add(v);
+            }
+        }
+        Map<String, String[]> r = new LinkedHashMap<>();
+        m.forEach((k, v) -> r.put(k, v.toArray(String[]::new)));
+        return Collections.unmodifiableMap(r);
+    }
+
+    @Override public String getMethod() { return metodo; }
+    @Override public String getContextPath() { return contextPath; }
+    @Override public String getScheme() { return scheme; }
+    @Override public String getServerName() { return serverName; }
+    @Override public int getServerPort() { return serverPort; }
+    @Override public boolean isSecure() { return secure; }
+    @Override public String getRemoteAddr() { return remoteAddr; }
+    @Override public Locale getLocale() { return locales.isEmpty() ? Locale.getDefault() : locales.get(0); }
+    @Override public Enumeration<Locale> getLocales() { return Collections.enumeration(locales); }
+
+    @Override public HttpSession getSession(boolean create) {
+        if (!lectura()) return super.getSession(create);
+        if (create) throw new IllegalStateException("Sin sesión en las lecturas de /api/batch");
+        return null;
+    }
+    @Override public HttpSession getSession() { return getSession(true); }
+
+    private boolean lectura() {
+        return "GET".equals(metodo) || "HEAD".equals(metodo);
+    }
+    @Override public String getRequestURI() { return getContextPath() + ruta; }
+    @Override public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort()).append(getRequestURI());
+        return url;
+    }
+    @Override public String getServletPath() { return ruta; }
+    @Override public String getPathInfo() { return null; }
+    @Override public String getQueryString() { return query; }
+    @Override public DispatcherType getDispatcherType() { return DispatcherType.REQUEST; }
+
+    @Override public String getParameter(String name) {
+        String[] v = parametros.get(name);
+        return v != null && v.length > 0 ? v[0] : null;
+    }
+    @Override public Map<String, String[]> getParameterMap() { return parametros; }
+    @Override public Enumeration<String> getParameterNames() { return Collections.enumeration(parametros.keySet()); }
+    @Override public String[] getParameterValues(String name) { return parametros.get(name); }
+
+    @Override public String getHeader(String name) {
+        List<String> v = cabeceras.get(name);
+        return v != null && !v.isEmpty() ? v.get(0) : null;
+    }
+    @Override public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(cabeceras.getOrDefault(name, List.of()));
+    }
+    @Override public Enumeration<String> getHeaderNames() { return Collections.enumeration(cabeceras.keySet()); }
+    @Override public int getIntHeader(String name) {
+        String v = getHeader(name);
+        return v != null ? Integer.parseInt(v) : -1;
+    }
+    @Override public long getDateHeader(String name) {
+        String v = getHeader(name);
+        if (v == null) return -1;
+        HttpHeaders h = new HttpHeaders();
+        h.set(name, v);
+        return h.getFirstDate(name);
+    }
+
+    @Override public String getContentType() { return getHeader(HttpHeaders.CONTENT_TYPE); }
+    @Override public int getContentLength() { return cuerpo.length; }
+    @Override public long getContentLengthLong() { return cuerpo.length; }
+    @Override public String getCharacterEncoding() { return StandardCharsets.UTF_8.name(); }
+    @Override public void setCharacterEncoding(String env) { }
+
+    @Override public ServletInputStream getInputStream() {
+        ByteArrayInputStream in = new ByteArrayInputStream(cuerpo);
+        return new ServletInputStream() {
+            @Override public int read() { return in.read(); }
+            @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+            @Override public boolean isFinished() { return in.available() == 0; }
+            @Override public boolean isReady() { return true; }
+            @Override public void setReadListener(ReadListener l) { throw new UnsupportedOperationException(); }
+        };
+    }
+    @Override public BufferedReader getReader() {
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(cuerpo), StandardCharsets.UTF_8));
+    }
+
+    @Override public Object getAttribute(String name) { return atributos.get(name); }
+    @Override public Enumeration<String> getAttributeNames() { return Collections.enumeration(new ArrayList<>(atributos.keySet())); }
+    @Override public void setAttribute(String name, Object o) {
+        if (o == null) atributos.remove(name);
+        else atributos.put(name, o);
+    }
+    @Override public void removeAttribute(String name) { atributos.remove(name); }
+
+    // sin asincronía: SSE y demás respuestas diferidas no tienen sentido dentro de un lote
+    @Override public boolean isAsyncSupported() { return false; }
+    @Override public boolean isAsyncStarted() { return false; }
+    @Override public AsyncContext startAsync() { throw new IllegalStateException("No disponible dentro de /api/batch"); }
+    @Override public AsyncContext startAsync(ServletRequest req, ServletResponse res) { return startAsync(); }
+}
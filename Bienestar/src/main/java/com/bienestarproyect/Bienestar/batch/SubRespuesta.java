@@ -0,0 +1,142 @@
+package com.bienestarproyect.Bienestar.batch;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Respuesta de una operación de un lote: status, cabeceras y cuerpo se quedan en memoria y nunca llegan a
+ * la respuesta real, que es la del lote. Las cookies se descartan (una operación no cambia la sesión del cliente).
+ */
+class SubRespuesta extends HttpServletResponseWrapper {
+
+    private final ByteArrayOutputStream cuerpo = new ByteArrayOutputStream();
+    private final Map<String, List<String>> cabeceras = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private int status = SC_OK;
+    private String charset = StandardCharsets.UTF_8.name();
+    private Locale locale = Locale.getDefault();
+    private ServletOutputStream out;
+    private PrintWriter writer;
+
+    SubRespuesta(HttpServletResponse lote) {
+        super(lote);
+    }
+
+    int status() {
+        return status;
+    }
+
+    byte[] cuerpo() {
+        if (writer != null) writer.flush();
+        return cuerpo.toByteArray();
+    }
+
+    Map<String, String> cabeceras() {
+        Map<String, String> r = new LinkedHashMap<>();
+        cabeceras.forEach((k, v) -> r.put(k, String.join(", ", v)));
+        return r;
+    }
+
+    @Override public void setStatus(int sc) { status = sc; }
+    @Override public int getStatus() { return status; }
+    @Override public void sendError(int sc) { status = sc; }
+    @Override public void sendError(int sc, String msg) {
+        status = sc;
+        if (msg != null && cuerpo.size() == 0) cuerpo.writeBytes(msg.getBytes(StandardCharsets.UTF_8));
+    }
+    @Override public void sendRedirect(String location) {
+        status = SC_FOUND;
+        setHeader(HttpHeaders.LOCATION, location);
+    }
+
+    @Override public void setHeader(String name, String value) {
+        if (value == null) cabeceras.remove(name);
+        else cabeceras.put(name, new ArrayList<>(List.of(value)));
+    }
+    @Override public void addHeader(String name, String value) {
+        if (value != null) cabeceras.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+    }
+    @Override public void setIntHeader(String name, int value) { setHeader(name, Integer.toString(value)); }
+    @Override public void addIntHeader(String name, int value) { addHeader(name, Integer.toString(value)); }
+    @Override public void setDateHeader(String name, long date) {
+        HttpHeaders h = new HttpHeaders();
+        h.setDate(name, date);
+        setHeader(name, h.getFirst(name));
+    }
+    @Override public void addDateHeader(String name, long date) {
+        HttpHeaders h = new HttpHeaders();
+        h.setDate(name, date);
+        addHeader(name, h.getFirst(name));
+    }
+    @Override public boolean containsHeader(String name) { return cabeceras.containsKey(name); }
+    @Override public String getHeader(String name) {
+        List<String> v = cabeceras.get(name);
+        return v != null && !v.isEmpty() ? v.get(0) : null;
+    }
+    @Override public Collection<String> getHeaders(String name) { return List.copyOf(cabeceras.getOrDefault(name, List.of())); }
+    @Override public Collection<String> getHeaderNames() { return List.copyOf(cabeceras.keySet()); }
+    @Override public void addCookie(Cookie cookie) { }
+
+    @Override public void setContentType(String type) {
+        if (type == null) {
+            cabeceras.remove(HttpHeaders.CONTENT_TYPE);
+            return;
+        }
+        int i = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (i >= 0) charset = type.substring(i + 8).trim();
+        setHeader(HttpHeaders.CONTENT_TYPE, type);
+    }
+    @Override public String getContentType() { return getHeader(HttpHeaders.CONTENT_TYPE); }
+    @Override public void setCharacterEncoding(String enc) { if (enc != null) charset = enc; }
+    @Override public String getCharacterEncoding() { return charset; }
+    @Override public void setContentLength(int len) { }
+    @Override public void setContentLengthLong(long len) { }
+    @Override public void setLocale(Locale loc) { locale = loc; }
+    @Override public Locale getLocale() { return locale; }
+
+    @Override public ServletOutputStream getOutputStream() {
+        if (out == null) {
+            out = new ServletOutputStream() {
+                @Override public void write(int b) { cuerpo.write(b); }
+                @Override public void write(byte[] b, int off, int len) { cuerpo.write(b, off, len); }
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener l) { throw new UnsupportedOperationException(); }
+            };
+        }
+        return out;
+    }
+    @Override public PrintWriter getWriter() {
+        if (writer == null) writer = new PrintWriter(new OutputStreamWriter(cuerpo, Charset.forName(charset)));
+        return writer;
+    }
+
+    @Override public void flushBuffer() { if (writer != null) writer.flush(); }
+    @Override public boolean isCommitted() { return false; }
+    @Override public void reset() {
+        resetBuffer();
+        cabeceras.clear();
+        status = SC_OK;
+    }
+    @Override public void resetBuffer() {
+        if (writer != null) writer.flush();
+        cuerpo.reset();
+    }
+    @Override public void setBufferSize(int size) { }
+    @Override public int getBufferSize() { return cuerpo.size(); }
+}
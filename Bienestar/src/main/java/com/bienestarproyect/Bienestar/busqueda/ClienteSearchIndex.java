@@ -0,0 +1,407 @@
+package com.bienestarproyect.Bienestar.busqueda;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas en memoria sobre nombre, email y teléfono de los clientes.
+ *
+ * Cada cliente ocupa un slot; las listas de postings guardan slots en orden creciente
+ * (solo se añade al final), así que la intersección es un merge de listas ordenadas.
+ * Se indexan:
+ * - los trigramas internos de cada campo normalizado (búsqueda por subcadena, 3+ caracteres),
+ * - los prefijos "  a" y " ab" de cada palabra (búsqueda por prefijo de 1-2 caracteres).
+ * Las actualizaciones dejan el slot anterior borrado; cuando los borrados superan un
+ * cuarto de los vivos se reconstruye el índice.
+ *
+ * Ranking: palabra exacta > prefijo de palabra > subcadena, ponderado por campo (nombre pesa más).
+ * Se puntúan todas las coincidencias y un montículo acotado al límite guarda las mejores: cortar el
+ * recorrido tras N coincidencias se quedaría con las de los slots más antiguos, no con las mejores.
+ * Si no hay suficientes coincidencias estrictas se completa con coincidencias aproximadas
+ * por similitud de trigramas (errores de tecleo: "gonzales" encuentra "González").
+ */
+public class ClienteSearchIndex {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern TELEFONO = Pattern.compile("[0-9+()\\-. ]*[0-9][0-9+()\\-. ]*");
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_EMAIL = 2;
+    private static final int PESO_TELEFONO = 2;
+    private static final double SIMILITUD_MINIMA = 0.5;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> slotPorId = new HashMap<>();
+    private final BitSet borrados = new BitSet();
+    private long[] ids = new long[1024];
+    private String[] nombres = new String[1024];
+    private String[] emails = new String[1024];
+    private String[] telefonos = new String[1024];
+    private String[] nNombre = new String[1024];
+    private String[] nEmail = new String[1024];
+    private String[] nTelefono = new String[1024];
+    private int slots;
+
+    // ---- escritura
+
+    /** Añade o reemplaza el cliente (por id). */
+    public void indexar(Cliente c) {
+        if (c == null || c.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer anterior = slotPorId.get(c.getId());
+            if (anterior != null) borrados.set(anterior);
+            slotPorId.put(c.getId(), agregar(c.getId(), c.getNombre(), c.getEmail(), c.getTelefono()));
+            compactarSiHaceFalta();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Como {@link #indexar} pero sin pisar una versión ya indexada (carga inicial concurrente con altas). */
+    public void indexarSiAusente(Cliente c) {
+        if (c == null || c.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            if (!slotPorId.containsKey(c.getId())) {
+                slotPorId.put(c.getId(), agregar(c.getId(), c.getNombre(), c.getEmail(), c.getTelefono()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotPorId.remove(id);
+            if (slot != null) {
+                borrados.set(slot);
+                compactarSiHaceFalta();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotPorId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int agregar(long id, String nombre, String email, String telefono) {
+        int slot = slots++;
+        if (slot == ids.length) crecer();
+        ids[slot] = id;
+        nombres[slot] = nombre;
+        emails[slot] = email;
+        telefonos[slot] = telefono;
+        nNombre[slot] = normalizar(nombre);
+        nEmail[slot] = normalizar(email);
+        nTelefono[slot] = soloDigitos(telefono);
+        // un trigrama repetido dentro del mismo cliente solo se apunta una vez (la lista ya termina en este slot)
+        indexarCampo(nNombre[slot], slot);
+        indexarCampo(nEmail[slot], slot);
+        indexarCampo(nTelefono[slot], slot);
+        return slot;
+    }
+
+    private void indexarCampo(String s, int slot) {
+        if (s.isEmpty()) return;
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            apuntar(trigrama(s.charAt(i), s.charAt(i + 1), s.charAt(i + 2)), slot);
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.isLetterOrDigit(s.charAt(i)) && (i == 0 || !Character.isLetterOrDigit(s.charAt(i - 1)))) {
+                apuntar(trigrama(' ', ' ', s.charAt(i)), slot);
+                if (i + 1 < s.length() && Character.isLetterOrDigit(s.charAt(i + 1))) {
+                    apuntar(trigrama(' ', s.charAt(i), s.charAt(i + 1)), slot);
+                }
+            }
+        }
+    }
+
+    private void apuntar(long trigrama, int slot) {
+        IntList l = postings.computeIfAbsent(trigrama, k -> new IntList());
+        if (l.size == 0 || l.data[l.size - 1] != slot) l.add(slot);
+    }
+
+    private void crecer() {
+        int n = ids.length * 2;
+        ids = Arrays.copyOf(ids, n);
+        nombres = Arrays.copyOf(nombres, n);
+        emails = Arrays.copyOf(emails, n);
+        telefonos = Arrays.copyOf(telefonos, n);
+        nNombre = Arrays.copyOf(nNombre, n);
+        nEmail = Arrays.copyOf(nEmail, n);
+        nTelefono = Arrays.copyOf(nTelefono, n);
+    }
+
+    private void compactarSiHaceFalta() {
+        int muertos = borrados.cardinality();
+        if (muertos < 1024 || muertos < slotPorId.size() / 4) return;
+        long[] viejosIds = ids;
+        String[] viejosNombres = nombres, viejosEmails = emails, viejosTelefonos = telefonos;
+        int viejosSlots = slots;
+        BitSet viejosBorrados = (BitSet) borrados.clone();
+        int capacidad = Math.max(1024, Integer.highestOneBit(Math.max(1, slotPorId.size())) * 2);
+        ids = new long[capacidad];
+        nombres = new String[capacidad];
+        emails = new String[capacidad];
+        telefonos = new String[capacidad];
+        nNombre = new String[capacidad];
+        nEmail = new String[capacidad];
+        nTelefono = new String[capacidad];
+        slots = 0;
+        postings.clear();
+        slotPorId.clear();
+        borrados.clear();
+        for (int s = 0; s < viejosSlots; s++) {
+            if (viejosBorrados.get(s)) continue;
+            slotPorId.put(viejosIds[s], agregar(viejosIds[s], viejosNombres[s], viejosEmails[s], viejosTelefonos[s]));
+        }
+    }
+
+    // ---- lectura
+
+    /** Hasta {@code limite} clientes ordenados por relevancia; todos los términos de la consulta deben coincidir. */
+    public List<Cliente> buscar(String q, int limite) {
+        List<String> terminos = terminos(q);
+        if (terminos.isEmpty() || limite <= 0) return List.of();
+        lock.readLock().lock();
+        try {
+            String[] digitos = terminos.stream().map(ClienteSearchIndex::soloDigitos).toArray(String[]::new);
+            PriorityQueue<long[]> top = new PriorityQueue<>(Comparator.<long[]>comparingLong(a -> a[0]).thenComparingLong(a -> -a[1]));
+            BitSet vistos = new BitSet();
+            // los candidatos salen en orden de slot y a igual score gana el slot menor: en cuanto el top
+            // está lleno de puntuaciones máximas ningún candidato posterior puede entrar y se corta el recorrido
+            long maximo = (long) PESO_NOMBRE * 10 * terminos.size() * 1000L;
+            List<IntList> ls = listas(terminos.stream().flatMapToLong(t -> Arrays.stream(trigramasConsulta(t))).distinct().toArray());
+            if (ls != null) {
+                ls.sort(Comparator.comparingInt(l -> l.size));
+                IntList menor = ls.get(0);
+                int[] pos = new int[ls.size()];
+                for (int i = 0; i < menor.size; i++) {
+                    int slot = menor.data[i];
+                    if (borrados.get(slot) || !enTodas(ls, pos, slot)) continue;
+                    int score = puntuar(slot, terminos, digitos);
+                    if (score > 0) {
+                        vistos.set(slot);
+                        ofrecer(top, limite, score * 1000L, slot);
+                        if (top.size() == limite && top.peek()[0] == maximo) break;
+                    }
+                }
+            }
+            if (top.size() < limite) aproximados(terminos, top, limite, vistos);
+            List<long[]> orden = new ArrayList<>(top);
+            orden.sort(Comparator.<long[]>comparingLong(a -> -a[0]).thenComparingLong(a -> a[1]));
+            List<Cliente> res = new ArrayList<>(orden.size());
+            for (long[] e : orden) res.add(copia((int) e[1]));
+            return res;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void ofrecer(PriorityQueue<long[]> top, int limite, long score, int slot) {
+        if (top.size() < limite) {
+            top.add(new long[]{score, slot});
+        } else {
+            long[] peor = top.peek();
+            if (score > peor[0] || (score == peor[0] && slot < peor[1])) {
+                top.poll();
+                top.add(new long[]{score, slot});
+            }
+        }
+    }
+
+    /** Listas de postings de los trigramas; null si alguno no aparece en ningún cliente. */
+    private List<IntList> listas(long[] trigramas) {
+        List<IntList> ls = new ArrayList<>(trigramas.length);
+        for (long t : trigramas) {
+            IntList l = postings.get(t);
+            if (l == null) return null;
+            ls.add(l);
+        }
+        return ls;
+    }
+
+    // intersección perezosa: la lista menor se recorre entera y en las demás se avanza un cursor
+    private static boolean enTodas(List<IntList> ls, int[] pos, int slot) {
+        for (int k = 1; k < ls.size(); k++) {
+            IntList l = ls.get(k);
+            pos[k] = buscarDesde(l, pos[k], slot);
+            if (pos[k] >= l.size || l.data[pos[k]] != slot) return false;
+        }
+        return true;
+    }
+
+    // búsqueda galopante: las listas más largas se recorren a saltos
+    private static int buscarDesde(IntList l, int desde, int v) {
+        int paso = 1, hi = desde;
+        while (hi < l.size && l.data[hi] < v) {
+            desde = hi + 1;
+            hi += paso;
+            paso <<= 1;
+        }
+        int lo = desde;
+        hi = Math.min(hi, l.size);
+        while (lo < hi) {
+            int m = (lo + hi) >>> 1;
+            if (l.data[m] < v) lo = m + 1; else hi = m;
+        }
+        return lo;
+    }
+
+    private int puntuar(int slot, List<String> terminos, String[] digitos) {
+        int total = 0;
+        for (int k = 0; k < terminos.size(); k++) {
+            String t = terminos.get(k);
+            int s = Math.max(PESO_NOMBRE * coincidencia(nNombre[slot], t),
+                    Math.max(PESO_EMAIL * coincidencia(nEmail[slot], t),
+                            PESO_TELEFONO * coincidencia(nTelefono[slot], digitos[k])));
+            if (s == 0) return 0;
+            total += s;
+        }
+        return total;
+    }
+
+    /** 10 palabra exacta, 6 prefijo de palabra, 3 subcadena, 0 nada. */
+    static int coincidencia(String campo, String t) {
+        if (t.isEmpty() || campo.isEmpty()) return 0;
+        int mejor = 0;
+        int i = campo.indexOf(t);
+        while (i >= 0 && mejor < 10) {
+            boolean inicio = i == 0 || !Character.isLetterOrDigit(campo.charAt(i - 1));
+            int fin = i + t.length();
+            boolean finPalabra = fin == campo.length() || !Character.isLetterOrDigit(campo.charAt(fin));
+            mejor = Math.max(mejor, inicio ? (finPalabra ? 10 : 6) : 3);
+            i = campo.indexOf(t, i + 1);
+        }
+        return mejor;
+    }
+
+    private void aproximados(List<String> terminos, PriorityQueue<long[]> top, int limite, BitSet vistos) {
+        // teléfonos: un dígito cambiado es otro número, no un error de tecleo que convenga tolerar
+        long[] trigramas = terminos.stream().filter(t -> t.length() >= 3 && soloDigitos(t).length() < t.length())
+                .flatMapToLong(t -> Arrays.stream(trigramasSimilitud(t))).distinct().toArray();
+        if (trigramas.length < 3) return;
+        List<IntList> ls = new ArrayList<>();
+        for (long t : trigramas) {
+            IntList l = postings.get(t);
+            if (l != null) ls.add(l);
+        }
+        int minimo = (int) Math.ceil(trigramas.length * SIMILITUD_MINIMA);
+        if (ls.size() < minimo) return;
+        ls.sort(Comparator.comparingInt(l -> l.size));
+        // filtro de prefijo: quien tenga >= minimo trigramas aparece en alguna de las
+        // (listas - minimo + 1) listas más cortas; solo esas se recorren, el resto se consulta por búsqueda binaria
+        int recorridas = ls.size() - minimo + 1;
+        int[] pos = new int[recorridas];
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Comparator.comparingInt(a -> a[0]));
+        for (int k = 0; k < recorridas; k++) heap.add(new int[]{ls.get(k).data[0], k});
+        while (!heap.isEmpty()) {
+            int slot = heap.peek()[0], hits = 0;
+            while (!heap.isEmpty() && heap.peek()[0] == slot) {
+                int k = heap.poll()[1];
+                hits++;
+                if (++pos[k] < ls.get(k).size) heap.add(new int[]{ls.get(k).data[pos[k]], k});
+            }
+            if (vistos.get(slot) || borrados.get(slot)) continue;
+            for (int k = recorridas; k < ls.size() && hits < trigramas.length; k++) {
+                IntList l = ls.get(k);
+                if (Arrays.binarySearch(l.data, 0, l.size, slot) >= 0) hits++;
+            }
+            if (hits >= minimo) {
+                // siempre por debajo de cualquier coincidencia estricta (las estrictas puntúan >= 6000)
+                ofrecer(top, limite, hits * 999L / trigramas.length, slot);
+            }
+        }
+    }
+
+    private Cliente copia(int slot) {
+        Cliente c = new Cliente();
+        c.setId(ids[slot]);
+        c.setNombre(nombres[slot]);
+        c.setEmail(emails[slot]);
+        c.setTelefono(telefonos[slot]);
+        return c;
+    }
+
+    // ---- normalización y trigramas
+
+    /** Minúsculas y sin tildes: "José Núñez" -> "jose nunez". */
+    public static String normalizar(String s) {
+        if (s == null) return "";
+        return MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    static String soloDigitos(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch >= '0' && ch <= '9') sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    /** Términos de búsqueda; un número de teléfono con separadores ("555 12-34") cuenta como uno solo. */
+    static List<String> terminos(String q) {
+        String n = normalizar(q);
+        if (n.isEmpty()) return List.of();
+        if (TELEFONO.matcher(n).matches()) return List.of(soloDigitos(n));
+        List<String> res = new ArrayList<>();
+        for (String t : n.split("\\s+")) {
+            if (!t.isEmpty()) res.add(t);
+        }
+        return res;
+    }
+
+    private static long[] trigramasConsulta(String t) {
+        if (t.length() == 1) return new long[]{trigrama(' ', ' ', t.charAt(0))};
+        if (t.length() == 2) return new long[]{trigrama(' ', t.charAt(0), t.charAt(1))};
+        long[] r = new long[t.length() - 2];
+        for (int i = 0; i < r.length; i++) r[i] = trigrama(t.charAt(i), t.charAt(i + 1), t.charAt(i + 2));
+        return r;
+    }
+
+    private static long[] trigramasSimilitud(String t) {
+        long[] internos = trigramasConsulta(t);
+        long[] r = Arrays.copyOf(internos, internos.length + 2);
+        r[internos.length] = trigrama(' ', ' ', t.charAt(0));
+        r[internos.length + 1] = trigrama(' ', t.charAt(0), t.charAt(1));
+        return r;
+    }
+
+    private static long trigrama(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    /** Lista de enteros sin boxing para los postings. */
+    static final class IntList {
+        int[] data = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = v;
+        }
+    }
+}
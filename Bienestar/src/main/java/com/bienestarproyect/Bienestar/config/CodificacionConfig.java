@@ -0,0 +1,59 @@
+package com.bienestarproyect.Bienestar.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Codificaciones binarias de la API: con {@code Accept: application/cbor} o {@code application/x-jackson-smile}
+ * la respuesta (y el cuerpo de la petición con el Content-Type correspondiente) va en CBOR o Smile en vez de JSON.
+ * Sin Accept, o con un comodín, sigue saliendo JSON: los convertidores binarios van al final de la lista.
+ *
+ * Spring MVC ya registra convertidores CBOR/Smile al ver las librerías, pero con un ObjectMapper por defecto
+ * (fechas como arrays de números). Se sustituyen por otros construidos con el builder de Spring Boot, así que
+ * los tres formatos comparten módulos y opciones {@code spring.jackson.*}.
+ */
+@Configuration
+public class CodificacionConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder builder;
+
+    // el builder de Spring Boot es prototype: esta instancia es solo nuestra
+    public CodificacionConfig(Jackson2ObjectMapperBuilder builder) {
+        this.builder = builder;
+    }
+
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(c -> c instanceof MappingJackson2CborHttpMessageConverter
+                || c instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build()));
+    }
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // la misma URL cambia de representación según Accept: las cachés intermedias deben distinguirlas
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                     @NonNull Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/**");
+    }
+}
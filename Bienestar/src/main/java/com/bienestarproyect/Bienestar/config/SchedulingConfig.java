@@ -0,0 +1,12 @@
+package com.bienestarproyect.Bienestar.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (outbox relay and other periodic maintenance).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
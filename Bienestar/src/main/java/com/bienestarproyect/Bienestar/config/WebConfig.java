@@ -15,8 +15,9 @@ public class WebConfig {
             public void addCorsMappings(@NonNull CorsRegistry registry) {
                 registry.addMapping("/api/**")
                         .allowedOrigins("http://localhost:3000", "http://127.0.0.1:3000")
-                        .allowedMethods("GET","POST","PUT","DELETE","OPTIONS")
+                        .allowedMethods("GET","POST","PUT","PATCH","DELETE","OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders("ETag", "X-Next-Cursor", "Idempotent-Replayed")
                         .allowCredentials(true);
             }
         };
@@ -0,0 +1,22 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.audit.AuditService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Estado del buffer de auditoría: política de desbordamiento y contadores (solo ADMIN).
+ */
+@RestController
+@RequestMapping("/api/admin/auditoria")
+public class AdminAuditoriaController {
+    private final AuditService auditService;
+
+    public AdminAuditoriaController(AuditService auditService){ this.auditService = auditService; }
+
+    @GetMapping("/estado")
+    public Map<String, Object> estado(){ return auditService.estado(); }
+}
@@ -0,0 +1,64 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.entity.FusionCliente;
+import com.bienestarproyect.Bienestar.service.ClienteDeduplicador;
+import com.bienestarproyect.Bienestar.service.TotalesClienteService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantenimiento de clientes (solo ADMIN): deduplicación por email/teléfono canónico y totales de cliente_resumen.
+ */
+@RestController
+@RequestMapping("/api/admin/clientes")
+public class AdminClientesController {
+    private final ClienteDeduplicador deduplicador;
+    private final TotalesClienteService totales;
+
+    public AdminClientesController(ClienteDeduplicador deduplicador, TotalesClienteService totales){
+        this.deduplicador = deduplicador;
+        this.totales = totales;
+    }
+
+    @GetMapping("/deduplicacion")
+    public Map<String, Object> estado(){ return deduplicador.estado(); }
+
+    /**
+     * Lanza la fusión en segundo plano (por email; por teléfono solo con porTelefono=true, una vez revisados los
+     * teléfonos compartidos); 409 si ya hay una en curso.
+     */
+    @PostMapping("/deduplicacion")
+    public ResponseEntity<Map<String, Object>> ejecutar(@RequestParam(name = "porTelefono", defaultValue = "false") boolean porTelefono){
+        boolean lanzada = deduplicador.ejecutarEnSegundoPlano(porTelefono);
+        return ResponseEntity.status(lanzada ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(deduplicador.estado());
+    }
+
+    // registro de fusiones, las más recientes primero (de un cliente conservado si se indica)
+    @GetMapping("/fusiones")
+    public List<FusionCliente> fusiones(@RequestParam(name = "destino", required = false) Long destino,
+                                        @RequestParam(name = "limite", defaultValue = "50") int limite){
+        return deduplicador.fusiones(destino, Math.max(1, Math.min(limite, 500)));
+    }
+
+    /** Devuelve el cliente borrado y lo que se le movió; 404 si la fusión no existe, 409 si ya se deshizo. */
+    @PostMapping("/fusiones/{id}/deshacer")
+    public ResponseEntity<Map<String, Object>> deshacer(@PathVariable("id") Long id){
+        Map<String, Object> r = deduplicador.deshacer(id);
+        return r != null ? ResponseEntity.ok(r) : ResponseEntity.notFound().build();
+    }
+
+    // recalcula cliente_resumen desde citas y facturas sin esperar al cron; devuelve las filas corregidas
+    @PostMapping("/resumen/reconstruir")
+    public Map<String, Integer> reconstruir(){
+        return Map.of("corregidas", totales.reconstruir());
+    }
+}
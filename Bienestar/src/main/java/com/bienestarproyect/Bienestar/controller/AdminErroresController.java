@@ -0,0 +1,24 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.monitoring.ErrorReporter;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Errores no controlados agrupados por huella (solo ADMIN).
+ * La huella es la misma que se devuelve al cliente en la cabecera X-Error-Id.
+ */
+@RestController
+@RequestMapping("/api/admin/errores")
+public class AdminErroresController {
+    private final ErrorReporter errorReporter;
+
+    public AdminErroresController(ErrorReporter errorReporter){ this.errorReporter = errorReporter; }
+
+    @GetMapping
+    public List<Map<String, Object>> listar(){ return errorReporter.snapshot(); }
+}
@@ -0,0 +1,27 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.service.LecturasCompartidas;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecturas compartidas por clave (solo ADMIN, ver SecurityConfig /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/lecturas")
+public class AdminLecturasController {
+    private final LecturasCompartidas lecturas;
+
+    public AdminLecturasController(LecturasCompartidas lecturas){ this.lecturas = lecturas; }
+
+    /** Claves con más llamadas que esperaron a una consulta ya en curso en vez de lanzar la suya. */
+    @GetMapping
+    public List<Map<String, Object>> top(@RequestParam(defaultValue = "20") int limit){
+        return lecturas.top(limit);
+    }
+
+    @DeleteMapping
+    public void reiniciar(){ lecturas.reset(); }
+}
@@ -0,0 +1,33 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.monitoring.PersistenceWatchdog;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vigilancia de la capa de persistencia (solo ADMIN, ver SecurityConfig /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/persistencia")
+public class AdminPersistenciaController {
+    private final PersistenceWatchdog watchdog;
+
+    public AdminPersistenciaController(PersistenceWatchdog watchdog){ this.watchdog = watchdog; }
+
+    /** Sentencias lentas ordenadas por tiempo total, con últimos parámetros y plan. */
+    @GetMapping("/consultas-lentas")
+    public List<Map<String, Object>> consultasLentas(@RequestParam(defaultValue = "20") int limit){
+        return watchdog.topSlowQueries(limit);
+    }
+
+    /** Endpoints que superan el umbral de sentencias por petición o repiten sentencias (N+1). */
+    @GetMapping("/peticiones")
+    public List<Map<String, Object>> peticiones(@RequestParam(defaultValue = "20") int limit){
+        return watchdog.topRequests(limit);
+    }
+
+    @DeleteMapping
+    public void reiniciar(){ watchdog.reset(); }
+}
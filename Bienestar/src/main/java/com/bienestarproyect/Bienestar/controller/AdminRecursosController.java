@@ -0,0 +1,34 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.reserva.ReservaService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Terapeutas y salas (solo ADMIN). Cada cambio reconstruye el calendario de ocupación.
+ */
+@RestController
+@RequestMapping("/api/admin/recursos")
+public class AdminRecursosController {
+    private final ReservaService service;
+
+    public AdminRecursosController(ReservaService service){ this.service = service; }
+
+    @GetMapping
+    public List<Recurso> listar(){ return service.listarRecursos(); }
+
+    @PostMapping
+    public Recurso crear(@Valid @RequestBody Recurso r){
+        r.setId(null);
+        return service.guardarRecurso(r);
+    }
+
+    @PutMapping("/{id}")
+    public Recurso actualizar(@PathVariable("id") Long id, @Valid @RequestBody Recurso r){
+        r.setId(id);
+        return service.guardarRecurso(r);
+    }
+}
@@ -65,8 +65,9 @@ public class AuthController {
      * 3. CLIENT (más bajo)
      * 
      * Si el usuario tiene múltiples roles, retorna el de mayor prioridad.
+     * Package-private y estático para poder medirlo desde los benchmarks JMH.
      */
-    private String determineMainRole(Set<Role> roles) {
+    static String determineMainRole(Set<Role> roles) {
         if (roles == null || roles.isEmpty()) {
             return "ROLE_CLIENT"; // Por defecto, si no tiene roles
         }
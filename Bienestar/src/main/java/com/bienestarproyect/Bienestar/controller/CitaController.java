@@ -1,47 +1,143 @@
 package com.bienestarproyect.Bienestar.controller;
 
+import com.bienestarproyect.Bienestar.dto.CitaAgendaItem;
 import com.bienestarproyect.Bienestar.dto.CitaDTO;
+import com.bienestarproyect.Bienestar.dto.CursorAgenda;
+import com.bienestarproyect.Bienestar.dto.FiltroAgenda;
+import com.bienestarproyect.Bienestar.dto.PaginaAgenda;
 import com.bienestarproyect.Bienestar.entity.*;
+import com.bienestarproyect.Bienestar.idempotencia.IdempotenciaService;
 import com.bienestarproyect.Bienestar.mapper.DTOMapper;
 import com.bienestarproyect.Bienestar.repository.ClienteRepository;
 import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.bienestarproyect.Bienestar.reserva.ReservaService;
 import com.bienestarproyect.Bienestar.service.CitaService;
+import com.bienestarproyect.Bienestar.stream.AgendaBroadcaster;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/citas")
 public class CitaController {
+    static final String SIGUIENTE_CURSOR = "X-Next-Cursor";
+    private static final int LIMITE_MAXIMO = 500;
+
     private final CitaService service;
     private final ClienteRepository clienteRepo;
     private final ServicioRepository servicioRepo;
+    private final AgendaBroadcaster broadcaster;
+    private final IdempotenciaService idempotencia;
+    private final ReservaService reservas;
 
-    public CitaController(CitaService service, ClienteRepository clienteRepo, ServicioRepository servicioRepo){
+    public CitaController(CitaService service, ClienteRepository clienteRepo, ServicioRepository servicioRepo,
+                          AgendaBroadcaster broadcaster, IdempotenciaService idempotencia, ReservaService reservas){
         this.service = service;
         this.clienteRepo = clienteRepo;
         this.servicioRepo = servicioRepo;
+        this.broadcaster = broadcaster;
+        this.idempotencia = idempotencia;
+        this.reservas = reservas;
     }
 
-    @PostMapping
-    public ResponseEntity<?> agendar(@Valid @RequestBody CitaDTO dto){
-        Cliente cliente = clienteRepo.findById(dto.getClienteId()).orElse(null);
-        Servicio servicio = servicioRepo.findById(dto.getServicioId()).orElse(null);
-        if (cliente == null || servicio == null) {
-            return ResponseEntity.badRequest().body("cliente o servicio no encontrado");
+    /**
+     * Agenda en vivo (Server-Sent Events): CITA_AGENDADA, CITA_ACTUALIZADA y CITA_CANCELADA
+     * ya confirmadas, opcionalmente filtradas por servicio. Sustituye al refresco periódico.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(name = "servicioId", required = false) Long servicioId){
+        return broadcaster.subscribe(servicioId);
+    }
+
+    /**
+     * Agenda: citas en [desde, hasta) filtradas por servicio, cliente y estado, ordenadas por fecha.
+     * Si hay más resultados la respuesta lleva X-Next-Cursor, que se reenvía como ?cursor= para la página siguiente.
+     */
+    @GetMapping
+    public ResponseEntity<?> agenda(
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(name = "servicioId", required = false) Long servicioId,
+            @RequestParam(name = "clienteId", required = false) Long clienteId,
+            @RequestParam(name = "estado", required = false) EstadoCita estado,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limite", defaultValue = "100") int limite){
+        CursorAgenda despuesDe;
+        try {
+            despuesDe = cursor != null && !cursor.isBlank() ? CursorAgenda.decodificar(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        Cita cita = DTOMapper.toEntity(dto, cliente, servicio);
-        return ResponseEntity.ok(service.agendar(cita));
+        PaginaAgenda pagina = service.agenda(new FiltroAgenda(desde, hasta, servicioId, clienteId, estado, despuesDe),
+                Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (pagina.siguiente() != null) ok.header(SIGUIENTE_CURSOR, pagina.siguiente().codificar());
+        List<CitaAgendaItem> citas = pagina.citas();
+        return ok.body(citas);
     }
 
+    @GetMapping("/{id}")
+    public ResponseEntity<Cita> obtener(@PathVariable("id") Long id){
+        Cita c = service.obtener(id);
+        return c != null ? ResponseEntity.ok().eTag(Versiones.etag(c.getVersion())).body(c) : ResponseEntity.notFound().build();
+    }
+
+    // Idempotency-Key: un reintento con la misma clave devuelve la cita ya creada en vez de duplicarla.
+    // Con recursos dados de alta la cita ocupa terapeuta y sala como una reserva (409 si no están libres,
+    // 400 si fechaHora no cae en :00, :15, :30 o :45)
+    @PostMapping
+    public ResponseEntity<?> agendar(@Valid @RequestBody CitaDTO dto,
+                                     @RequestHeader(name = IdempotenciaService.CABECERA, required = false) String clave){
+        return idempotencia.ejecutar(clave, "POST /api/citas", dto, () -> {
+            Cliente cliente = clienteRepo.findById(dto.getClienteId()).orElse(null);
+            Servicio servicio = servicioRepo.findById(dto.getServicioId()).orElse(null);
+            if (cliente == null || servicio == null) {
+                return ResponseEntity.badRequest().body("cliente o servicio no encontrado");
+            }
+            if (reservas.gestionaRecursos()) {
+                return ResponseEntity.ok(reservas.reservar(cliente, servicio, dto.getFechaHora(), null));
+            }
+            Cita cita = DTOMapper.toEntity(dto, cliente, servicio);
+            return ResponseEntity.ok(service.agendar(cita));
+        });
+    }
+
+    // If-Match: "<version>"; sin la cabecera se reprograma sin comprobar versión. Con recursos, 409 si el nuevo
+    // horario no tiene terapeuta o sala libres (la cita no cambia)
     @PutMapping("/{id}")
-    public Cita actualizar(@PathVariable("id") Long id, @RequestBody CitaDTO dto){
-        // simple: map and set id (validaciones similares que en agendar)
-        Cliente cliente = clienteRepo.findById(dto.getClienteId()).orElse(null);
-        Servicio servicio = servicioRepo.findById(dto.getServicioId()).orElse(null);
+    public ResponseEntity<?> actualizar(@PathVariable("id") Long id, @RequestBody CitaDTO dto,
+                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Cliente cliente = dto.getClienteId() != null ? clienteRepo.findById(dto.getClienteId()).orElse(null) : null;
+        Servicio servicio = dto.getServicioId() != null ? servicioRepo.findById(dto.getServicioId()).orElse(null) : null;
+        if (cliente == null || servicio == null) {
+            return ResponseEntity.badRequest().body("cliente o servicio no encontrado");
+        }
         Cita c = DTOMapper.toEntity(dto, cliente, servicio);
         c.setId(id);
-        return service.actualizar(c);
+        Cita r = service.actualizar(c, Versiones.desdeIfMatch(ifMatch));
+        return r != null ? ResponseEntity.ok().eTag(Versiones.etag(r.getVersion())).body(r) : ResponseEntity.notFound().build();
+    }
+
+    // JSON merge patch: {"fechaHora": ...}, {"estado": "ATENDIDA"}...; admite If-Match como el PUT
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Cita> parchear(@PathVariable("id") Long id, @RequestBody JsonNode parche,
+                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Cita c = service.parchear(id, parche, Versiones.desdeIfMatch(ifMatch));
+        return c != null ? ResponseEntity.ok().eTag(Versiones.etag(c.getVersion())).body(c) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/{id}/atendida")
+    public ResponseEntity<Cita> marcarAtendida(@PathVariable("id") Long id){
+        Cita c = service.marcarAtendida(id);
+        return c != null ? ResponseEntity.ok(c) : ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{id}")
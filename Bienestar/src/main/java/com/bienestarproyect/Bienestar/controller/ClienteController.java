@@ -2,19 +2,31 @@ package com.bienestarproyect.Bienestar.controller;
 
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.bienestarproyect.Bienestar.dto.ClienteDTO;
+import com.bienestarproyect.Bienestar.dto.ClienteListadoItem;
+import com.bienestarproyect.Bienestar.dto.ClienteResumen;
 import com.bienestarproyect.Bienestar.entity.Cliente;
 import com.bienestarproyect.Bienestar.mapper.DTOMapper;
+import com.bienestarproyect.Bienestar.service.ClienteResumenService;
 import com.bienestarproyect.Bienestar.service.ClienteService;
+import com.bienestarproyect.Bienestar.service.TotalesClienteService;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import jakarta.validation.Valid;
 
@@ -22,13 +34,56 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/clientes")
 public class ClienteController {
     private final ClienteService service;
-    public ClienteController(ClienteService service){ this.service = service; }
+    private final ClienteResumenService resumenes;
+    private final TotalesClienteService totales;
+    public ClienteController(ClienteService service, ClienteResumenService resumenes, TotalesClienteService totales){
+        this.service = service;
+        this.resumenes = resumenes;
+        this.totales = totales;
+    }
 
     @GetMapping
     public List<Cliente> listar(){ return service.listar(); }
 
+    // clientes con visitas, última visita y gasto (cliente_resumen), ordenados por orden=gasto|reciente|visitas
+    @GetMapping("/listado")
+    public ResponseEntity<?> listado(@RequestParam(name = "orden", required = false) String orden,
+                                     @RequestParam(name = "pagina", defaultValue = "0") int pagina,
+                                     @RequestParam(name = "limite", defaultValue = "50") int limite){
+        TotalesClienteService.Orden o = TotalesClienteService.Orden.de(orden);
+        if (o == null) return ResponseEntity.badRequest().body("orden debe ser gasto, reciente o visitas");
+        List<ClienteListadoItem> filas = totales.listado(o, Math.max(0, pagina), Math.max(1, Math.min(limite, 500)));
+        return ResponseEntity.ok(filas);
+    }
+
+    // búsqueda por nombre, email o teléfono (parcial, sin tildes, tolera errores de tecleo), ordenada por relevancia
+    @GetMapping("/buscar")
+    public List<Cliente> buscar(@RequestParam("q") String q, @RequestParam(name = "limite", defaultValue = "20") int limite){
+        return service.buscarTexto(q, limite);
+    }
+
+    // búsqueda exacta por email o teléfono en forma canónica (índice único), p. ej. antes de dar de alta
+    @GetMapping("/contacto")
+    public ResponseEntity<Cliente> porContacto(@RequestParam(name = "email", required = false) String email,
+                                               @RequestParam(name = "telefono", required = false) String telefono){
+        Cliente c = service.buscarPorContacto(email, telefono);
+        return c != null ? ResponseEntity.ok(c) : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/{id}")
-    public Cliente obtener(@PathVariable Long id){ return service.buscar(id); }
+    public ResponseEntity<Cliente> obtener(@PathVariable Long id){
+        Cliente c = service.buscar(id);
+        return c != null ? ResponseEntity.ok().eTag(Versiones.etag(c.getVersion())).body(c) : ResponseEntity.notFound().build();
+    }
+
+    // ficha en una petición: cliente, citas y facturas leídos en paralelo; 504 si el propio cliente no llegó a tiempo
+    @GetMapping("/{id}/resumen")
+    public ResponseEntity<ClienteResumen> resumen(@PathVariable Long id){
+        ClienteResumen r = resumenes.resumen(id);
+        if (r == null) return ResponseEntity.notFound().build();
+        if (r.cliente() == null) return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(r);
+        return ResponseEntity.ok(r);
+    }
 
     @PostMapping
     public Cliente crear(@Valid @RequestBody ClienteDTO dto){
@@ -36,11 +91,20 @@ public class ClienteController {
         return service.guardar(c);
     }
 
+    // If-Match: "<version>" (ETag del GET); sin la cabecera se sobrescribe como antes
     @PutMapping("/{id}")
-    public Cliente actualizar(@PathVariable Long id, @Valid @RequestBody ClienteDTO dto){
-        Cliente c = DTOMapper.toEntity(dto);
-        c.setId(id);
-        return service.guardar(c);
+    public ResponseEntity<Cliente> actualizar(@PathVariable Long id, @Valid @RequestBody ClienteDTO dto,
+                                              @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Cliente c = service.actualizar(id, DTOMapper.toEntity(dto), Versiones.desdeIfMatch(ifMatch));
+        return c != null ? ResponseEntity.ok().eTag(Versiones.etag(c.getVersion())).body(c) : ResponseEntity.notFound().build();
+    }
+
+    // JSON merge patch: solo los campos enviados; admite If-Match como el PUT
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Cliente> parchear(@PathVariable Long id, @RequestBody JsonNode parche,
+                                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Cliente c = service.parchear(id, parche, Versiones.desdeIfMatch(ifMatch));
+        return c != null ? ResponseEntity.ok().eTag(Versiones.etag(c.getVersion())).body(c) : ResponseEntity.notFound().build();
     }
 
     @DeleteMapping("/{id}")
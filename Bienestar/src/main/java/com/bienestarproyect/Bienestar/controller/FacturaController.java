@@ -3,6 +3,7 @@ package com.bienestarproyect.Bienestar.controller;
 import com.bienestarproyect.Bienestar.dto.FacturaDTO;
 import com.bienestarproyect.Bienestar.entity.Cliente;
 import com.bienestarproyect.Bienestar.entity.Factura;
+import com.bienestarproyect.Bienestar.idempotencia.IdempotenciaService;
 import com.bienestarproyect.Bienestar.mapper.DTOMapper;
 import com.bienestarproyect.Bienestar.repository.ClienteRepository;
 import com.bienestarproyect.Bienestar.service.FacturaService;
@@ -17,15 +18,24 @@ import java.util.List;
 public class FacturaController {
     private final FacturaService service;
     private final ClienteRepository clienteRepo;
+    private final IdempotenciaService idempotencia;
 
-    public FacturaController(FacturaService service, ClienteRepository clienteRepo){ this.service = service; this.clienteRepo = clienteRepo; }
+    public FacturaController(FacturaService service, ClienteRepository clienteRepo, IdempotenciaService idempotencia){
+        this.service = service;
+        this.clienteRepo = clienteRepo;
+        this.idempotencia = idempotencia;
+    }
 
+    // Idempotency-Key: un reintento con la misma clave devuelve la factura ya emitida en vez de duplicarla
     @PostMapping
-    public ResponseEntity<?> crear(@Valid @RequestBody FacturaDTO dto){
-        Cliente cliente = clienteRepo.findById(dto.getClienteId()).orElse(null);
-        if (cliente == null) return ResponseEntity.badRequest().body("cliente no encontrado");
-        Factura f = DTOMapper.toEntity(dto, cliente);
-        return ResponseEntity.ok(service.crear(f));
+    public ResponseEntity<?> crear(@Valid @RequestBody FacturaDTO dto,
+                                   @RequestHeader(name = IdempotenciaService.CABECERA, required = false) String clave){
+        return idempotencia.ejecutar(clave, "POST /api/facturas", dto, () -> {
+            Cliente cliente = clienteRepo.findById(dto.getClienteId()).orElse(null);
+            if (cliente == null) return ResponseEntity.badRequest().body("cliente no encontrado");
+            Factura f = DTOMapper.toEntity(dto, cliente);
+            return ResponseEntity.ok(service.crear(f));
+        });
     }
 
     @GetMapping("/cliente/{clienteId}")
@@ -0,0 +1,79 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.dto.ListaEsperaDTO;
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.ListaEspera;
+import com.bienestarproyect.Bienestar.espera.ListaEsperaService;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Lista de espera: al cancelarse una cita el hueco se ofrece a la primera inscripción compatible,
+ * que tiene app.lista-espera.oferta-ttl para aceptarlo.
+ */
+@RestController
+@RequestMapping("/api/lista-espera")
+public class ListaEsperaController {
+    private final ListaEsperaService service;
+    private final ClienteRepository clienteRepo;
+    private final ServicioRepository servicioRepo;
+
+    public ListaEsperaController(ListaEsperaService service, ClienteRepository clienteRepo, ServicioRepository servicioRepo){
+        this.service = service;
+        this.clienteRepo = clienteRepo;
+        this.servicioRepo = servicioRepo;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> inscribir(@Valid @RequestBody ListaEsperaDTO dto){
+        if (!clienteRepo.existsById(dto.getClienteId()) || !servicioRepo.existsById(dto.getServicioId())) {
+            return ResponseEntity.badRequest().body("cliente o servicio no encontrado");
+        }
+        if (!dto.getDesde().isBefore(dto.getHasta())) {
+            return ResponseEntity.badRequest().body("desde debe ser anterior a hasta");
+        }
+        ListaEspera e = new ListaEspera();
+        e.setClienteId(dto.getClienteId());
+        e.setServicioId(dto.getServicioId());
+        e.setDesde(dto.getDesde());
+        e.setHasta(dto.getHasta());
+        e.setPrioridad(dto.getPrioridad());
+        return ResponseEntity.ok(service.inscribir(e));
+    }
+
+    /** En espera y con oferta abierta, en el orden en que se les ofrecería un hueco. */
+    @GetMapping
+    public List<ListaEspera> pendientes(@RequestParam("servicioId") Long servicioId){
+        return service.pendientes(servicioId);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ListaEspera> buscar(@PathVariable("id") Long id){
+        ListaEspera e = service.buscar(id);
+        return e != null ? ResponseEntity.ok(e) : ResponseEntity.notFound().build();
+    }
+
+    /** 409 si la oferta ya caducó, se rechazó o el hueco se ocupó. */
+    @PostMapping("/{id}/aceptar")
+    public ResponseEntity<Cita> aceptar(@PathVariable("id") Long id){
+        Cita c = service.aceptar(id);
+        return c != null ? ResponseEntity.ok(c) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/{id}/rechazar")
+    public ResponseEntity<ListaEspera> rechazar(@PathVariable("id") Long id){
+        ListaEspera e = service.rechazar(id);
+        return e != null ? ResponseEntity.ok(e) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ListaEspera> retirar(@PathVariable("id") Long id){
+        ListaEspera e = service.retirar(id);
+        return e != null ? ResponseEntity.ok(e) : ResponseEntity.notFound().build();
+    }
+}
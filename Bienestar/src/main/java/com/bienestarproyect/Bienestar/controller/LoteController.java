@@ -0,0 +1,30 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.batch.LoteService;
+import com.bienestarproyect.Bienestar.dto.LotePeticion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Varias operaciones de la API en una sola petición (arranque de la app móvil): se devuelve un resultado por
+ * operación con su propio status, así que el lote responde 200 aunque alguna operación falle.
+ */
+@RestController
+public class LoteController {
+    private final LoteService service;
+
+    public LoteController(LoteService service){ this.service = service; }
+
+    @PostMapping(LoteService.RUTA)
+    public ResponseEntity<?> ejecutar(@Valid @RequestBody LotePeticion lote, HttpServletRequest request,
+                                      HttpServletResponse response){
+        String rechazo = service.rechazo(lote.operaciones());
+        if (rechazo != null) return ResponseEntity.badRequest().body(rechazo);
+        return ResponseEntity.ok(service.ejecutar(lote.operaciones(), request, response));
+    }
+}
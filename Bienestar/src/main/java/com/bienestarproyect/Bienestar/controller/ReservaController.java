@@ -0,0 +1,54 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import com.bienestarproyect.Bienestar.dto.ReservaDTO;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.bienestarproyect.Bienestar.reserva.Hueco;
+import com.bienestarproyect.Bienestar.reserva.ReservaService;
+import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reservas que ocupan terapeuta (y sala, si el servicio la requiere). Las citas sin recursos
+ * siguen creándose con POST /api/citas.
+ */
+@RestController
+@RequestMapping("/api/reservas")
+public class ReservaController {
+    private final ReservaService service;
+    private final ClienteRepository clienteRepo;
+    private final ServicioRepository servicioRepo;
+
+    public ReservaController(ReservaService service, ClienteRepository clienteRepo, ServicioRepository servicioRepo){
+        this.service = service;
+        this.clienteRepo = clienteRepo;
+        this.servicioRepo = servicioRepo;
+    }
+
+    /** Primer hueco del servicio desde {@code desde} (por defecto, ahora); 404 si no hay en el horizonte. */
+    @GetMapping("/hueco")
+    public ResponseEntity<?> primerHueco(@RequestParam("servicioId") Long servicioId,
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde){
+        Servicio servicio = servicioRepo.findById(servicioId).orElse(null);
+        if (servicio == null) return ResponseEntity.badRequest().body("servicio no encontrado");
+        return service.primerHueco(servicio, desde).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** 409 si no quedan recursos libres a esa hora (o en el horizonte, sin inicio). */
+    @PostMapping
+    public ResponseEntity<?> reservar(@Valid @RequestBody ReservaDTO dto){
+        Cliente cliente = clienteRepo.findById(dto.getClienteId()).orElse(null);
+        Servicio servicio = servicioRepo.findById(dto.getServicioId()).orElse(null);
+        if (cliente == null || servicio == null) {
+            return ResponseEntity.badRequest().body("cliente o servicio no encontrado");
+        }
+        return ResponseEntity.ok(service.reservar(cliente, servicio, dto.getInicio(), dto.getDesde()));
+    }
+}
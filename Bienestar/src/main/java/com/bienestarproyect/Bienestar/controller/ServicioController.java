@@ -2,6 +2,10 @@ package com.bienestarproyect.Bienestar.controller;
 
 import com.bienestarproyect.Bienestar.entity.Servicio;
 import com.bienestarproyect.Bienestar.service.ServicioService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,10 +20,28 @@ public class ServicioController {
     public List<Servicio> listar(){ return service.listar(); }
 
     @PostMapping
-    public Servicio crear(@RequestBody Servicio s){ return service.guardar(s); }
+    public Servicio crear(@RequestBody Servicio s){
+        // alta siempre: id y version los asigna la base (con @Version, una version en el cuerpo haría un merge)
+        s.setId(null);
+        s.setVersion(null);
+        return service.guardar(s);
+    }
 
+    // If-Match: "<version>"; sin la cabecera se sobrescribe como antes
     @PutMapping("/{id}")
-    public Servicio actualizar(@PathVariable Long id, @RequestBody Servicio s){ s.setId(id); return service.guardar(s); }
+    public ResponseEntity<Servicio> actualizar(@PathVariable Long id, @RequestBody Servicio s,
+                                               @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Servicio r = service.actualizar(id, s, Versiones.desdeIfMatch(ifMatch));
+        return r != null ? ResponseEntity.ok().eTag(Versiones.etag(r.getVersion())).body(r) : ResponseEntity.notFound().build();
+    }
+
+    // JSON merge patch: solo los campos enviados; admite If-Match como el PUT
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Servicio> parchear(@PathVariable Long id, @RequestBody JsonNode parche,
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Servicio s = service.parchear(id, parche, Versiones.desdeIfMatch(ifMatch));
+        return s != null ? ResponseEntity.ok().eTag(Versiones.etag(s.getVersion())).body(s) : ResponseEntity.notFound().build();
+    }
 
     @DeleteMapping("/{id}")
     public void eliminar(@PathVariable Long id){ service.eliminar(id); }
@@ -1,7 +1,13 @@
 package com.bienestarproyect.Bienestar.controller;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.bienestarproyect.Bienestar.entity.TransicionInvalidaException;
+import com.bienestarproyect.Bienestar.monitoring.ErrorReporter;
+import com.bienestarproyect.Bienestar.reserva.HoraNoAlineadaException;
+import com.bienestarproyect.Bienestar.reserva.ReservaNoDisponibleException;
+import com.bienestarproyect.Bienestar.service.ClienteDuplicadoException;
+import com.bienestarproyect.Bienestar.service.ParcheInvalidoException;
+import com.bienestarproyect.Bienestar.service.VersionObsoletaException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -9,15 +15,19 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.io.StringWriter;
-import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
 
 @ControllerAdvice
 public class ValidationExceptionHandler {
 
-    private static final Logger log = LoggerFactory.getLogger(ValidationExceptionHandler.class);
+    public static final String ERROR_ID_HEADER = "X-Error-Id";
+
+    private final ErrorReporter errorReporter;
+
+    public ValidationExceptionHandler(ErrorReporter errorReporter) {
+        this.errorReporter = errorReporter;
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -28,18 +38,54 @@ public class ValidationExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    @ExceptionHandler(ParcheInvalidoException.class)
+    public ResponseEntity<Map<String, String>> handleParcheInvalido(ParcheInvalidoException ex) {
+        return ResponseEntity.badRequest().body(ex.getErrores());
+    }
+
+    @ExceptionHandler(TransicionInvalidaException.class)
+    public ResponseEntity<String> handleTransicionInvalida(TransicionInvalidaException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ReservaNoDisponibleException.class)
+    public ResponseEntity<String> handleReservaNoDisponible(ReservaNoDisponibleException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(HoraNoAlineadaException.class)
+    public ResponseEntity<String> handleHoraNoAlineada(HoraNoAlineadaException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ClienteDuplicadoException.class)
+    public ResponseEntity<Map<String, Object>> handleClienteDuplicado(ClienteDuplicadoException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("mensaje", ex.getMessage());
+        body.put("campo", ex.getCampo());
+        body.put("clienteId", ex.getClienteId());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    @ExceptionHandler(VersionObsoletaException.class)
+    public ResponseEntity<String> handleVersionObsoleta(VersionObsoletaException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(ex.getMessage());
+    }
+
+    // @Version en escrituras por entidad gestionada (cancelar, marcar atendida...) sin If-Match
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("El recurso fue modificado por otra petición; reintente");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleAll(Exception ex) {
-        // Log full stacktrace for debugging (include cause). Use logger exception param so stacktrace is visible
-        log.error("Unhandled exception caught in ValidationExceptionHandler", ex);
-        // Also print to stderr to make sure it appears in any consoles that don't show the logger stacktrace
-        ex.printStackTrace(System.err);
-        Throwable cause = ex.getCause();
-        if (cause != null) {
-            log.error("Root cause:", cause);
-            cause.printStackTrace(System.err);
-        }
+        // ErrorReporter cuenta por tipo y deduplica: la traza completa (con causa) se registra
+        // como mucho una vez por intervalo y huella, nunca se escribe en stderr
+        String errorId = errorReporter.report(ex);
         // devolver mensaje simple para debugging; en producción registrar y retornar mensaje genérico
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .header(ERROR_ID_HEADER, errorId)
+                .body(ex.getMessage());
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ETag / If-Match <-> columna @Version. El ETag es la versión entre comillas ("3"), siempre fuerte.
+ */
+final class Versiones {
+    private Versiones(){}
+
+    /**
+     * Versiones que acepta un If-Match, con comparación fuerte (RFC 9110): basta con que coincida cualquier ETag
+     * de la lista y uno débil (W/"3") no coincide nunca. null si no hay precondición (cabecera ausente o "*");
+     * lista vacía si ningún ETag es una versión nuestra, así nunca coincide.
+     */
+    static List<Long> desdeIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+        Set<Long> versiones = new LinkedHashSet<>();
+        for (String etag : ifMatch.split(",")) {
+            String v = etag.trim();
+            if (v.length() < 3 || !v.startsWith("\"") || !v.endsWith("\"")) continue;
+            try {
+                versiones.add(Long.parseLong(v.substring(1, v.length() - 1)));
+            } catch (NumberFormatException e) {
+                // no es un ETag nuestro
+            }
+        }
+        return List.copyOf(versiones);
+    }
+
+    static String etag(Long version) {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de la agenda (GET /api/citas): proyección plana de la cita con los nombres de cliente y servicio,
+ * sin entidades anidadas ni carga perezosa.
+ */
+public record CitaAgendaItem(Long id, LocalDateTime fechaHora, EstadoCita estado, Long version,
+                             Long clienteId, String clienteNombre, Long servicioId, String servicioNombre) {}
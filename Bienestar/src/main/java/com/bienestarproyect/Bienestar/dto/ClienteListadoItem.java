@@ -0,0 +1,8 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** Fila de GET /api/clientes/listado: datos de contacto y los totales de cliente_resumen. */
+public record ClienteListadoItem(Long id, String nombre, String email, String telefono,
+                                 int visitas, LocalDateTime ultimaVisita, int facturas, BigDecimal gastoTotal) {}
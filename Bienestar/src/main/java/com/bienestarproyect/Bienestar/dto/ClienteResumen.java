@@ -0,0 +1,31 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Factura;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ficha del cliente (GET /api/clientes/{id}/resumen): el cliente una sola vez y sus citas y facturas
+ * sin repetirlo en cada elemento. Una parte que no llegó a tiempo va a null y se nombra en {@code incompletos}.
+ */
+public record ClienteResumen(Cliente cliente, List<CitaItem> citas, List<FacturaItem> facturas, List<String> incompletos) {
+
+    public record CitaItem(Long id, LocalDateTime fechaHora, EstadoCita estado, Long servicioId, String servicioNombre) {
+        public static CitaItem de(Cita c) {
+            return new CitaItem(c.getId(), c.getFechaHora(), c.getEstado(),
+                    c.getServicio() != null ? c.getServicio().getId() : null,
+                    c.getServicio() != null ? c.getServicio().getNombre() : null);
+        }
+    }
+
+    public record FacturaItem(Long id, LocalDateTime fecha, BigDecimal total, String descripcion) {
+        public static FacturaItem de(Factura f) {
+            return new FacturaItem(f.getId(), f.getFecha(), f.getTotal(), f.getDescripcion());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en la agenda: (fechaHora, id) de la última cita devuelta. Se envía al cliente opaco
+ * (base64url) en la cabecera X-Next-Cursor y vuelve en ?cursor=.
+ */
+public record CursorAgenda(LocalDateTime fechaHora, Long id) {
+
+    public String codificar() {
+        String s = fechaHora + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException si el cursor no es uno de los generados por {@link #codificar()} */
+    public static CursorAgenda decodificar(String cursor) {
+        try {
+            String s = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = s.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("cursor inválido");
+            return new CursorAgenda(LocalDateTime.parse(s.substring(0, sep)), Long.valueOf(s.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros de la agenda; cualquiera puede ser null. El rango es [desde, hasta).
+ * {@code despuesDe} es la última fila de la página anterior (paginación por clave).
+ */
+public record FiltroAgenda(LocalDateTime desde, LocalDateTime hasta, Long servicioId, Long clienteId,
+                           EstadoCita estado, CursorAgenda despuesDe) {}
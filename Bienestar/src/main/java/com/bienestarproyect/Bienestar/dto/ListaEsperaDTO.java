@@ -0,0 +1,36 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/** Inscripción en lista de espera: cualquier hueco del servicio que empiece en [desde, hasta). */
+public class ListaEsperaDTO {
+    @NotNull(message = "clienteId obligatorio")
+    private Long clienteId;
+
+    @NotNull(message = "servicioId obligatorio")
+    private Long servicioId;
+
+    @NotNull(message = "desde obligatorio")
+    private LocalDateTime desde;
+
+    @NotNull(message = "hasta obligatorio")
+    @Future(message = "hasta debe ser futura")
+    private LocalDateTime hasta;
+
+    // mayor = antes; la asigna recepción (0 por defecto)
+    private int prioridad;
+
+    public ListaEsperaDTO() {}
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    public Long getServicioId() { return servicioId; }
+    public void setServicioId(Long servicioId) { this.servicioId = servicioId; }
+    public LocalDateTime getDesde() { return desde; }
+    public void setDesde(LocalDateTime desde) { this.desde = desde; }
+    public LocalDateTime getHasta() { return hasta; }
+    public void setHasta(LocalDateTime hasta) { this.hasta = hasta; }
+    public int getPrioridad() { return prioridad; }
+    public void setPrioridad(int prioridad) { this.prioridad = prioridad; }
+}
@@ -0,0 +1,22 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cuerpo de POST /api/batch: operaciones que se ejecutan en orden contra los controladores de /api.
+ * {@code ruta} lleva la query (p. ej. "/api/citas?limite=20"); {@code id} es libre y se devuelve tal cual.
+ */
+public record LotePeticion(@NotEmpty(message = "operaciones obligatorias") List<@Valid Operacion> operaciones) {
+
+    public record Operacion(String id,
+                            @NotBlank(message = "metodo obligatorio") String metodo,
+                            @NotBlank(message = "ruta obligatoria") String ruta,
+                            Map<String, String> cabeceras,
+                            JsonNode cuerpo) {}
+}
@@ -0,0 +1,12 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+
+/** Un resultado por operación, en el mismo orden que la petición, cada uno con su status. */
+public record LoteRespuesta(List<Resultado> resultados) {
+
+    public record Resultado(String id, int status, Map<String, String> cabeceras, JsonNode cuerpo) {}
+}
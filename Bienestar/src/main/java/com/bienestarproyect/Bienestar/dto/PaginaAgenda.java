@@ -0,0 +1,6 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import java.util.List;
+
+/** Página de la agenda; {@code siguiente} es null en la última. */
+public record PaginaAgenda(List<CitaAgendaItem> citas, CursorAgenda siguiente) {}
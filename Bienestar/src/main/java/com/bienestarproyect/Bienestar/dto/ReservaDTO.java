@@ -0,0 +1,27 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/** Reserva con recursos: a la hora {@code inicio} o, si no se indica, en el primer hueco desde {@code desde}. */
+public class ReservaDTO {
+    @NotNull(message = "clienteId obligatorio")
+    private Long clienteId;
+
+    @NotNull(message = "servicioId obligatorio")
+    private Long servicioId;
+
+    private LocalDateTime inicio;
+
+    private LocalDateTime desde;
+
+    public ReservaDTO() {}
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    public Long getServicioId() { return servicioId; }
+    public void setServicioId(Long servicioId) { this.servicioId = servicioId; }
+    public LocalDateTime getInicio() { return inicio; }
+    public void setInicio(LocalDateTime inicio) { this.inicio = inicio; }
+    public LocalDateTime getDesde() { return desde; }
+    public void setDesde(LocalDateTime desde) { this.desde = desde; }
+}
@@ -1,5 +1,6 @@
 package com.bienestarproyect.Bienestar.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -20,17 +21,38 @@ public class Cita {
     private Servicio servicio;
 
     private LocalDateTime fechaHora;
-    private String estado; // AGENDADA, CANCELADA, ATENDIDA
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 50)
+    private EstadoCita estado;
+
+    @Version
+    private Long version;
+
+    // fechaHora para la que ya se envió el recordatorio (ver RecordatorioScheduler); no forma parte del API
+    @JsonIgnore
+    @Column(name = "recordatorio_para")
+    private LocalDateTime recordatorioPara;
 
     public Cita() {}
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public Cliente getCliente() { return cliente; }
     public void setCliente(Cliente cliente) { this.cliente = cliente; }
     public Servicio getServicio() { return servicio; }
     public void setServicio(Servicio servicio) { this.servicio = servicio; }
     public LocalDateTime getFechaHora() { return fechaHora; }
     public void setFechaHora(LocalDateTime fechaHora) { this.fechaHora = fechaHora; }
-    public String getEstado() { return estado; }
-    public void setEstado(String estado) { this.estado = estado; }
+    public EstadoCita getEstado() { return estado; }
+    public void setEstado(EstadoCita estado) { this.estado = estado; }
+
+    /** Cambia el estado validando la transición (ver {@link EstadoCita}). */
+    public void transicionarA(EstadoCita destino) {
+        if (estado == null || !estado.puedePasarA(destino)) {
+            throw new TransicionInvalidaException(estado, destino);
+        }
+        this.estado = destino;
+    }
 }
\ No newline at end of file
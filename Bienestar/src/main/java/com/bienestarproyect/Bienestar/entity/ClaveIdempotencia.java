@@ -0,0 +1,46 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada de un POST con Idempotency-Key. El id es el SHA-256 de usuario, ruta y clave;
+ * la huella, el SHA-256 del cuerpo de la petición. La fila se inserta y se completa en la misma
+ * transacción que el cambio que responde, así que existe si y solo si ese cambio se confirmó.
+ */
+@Entity
+@Table(name = "idempotencia")
+public class ClaveIdempotencia {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    private Integer status;
+
+    @Column(length = 8000)
+    private String cuerpo; // JSON
+
+    @Column(nullable = false)
+    private LocalDateTime creadoEn;
+
+    @Column(nullable = false)
+    private LocalDateTime expiraEn;
+
+    public ClaveIdempotencia() {}
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getHuella() { return huella; }
+    public void setHuella(String huella) { this.huella = huella; }
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+    public String getCuerpo() { return cuerpo; }
+    public void setCuerpo(String cuerpo) { this.cuerpo = cuerpo; }
+    public LocalDateTime getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(LocalDateTime creadoEn) { this.creadoEn = creadoEn; }
+    public LocalDateTime getExpiraEn() { return expiraEn; }
+    public void setExpiraEn(LocalDateTime expiraEn) { this.expiraEn = expiraEn; }
+}
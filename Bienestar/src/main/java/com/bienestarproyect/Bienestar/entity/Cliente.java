@@ -1,8 +1,11 @@
 package com.bienestarproyect.Bienestar.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
+import java.util.Locale;
+
 @Entity
 @Table(name = "clientes")
 @JsonIgnoreProperties({"hibernateLazyInitializer","handler"})
@@ -13,13 +16,46 @@ public class Cliente {
     private String email;
     private String telefono;
 
+    // control optimista de concurrencia; se expone como ETag / If-Match
+    @Version
+    private Long version;
+
+    // formas canónicas (se recalculan en los setters); únicas, ver ClienteDeduplicador
+    @JsonIgnore
+    @Column(name = "email_normalizado")
+    private String emailNormalizado;
+    @JsonIgnore
+    @Column(name = "telefono_normalizado", length = 100)
+    private String telefonoNormalizado;
+
     public Cliente() {}
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) { this.nombre = nombre; }
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) { this.email = email; this.emailNormalizado = normalizarEmail(email); }
     public String getTelefono() { return telefono; }
-    public void setTelefono(String telefono) { this.telefono = telefono; }
+    public void setTelefono(String telefono) { this.telefono = telefono; this.telefonoNormalizado = normalizarTelefono(telefono); }
+    public String getEmailNormalizado() { return emailNormalizado; }
+    public String getTelefonoNormalizado() { return telefonoNormalizado; }
+
+    /** " Ana@Correo.ES " -> "ana@correo.es"; null si está vacío. */
+    public static String normalizarEmail(String email) {
+        if (email == null || email.isBlank()) return null;
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Solo dígitos, con el prefijo internacional "00" escrito como "+": "0034 600-11 22 33" -> "+34600112233". */
+    public static String normalizarTelefono(String telefono) {
+        if (telefono == null) return null;
+        String t = telefono.trim();
+        boolean internacional = t.startsWith("+") || t.startsWith("00");
+        String digitos = t.replaceAll("[^0-9]", "");
+        if (t.startsWith("00")) digitos = digitos.substring(2);
+        if (digitos.isEmpty()) return null;
+        return internacional ? "+" + digitos : digitos;
+    }
 }
\ No newline at end of file
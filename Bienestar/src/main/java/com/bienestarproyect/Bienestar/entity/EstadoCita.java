@@ -0,0 +1,36 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Estados de una cita y transiciones permitidas:
+ * AGENDADA -> ATENDIDA | CANCELADA | NO_ASISTIO. Los demás son finales.
+ */
+public enum EstadoCita {
+    AGENDADA,
+    ATENDIDA,
+    CANCELADA,
+    NO_ASISTIO;
+
+    public Set<EstadoCita> siguientes() {
+        return this == AGENDADA ? EnumSet.of(ATENDIDA, CANCELADA, NO_ASISTIO) : EnumSet.noneOf(EstadoCita.class);
+    }
+
+    /** Estados desde los que se puede llegar a este. */
+    public Set<EstadoCita> anteriores() {
+        EnumSet<EstadoCita> r = EnumSet.noneOf(EstadoCita.class);
+        for (EstadoCita e : values()) {
+            if (e.puedePasarA(this)) r.add(e);
+        }
+        return r;
+    }
+
+    public boolean puedePasarA(EstadoCita destino) {
+        return siguientes().contains(destino);
+    }
+
+    public boolean esFinal() {
+        return this != AGENDADA;
+    }
+}
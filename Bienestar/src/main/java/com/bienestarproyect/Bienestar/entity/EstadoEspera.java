@@ -0,0 +1,14 @@
+package com.bienestarproyect.Bienestar.entity;
+
+/**
+ * Estado de una inscripción en lista de espera. ESPERANDO y OFRECIDA son los únicos no finales:
+ * una oferta se acepta (ACEPTADA, con su cita), se rechaza o caduca.
+ */
+public enum EstadoEspera {
+    ESPERANDO,
+    OFRECIDA,
+    ACEPTADA,
+    RECHAZADA,
+    EXPIRADA,
+    RETIRADA
+}
@@ -20,9 +20,14 @@ public class Factura {
     private LocalDateTime fecha;
     private String descripcion;
 
+    @Version
+    private Long version;
+
     public Factura() {}
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public Cliente getCliente() { return cliente; }
     public void setCliente(Cliente cliente) { this.cliente = cliente; }
     public BigDecimal getTotal() { return total; }
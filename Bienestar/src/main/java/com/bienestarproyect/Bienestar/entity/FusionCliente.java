@@ -0,0 +1,72 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un cliente borrado al fusionar duplicados: sus datos de contacto y cuántas citas, facturas e inscripciones en
+ * espera pasaron a {@code destinoId} (los ids están en clientes_fusiones_movidos). Permite auditar y deshacer.
+ */
+@Entity
+@Table(name = "clientes_fusiones")
+public class FusionCliente {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime fusionadaEn;
+
+    @Column(nullable = false, length = 20)
+    private String criterio; // email, telefono
+
+    @Column(nullable = false)
+    private Long destinoId;
+
+    @Column(nullable = false)
+    private Long origenId;
+
+    private String origenNombre;
+    private String origenEmail;
+    private String origenTelefono;
+    private int citas;
+    private int facturas;
+    private int esperas;
+    private LocalDateTime deshechaEn;
+
+    public FusionCliente() {}
+    public FusionCliente(String criterio, Long destinoId, Cliente origen) {
+        this.fusionadaEn = LocalDateTime.now();
+        this.criterio = criterio;
+        this.destinoId = destinoId;
+        this.origenId = origen.getId();
+        this.origenNombre = origen.getNombre();
+        this.origenEmail = origen.getEmail();
+        this.origenTelefono = origen.getTelefono();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public LocalDateTime getFusionadaEn() { return fusionadaEn; }
+    public void setFusionadaEn(LocalDateTime fusionadaEn) { this.fusionadaEn = fusionadaEn; }
+    public String getCriterio() { return criterio; }
+    public void setCriterio(String criterio) { this.criterio = criterio; }
+    public Long getDestinoId() { return destinoId; }
+    public void setDestinoId(Long destinoId) { this.destinoId = destinoId; }
+    public Long getOrigenId() { return origenId; }
+    public void setOrigenId(Long origenId) { this.origenId = origenId; }
+    public String getOrigenNombre() { return origenNombre; }
+    public void setOrigenNombre(String origenNombre) { this.origenNombre = origenNombre; }
+    public String getOrigenEmail() { return origenEmail; }
+    public void setOrigenEmail(String origenEmail) { this.origenEmail = origenEmail; }
+    public String getOrigenTelefono() { return origenTelefono; }
+    public void setOrigenTelefono(String origenTelefono) { this.origenTelefono = origenTelefono; }
+    public int getCitas() { return citas; }
+    public void setCitas(int citas) { this.citas = citas; }
+    public int getFacturas() { return facturas; }
+    public void setFacturas(int facturas) { this.facturas = facturas; }
+    public int getEsperas() { return esperas; }
+    public void setEsperas(int esperas) { this.esperas = esperas; }
+    public LocalDateTime getDeshechaEn() { return deshechaEn; }
+    public void setDeshechaEn(LocalDateTime deshechaEn) { this.deshechaEn = deshechaEn; }
+}
@@ -0,0 +1,82 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un cliente esperando hueco para un servicio entre {@code desde} y {@code hasta}. Mayor {@code prioridad}
+ * va antes; a igual prioridad, el que se inscribió antes. Mientras hay una oferta abierta
+ * {@code ofertaInicio} es el hueco ofrecido y {@code ofertaExpira} hasta cuándo se puede aceptar.
+ * {@code huecoTraspasado} marca que el hueco de una oferta rechazada o retirada ya pasó a la siguiente.
+ */
+@Entity
+@Table(name = "lista_espera")
+public class ListaEspera {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Column(name = "servicio_id", nullable = false)
+    private Long servicioId;
+
+    @Column(nullable = false)
+    private LocalDateTime desde;
+
+    @Column(nullable = false)
+    private LocalDateTime hasta;
+
+    private int prioridad;
+
+    @Column(nullable = false)
+    private LocalDateTime creada;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private EstadoEspera estado;
+
+    private LocalDateTime ofertaInicio;
+
+    private LocalDateTime ofertaExpira;
+
+    @Column(name = "cita_id")
+    private Long citaId;
+
+    @JsonIgnore
+    @Column(name = "hueco_traspasado", nullable = false)
+    private boolean huecoTraspasado;
+
+    @Version
+    private Long version;
+
+    public ListaEspera() {}
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    public Long getServicioId() { return servicioId; }
+    public void setServicioId(Long servicioId) { this.servicioId = servicioId; }
+    public LocalDateTime getDesde() { return desde; }
+    public void setDesde(LocalDateTime desde) { this.desde = desde; }
+    public LocalDateTime getHasta() { return hasta; }
+    public void setHasta(LocalDateTime hasta) { this.hasta = hasta; }
+    public int getPrioridad() { return prioridad; }
+    public void setPrioridad(int prioridad) { this.prioridad = prioridad; }
+    public LocalDateTime getCreada() { return creada; }
+    public void setCreada(LocalDateTime creada) { this.creada = creada; }
+    public EstadoEspera getEstado() { return estado; }
+    public void setEstado(EstadoEspera estado) { this.estado = estado; }
+    public LocalDateTime getOfertaInicio() { return ofertaInicio; }
+    public void setOfertaInicio(LocalDateTime ofertaInicio) { this.ofertaInicio = ofertaInicio; }
+    public LocalDateTime getOfertaExpira() { return ofertaExpira; }
+    public void setOfertaExpira(LocalDateTime ofertaExpira) { this.ofertaExpira = ofertaExpira; }
+    public Long getCitaId() { return citaId; }
+    public void setCitaId(Long citaId) { this.citaId = citaId; }
+    public boolean isHuecoTraspasado() { return huecoTraspasado; }
+    public void setHuecoTraspasado(boolean huecoTraspasado) { this.huecoTraspasado = huecoTraspasado; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -0,0 +1,55 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Domain event written in the same transaction as the change it describes.
+ * OutboxRelay publishes pending rows (publicadoEn null) in id order.
+ */
+@Entity
+@Table(name = "outbox_eventos")
+public class OutboxEvento {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 40)
+    private String agregado; // CITA, FACTURA, LISTA_ESPERA
+
+    private Long agregadoId;
+
+    @Column(nullable = false, length = 60)
+    private String tipo; // CITA_AGENDADA, CITA_ACTUALIZADA, CITA_CANCELADA, FACTURA_CREADA
+
+    @Column(length = 4000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime creadoEn;
+
+    private LocalDateTime publicadoEn;
+
+    public OutboxEvento() {}
+    public OutboxEvento(String agregado, Long agregadoId, String tipo, String payload) {
+        this.agregado = agregado;
+        this.agregadoId = agregadoId;
+        this.tipo = tipo;
+        this.payload = payload;
+        this.creadoEn = LocalDateTime.now();
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getAgregado() { return agregado; }
+    public void setAgregado(String agregado) { this.agregado = agregado; }
+    public Long getAgregadoId() { return agregadoId; }
+    public void setAgregadoId(Long agregadoId) { this.agregadoId = agregadoId; }
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    public LocalDateTime getCreadoEn() { return creadoEn; }
+    public void setCreadoEn(LocalDateTime creadoEn) { this.creadoEn = creadoEn; }
+    public LocalDateTime getPublicadoEn() { return publicadoEn; }
+    public void setPublicadoEn(LocalDateTime publicadoEn) { this.publicadoEn = publicadoEn; }
+}
@@ -0,0 +1,50 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Terapeuta o sala. {@code capacidad} es cuántas reservas simultáneas admite (1 para un terapeuta,
+ * más para una sala que se puede compartir); {@code habilidades} solo tiene sentido en terapeutas.
+ */
+@Entity
+@Table(name = "recursos")
+@JsonIgnoreProperties({"hibernateLazyInitializer","handler"})
+public class Recurso {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    private String nombre;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private TipoRecurso tipo;
+
+    @Min(1)
+    private int capacidad = 1;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "recurso_habilidades", joinColumns = @JoinColumn(name = "recurso_id"))
+    @Column(name = "habilidad", length = 100)
+    private Set<String> habilidades = new HashSet<>();
+
+    public Recurso() {}
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public TipoRecurso getTipo() { return tipo; }
+    public void setTipo(TipoRecurso tipo) { this.tipo = tipo; }
+    public int getCapacidad() { return capacidad; }
+    public void setCapacidad(int capacidad) { this.capacidad = capacidad; }
+    public Set<String> getHabilidades() { return habilidades; }
+    public void setHabilidades(Set<String> habilidades) { this.habilidades = habilidades != null ? habilidades : new HashSet<>(); }
+}
@@ -0,0 +1,46 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un recurso ocupado por una cita en [inicio, fin). Es lo que se persiste de la reserva; la ocupación
+ * por días en memoria ({@code reserva.CalendarioRecursos}) se reconstruye a partir de estas filas.
+ */
+@Entity
+@Table(name = "reservas_recurso")
+public class ReservaRecurso {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cita_id", nullable = false)
+    private Long citaId;
+
+    @Column(name = "recurso_id", nullable = false)
+    private Long recursoId;
+
+    @Column(name = "servicio_id", nullable = false)
+    private Long servicioId;
+
+    @Column(nullable = false)
+    private LocalDateTime inicio;
+
+    @Column(nullable = false)
+    private LocalDateTime fin;
+
+    public ReservaRecurso() {}
+    public ReservaRecurso(Long citaId, Long recursoId, Long servicioId, LocalDateTime inicio, LocalDateTime fin) {
+        this.citaId = citaId;
+        this.recursoId = recursoId;
+        this.servicioId = servicioId;
+        this.inicio = inicio;
+        this.fin = fin;
+    }
+    public Long getId() { return id; }
+    public Long getCitaId() { return citaId; }
+    public Long getRecursoId() { return recursoId; }
+    public Long getServicioId() { return servicioId; }
+    public LocalDateTime getInicio() { return inicio; }
+    public LocalDateTime getFin() { return fin; }
+}
@@ -0,0 +1,43 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totales por cliente mantenidos en la misma transacción que los cambios que los mueven
+ * (cita atendida, factura creada), para listar clientes por gasto o por última visita sin agregar
+ * citas y facturas en cada fila. {@code service.TotalesClienteService} los recalcula periódicamente.
+ */
+@Entity
+@Table(name = "cliente_resumen")
+public class ResumenCliente {
+    @Id
+    @Column(name = "cliente_id")
+    private Long clienteId;
+
+    @Column(nullable = false)
+    private int visitas;
+
+    @Column(name = "ultima_visita")
+    private LocalDateTime ultimaVisita;
+
+    @Column(nullable = false)
+    private int facturas;
+
+    @Column(name = "gasto_total", nullable = false, precision = 38, scale = 2)
+    private BigDecimal gastoTotal = BigDecimal.ZERO;
+
+    public ResumenCliente() {}
+    public Long getClienteId() { return clienteId; }
+    public void setClienteId(Long clienteId) { this.clienteId = clienteId; }
+    public int getVisitas() { return visitas; }
+    public void setVisitas(int visitas) { this.visitas = visitas; }
+    public LocalDateTime getUltimaVisita() { return ultimaVisita; }
+    public void setUltimaVisita(LocalDateTime ultimaVisita) { this.ultimaVisita = ultimaVisita; }
+    public int getFacturas() { return facturas; }
+    public void setFacturas(int facturas) { this.facturas = facturas; }
+    public BigDecimal getGastoTotal() { return gastoTotal; }
+    public void setGastoTotal(BigDecimal gastoTotal) { this.gastoTotal = gastoTotal; }
+}
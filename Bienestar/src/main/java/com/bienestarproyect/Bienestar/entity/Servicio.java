@@ -2,6 +2,8 @@ package com.bienestarproyect.Bienestar.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.math.BigDecimal;
 
 @Entity
@@ -14,13 +16,35 @@ public class Servicio {
     private String descripcion;
     private BigDecimal precio;
 
+    // reserva con recursos: duración, habilidad del terapeuta, si necesita sala y plazas (>1 = clase de grupo)
+    @Min(1) @Max(1440)
+    private Integer duracionMinutos;
+    @Column(length = 100)
+    private String habilidad;
+    private Boolean requiereSala;
+    @Min(1)
+    private Integer capacidad;
+
+    @Version
+    private Long version;
+
     public Servicio() {}
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) { this.nombre = nombre; }
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     public BigDecimal getPrecio() { return precio; }
     public void setPrecio(BigDecimal precio) { this.precio = precio; }
+    public Integer getDuracionMinutos() { return duracionMinutos; }
+    public void setDuracionMinutos(Integer duracionMinutos) { this.duracionMinutos = duracionMinutos; }
+    public String getHabilidad() { return habilidad; }
+    public void setHabilidad(String habilidad) { this.habilidad = habilidad; }
+    public Boolean getRequiereSala() { return requiereSala; }
+    public void setRequiereSala(Boolean requiereSala) { this.requiereSala = requiereSala; }
+    public Integer getCapacidad() { return capacidad; }
+    public void setCapacidad(Integer capacidad) { this.capacidad = capacidad; }
 }
\ No newline at end of file
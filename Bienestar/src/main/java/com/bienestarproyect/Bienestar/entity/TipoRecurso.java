@@ -0,0 +1,7 @@
+package com.bienestarproyect.Bienestar.entity;
+
+/** Clase de recurso que una reserva puede necesitar. */
+public enum TipoRecurso {
+    TERAPEUTA,
+    SALA
+}
@@ -0,0 +1,14 @@
+package com.bienestarproyect.Bienestar.entity;
+
+/**
+ * Cambio de estado no permitido por {@link EstadoCita}. Se responde con 409.
+ */
+public class TransicionInvalidaException extends RuntimeException {
+    public TransicionInvalidaException(EstadoCita desde, EstadoCita hacia) {
+        super("Transición de cita no permitida: " + desde + " -> " + hacia);
+    }
+
+    public TransicionInvalidaException(String message) {
+        super(message);
+    }
+}
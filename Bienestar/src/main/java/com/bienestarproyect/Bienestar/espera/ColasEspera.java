@@ -0,0 +1,90 @@
+package com.bienestarproyect.Bienestar.espera;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Colas de prioridad de la lista de espera, una por (servicio, día): una inscripción de varios días
+ * está en la cola de cada día de su ventana. Al quedar libre un hueco solo se mira la cola de ese
+ * servicio y día, en orden de prioridad, hasta la primera inscripción cuya ventana contiene el hueco.
+ *
+ * Las inscripciones que salen por otra cola (o se retiran) se borran de forma perezosa: quedan en las
+ * demás colas hasta que llegan a la cabeza y se descartan al no estar ya en {@code activas}.
+ * Solo contiene lo que conoce esta instancia: es una caché que propone la candidata, y
+ * {@link ListaEsperaService} comprueba en la tabla que no hay otra por delante.
+ * No es thread-safe; {@link ListaEsperaService} lo usa bajo su propio cerrojo.
+ */
+class ColasEspera {
+
+    /** Inscripción tal como la necesita el emparejamiento. */
+    record Entrada(long id, long servicioId, LocalDateTime desde, LocalDateTime hasta, int prioridad, LocalDateTime creada) {
+        boolean admite(LocalDateTime hueco) {
+            return !hueco.isBefore(desde) && hueco.isBefore(hasta);
+        }
+    }
+
+    private record Clave(long servicioId, LocalDate dia) {}
+
+    static final Comparator<Entrada> ORDEN = Comparator.comparingInt(Entrada::prioridad).reversed()
+            .thenComparing(Entrada::creada)
+            .thenComparingLong(Entrada::id);
+
+    private final Map<Clave, PriorityQueue<Entrada>> colas = new HashMap<>();
+    private final Map<Long, Entrada> activas = new HashMap<>();
+
+    void agregar(Entrada e) {
+        if (activas.putIfAbsent(e.id(), e) != null) return;
+        for (LocalDate d = e.desde().toLocalDate(); !d.isAfter(e.hasta().toLocalDate()); d = d.plusDays(1)) {
+            colas.computeIfAbsent(new Clave(e.servicioId(), d), k -> new PriorityQueue<>(ORDEN)).add(e);
+        }
+    }
+
+    /**
+     * Saca la inscripción de más prioridad que admite el hueco, o vacío. Las que no lo admiten
+     * (ventana que empieza o acaba ese mismo día) se devuelven a la cola.
+     */
+    Optional<Entrada> extraer(long servicioId, LocalDateTime hueco) {
+        Clave clave = new Clave(servicioId, hueco.toLocalDate());
+        PriorityQueue<Entrada> cola = colas.get(clave);
+        if (cola == null) return Optional.empty();
+        List<Entrada> apartadas = new ArrayList<>();
+        Entrada elegida = null;
+        while (elegida == null && !cola.isEmpty()) {
+            Entrada e = cola.poll();
+            if (activas.get(e.id()) != e) continue;
+            if (e.admite(hueco)) elegida = e;
+            else apartadas.add(e);
+        }
+        cola.addAll(apartadas);
+        if (cola.isEmpty()) colas.remove(clave);
+        if (elegida == null) return Optional.empty();
+        activas.remove(elegida.id());
+        return Optional.of(elegida);
+    }
+
+    void quitar(long id) {
+        activas.remove(id);
+    }
+
+    int size() {
+        return activas.size();
+    }
+
+    /** Olvida las colas de días pasados y las inscripciones cuya ventana ya terminó. */
+    void purgarAntesDe(LocalDateTime ahora) {
+        LocalDate hoy = ahora.toLocalDate();
+        colas.keySet().removeIf(k -> k.dia().isBefore(hoy));
+        Set<Long> vencidas = new HashSet<>();
+        activas.values().forEach(e -> { if (!e.hasta().isAfter(ahora)) vencidas.add(e.id()); });
+        vencidas.forEach(activas::remove);
+    }
+}
@@ -0,0 +1,467 @@
+package com.bienestarproyect.Bienestar.espera;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoEspera;
+import com.bienestarproyect.Bienestar.entity.ListaEspera;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TransicionInvalidaException;
+import com.bienestarproyect.Bienestar.event.CitaEvento;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.bienestarproyect.Bienestar.repository.ListaEsperaRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.bienestarproyect.Bienestar.reserva.Hueco;
+import com.bienestarproyect.Bienestar.reserva.ReservaNoDisponibleException;
+import com.bienestarproyect.Bienestar.reserva.ReservaService;
+import com.bienestarproyect.Bienestar.service.CitaService;
+import com.bienestarproyect.Bienestar.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lista de espera que rellena los huecos de las cancelaciones.
+ *
+ * Al confirmarse una cancelación se empareja el hueco con la inscripción de más prioridad y se le abre
+ * una oferta con caducidad:
+ * - decide la tabla, que ve las inscripciones de todas las instancias; la cola en memoria ({@link ColasEspera})
+ *   es una caché que propone la candidata, y la consulta solo busca las que van por delante de ella,
+ * - la oferta es un UPDATE condicionado a ESPERANDO; si otra instancia se adelantó se prueba la siguiente,
+ * - si hay recursos dados de alta, el hueco queda retenido en el calendario mientras la oferta está abierta,
+ * - al caducar o rechazarse, el mismo hueco pasa a la siguiente inscripción,
+ * - la oferta y su retención viven en la instancia que la abrió, pero se acepta, rechaza o retira desde
+ *   cualquiera: cada {@code app.lista-espera.sincronizacion-ms} se repasan contra la tabla las ofertas abiertas
+ *   aquí, y el hueco de una rechazada o retirada pasa a la siguiente una sola vez (quien reclama el traspaso),
+ * - al arrancar se recargan las inscripciones en espera y las ofertas abiertas (con su caducidad), y se pasan
+ *   los huecos de ofertas cerradas que nadie llegó a traspasar.
+ * Las ofertas se notifican al cliente por el outbox (LISTA_ESPERA_OFERTA).
+ */
+@Service
+public class ListaEsperaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ListaEsperaService.class);
+    public static final String OFERTA = "LISTA_ESPERA_OFERTA";
+    public static final String EXPIRADA = "LISTA_ESPERA_EXPIRADA";
+    private static final int LOTE = 20;
+    private static final EnumSet<EstadoEspera> CERRADAS = EnumSet.of(EstadoEspera.RECHAZADA, EstadoEspera.RETIRADA);
+
+    /** Oferta abierta: el hueco ofrecido y, si hay calendario de recursos, lo que tiene retenido. */
+    private record Oferta(long servicioId, LocalDateTime inicio, Servicio servicio, Hueco retenido) {}
+
+    private final ColasEspera colas = new ColasEspera();
+    private final Map<Long, Oferta> ofertas = new ConcurrentHashMap<>();
+    private final Map<Long, ScheduledFuture<?>> caducidades = new ConcurrentHashMap<>();
+    private final ListaEsperaRepository repo;
+    private final ClienteRepository clientes;
+    private final ServicioRepository servicios;
+    private final CitaService citas;
+    private final ReservaService reservas;
+    private final OutboxService outbox;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final ScheduledExecutorService temporizador;
+    private final Counter ofrecidas;
+    private final Counter aceptadas;
+    private final Counter expiradas;
+    private final Counter sinCandidato;
+
+    public ListaEsperaService(ListaEsperaRepository repo, ClienteRepository clientes, ServicioRepository servicios,
+                              CitaService citas, ReservaService reservas, OutboxService outbox,
+                              PlatformTransactionManager txManager, Environment env, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.clientes = clientes;
+        this.servicios = servicios;
+        this.citas = citas;
+        this.reservas = reservas;
+        this.outbox = outbox;
+        // también se usa desde listeners after-commit, donde solo una transacción nueva llega a confirmarse
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = env.getProperty("app.lista-espera.oferta-ttl", Duration.class, Duration.ofMinutes(15));
+        this.temporizador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lista-espera-ofertas");
+            t.setDaemon(true);
+            return t;
+        });
+        this.ofrecidas = Counter.builder("bienestar.lista_espera").tag("resultado", "ofrecida").register(meterRegistry);
+        this.aceptadas = Counter.builder("bienestar.lista_espera").tag("resultado", "aceptada").register(meterRegistry);
+        this.expiradas = Counter.builder("bienestar.lista_espera").tag("resultado", "expirada").register(meterRegistry);
+        this.sinCandidato = Counter.builder("bienestar.lista_espera").tag("resultado", "sin_candidato").register(meterRegistry);
+        Gauge.builder("bienestar.lista_espera.esperando", this, ListaEsperaService::esperando).register(meterRegistry);
+        Gauge.builder("bienestar.lista_espera.ofertas", ofertas, Map::size).register(meterRegistry);
+    }
+
+    @Order(10)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<ListaEspera> enEspera = repo.findByEstadoAndHastaAfter(EstadoEspera.ESPERANDO, ahora);
+        synchronized (colas) {
+            enEspera.forEach(e -> colas.agregar(entrada(e)));
+        }
+        int abiertas = 0;
+        int caducadas = 0;
+        for (ListaEspera o : repo.findByEstado(EstadoEspera.OFRECIDA)) {
+            Servicio s = servicios.findById(o.getServicioId()).orElse(null);
+            Hueco retenido = s != null && reservas.gestionaRecursos() ? reservas.retener(s, o.getOfertaInicio()).orElse(null) : null;
+            Oferta oferta = new Oferta(o.getServicioId(), o.getOfertaInicio(), s, retenido);
+            ofertas.put(o.getId(), oferta);
+            if (o.getOfertaExpira().isAfter(ahora)) {
+                programarCaducidad(o.getId(), o.getOfertaExpira());
+                abiertas++;
+                continue;
+            }
+            // caducó con la aplicación parada: expirar la pasa a la siguiente (o suelta lo retenido si otra
+            // instancia se adelantó)
+            expirar(o.getId());
+            caducadas++;
+        }
+        // rechazadas o retiradas en otra instancia que se paró antes de pasar el hueco
+        int traspasadas = 0;
+        for (ListaEspera o : repo.findByEstadoInAndHuecoTraspasadoFalseAndOfertaInicioAfter(CERRADAS, ahora)) {
+            if (!reclamarTraspaso(o.getId())) continue;
+            ofrecerHueco(o.getServicioId(), o.getOfertaInicio());
+            traspasadas++;
+        }
+        log.info("Lista de espera: {} inscripciones en espera, {} ofertas abiertas, {} caducadas y {} huecos traspasados al arrancar",
+                enEspera.size(), abiertas, caducadas, traspasadas);
+    }
+
+    @PreDestroy
+    public void stop() {
+        temporizador.shutdownNow();
+    }
+
+    public int esperando() {
+        synchronized (colas) {
+            return colas.size();
+        }
+    }
+
+    @Transactional
+    public ListaEspera inscribir(ListaEspera e) {
+        e.setId(null);
+        e.setVersion(null);
+        e.setCitaId(null);
+        e.setOfertaInicio(null);
+        e.setOfertaExpira(null);
+        e.setEstado(EstadoEspera.ESPERANDO);
+        e.setCreada(LocalDateTime.now());
+        ListaEspera saved = repo.save(e);
+        ColasEspera.Entrada entrada = entrada(saved);
+        despuesDelCommit(() -> {
+            synchronized (colas) {
+                colas.agregar(entrada);
+            }
+        });
+        return saved;
+    }
+
+    @Transactional(readOnly = true)
+    public ListaEspera buscar(Long id) {
+        return repo.findById(id).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ListaEspera> pendientes(Long servicioId) {
+        return repo.findByServicioIdAndEstadoInOrderByPrioridadDescCreadaAscIdAsc(servicioId,
+                EnumSet.of(EstadoEspera.ESPERANDO, EstadoEspera.OFRECIDA));
+    }
+
+    /** Sale de la lista (en espera o con oferta abierta); una oferta abierta pasa a la siguiente. null si no existe. */
+    @Transactional
+    public ListaEspera retirar(Long id) {
+        return cerrar(id, EnumSet.of(EstadoEspera.ESPERANDO, EstadoEspera.OFRECIDA), EstadoEspera.RETIRADA);
+    }
+
+    @Transactional
+    public ListaEspera rechazar(Long id) {
+        return cerrar(id, EnumSet.of(EstadoEspera.OFRECIDA), EstadoEspera.RECHAZADA);
+    }
+
+    /**
+     * Convierte la oferta en cita. Si el hueco estaba retenido se confirma esa retención; si no, se reserva
+     * de nuevo (puede dar 409 si se ocupó). null si no existe.
+     */
+    @Transactional
+    public Cita aceptar(Long id) {
+        ListaEspera o = repo.findById(id).orElse(null);
+        if (o == null) return null;
+        LocalDateTime ahora = LocalDateTime.now();
+        if (o.getEstado() != EstadoEspera.OFRECIDA || !o.getOfertaExpira().isAfter(ahora)) {
+            throw new ReservaNoDisponibleException("La oferta " + id + " ya no está abierta");
+        }
+        Cliente cliente = clientes.findById(o.getClienteId()).orElse(null);
+        Servicio servicio = servicios.findById(o.getServicioId()).orElse(null);
+        if (cliente == null || servicio == null) {
+            throw new ReservaNoDisponibleException("El cliente o el servicio de la oferta " + id + " ya no existen");
+        }
+        Oferta oferta = ofertas.get(id);
+        Cita cita;
+        if (oferta != null && oferta.retenido() != null) {
+            cita = reservas.confirmar(cliente, servicio, oferta.retenido());
+        } else if (reservas.gestionaRecursos()) {
+            cita = reservas.reservar(cliente, servicio, o.getOfertaInicio(), null);
+        } else {
+            Cita c = new Cita();
+            c.setCliente(cliente);
+            c.setServicio(servicio);
+            c.setFechaHora(o.getOfertaInicio());
+            cita = citas.agendar(c);
+        }
+        // la caducidad puede haber ganado entre la lectura y aquí: el UPDATE condicionado decide
+        if (repo.aceptar(id, cita.getId(), ahora, EstadoEspera.OFRECIDA, EstadoEspera.ACEPTADA) == 0) {
+            throw new ReservaNoDisponibleException("La oferta " + id + " ya no está abierta");
+        }
+        despuesDelCommit(() -> {
+            // la retención es ahora la reserva de la cita: no se suelta
+            ofertas.remove(id);
+            cancelarCaducidad(id);
+            aceptadas.increment();
+        });
+        return cita;
+    }
+
+    // después de ReservaService, que libera los recursos de la cita cancelada
+    @Order(10)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCita(CitaEvento e) {
+        if (!CitaEvento.CANCELADA.equals(e.tipo()) || e.servicioId() == null || e.fechaHora() == null) return;
+        if (!e.fechaHora().isAfter(LocalDateTime.now())) return;
+        ofrecerHueco(e.servicioId(), e.fechaHora());
+    }
+
+    /**
+     * Ofertas abiertas aquí que ya no lo están en la tabla: se aceptaron, rechazaron o retiraron en otra instancia,
+     * cuyo after-commit no las encuentra en su mapa. Se dejan de seguir y su hueco pasa a la siguiente o se suelta.
+     */
+    @Scheduled(fixedDelayString = "${app.lista-espera.sincronizacion-ms:5000}",
+            initialDelayString = "${app.lista-espera.sincronizacion-ms:5000}")
+    public void sincronizar() {
+        List<Long> ids = List.copyOf(ofertas.keySet());
+        for (int i = 0; i < ids.size(); i += 1000) {
+            List<Long> lote = ids.subList(i, Math.min(i + 1000, ids.size()));
+            Map<Long, ListaEspera> filas = new HashMap<>();
+            List<ListaEspera> leidas = tx.execute(st -> repo.findAllById(lote));
+            if (leidas != null) leidas.forEach(f -> filas.put(f.getId(), f));
+            for (Long id : lote) {
+                ListaEspera fila = filas.get(id);
+                if (fila != null && fila.getEstado() == EstadoEspera.OFRECIDA) {
+                    // una caducidad que falló (la base no respondía) se vuelve a programar
+                    if (!caducidades.containsKey(id) && ofertas.containsKey(id)) programarCaducidad(id, fila.getOfertaExpira());
+                    continue;
+                }
+                Oferta oferta = ofertas.get(id);
+                // la caducidad o el after-commit de esta instancia pueden haberla quitado entre tanto
+                if (oferta == null || !ofertas.remove(id, oferta)) continue;
+                cancelarCaducidad(id);
+                cerrada(id, oferta, fila != null ? fila.getEstado() : null);
+            }
+        }
+    }
+
+    // inscripciones cuya ventana ya pasó
+    @Scheduled(cron = "${app.lista-espera.purga-cron:0 10 0 * * *}")
+    public void purgar() {
+        synchronized (colas) {
+            colas.purgarAntesDe(LocalDateTime.now());
+        }
+    }
+
+    /** Hueco libre de un servicio: se retiene (si hay recursos) y se ofrece a la mejor inscripción. */
+    void ofrecerHueco(long servicioId, LocalDateTime inicio) {
+        Servicio servicio = null;
+        Hueco retenido = null;
+        if (reservas.gestionaRecursos()) {
+            servicio = servicios.findById(servicioId).orElse(null);
+            if (servicio == null) return;
+            retenido = reservas.retener(servicio, inicio).orElse(null);
+            // otra reserva ya ocupó los recursos: no hay hueco que ofrecer
+            if (retenido == null) return;
+        }
+        ofrecer(new Oferta(servicioId, inicio, servicio, retenido));
+    }
+
+    private void ofrecer(Oferta oferta) {
+        while (true) {
+            ColasEspera.Entrada local;
+            synchronized (colas) {
+                local = colas.extraer(oferta.servicioId(), oferta.inicio()).orElse(null);
+            }
+            // inscripciones de otras instancias (o que esta aún no conoce) pueden ir por delante de la local
+            List<Long> candidatas = new ArrayList<>();
+            List<ListaEspera> delante = tx.execute(st -> local == null
+                    ? repo.candidatas(oferta.servicioId(), oferta.inicio(), EstadoEspera.ESPERANDO, PageRequest.of(0, LOTE))
+                    : repo.candidatasAntesDe(oferta.servicioId(), oferta.inicio(), EstadoEspera.ESPERANDO,
+                            local.prioridad(), local.creada(), local.id(), PageRequest.of(0, LOTE)));
+            if (delante != null) delante.forEach(e -> candidatas.add(e.getId()));
+            if (local != null) candidatas.add(local.id());
+            if (candidatas.isEmpty()) {
+                if (oferta.retenido() != null) reservas.soltar(oferta.servicio(), oferta.retenido());
+                sinCandidato.increment();
+                return;
+            }
+            for (Long id : candidatas) {
+                if (!abrir(id, oferta)) continue;
+                synchronized (colas) {
+                    colas.quitar(id);
+                    // la local no se usó: sigue en espera
+                    if (local != null && local.id() != id) colas.agregar(local);
+                }
+                return;
+            }
+            // todas retiradas u ofrecidas por otra instancia entre tanto: ya no están en ESPERANDO, otra vuelta
+        }
+    }
+
+    private boolean abrir(Long id, Oferta oferta) {
+        LocalDateTime expira = LocalDateTime.now().plus(ttl);
+        Boolean abierta = tx.execute(st -> {
+            if (repo.ofrecer(id, oferta.inicio(), expira, EstadoEspera.ESPERANDO, EstadoEspera.OFRECIDA) == 0) return false;
+            repo.findById(id).ifPresent(o -> outbox.listaEspera(OFERTA, o));
+            return true;
+        });
+        if (!Boolean.TRUE.equals(abierta)) return false;
+        ofertas.put(id, oferta);
+        programarCaducidad(id, expira);
+        ofrecidas.increment();
+        log.info("Hueco {} del servicio {} ofrecido a la inscripción {} hasta {}", oferta.inicio(), oferta.servicioId(), id, expira);
+        return true;
+    }
+
+    private void expirar(Long id) {
+        caducidades.remove(id);
+        // se quita antes del UPDATE: la sincronización y los after-commit ya no la tocan
+        Oferta oferta = ofertas.remove(id);
+        if (oferta == null) return;
+        Boolean expirada;
+        ListaEspera fila;
+        try {
+            expirada = tx.execute(st -> {
+                if (repo.expirar(id, LocalDateTime.now(), EstadoEspera.OFRECIDA, EstadoEspera.EXPIRADA) == 0) return false;
+                repo.findById(id).ifPresent(o -> outbox.listaEspera(EXPIRADA, o));
+                return true;
+            });
+            fila = Boolean.TRUE.equals(expirada) ? null : tx.execute(st -> repo.findById(id).orElse(null));
+        } catch (RuntimeException ex) {
+            // sigue abierta: la sincronización vuelve a programar la caducidad
+            ofertas.putIfAbsent(id, oferta);
+            throw ex;
+        }
+        if (Boolean.TRUE.equals(expirada)) {
+            expiradas.increment();
+            pasarALaSiguiente(oferta);
+        } else if (fila != null && fila.getEstado() == EstadoEspera.OFRECIDA) {
+            // el temporizador se adelantó a ofertaExpira: sigue abierta
+            ofertas.put(id, oferta);
+            programarCaducidad(id, fila.getOfertaExpira());
+        } else {
+            // aceptada, rechazada o retirada en otra instancia, caducada por otra al arrancar, o borrada
+            cerrada(id, oferta, fila != null ? fila.getEstado() : null);
+        }
+    }
+
+    private ListaEspera cerrar(Long id, EnumSet<EstadoEspera> origen, EstadoEspera destino) {
+        // primero el UPDATE y luego la lectura: la entidad devuelta ya trae el estado y la versión nuevos
+        if (repo.transicionar(id, origen, destino) == 0) {
+            ListaEspera actual = repo.findById(id).orElse(null);
+            if (actual == null) return null;
+            throw new TransicionInvalidaException("La inscripción " + id + " está " + actual.getEstado() + " y no puede pasar a " + destino);
+        }
+        despuesDelCommit(() -> {
+            synchronized (colas) {
+                colas.quitar(id);
+            }
+            cancelarCaducidad(id);
+            Oferta oferta = ofertas.remove(id);
+            if (oferta != null) cerrada(id, oferta, destino);
+        });
+        return repo.findById(id).orElse(null);
+    }
+
+    /**
+     * La oferta ya no está abierta y esta instancia deja de seguirla. Si se rechazó o se retiró, la instancia que
+     * reclama el traspaso pasa el hueco a la siguiente; en cualquier otro caso (aceptada, caducada por otra,
+     * borrada, o traspaso ya reclamado) lo retenido se suelta.
+     */
+    private void cerrada(Long id, Oferta oferta, EstadoEspera estado) {
+        if (estado != null && CERRADAS.contains(estado) && reclamarTraspaso(id)) {
+            pasarALaSiguiente(oferta);
+        } else if (oferta.retenido() != null) {
+            // una retención ya confirmada como cita (aceptada aquí) no se suelta: ReservaService la ignora
+            reservas.soltar(oferta.servicio(), oferta.retenido());
+        }
+    }
+
+    private boolean reclamarTraspaso(Long id) {
+        return Boolean.TRUE.equals(tx.execute(st -> repo.traspasar(id, CERRADAS) > 0));
+    }
+
+    // el hueco de una oferta que no se aceptó sigue retenido y va directamente a la siguiente inscripción
+    private void pasarALaSiguiente(Oferta oferta) {
+        if (oferta.inicio().isAfter(LocalDateTime.now())) {
+            ofrecer(oferta);
+        } else if (oferta.retenido() != null) {
+            reservas.soltar(oferta.servicio(), oferta.retenido());
+        }
+    }
+
+    private void programarCaducidad(Long id, LocalDateTime expira) {
+        long ms = Math.max(0, Duration.between(LocalDateTime.now(), expira).toMillis());
+        caducidades.put(id, temporizador.schedule(() -> {
+            try {
+                expirar(id);
+            } catch (RuntimeException ex) {
+                log.warn("No se pudo caducar la oferta {}: {}", id, ex.toString());
+            }
+        }, ms, TimeUnit.MILLISECONDS));
+    }
+
+    private void cancelarCaducidad(Long id) {
+        ScheduledFuture<?> f = caducidades.remove(id);
+        if (f != null) f.cancel(false);
+    }
+
+    private static void despuesDelCommit(Runnable r) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                r.run();
+            }
+        });
+    }
+
+    private static ColasEspera.Entrada entrada(ListaEspera e) {
+        return new ColasEspera.Entrada(e.getId(), e.getServicioId(), e.getDesde(), e.getHasta(), e.getPrioridad(), e.getCreada());
+    }
+}
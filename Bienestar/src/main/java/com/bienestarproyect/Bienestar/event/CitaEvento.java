@@ -0,0 +1,25 @@
+package com.bienestarproyect.Bienestar.event;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+
+import java.time.LocalDateTime;
+
+/**
+ * In-process notification of a Cita change, published by CitaService inside the transaction.
+ * Listeners that react to it use @TransactionalEventListener so they only see committed changes.
+ */
+public record CitaEvento(String tipo, Long citaId, Long clienteId, Long servicioId,
+                         LocalDateTime fechaHora, EstadoCita estado) {
+
+    public static final String AGENDADA = "CITA_AGENDADA";
+    public static final String ACTUALIZADA = "CITA_ACTUALIZADA";
+    public static final String CANCELADA = "CITA_CANCELADA";
+
+    public static CitaEvento de(String tipo, Cita c) {
+        return new CitaEvento(tipo, c.getId(),
+                c.getCliente() != null ? c.getCliente().getId() : null,
+                c.getServicio() != null ? c.getServicio().getId() : null,
+                c.getFechaHora(), c.getEstado());
+    }
+}
@@ -0,0 +1,12 @@
+package com.bienestarproyect.Bienestar.event;
+
+import com.bienestarproyect.Bienestar.entity.Servicio;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by CitaService right before the UPDATE that moves a Cita (PUT, or PATCH of fechaHora/servicioId),
+ * inside the transaction. Unlike {@link CitaEvento}, listeners run synchronously with a plain @EventListener:
+ * an exception (e.g. the resources of the new slot are taken) aborts the update. null fields are unchanged.
+ */
+public record CitaReprogramacion(Long citaId, Servicio servicio, LocalDateTime fechaHora) {}
@@ -0,0 +1,250 @@
+package com.bienestarproyect.Bienestar.idempotencia;
+
+import com.bienestarproyect.Bienestar.entity.ClaveIdempotencia;
+import com.bienestarproyect.Bienestar.repository.ClaveIdempotenciaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key en los POST que crean (citas, facturas): un reintento con la misma clave devuelve la
+ * respuesta guardada, con la cabecera {@code Idempotent-Replayed}, sin volver a ejecutar nada.
+ *
+ * La clave es por usuario y ruta. Se busca primero en un LRU en memoria ({@code app.idempotencia.cache-size})
+ * y luego en la tabla idempotencia, donde la fila se inserta y se completa en la misma transacción que el
+ * alta: si la transacción falla no queda clave y el reintento vuelve a ejecutar. Solo se guardan respuestas
+ * 2xx; caducan a los {@code ttl} y se purgan periódicamente.
+ *
+ * Duplicados a la vez en este nodo esperan a la ejecución en curso (hasta {@code espera}) y devuelven su
+ * respuesta; entre nodos, el INSERT de la clave espera a la otra transacción y acaba repitiendo su respuesta.
+ * La misma clave con otro cuerpo es un 422; si la ejecución en curso no termina a tiempo, 409.
+ */
+@Service
+public class IdempotenciaService {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String REPETIDA = "Idempotent-Replayed";
+    private static final int LONGITUD_MAXIMA = 255;
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    private record Guardada(String huella, int status, String cuerpo, LocalDateTime expira) {
+        static Guardada de(ClaveIdempotencia k) {
+            return new Guardada(k.getHuella(), k.getStatus(), k.getCuerpo(), k.getExpiraEn());
+        }
+    }
+
+    private record EnCurso(String huella, CompletableFuture<ResponseEntity<?>> respuesta) {}
+
+    private record Ejecucion(ResponseEntity<?> respuesta, Guardada guardada) {}
+
+    /** La clave está reservada por otra transacción (de este o de otro nodo). */
+    private static final class ClaveOcupada extends RuntimeException {
+        ClaveOcupada() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final ClaveIdempotenciaRepository repo;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate tx;
+    private final Map<String, Guardada> cache;
+    private final Map<String, EnCurso> enCurso = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Duration espera;
+    private final MeterRegistry meterRegistry;
+
+    public IdempotenciaService(ClaveIdempotenciaRepository repo, ObjectMapper mapper, PlatformTransactionManager txManager,
+                               Environment env, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.mapper = mapper;
+        this.tx = new TransactionTemplate(txManager);
+        this.meterRegistry = meterRegistry;
+        this.ttl = env.getProperty("app.idempotencia.ttl", Duration.class, Duration.ofHours(24));
+        this.espera = env.getProperty("app.idempotencia.espera", Duration.class, Duration.ofSeconds(10));
+        int tamano = env.getProperty("app.idempotencia.cache-size", Integer.class, 10_000);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Guardada> e) {
+                return size() > tamano;
+            }
+        });
+    }
+
+    /**
+     * Ejecuta {@code accion} una sola vez por clave. Sin clave (cabecera ausente) se ejecuta sin más.
+     *
+     * @param ruta     ámbito de la clave, p. ej. "POST /api/citas"
+     * @param peticion cuerpo de la petición; su huella detecta una clave reutilizada con otros datos
+     */
+    public ResponseEntity<?> ejecutar(String clave, String ruta, Object peticion, Supplier<ResponseEntity<?>> accion) {
+        if (clave == null) return accion.get();
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA) {
+            return ResponseEntity.badRequest().body(CABECERA + " debe tener entre 1 y " + LONGITUD_MAXIMA + " caracteres");
+        }
+        String id = sha256((usuario() + '\n' + ruta + '\n' + clave).getBytes(StandardCharsets.UTF_8));
+        String huella = sha256(json(peticion).getBytes(StandardCharsets.UTF_8));
+        while (true) {
+            Guardada g = cache.get(id);
+            if (g != null && g.expira().isAfter(LocalDateTime.now())) return repetir(g, huella, "memoria");
+
+            EnCurso propia = new EnCurso(huella, new CompletableFuture<>());
+            EnCurso otra = enCurso.putIfAbsent(id, propia);
+            if (otra != null) {
+                ResponseEntity<?> r = esperar(otra, huella);
+                if (r != null) return r;
+                continue; // la otra ejecución falló sin guardar nada: se intenta de nuevo
+            }
+            try {
+                ResponseEntity<?> r = primera(id, huella, accion);
+                propia.respuesta().complete(r);
+                return r;
+            } catch (RuntimeException e) {
+                propia.respuesta().completeExceptionally(e);
+                throw e;
+            } finally {
+                enCurso.remove(id, propia);
+            }
+        }
+    }
+
+    /** Borra las claves caducadas de la tabla y del LRU. */
+    @Scheduled(cron = "${app.idempotencia.purga-cron:0 20 * * * *}")
+    public int purgar() {
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (cache) {
+            cache.values().removeIf(g -> !g.expira().isAfter(ahora));
+        }
+        Integer n = tx.execute(s -> repo.purgar(ahora));
+        if (n != null && n > 0) log.debug("idempotencia: {} claves caducadas borradas", n);
+        return n != null ? n : 0;
+    }
+
+    private ResponseEntity<?> primera(String id, String huella, Supplier<ResponseEntity<?>> accion) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Ejecucion e;
+        try {
+            e = tx.execute(s -> {
+                repo.borrarCaducada(id, ahora);
+                ClaveIdempotencia k = repo.findById(id).orElse(null);
+                if (k != null && k.getStatus() != null) {
+                    Guardada g = Guardada.de(k);
+                    return new Ejecucion(repetir(g, huella, "bd"), g);
+                }
+                try {
+                    repo.reservar(id, huella, ahora, ahora.plus(ttl));
+                } catch (DataIntegrityViolationException | PessimisticLockingFailureException ex) {
+                    throw new ClaveOcupada();
+                }
+                ResponseEntity<?> r = accion.get();
+                contar("ejecutada");
+                if (!r.getStatusCode().is2xxSuccessful()) {
+                    // un error no se guarda: el reintento vuelve a ejecutar
+                    s.setRollbackOnly();
+                    return new Ejecucion(r, null);
+                }
+                String cuerpo = r.getBody() != null ? json(r.getBody()) : null;
+                repo.guardar(id, r.getStatusCode().value(), cuerpo);
+                return new Ejecucion(r, new Guardada(huella, r.getStatusCode().value(), cuerpo, ahora.plus(ttl)));
+            });
+        } catch (ClaveOcupada ex) {
+            ClaveIdempotencia k = tx.execute(s -> repo.findById(id).orElse(null));
+            if (k == null || k.getStatus() == null) return ocupada();
+            Guardada g = Guardada.de(k);
+            e = new Ejecucion(repetir(g, huella, "bd"), g);
+        }
+        if (e.guardada() != null) cache.put(id, e.guardada());
+        return e.respuesta();
+    }
+
+    private ResponseEntity<?> esperar(EnCurso otra, String huella) {
+        if (!otra.huella().equals(huella)) return distinta();
+        try {
+            ResponseEntity<?> r = otra.respuesta().get(espera.toMillis(), TimeUnit.MILLISECONDS);
+            contar("colapsada");
+            return ResponseEntity.status(r.getStatusCode()).headers(r.getHeaders()).header(REPETIDA, "true").body(r.getBody());
+        } catch (TimeoutException e) {
+            return ocupada();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ocupada();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private ResponseEntity<?> repetir(Guardada g, String huella, String origen) {
+        if (!g.huella().equals(huella)) return distinta();
+        contar(origen);
+        ResponseEntity.BodyBuilder r = ResponseEntity.status(g.status()).header(REPETIDA, "true");
+        try {
+            return g.cuerpo() != null ? r.body(mapper.readTree(g.cuerpo())) : r.build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta guardada ilegible", e);
+        }
+    }
+
+    private ResponseEntity<?> distinta() {
+        contar("distinta");
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(CABECERA + " ya usada con otra petición");
+    }
+
+    private ResponseEntity<?> ocupada() {
+        contar("en_curso");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Petición con la misma " + CABECERA + " en curso; reintente");
+    }
+
+    private void contar(String resultado) {
+        Counter.builder("bienestar.idempotencia").tag("resultado", resultado).register(meterRegistry).increment();
+    }
+
+    private String json(Object o) {
+        try {
+            return mapper.writeValueAsString(o);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String usuario() {
+        Authentication a = SecurityContextHolder.getContext().getAuthentication();
+        return a != null ? a.getName() : "";
+    }
+
+    private static String sha256(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 
 import com.bienestarproyect.Bienestar.entity.Cita;
 import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
 import com.bienestarproyect.Bienestar.entity.Factura;
 import com.bienestarproyect.Bienestar.entity.Servicio;
 
@@ -31,7 +32,7 @@ public final class DTOMapper {
         c.setCliente(cliente);
         c.setServicio(servicio);
         c.setFechaHora(d.getFechaHora());
-        c.setEstado("AGENDADA");
+        c.setEstado(EstadoCita.AGENDADA);
         return c;
     }
 }
\ No newline at end of file
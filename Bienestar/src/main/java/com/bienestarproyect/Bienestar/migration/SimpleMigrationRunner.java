@@ -18,6 +18,7 @@ import org.springframework.core.annotation.Order;
 import javax.sql.DataSource;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -77,14 +78,8 @@ public class SimpleMigrationRunner implements ApplicationRunner {
             return;
         }
 
-        // Sort by filename so V1, V2, V10 order is preserved (lexicographic with V prefix usually works)
-        Arrays.sort(resources, Comparator.comparing(r -> {
-            try {
-                return r.getFilename();
-            } catch (Exception ex) {
-                return "";
-            }
-        }));
+        // Sort by numeric version like Flyway does: by filename V10 would run before V2
+        Arrays.sort(resources, Comparator.comparing(Resource::getFilename, Comparator.nullsLast(BY_VERSION)));
 
         ensureFlywayTableExists();
 
@@ -186,7 +181,30 @@ public class SimpleMigrationRunner implements ApplicationRunner {
         }
     }
 
-    private String extractVersionFromFilename(String filename) {
+    /**
+     * Orders migration filenames by version, part by part (V1 &lt; V2 &lt; V10, V1_1 &lt; V1_2 &lt; V2).
+     * Filenames without a version go last; they are skipped when applying.
+     */
+    static final Comparator<String> BY_VERSION = (a, b) -> {
+        String va = extractVersionFromFilename(a);
+        String vb = extractVersionFromFilename(b);
+        if (va == null || vb == null) return va == null ? (vb == null ? a.compareTo(b) : 1) : -1;
+        String[] pa = va.split("[._]");
+        String[] pb = vb.split("[._]");
+        for (int i = 0; i < Math.max(pa.length, pb.length); i++) {
+            BigInteger x = i < pa.length ? versionPart(pa[i]) : BigInteger.ZERO;
+            BigInteger y = i < pb.length ? versionPart(pb[i]) : BigInteger.ZERO;
+            int c = x.compareTo(y);
+            if (c != 0) return c;
+        }
+        return a.compareTo(b);
+    };
+
+    private static BigInteger versionPart(String part) {
+        return part.matches("\\d+") ? new BigInteger(part) : BigInteger.ZERO;
+    }
+
+    private static String extractVersionFromFilename(String filename) {
         // Expecting filenames like V1__init.sql or V2__create_demo_tables.sql
         if (!filename.startsWith("V")) return null;
         int idx = filename.indexOf("__");
@@ -0,0 +1,155 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicated, rate-limited reporting of unhandled exceptions.
+ *
+ * Each exception is reduced to a fingerprint (exception type, root cause type and top stack
+ * frames). The full stack trace of a fingerprint is logged at most once per
+ * app.errors.stacktrace-interval; in between only counters move. This keeps an error storm
+ * (e.g. the database going away) from turning into a logging storm.
+ *
+ * At most MAX_FINGERPRINTS are tracked. When the table is full, fingerprints not seen for an
+ * hour are evicted (at most once per interval); if it is still full, new fingerprints are
+ * counted and rate-limited together under the "overflow" fingerprint.
+ */
+@Component
+public class ErrorReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ErrorReporter.class);
+    private static final int FRAMES = 5;
+    private static final int MAX_FINGERPRINTS = 1000;
+    private static final Duration IDLE = Duration.ofHours(1);
+    static final String OVERFLOW = "overflow";
+
+    private final long intervalNanos;
+    private final long idleNanos;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong lastEviction = new AtomicLong();
+
+    @Autowired
+    public ErrorReporter(Environment env, MeterRegistry meterRegistry) {
+        this(env.getProperty("app.errors.stacktrace-interval", Duration.class, Duration.ofMinutes(1)), meterRegistry);
+    }
+
+    public ErrorReporter(Duration stackTraceInterval, MeterRegistry meterRegistry) {
+        this(stackTraceInterval, IDLE, meterRegistry);
+    }
+
+    ErrorReporter(Duration stackTraceInterval, Duration idle, MeterRegistry meterRegistry) {
+        this.intervalNanos = stackTraceInterval.toNanos();
+        this.idleNanos = idle.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Counts the exception and logs its stack trace if this fingerprint has not been logged
+     * within the interval.
+     *
+     * @return the fingerprint id, safe to return to clients for correlation
+     */
+    public String report(Throwable ex) {
+        counters.computeIfAbsent(ex.getClass(), type -> Counter.builder("bienestar.errores")
+                .tag("exception", type.getSimpleName())
+                .register(meterRegistry)).increment();
+
+        String id = fingerprint(ex);
+        long now = System.nanoTime();
+        String key = id;
+        Fingerprint fp = fingerprints.get(id);
+        if (fp == null) {
+            if (fingerprints.size() >= MAX_FINGERPRINTS) evictIdle(now);
+            if (fingerprints.size() >= MAX_FINGERPRINTS) key = OVERFLOW;
+            fp = fingerprints.computeIfAbsent(key, k -> new Fingerprint(ex));
+        }
+        fp.count.increment();
+        fp.lastSeen = now;
+
+        long last = fp.lastLogged.get();
+        if ((last == 0 || now - last >= intervalNanos) && fp.lastLogged.compareAndSet(last, now)) {
+            long suppressed = fp.suppressed.sumThenReset();
+            String label = key.equals(id) ? id : id + " as " + key;
+            if (suppressed > 0) {
+                log.error("Unhandled exception [{}] ({} more occurrences since last report)", label, suppressed, ex);
+            } else {
+                log.error("Unhandled exception [{}]", label, ex);
+            }
+        } else {
+            fp.suppressed.increment();
+        }
+        return id;
+    }
+
+    private void evictIdle(long now) {
+        long last = lastEviction.get();
+        if (last != 0 && now - last < intervalNanos) return;
+        if (!lastEviction.compareAndSet(last, now)) return;
+        fingerprints.entrySet().removeIf(e -> !e.getKey().equals(OVERFLOW) && now - e.getValue().lastSeen >= idleNanos);
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        fingerprints.forEach((id, fp) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("fingerprint", id);
+            m.put("exception", fp.type);
+            m.put("message", fp.firstMessage);
+            m.put("count", fp.count.sum());
+            out.add(m);
+        });
+        out.sort(Comparator.comparingLong((Map<String, Object> m) -> (Long) m.get("count")).reversed());
+        return out;
+    }
+
+    long count(String fingerprint) {
+        Fingerprint fp = fingerprints.get(fingerprint);
+        return fp == null ? 0 : fp.count.sum();
+    }
+
+    static String fingerprint(Throwable ex) {
+        Throwable root = ex;
+        while (root.getCause() != null && root.getCause() != root) root = root.getCause();
+        int h = ex.getClass().getName().hashCode();
+        h = 31 * h + root.getClass().getName().hashCode();
+        StackTraceElement[] frames = ex.getStackTrace();
+        for (int i = 0; i < Math.min(FRAMES, frames.length); i++) {
+            h = 31 * h + frames[i].getClassName().hashCode();
+            h = 31 * h + frames[i].getMethodName().hashCode();
+            h = 31 * h + frames[i].getLineNumber();
+        }
+        return ex.getClass().getSimpleName() + "-" + Integer.toHexString(h);
+    }
+
+    private static final class Fingerprint {
+        final String type;
+        final String firstMessage;
+        final LongAdder count = new LongAdder();
+        final LongAdder suppressed = new LongAdder();
+        final AtomicLong lastLogged = new AtomicLong();
+        volatile long lastSeen;
+
+        Fingerprint(Throwable ex) {
+            this.type = ex.getClass().getName();
+            this.firstMessage = ex.getMessage();
+        }
+    }
+}
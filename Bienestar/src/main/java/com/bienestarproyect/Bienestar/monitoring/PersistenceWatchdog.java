@@ -0,0 +1,262 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts SQL statements per HTTP request and keeps the slowest statements.
+ *
+ * - A request that runs more than app.watchdog.max-statements-per-request statements, or repeats
+ *   the same statement app.watchdog.repeated-statement-threshold times (typical N+1), is logged
+ *   and recorded as an offender.
+ * - A statement slower than app.watchdog.slow-query-ms is recorded with its bind parameters; for
+ *   SELECTs the plan is captured once, asynchronously, with EXPLAIN.
+ *
+ * Fed by {@link WatchdogQueryListener} (JDBC level) and {@link WatchdogFilter} (request scope). Request
+ * scopes nest: the operations of POST /api/batch open their own inside the batch's, on whichever thread
+ * runs them, and are judged on their own.
+ */
+@Component
+public class PersistenceWatchdog {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistenceWatchdog.class);
+    private static final int MAX_ENTRIES = 500;
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final int repeatedThreshold;
+    private final long slowQueryMs;
+    private final boolean explain;
+    private final Counter flaggedRequests;
+    private final Counter slowStatements;
+
+    private final ThreadLocal<RequestStats> current = new ThreadLocal<>();
+    private final Map<String, SlowQuery> slowQueries = new ConcurrentHashMap<>();
+    private final Map<String, RequestOffender> offenders = new ConcurrentHashMap<>();
+    // EXPLAIN runs off the request thread; if the queue is full the plan is simply skipped
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(32), r -> {
+                Thread t = new Thread(r, "watchdog-explain");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    private volatile DataSource explainDataSource;
+
+    public PersistenceWatchdog(Environment env, MeterRegistry meterRegistry) {
+        this.enabled = env.getProperty("app.watchdog.enabled", Boolean.class, true);
+        this.maxStatements = env.getProperty("app.watchdog.max-statements-per-request", Integer.class, 20);
+        this.repeatedThreshold = env.getProperty("app.watchdog.repeated-statement-threshold", Integer.class, 5);
+        this.slowQueryMs = env.getProperty("app.watchdog.slow-query-ms", Long.class, 200L);
+        this.explain = env.getProperty("app.watchdog.explain", Boolean.class, true);
+        this.flaggedRequests = Counter.builder("bienestar.persistencia.peticiones.marcadas")
+                .description("Requests over the statement threshold or with repeated statements (N+1)")
+                .register(meterRegistry);
+        this.slowStatements = Counter.builder("bienestar.persistencia.consultas.lentas")
+                .description("SQL statements slower than app.watchdog.slow-query-ms")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /** DataSource used for EXPLAIN; the unwrapped one so plans are not counted as statements. */
+    void setExplainDataSource(DataSource dataSource) { this.explainDataSource = dataSource; }
+
+    // ---- request scope -------------------------------------------------------------------
+
+    public void beginRequest() {
+        if (enabled) current.set(new RequestStats(current.get()));
+    }
+
+    /** Closes the innermost scope opened on this thread; the enclosing one, if any, counts again. */
+    public void endRequest(String endpoint) {
+        RequestStats stats = current.get();
+        if (stats == null) return;
+        if (stats.enclosing != null) current.set(stats.enclosing);
+        else current.remove();
+
+        String repeated = stats.mostRepeated(repeatedThreshold);
+        if (stats.statements <= maxStatements && repeated == null) return;
+
+        flaggedRequests.increment();
+        log.warn("Persistence watchdog: {} ran {} SQL statements{}", endpoint, stats.statements,
+                repeated != null ? " (repeated " + stats.sqlCounts.get(repeated) + "x: " + abbreviate(repeated) + ")" : "");
+        RequestOffender o = offenders.get(endpoint);
+        if (o == null) {
+            if (offenders.size() >= MAX_ENTRIES) return;
+            o = offenders.computeIfAbsent(endpoint, RequestOffender::new);
+        }
+        o.record(stats.statements, repeated);
+    }
+
+    // ---- statement scope -----------------------------------------------------------------
+
+    void onStatement(String sql, long elapsedMs, List<Object> params) {
+        if (!enabled) return;
+        String key = normalize(sql);
+        RequestStats stats = current.get();
+        if (stats != null) stats.add(key);
+
+        if (elapsedMs < slowQueryMs) return;
+        slowStatements.increment();
+        SlowQuery q = slowQueries.get(key);
+        if (q == null) {
+            if (slowQueries.size() >= MAX_ENTRIES) return;
+            q = slowQueries.computeIfAbsent(key, SlowQuery::new);
+        }
+        q.record(elapsedMs, params);
+        if (explain && q.planRequested.compareAndSet(0, 1) && key.regionMatches(true, 0, "select", 0, 6)) {
+            SlowQuery target = q;
+            explainExecutor.execute(() -> target.plan = explain(key, params));
+        }
+    }
+
+    private String explain(String sql, List<Object> params) {
+        DataSource ds = explainDataSource;
+        if (ds == null) return null;
+        try (Connection c = ds.getConnection(); PreparedStatement ps = c.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+            StringBuilder sb = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) sb.append(rs.getString(1)).append('\n');
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            log.debug("EXPLAIN failed for {}: {}", abbreviate(sql), e.getMessage());
+            return "EXPLAIN no disponible: " + e.getMessage();
+        }
+    }
+
+    // ---- admin views ---------------------------------------------------------------------
+
+    public List<Map<String, Object>> topSlowQueries(int limit) {
+        List<SlowQuery> all = new ArrayList<>(slowQueries.values());
+        all.sort(Comparator.comparingLong((SlowQuery q) -> q.totalMs.sum()).reversed());
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (SlowQuery q : all.subList(0, Math.min(limit, all.size()))) out.add(q.toMap());
+        return out;
+    }
+
+    public List<Map<String, Object>> topRequests(int limit) {
+        List<RequestOffender> all = new ArrayList<>(offenders.values());
+        all.sort(Comparator.comparingLong((RequestOffender o) -> o.flagged.sum()).reversed());
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (RequestOffender o : all.subList(0, Math.min(limit, all.size()))) out.add(o.toMap());
+        return out;
+    }
+
+    public void reset() {
+        slowQueries.clear();
+        offenders.clear();
+    }
+
+    private static String normalize(String sql) {
+        String s = sql.replaceAll("\\s+", " ").trim();
+        return s.length() > MAX_SQL_LENGTH ? s.substring(0, MAX_SQL_LENGTH) : s;
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() > 200 ? sql.substring(0, 200) + "..." : sql;
+    }
+
+    private static final class RequestStats {
+        final RequestStats enclosing;
+        int statements;
+        final Map<String, Integer> sqlCounts = new HashMap<>();
+
+        RequestStats(RequestStats enclosing) {
+            this.enclosing = enclosing;
+        }
+
+        void add(String sql) {
+            statements++;
+            sqlCounts.merge(sql, 1, Integer::sum);
+        }
+
+        String mostRepeated(int threshold) {
+            String worst = null;
+            int max = threshold - 1;
+            for (Map.Entry<String, Integer> e : sqlCounts.entrySet()) {
+                if (e.getValue() > max) {
+                    max = e.getValue();
+                    worst = e.getKey();
+                }
+            }
+            return worst;
+        }
+    }
+
+    private static final class SlowQuery {
+        final String sql;
+        final LongAdder count = new LongAdder();
+        final LongAdder totalMs = new LongAdder();
+        final AtomicLong maxMs = new AtomicLong();
+        final AtomicLong planRequested = new AtomicLong();
+        volatile List<Object> lastParams = List.of();
+        volatile String plan;
+
+        SlowQuery(String sql) { this.sql = sql; }
+
+        void record(long ms, List<Object> params) {
+            count.increment();
+            totalMs.add(ms);
+            maxMs.accumulateAndGet(ms, Math::max);
+            lastParams = params;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new java.util.LinkedHashMap<>();
+            m.put("sql", sql);
+            m.put("count", count.sum());
+            m.put("totalMs", totalMs.sum());
+            m.put("maxMs", maxMs.get());
+            m.put("lastParams", lastParams.stream().map(String::valueOf).toList());
+            m.put("plan", plan);
+            return m;
+        }
+    }
+
+    private static final class RequestOffender {
+        final String endpoint;
+        final LongAdder flagged = new LongAdder();
+        final AtomicLong maxStatements = new AtomicLong();
+        volatile String repeatedSql;
+
+        RequestOffender(String endpoint) { this.endpoint = endpoint; }
+
+        void record(int statements, String repeated) {
+            flagged.increment();
+            maxStatements.accumulateAndGet(statements, Math::max);
+            if (repeated != null) repeatedSql = repeated;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new java.util.LinkedHashMap<>();
+            m.put("endpoint", endpoint);
+            m.put("flagged", flagged.sum());
+            m.put("maxStatements", maxStatements.get());
+            m.put("repeatedSql", repeatedSql);
+            return m;
+        }
+    }
+}
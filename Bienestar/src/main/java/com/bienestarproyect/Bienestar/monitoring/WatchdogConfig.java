@@ -0,0 +1,24 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.watchdog.enabled", havingValue = "true", matchIfMissing = true)
+public class WatchdogConfig {
+
+    @Bean
+    static WatchdogDataSourcePostProcessor watchdogDataSourcePostProcessor(ObjectProvider<PersistenceWatchdog> watchdog) {
+        return new WatchdogDataSourcePostProcessor(watchdog);
+    }
+
+    @Bean
+    public FilterRegistrationBean<WatchdogFilter> watchdogFilter(PersistenceWatchdog watchdog) {
+        FilterRegistrationBean<WatchdogFilter> reg = new FilterRegistrationBean<>(new WatchdogFilter(watchdog));
+        reg.addUrlPatterns("/api/*");
+        return reg;
+    }
+}
@@ -0,0 +1,34 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource with a datasource-proxy that feeds {@link PersistenceWatchdog}.
+ * The watchdog is resolved lazily because post-processors are created before regular beans.
+ */
+class WatchdogDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<PersistenceWatchdog> watchdog;
+
+    WatchdogDataSourcePostProcessor(ObjectProvider<PersistenceWatchdog> watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (!(bean instanceof DataSource ds) || !"dataSource".equals(beanName)) {
+            return bean;
+        }
+        PersistenceWatchdog w = watchdog.getObject();
+        w.setExplainDataSource(ds);
+        return ProxyDataSourceBuilder.create(ds)
+                .name("watchdog")
+                .listener(new WatchdogQueryListener(w))
+                .build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Opens and closes the watchdog's per-request statement counter.
+ */
+class WatchdogFilter extends OncePerRequestFilter {
+
+    private final PersistenceWatchdog watchdog;
+
+    WatchdogFilter(PersistenceWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        watchdog.beginRequest();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // use the mapped pattern (/api/citas/{id}) so offenders are grouped per endpoint
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            watchdog.endRequest(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * datasource-proxy listener that reports every executed statement to the watchdog.
+ */
+class WatchdogQueryListener implements QueryExecutionListener {
+
+    private final PersistenceWatchdog watchdog;
+
+    WatchdogQueryListener(PersistenceWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (!watchdog.isEnabled()) return;
+        long elapsed = execInfo.getElapsedTime();
+        for (QueryInfo q : queryInfoList) {
+            watchdog.onStatement(q.getQuery(), elapsed, params(q));
+        }
+    }
+
+    // first parameter set only (batches repeat the same statement); ordered by JDBC index
+    private static List<Object> params(QueryInfo q) {
+        if (q.getParametersList().isEmpty()) return List.of();
+        List<ParameterSetOperation> ops = new ArrayList<>(q.getParametersList().get(0));
+        ops.sort(Comparator.comparingInt(op -> op.getArgs()[0] instanceof Integer i ? i : 0));
+        List<Object> out = new ArrayList<>(ops.size());
+        for (ParameterSetOperation op : ops) {
+            Object[] args = op.getArgs();
+            out.add(args.length > 1 ? args[1] : null);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,16 @@
+package com.bienestarproyect.Bienestar.outbox;
+
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+
+import java.util.List;
+
+/**
+ * Destination for outbox events (in-memory, file, or a message broker adapter).
+ *
+ * Delivery is at-least-once: if publishing fails the whole batch is retried on the next relay
+ * run, so a sink may see an event twice and consumers should de-duplicate on {@code id}.
+ */
+public interface EventoSink {
+    String nombre();
+    void publicar(List<OutboxEvento> eventos) throws Exception;
+}
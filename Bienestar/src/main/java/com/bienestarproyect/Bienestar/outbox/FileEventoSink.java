@@ -0,0 +1,51 @@
+package com.bienestarproyect.Bienestar.outbox;
+
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends events as JSON lines. The payload is embedded as raw JSON.
+ */
+public class FileEventoSink implements EventoSink {
+
+    private final Path file;
+    private final ObjectMapper mapper;
+
+    public FileEventoSink(Path file, ObjectMapper mapper) {
+        this.file = file;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public String nombre() { return "file"; }
+
+    @Override
+    public void publicar(List<OutboxEvento> lote) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OutboxEvento e : lote) {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("id", e.getId());
+                m.put("agregado", e.getAgregado());
+                m.put("agregadoId", e.getAgregadoId());
+                m.put("tipo", e.getTipo());
+                m.put("creadoEn", e.getCreadoEn());
+                m.put("payload", e.getPayload() != null ? mapper.readTree(e.getPayload()) : null);
+                w.write(mapper.writeValueAsString(m));
+                w.newLine();
+            }
+        }
+    }
+}
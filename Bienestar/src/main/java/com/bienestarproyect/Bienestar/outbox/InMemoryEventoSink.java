@@ -0,0 +1,36 @@
+package com.bienestarproyect.Bienestar.outbox;
+
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the last N published events in memory. Intended for tests and local development.
+ */
+public class InMemoryEventoSink implements EventoSink {
+
+    private final int capacidad;
+    private final Deque<OutboxEvento> eventos = new ArrayDeque<>();
+
+    public InMemoryEventoSink(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    @Override
+    public String nombre() { return "memory"; }
+
+    @Override
+    public synchronized void publicar(List<OutboxEvento> lote) {
+        for (OutboxEvento e : lote) {
+            if (eventos.size() == capacidad) eventos.removeFirst();
+            eventos.addLast(e);
+        }
+    }
+
+    public synchronized List<OutboxEvento> eventos() {
+        return new ArrayList<>(eventos);
+    }
+}
@@ -0,0 +1,44 @@
+package com.bienestarproyect.Bienestar.outbox;
+
+import com.bienestarproyect.Bienestar.repository.OutboxEventoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Built-in sinks are selected with app.outbox.sinks (comma separated: memory, file).
+ * A message broker adapter only needs to implement {@link EventoSink} and be declared as a bean;
+ * it is added to the relay next to the built-in ones.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxConfig {
+
+    @Bean
+    public OutboxRelay outboxRelay(OutboxEventoRepository repo, ObjectProvider<EventoSink> extraSinks,
+                                   PlatformTransactionManager txManager, Environment env,
+                                   MeterRegistry meterRegistry, ObjectMapper mapper) {
+        List<EventoSink> sinks = new ArrayList<>();
+        for (String s : env.getProperty("app.outbox.sinks", "file").split(",")) {
+            switch (s.trim()) {
+                case "memory" -> sinks.add(new InMemoryEventoSink(env.getProperty("app.outbox.memory.capacity", Integer.class, 1000)));
+                case "file" -> sinks.add(new FileEventoSink(Path.of(env.getProperty("app.outbox.file.path", "logs/outbox-events.jsonl")), mapper));
+                case "" -> { }
+                default -> throw new IllegalStateException("Sink de outbox desconocido: " + s);
+            }
+        }
+        extraSinks.orderedStream().forEach(sinks::add);
+        return new OutboxRelay(repo, sinks, new TransactionTemplate(txManager),
+                env.getProperty("app.outbox.batch-size", Integer.class, 100), meterRegistry);
+    }
+}
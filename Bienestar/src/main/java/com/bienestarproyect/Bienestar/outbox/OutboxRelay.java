@@ -0,0 +1,74 @@
+package com.bienestarproyect.Bienestar.outbox;
+
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+import com.bienestarproyect.Bienestar.repository.OutboxEventoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background relay: claims pending outbox rows in id order and hands each batch to every sink,
+ * then marks the batch as published, all in one transaction. The claim is a SELECT ... FOR UPDATE
+ * SKIP LOCKED, so with several instances each batch goes to a single one; rows claimed by another
+ * instance are skipped, not waited for. If any sink fails the transaction rolls back, the batch stays
+ * pending and is retried on the next run (at-least-once).
+ */
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventoRepository repo;
+    private final List<EventoSink> sinks;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final Counter publicados;
+    private final Counter fallos;
+
+    public OutboxRelay(OutboxEventoRepository repo, List<EventoSink> sinks, TransactionTemplate tx,
+                       int batchSize, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.sinks = sinks;
+        this.tx = tx;
+        this.batchSize = batchSize;
+        this.publicados = Counter.builder("bienestar.outbox.publicados").register(meterRegistry);
+        this.fallos = Counter.builder("bienestar.outbox.fallos").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:1000}")
+    public void relay() {
+        // drain everything pending, one batch per transaction
+        while (relayBatch() == batchSize) {
+            // keep going while batches are full
+        }
+    }
+
+    /** @return number of events published in this batch (0 on failure or when nothing is pending) */
+    public int relayBatch() {
+        Integer n = tx.execute(s -> {
+            List<OutboxEvento> lote = repo.reclamarPendientes(batchSize);
+            if (lote.isEmpty()) return 0;
+            for (EventoSink sink : sinks) {
+                try {
+                    sink.publicar(lote);
+                } catch (Exception e) {
+                    fallos.increment();
+                    log.warn("Outbox sink '{}' failed for {} events starting at id {}: {}",
+                            sink.nombre(), lote.size(), lote.get(0).getId(), e.getMessage());
+                    s.setRollbackOnly();
+                    return 0;
+                }
+            }
+            repo.marcarPublicados(lote.stream().map(OutboxEvento::getId).toList(), LocalDateTime.now());
+            return lote.size();
+        });
+        if (n == null) return 0;
+        publicados.increment(n);
+        return n;
+    }
+}
@@ -0,0 +1,150 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck) keyed by a long id.
+ *
+ * Level i has {@code wheelSize} slots of {@code wheelSize^i} ticks each; levels are added on demand,
+ * so far-away deadlines cost O(1) to insert and are cascaded down as their time approaches.
+ * schedule/cancel are O(1); advancing one tick touches one level-0 slot plus, on level boundaries,
+ * one slot per higher level.
+ *
+ * Not thread-safe: the owner serialises access.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<List<Map<Long, Entry<T>>>> levels = new ArrayList<>();
+    private final Map<Long, Entry<T>> index = new HashMap<>();
+    private final List<Entry<T>> due = new ArrayList<>();
+    private long currentTick;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) throw new IllegalArgumentException("tickMs > 0 and wheelSize >= 2 required");
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMs / tickMs;
+    }
+
+    /** Schedules (or reschedules) {@code key}. Deadlines in the past fire on the next advance. */
+    public void schedule(long key, long deadlineMs, T value) {
+        cancel(key);
+        Entry<T> e = new Entry<>(key, Math.max(ceilDiv(deadlineMs, tickMs), currentTick), value);
+        index.put(key, e);
+        place(e);
+    }
+
+    public boolean cancel(long key) {
+        Entry<T> e = index.remove(key);
+        if (e == null) return false;
+        if (e.bucket != null) e.bucket.remove(key);
+        else due.remove(e);
+        return true;
+    }
+
+    public boolean contains(long key) { return index.containsKey(key); }
+
+    public int size() { return index.size(); }
+
+    public long currentTimeMs() { return currentTick * tickMs; }
+
+    /** Moves time forward to {@code nowMs}, handing every expired value to {@code expired}. */
+    public void advanceTo(long nowMs, Consumer<T> expired) {
+        fireDue(expired);
+        long target = nowMs / tickMs;
+        while (currentTick < target) {
+            currentTick++;
+            // cascade from the top so entries can fall through several levels in one tick
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                long span = span(level);
+                if (currentTick % span == 0) {
+                    Map<Long, Entry<T>> bucket = levels.get(level).get(slot(currentTick, level));
+                    if (!bucket.isEmpty()) {
+                        List<Entry<T>> moved = new ArrayList<>(bucket.values());
+                        bucket.clear();
+                        for (Entry<T> e : moved) place(e);
+                    }
+                }
+            }
+            if (!levels.isEmpty()) {
+                Map<Long, Entry<T>> bucket = levels.get(0).get(slot(currentTick, 0));
+                if (!bucket.isEmpty()) {
+                    List<Entry<T>> fired = new ArrayList<>(bucket.values());
+                    bucket.clear();
+                    for (Entry<T> e : fired) {
+                        index.remove(e.key);
+                        expired.accept(e.value);
+                    }
+                }
+            }
+            fireDue(expired);
+        }
+    }
+
+    private void fireDue(Consumer<T> expired) {
+        if (due.isEmpty()) return;
+        List<Entry<T>> fired = new ArrayList<>(due);
+        due.clear();
+        for (Entry<T> e : fired) {
+            index.remove(e.key);
+            expired.accept(e.value);
+        }
+    }
+
+    private void place(Entry<T> e) {
+        long delta = e.expirationTick - currentTick;
+        if (delta <= 0) {
+            e.bucket = null;
+            due.add(e);
+            return;
+        }
+        int level = 0;
+        long limit = wheelSize;
+        while (delta >= limit) {
+            level++;
+            limit = Math.multiplyExact(limit, wheelSize);
+        }
+        while (levels.size() <= level) {
+            List<Map<Long, Entry<T>>> slots = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) slots.add(new LinkedHashMap<>());
+            levels.add(slots);
+        }
+        Map<Long, Entry<T>> bucket = levels.get(level).get(slot(e.expirationTick, level));
+        bucket.put(e.key, e);
+        e.bucket = bucket;
+    }
+
+    private int slot(long tick, int level) {
+        return (int) ((tick / span(level)) % wheelSize);
+    }
+
+    private long span(int level) {
+        long s = 1;
+        for (int i = 0; i < level; i++) s *= wheelSize;
+        return s;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    private static final class Entry<T> {
+        final long key;
+        final long expirationTick;
+        final T value;
+        Map<Long, Entry<T>> bucket;
+
+        Entry(long key, long expirationTick, T value) {
+            this.key = key;
+            this.expirationTick = expirationTick;
+            this.value = value;
+        }
+    }
+}
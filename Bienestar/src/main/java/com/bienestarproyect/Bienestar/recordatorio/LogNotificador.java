@@ -0,0 +1,19 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local stand-in for a real channel: writes each reminder to the "recordatorios" logger,
+ * which can be routed to its own file in the logging configuration.
+ */
+public class LogNotificador implements Notificador {
+
+    private static final Logger log = LoggerFactory.getLogger("recordatorios");
+
+    @Override
+    public void enviar(Recordatorio r) {
+        log.info("Recordatorio cita={} cliente={} servicio={} fechaHora={}",
+                r.citaId(), r.clienteId(), r.servicioId(), r.fechaHora());
+    }
+}
@@ -0,0 +1,8 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+/**
+ * Delivery channel for reminders (SMS, e-mail, push...). Called from the reminder dispatch thread.
+ */
+public interface Notificador {
+    void enviar(Recordatorio recordatorio) throws Exception;
+}
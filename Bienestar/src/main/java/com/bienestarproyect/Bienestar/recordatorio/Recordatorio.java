@@ -0,0 +1,8 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reminder due for an appointment. Also used as the projection of the recovery range query.
+ */
+public record Recordatorio(Long citaId, Long clienteId, Long servicioId, LocalDateTime fechaHora) {}
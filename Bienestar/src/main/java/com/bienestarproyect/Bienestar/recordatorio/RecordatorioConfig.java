@@ -0,0 +1,38 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.recordatorios.enabled", havingValue = "true", matchIfMissing = true)
+public class RecordatorioConfig {
+
+    /** Default channel; declare another {@link Notificador} bean to replace it. */
+    @Bean
+    @ConditionalOnMissingBean(Notificador.class)
+    public Notificador logNotificador() {
+        return new LogNotificador();
+    }
+
+    @Bean
+    public RecordatorioScheduler recordatorioScheduler(CitaRepository citas, Notificador notificador,
+                                                       PlatformTransactionManager txManager, Environment env,
+                                                       MeterRegistry meterRegistry) {
+        return new RecordatorioScheduler(citas, notificador, txManager,
+                env.getProperty("app.recordatorios.anticipacion", Duration.class, Duration.ofHours(24)),
+                env.getProperty("app.recordatorios.horizonte", Duration.class, Duration.ofHours(48)),
+                env.getProperty("app.recordatorios.tick-ms", Long.class, 1000L),
+                env.getProperty("app.recordatorios.wheel-size", Integer.class, 64),
+                env.getProperty("app.recordatorios.reintento", Duration.class, Duration.ofMinutes(1)),
+                env.getProperty("app.recordatorios.max-intentos", Integer.class, 5),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,224 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.event.CitaEvento;
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a reminder {@code anticipacion} before each booked appointment.
+ *
+ * Appointments inside the horizon (now .. now + anticipacion + horizonte) live in a
+ * {@link HierarchicalTimingWheel}; there is no periodic table scan. The wheel is:
+ * - loaded at startup with one range query on idx_citas_estado_fecha,
+ * - extended by the same query for the next slice every horizonte / 2,
+ * - kept up to date incrementally from committed {@link CitaEvento}s.
+ *
+ * Before sending, the reminder is claimed in the database (citas.recordatorio_para, conditional UPDATE):
+ * the startup load picks up appointments whose reminder time has already passed, and without the claim
+ * every restart, or every instance, would send those again. The range query also skips claimed ones.
+ * A failed send releases its claim; delivery is at most once per fechaHora.
+ *
+ * A reminder whose claim or send fails goes back into the wheel after {@code reintento}, doubling on
+ * each further failure, up to {@code maxIntentos} attempts; then it is dropped and counted as descartado.
+ */
+public class RecordatorioScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordatorioScheduler.class);
+
+    private final CitaRepository citas;
+    private final Notificador notificador;
+    private final TransactionTemplate tx;
+    private final Duration anticipacion;
+    private final Duration horizonte;
+    private final long tickMs;
+    private final Duration reintento;
+    private final int maxIntentos;
+    // failed attempts per cita, until it is sent, skipped, rescheduled or dropped
+    private final Map<Long, Integer> intentos = new ConcurrentHashMap<>();
+    private final ZoneId zona = ZoneId.systemDefault();
+    private final HierarchicalTimingWheel<Recordatorio> wheel;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService dispatcher;
+    private final Counter enviados;
+    private final Counter fallidos;
+    private final Counter omitidos;
+    private final Counter descartados;
+    private LocalDateTime cargadoHasta;
+
+    public RecordatorioScheduler(CitaRepository citas, Notificador notificador, PlatformTransactionManager txManager,
+                                 Duration anticipacion, Duration horizonte, long tickMs, int wheelSize,
+                                 Duration reintento, int maxIntentos, MeterRegistry meterRegistry) {
+        this.citas = citas;
+        this.notificador = notificador;
+        this.tx = new TransactionTemplate(txManager);
+        this.anticipacion = anticipacion;
+        this.horizonte = horizonte;
+        this.tickMs = tickMs;
+        this.reintento = reintento;
+        this.maxIntentos = maxIntentos;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "recordatorios-tick"));
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> daemon(r, "recordatorios-envio"));
+        this.enviados = Counter.builder("bienestar.recordatorios").tag("resultado", "enviado").register(meterRegistry);
+        this.fallidos = Counter.builder("bienestar.recordatorios").tag("resultado", "fallido").register(meterRegistry);
+        this.omitidos = Counter.builder("bienestar.recordatorios").tag("resultado", "ya_enviado").register(meterRegistry);
+        this.descartados = Counter.builder("bienestar.recordatorios").tag("resultado", "descartado").register(meterRegistry);
+        Gauge.builder("bienestar.recordatorios.pendientes", this, RecordatorioScheduler::pendientes).register(meterRegistry);
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LocalDateTime ahora = LocalDateTime.now();
+        cargar(ahora, ahora.plus(anticipacion).plus(horizonte));
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        long extender = Math.max(horizonte.toMillis() / 2, tickMs);
+        ticker.scheduleAtFixedRate(this::extenderHorizonte, extender, extender, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        dispatcher.shutdown();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCita(CitaEvento e) {
+        if (e.citaId() == null) return;
+        intentos.remove(e.citaId());
+        synchronized (wheel) {
+            if (CitaEvento.CANCELADA.equals(e.tipo()) || e.estado() != EstadoCita.AGENDADA || e.fechaHora() == null
+                    || cargadoHasta == null || e.fechaHora().isAfter(cargadoHasta)) {
+                // outside the loaded horizon the range query will pick it up later
+                wheel.cancel(e.citaId());
+                return;
+            }
+            programar(new Recordatorio(e.citaId(), e.clienteId(), e.servicioId(), e.fechaHora()));
+        }
+    }
+
+    public int pendientes() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private void cargar(LocalDateTime desde, LocalDateTime hasta) {
+        List<Recordatorio> rango = citas.findRecordatorios(EstadoCita.AGENDADA, desde, hasta);
+        synchronized (wheel) {
+            for (Recordatorio r : rango) programar(r);
+            cargadoHasta = hasta;
+        }
+        log.info("Recordatorios: {} citas cargadas entre {} y {}", rango.size(), desde, hasta);
+    }
+
+    private void extenderHorizonte() {
+        try {
+            LocalDateTime desde;
+            synchronized (wheel) {
+                desde = cargadoHasta;
+            }
+            LocalDateTime hasta = LocalDateTime.now().plus(anticipacion).plus(horizonte);
+            if (desde != null && hasta.isAfter(desde)) cargar(desde, hasta);
+        } catch (Exception ex) {
+            log.warn("Recordatorios: no se pudo extender el horizonte: {}", ex.getMessage());
+        }
+    }
+
+    // caller holds the wheel lock
+    private void programar(Recordatorio r) {
+        long envio = r.fechaHora().minus(anticipacion).atZone(zona).toInstant().toEpochMilli();
+        wheel.schedule(r.citaId(), envio, r);
+    }
+
+    private void tick() {
+        try {
+            synchronized (wheel) {
+                wheel.advanceTo(System.currentTimeMillis(), r -> dispatcher.execute(() -> enviar(r)));
+            }
+        } catch (Exception ex) {
+            log.warn("Recordatorios: error en tick: {}", ex.getMessage());
+        }
+    }
+
+    private void enviar(Recordatorio r) {
+        // a booking made less than `anticipacion` ahead fires right away; skip ones already past
+        if (r.fechaHora().isBefore(LocalDateTime.now())) return;
+        try {
+            Integer reclamado = tx.execute(s -> citas.reclamarRecordatorio(r.citaId(), EstadoCita.AGENDADA));
+            if (reclamado == null || reclamado == 0) {
+                // already sent for this fechaHora (before a restart or by another instance), or no longer AGENDADA
+                intentos.remove(r.citaId());
+                omitidos.increment();
+                return;
+            }
+        } catch (Exception ex) {
+            fallidos.increment();
+            log.warn("Recordatorio para cita {} no reclamado: {}", r.citaId(), ex.getMessage());
+            reintentar(r);
+            return;
+        }
+        try {
+            notificador.enviar(r);
+            intentos.remove(r.citaId());
+            enviados.increment();
+        } catch (Exception ex) {
+            fallidos.increment();
+            log.warn("Recordatorio para cita {} no enviado: {}", r.citaId(), ex.getMessage());
+            if (liberar(r)) reintentar(r);
+        }
+    }
+
+    private boolean liberar(Recordatorio r) {
+        try {
+            tx.execute(s -> citas.liberarRecordatorio(r.citaId()));
+            return true;
+        } catch (Exception ex) {
+            intentos.remove(r.citaId());
+            log.warn("Recordatorio para cita {} queda marcado como enviado: {}", r.citaId(), ex.getMessage());
+            return false;
+        }
+    }
+
+    private void reintentar(Recordatorio r) {
+        int n = intentos.merge(r.citaId(), 1, Integer::sum);
+        if (n >= maxIntentos) {
+            intentos.remove(r.citaId());
+            descartados.increment();
+            log.warn("Recordatorio para cita {} descartado tras {} intentos", r.citaId(), n);
+            return;
+        }
+        long espera = reintento.toMillis() << Math.min(n - 1, 20);
+        synchronized (wheel) {
+            // a CitaEvento already scheduled the current fechaHora; that one wins
+            if (!wheel.contains(r.citaId())) wheel.schedule(r.citaId(), System.currentTimeMillis() + espera, r);
+        }
+    }
+}
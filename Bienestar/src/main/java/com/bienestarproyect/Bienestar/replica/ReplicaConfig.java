@@ -0,0 +1,62 @@
+package com.bienestarproyect.Bienestar.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sustituye el DataSource de Spring Boot por primaria (spring.datasource.*) + réplicas
+ * (app.datasource.replicas.urls), enrutado por {@link ReplicaRoutingDataSource}.
+ * Se llama "dataSource" para que Flyway, JPA y el watchdog lo usen sin más cambios.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean(name = "dataSource")
+    @Primary
+    public DataSource dataSource(DataSourceProperties props, Environment env, MeterRegistry meterRegistry) {
+        HikariDataSource primaria = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName(ReplicaRoutingDataSource.PRIMARIA);
+        primaria.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        Map<Object, Object> destinos = new LinkedHashMap<>();
+        destinos.put(ReplicaRoutingDataSource.PRIMARIA, primaria);
+        String[] urls = env.getProperty("app.datasource.replicas.urls", String[].class, new String[0]);
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource r = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(urls[i].trim())
+                    .driverClassName(props.determineDriverClassName())
+                    .username(env.getProperty("app.datasource.replicas.username", props.determineUsername()))
+                    .password(env.getProperty("app.datasource.replicas.password", props.determinePassword()))
+                    .build();
+            r.setPoolName(ReplicaRoutingDataSource.replica(i));
+            r.setReadOnly(true);
+            r.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            destinos.put(ReplicaRoutingDataSource.replica(i), r);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(urls.length,
+                env.getProperty("app.datasource.replicas.sticky-window", Duration.class, Duration.ofSeconds(5)),
+                Clock.systemUTC(), meterRegistry);
+        routing.setTargetDataSources(destinos);
+        routing.setDefaultTargetDataSource(primaria);
+        routing.afterPropertiesSet();
+        // la conexión real se pide en la primera sentencia, cuando ya se sabe si la transacción es de solo lectura
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
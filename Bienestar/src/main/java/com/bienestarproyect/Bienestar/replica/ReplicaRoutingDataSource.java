@@ -0,0 +1,98 @@
+package com.bienestarproyect.Bienestar.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Elige primaria o réplica cada vez que se pide una conexión. Debe ir detrás de un
+ * LazyConnectionDataSourceProxy para que la decisión se tome con la transacción ya iniciada.
+ *
+ * Va a una réplica (round robin) solo una transacción de solo lectura dentro de una petición GET/HEAD
+ * cuya sesión no haya escrito en la ventana reciente. Todo lo demás va a la primaria: escrituras,
+ * peticiones no GET y hilos sin petición (relay del outbox, sweeper, recordatorios, Flyway).
+ * Una petición no GET marca la sesión para que sus lecturas sigan en la primaria durante {@code ventana}
+ * (read-your-writes frente al retraso de replicación). Una petición con el atributo {@link #PETICION_PRIMARIA}
+ * trae esa decisión ya tomada y no se mira su sesión (operaciones de un lote, que corren en otros hilos).
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARIA = "primaria";
+    public static final String PETICION_PRIMARIA = ReplicaRoutingDataSource.class.getName() + ".primaria";
+    static final String SESION_PRIMARIA_HASTA = ReplicaRoutingDataSource.class.getName() + ".primariaHasta";
+
+    private final int replicas;
+    private final long ventanaMs;
+    private final Clock reloj;
+    private final AtomicInteger turno = new AtomicInteger();
+    private final Counter aPrimaria;
+    private final Counter aReplica;
+
+    public ReplicaRoutingDataSource(int replicas, Duration ventana, Clock reloj, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.ventanaMs = ventana.toMillis();
+        this.reloj = reloj;
+        this.aPrimaria = Counter.builder("bienestar.db.conexiones").tag("destino", PRIMARIA).register(meterRegistry);
+        this.aReplica = Counter.builder("bienestar.db.conexiones").tag("destino", "replica").register(meterRegistry);
+    }
+
+    public static String replica(int i) {
+        return "replica-" + i;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        HttpServletRequest request = attrs instanceof ServletRequestAttributes s ? s.getRequest() : null;
+        if (request == null || replicas == 0) {
+            aPrimaria.increment();
+            return PRIMARIA;
+        }
+        String metodo = request.getMethod();
+        boolean lectura = "GET".equals(metodo) || "HEAD".equals(metodo);
+        long ahora = reloj.millis();
+        if (!lectura) {
+            HttpSession sesion = request.getSession(false);
+            if (sesion != null) sesion.setAttribute(SESION_PRIMARIA_HASTA, ahora + ventanaMs);
+            aPrimaria.increment();
+            return PRIMARIA;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || escribioHacePoco(request, ahora)) {
+            aPrimaria.increment();
+            return PRIMARIA;
+        }
+        aReplica.increment();
+        return replica(Math.floorMod(turno.getAndIncrement(), replicas));
+    }
+
+    /**
+     * true si la sesión de la petición actual escribió hace poco y por eso lee de la primaria.
+     * Sin réplicas ninguna sesión se marca y siempre es false.
+     */
+    public static boolean escrituraReciente() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        HttpServletRequest request = attrs instanceof ServletRequestAttributes s ? s.getRequest() : null;
+        return request != null && escribioHacePoco(request, System.currentTimeMillis());
+    }
+
+    private static boolean escribioHacePoco(HttpServletRequest request, long ahora) {
+        if (request.getAttribute(PETICION_PRIMARIA) instanceof Boolean primaria) return primaria;
+        HttpSession sesion = request.getSession(false);
+        if (sesion == null) return false;
+        try {
+            return sesion.getAttribute(SESION_PRIMARIA_HASTA) instanceof Long hasta && ahora < hasta;
+        } catch (IllegalStateException invalidada) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.dto.CitaAgendaItem;
+import com.bienestarproyect.Bienestar.dto.FiltroAgenda;
+
+import java.util.List;
+
+/** Fragmento de {@link CitaRepository}: consulta de agenda con filtros opcionales. */
+public interface CitaAgendaRepository {
+
+    /** Como mucho {@code limite} filas ordenadas por (fechaHora, id), a partir del cursor del filtro. */
+    List<CitaAgendaItem> buscarAgenda(FiltroAgenda filtro, int limite);
+}
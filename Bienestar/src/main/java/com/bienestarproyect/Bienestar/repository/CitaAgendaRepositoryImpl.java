@@ -0,0 +1,61 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.dto.CitaAgendaItem;
+import com.bienestarproyect.Bienestar.dto.FiltroAgenda;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * El JPQL se arma solo con los filtros presentes: una condición "(:x is null or ...)" por filtro
+ * acaba en un plan genérico en PostgreSQL que no aprovecha los índices (fecha_hora, id) ni
+ * (servicio_id|cliente_id, fecha_hora, id) de V8.
+ */
+class CitaAgendaRepositoryImpl implements CitaAgendaRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<CitaAgendaItem> buscarAgenda(FiltroAgenda f, int limite) {
+        StringBuilder jpql = new StringBuilder(
+                "select new com.bienestarproyect.Bienestar.dto.CitaAgendaItem(c.id, c.fechaHora, c.estado, c.version, "
+                + "cl.id, cl.nombre, s.id, s.nombre) from Cita c join c.cliente cl join c.servicio s where 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (f.desde() != null) {
+            jpql.append(" and c.fechaHora >= :desde");
+            params.put("desde", f.desde());
+        }
+        if (f.hasta() != null) {
+            jpql.append(" and c.fechaHora < :hasta");
+            params.put("hasta", f.hasta());
+        }
+        if (f.servicioId() != null) {
+            jpql.append(" and c.servicio.id = :servicioId");
+            params.put("servicioId", f.servicioId());
+        }
+        if (f.clienteId() != null) {
+            jpql.append(" and c.cliente.id = :clienteId");
+            params.put("clienteId", f.clienteId());
+        }
+        if (f.estado() != null) {
+            jpql.append(" and c.estado = :estado");
+            params.put("estado", f.estado());
+        }
+        if (f.despuesDe() != null) {
+            // el ">=" acota el rango del índice; el "or" desempata por id dentro del mismo instante
+            jpql.append(" and c.fechaHora >= :cf and (c.fechaHora > :cf or c.id > :cid)");
+            params.put("cf", f.despuesDe().fechaHora());
+            params.put("cid", f.despuesDe().id());
+        }
+        jpql.append(" order by c.fechaHora, c.id");
+
+        TypedQuery<CitaAgendaItem> q = em.createQuery(jpql.toString(), CitaAgendaItem.class);
+        params.forEach(q::setParameter);
+        return q.setMaxResults(limite).getResultList();
+    }
+}
@@ -1,11 +1,72 @@
 package com.bienestarproyect.Bienestar.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.recordatorio.Recordatorio;
 
-public interface CitaRepository extends JpaRepository<Cita, Long> {
+public interface CitaRepository extends JpaRepository<Cita, Long>, CitaAgendaRepository {
     List<Cita> findByCliente_IdOrderByFechaHoraDesc(Long clienteId);
-}
\ No newline at end of file
+
+    // rango sobre idx_citas_estado_fecha (V5); proyección plana, sin cargar Cliente/Servicio; sin las ya recordadas
+    @Query("select new com.bienestarproyect.Bienestar.recordatorio.Recordatorio(c.id, c.cliente.id, c.servicio.id, c.fechaHora) "
+            + "from Cita c where c.estado = :estado and c.fechaHora > :desde and c.fechaHora <= :hasta "
+            + "and (c.recordatorioPara is null or c.recordatorioPara <> c.fechaHora)")
+    List<Recordatorio> findRecordatorios(@Param("estado") EstadoCita estado,
+                                         @Param("desde") LocalDateTime desde,
+                                         @Param("hasta") LocalDateTime hasta);
+
+    // barrido de citas pasadas: siguiente lote por idx_citas_estado_fecha
+    @Query("select c.id from Cita c where c.estado = :estado and c.fechaHora < :limite order by c.fechaHora")
+    List<Long> findIdsPorEstadoAntesDe(@Param("estado") EstadoCita estado, @Param("limite") LocalDateTime limite, Pageable lote);
+
+    // UPDATE por conjunto; la condición sobre el estado de origen hace la transición segura frente a cambios concurrentes
+    @Modifying
+    @Query("update Cita c set c.estado = :destino, c.version = c.version + 1 where c.id in :ids and c.estado = :origen")
+    int transicionarLote(@Param("ids") List<Long> ids, @Param("origen") EstadoCita origen, @Param("destino") EstadoCita destino);
+
+    // reprogramación condicional: solo citas AGENDADA y, con If-Match, solo en esa versión; sin lectura previa
+    @Modifying
+    @Query("update Cita c set c.cliente = :cliente, c.servicio = :servicio, c.fechaHora = :fechaHora, c.version = c.version + 1 "
+            + "where c.id = :id and c.estado = :estado and (:version is null or c.version = :version)")
+    int reprogramarSiVersion(@Param("id") Long id, @Param("cliente") Cliente cliente, @Param("servicio") Servicio servicio,
+                             @Param("fechaHora") LocalDateTime fechaHora, @Param("estado") EstadoCita estado,
+                             @Param("version") Long version);
+
+    // reclamo del recordatorio antes de enviarlo: solo una instancia lo envía, una vez por fecha y también tras
+    // reiniciar; no sube la versión (no es un cambio de la cita)
+    @Modifying
+    @Query("update Cita c set c.recordatorioPara = c.fechaHora where c.id = :id and c.estado = :estado "
+            + "and (c.recordatorioPara is null or c.recordatorioPara <> c.fechaHora)")
+    int reclamarRecordatorio(@Param("id") Long id, @Param("estado") EstadoCita estado);
+
+    // envío fallido: se vuelve a intentar al cargar la cita otra vez (al arrancar esta u otra instancia)
+    @Modifying
+    @Query("update Cita c set c.recordatorioPara = null where c.id = :id")
+    int liberarRecordatorio(@Param("id") Long id);
+
+    /** Estado y versión actuales, leídos de la base aunque la cita ya esté en el contexto de persistencia. */
+    interface EstadoVersion {
+        EstadoCita getEstado();
+        Long getVersion();
+    }
+
+    @Query("select c.estado as estado, c.version as version from Cita c where c.id = :id")
+    Optional<EstadoVersion> findEstadoVersionById(@Param("id") Long id);
+
+    // fusión de clientes duplicados: las citas pasan al cliente que se conserva
+    @Modifying
+    @Query("update Cita c set c.cliente = :destino, c.version = c.version + 1 where c.cliente.id in :origen")
+    int reasignarCliente(@Param("origen") List<Long> origen, @Param("destino") Cliente destino);
+}
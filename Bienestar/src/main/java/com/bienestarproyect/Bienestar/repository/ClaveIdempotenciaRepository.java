@@ -0,0 +1,32 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.entity.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+
+    // INSERT directo (save() haría merge): con la misma clave en otra transacción sin confirmar, espera a que
+    // termine y falla por clave duplicada si confirmó
+    @Modifying
+    @Query(value = "INSERT INTO idempotencia (id, huella, creado_en, expira_en) VALUES (:id, :huella, :ahora, :expira)",
+            nativeQuery = true)
+    int reservar(@Param("id") String id, @Param("huella") String huella,
+                 @Param("ahora") LocalDateTime ahora, @Param("expira") LocalDateTime expira);
+
+    @Modifying
+    @Query("update ClaveIdempotencia k set k.status = :status, k.cuerpo = :cuerpo where k.id = :id")
+    int guardar(@Param("id") String id, @Param("status") int status, @Param("cuerpo") String cuerpo);
+
+    @Modifying
+    @Query("delete from ClaveIdempotencia k where k.id = :id and k.expiraEn < :ahora")
+    int borrarCaducada(@Param("id") String id, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("delete from ClaveIdempotencia k where k.expiraEn < :ahora")
+    int purgar(@Param("ahora") LocalDateTime ahora);
+}
@@ -1,6 +1,65 @@
 package com.bienestarproyect.Bienestar.repository;
 
-import com.bienestarproyect.Bienestar.entity.Cliente;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+
+public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+    // carga del índice de búsqueda por páginas de clave (id > desde), sin OFFSET
+    List<Cliente> findByIdGreaterThanOrderByIdAsc(Long desde, Pageable pagina);
+
+    // el texto en minúscula y sin acentos, como ClienteSearchIndex.normalizar deja el patrón (translate existe en H2 y PostgreSQL)
+    String CON_ACENTO = "áàâäãéèêëíìîïóòôöõúùûüñç";
+    String SIN_ACENTO = "aaaaaeeeeiiiiooooouuuunc";
+
+    // búsqueda por subcadena cuando el índice en memoria no está disponible (H2 y similares)
+    @Query("select c from Cliente c where "
+            + "cast(function('translate', lower(c.nombre), '" + CON_ACENTO + "', '" + SIN_ACENTO + "') as String) like :patron "
+            + "or cast(function('translate', lower(c.email), '" + CON_ACENTO + "', '" + SIN_ACENTO + "') as String) like :patron "
+            + "or c.telefono like :patron order by c.nombre, c.id")
+    List<Cliente> buscarPorPatron(@Param("patron") String patron, Pageable pagina);
+
+    // búsquedas exactas por forma canónica (índices únicos ux_clientes_email_norm / ux_clientes_telefono_norm)
+    Optional<Cliente> findFirstByEmailNormalizadoOrderByIdAsc(String emailNormalizado);
+    Optional<Cliente> findFirstByTelefonoNormalizadoOrderByIdAsc(String telefonoNormalizado);
+
+    // PUT condicional: un único UPDATE sin lectura previa; version null = sin If-Match (incondicional)
+    @Modifying
+    @Query("update Cliente c set c.nombre = :nombre, c.email = :email, c.telefono = :telefono, "
+            + "c.emailNormalizado = :emailNormalizado, c.telefonoNormalizado = :telefonoNormalizado, "
+            + "c.version = c.version + 1 where c.id = :id and (:version is null or c.version = :version)")
+    int actualizarSiVersion(@Param("id") Long id, @Param("nombre") String nombre, @Param("email") String email,
+                            @Param("telefono") String telefono, @Param("emailNormalizado") String emailNormalizado,
+                            @Param("telefonoNormalizado") String telefonoNormalizado, @Param("version") Long version);
+
+    @Query("select c.version from Cliente c where c.id = :id")
+    Long findVersionById(@Param("id") Long id);
+
+    // ---- deduplicación (ClienteDeduplicador)
+
+    @Query("select c.id from Cliente c where c.id > :desde and ((c.email is not null and c.emailNormalizado is null) "
+            + "or (c.telefono is not null and c.telefonoNormalizado is null)) order by c.id")
+    List<Long> findIdsSinNormalizar(@Param("desde") Long desde, Pageable lote);
+
+    @Query("select c.emailNormalizado from Cliente c where c.emailNormalizado is not null "
+            + "and c.emailNormalizado <> '' group by c.emailNormalizado having count(c) > 1")
+    List<String> findEmailsDuplicados(Pageable lote);
+
+    @Query("select c.telefonoNormalizado from Cliente c where c.telefonoNormalizado is not null "
+            + "and c.telefonoNormalizado <> '' group by c.telefonoNormalizado having count(c) > 1")
+    List<String> findTelefonosDuplicados(Pageable lote);
+
+    List<Cliente> findByEmailNormalizadoOrderByIdAsc(String emailNormalizado);
+    List<Cliente> findByTelefonoNormalizadoOrderByIdAsc(String telefonoNormalizado);
 
-public interface ClienteRepository extends JpaRepository<Cliente, Long> {}
\ No newline at end of file
+    @Modifying
+    @Query("delete from Cliente c where c.id in :ids")
+    int borrarPorIds(@Param("ids") List<Long> ids);
+}
@@ -1,10 +1,20 @@
 package com.bienestarproyect.Bienestar.repository;
 
+import com.bienestarproyect.Bienestar.entity.Cliente;
 import com.bienestarproyect.Bienestar.entity.Factura;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface FacturaRepository extends JpaRepository<Factura, Long> {
     // usar la propiedad cliente.id explícitamente
     List<Factura> findByCliente_IdOrderByFechaDesc(Long clienteId);
-}
\ No newline at end of file
+
+    // fusión de clientes duplicados: las facturas pasan al cliente que se conserva
+    @Modifying
+    @Query("update Factura f set f.cliente = :destino, f.version = f.version + 1 where f.cliente.id in :origen")
+    int reasignarCliente(@Param("origen") List<Long> origen, @Param("destino") Cliente destino);
+}
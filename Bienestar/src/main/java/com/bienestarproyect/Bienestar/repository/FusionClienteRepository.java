@@ -0,0 +1,63 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.entity.FusionCliente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Registro de fusiones de clientes (ClienteDeduplicador). Lo movido se anota con INSERT ... SELECT antes de
+ * reasignarlo, sin cargar los ids en memoria; deshacer devuelve solo lo anotado que sigue en el destino.
+ */
+public interface FusionClienteRepository extends JpaRepository<FusionCliente, Long> {
+
+    List<FusionCliente> findByOrderByIdDesc(Pageable pagina);
+
+    List<FusionCliente> findByDestinoIdOrderByIdDesc(Long destinoId, Pageable pagina);
+
+    @Modifying
+    @Query(value = "INSERT INTO clientes_fusiones_movidos (fusion_id, tipo, registro_id) "
+            + "SELECT :fusion, 'CITA', id FROM citas WHERE cliente_id = :origen", nativeQuery = true)
+    int anotarCitas(@Param("fusion") Long fusion, @Param("origen") Long origen);
+
+    @Modifying
+    @Query(value = "INSERT INTO clientes_fusiones_movidos (fusion_id, tipo, registro_id) "
+            + "SELECT :fusion, 'FACTURA', id FROM facturas WHERE cliente_id = :origen", nativeQuery = true)
+    int anotarFacturas(@Param("fusion") Long fusion, @Param("origen") Long origen);
+
+    @Modifying
+    @Query(value = "INSERT INTO clientes_fusiones_movidos (fusion_id, tipo, registro_id) "
+            + "SELECT :fusion, 'LISTA_ESPERA', id FROM lista_espera WHERE cliente_id = :origen", nativeQuery = true)
+    int anotarEsperas(@Param("fusion") Long fusion, @Param("origen") Long origen);
+
+    // ---- deshacer: solo lo anotado que sigue en el cliente que se conservó
+
+    String ANOTADOS = "(SELECT m.registro_id FROM clientes_fusiones_movidos m WHERE m.fusion_id = :fusion AND m.tipo = ";
+
+    @Modifying
+    @Query(value = "UPDATE citas SET cliente_id = :origen, version = version + 1 "
+            + "WHERE cliente_id = :destino AND id IN " + ANOTADOS + "'CITA')", nativeQuery = true)
+    int devolverCitas(@Param("fusion") Long fusion, @Param("origen") Long origen, @Param("destino") Long destino);
+
+    @Modifying
+    @Query(value = "UPDATE facturas SET cliente_id = :origen, version = version + 1 "
+            + "WHERE cliente_id = :destino AND id IN " + ANOTADOS + "'FACTURA')", nativeQuery = true)
+    int devolverFacturas(@Param("fusion") Long fusion, @Param("origen") Long origen, @Param("destino") Long destino);
+
+    @Modifying
+    @Query(value = "UPDATE lista_espera SET cliente_id = :origen, version = version + 1 "
+            + "WHERE cliente_id = :destino AND id IN " + ANOTADOS + "'LISTA_ESPERA')", nativeQuery = true)
+    int devolverEsperas(@Param("fusion") Long fusion, @Param("origen") Long origen, @Param("destino") Long destino);
+
+    // el cliente vuelve con su id original (las citas y facturas devueltas apuntan a él)
+    @Modifying
+    @Query(value = "INSERT INTO clientes (id, nombre, email, telefono, email_normalizado, telefono_normalizado, version) "
+            + "VALUES (:id, :nombre, :email, :telefono, :emailNormalizado, :telefonoNormalizado, 0)", nativeQuery = true)
+    int restaurarCliente(@Param("id") Long id, @Param("nombre") String nombre, @Param("email") String email,
+                         @Param("telefono") String telefono, @Param("emailNormalizado") String emailNormalizado,
+                         @Param("telefonoNormalizado") String telefonoNormalizado);
+}
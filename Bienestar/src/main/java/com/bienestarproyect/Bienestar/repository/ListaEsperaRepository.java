@@ -0,0 +1,81 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.entity.EstadoEspera;
+import com.bienestarproyect.Bienestar.entity.ListaEspera;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Las transiciones son UPDATE condicionados al estado de origen: si otra instancia o petición
+ * se adelantó, devuelven 0 y quien llama prueba con el siguiente.
+ */
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, Long> {
+
+    // recuperación al arrancar (idx_lista_espera_estado_hasta)
+    List<ListaEspera> findByEstadoAndHastaAfter(EstadoEspera estado, LocalDateTime ahora);
+
+    List<ListaEspera> findByEstado(EstadoEspera estado);
+
+    // ofertas cerradas cuyo hueco aún no pasó a la siguiente (la instancia que las tenía se paró antes)
+    List<ListaEspera> findByEstadoInAndHuecoTraspasadoFalseAndOfertaInicioAfter(Collection<EstadoEspera> estados,
+                                                                               LocalDateTime ahora);
+
+    List<ListaEspera> findByServicioIdAndEstadoInOrderByPrioridadDescCreadaAscIdAsc(Long servicioId, Collection<EstadoEspera> estados);
+
+    String CANDIDATAS = "select e from ListaEspera e where e.servicioId = :servicioId and e.estado = :esperando "
+            + "and e.desde <= :hueco and e.hasta > :hueco ";
+    String ORDEN = "order by e.prioridad desc, e.creada asc, e.id asc";
+
+    // emparejamiento de un hueco libre (idx_lista_espera_servicio_estado), en el orden de la lista
+    @Query(CANDIDATAS + ORDEN)
+    List<ListaEspera> candidatas(@Param("servicioId") Long servicioId, @Param("hueco") LocalDateTime hueco,
+                                 @Param("esperando") EstadoEspera esperando, Pageable pagina);
+
+    // las que van por delante de (prioridad, creada, id): la candidata que propone la cola en memoria
+    @Query(CANDIDATAS + "and (e.prioridad > :prioridad or (e.prioridad = :prioridad and (e.creada < :creada "
+            + "or (e.creada = :creada and e.id < :id)))) " + ORDEN)
+    List<ListaEspera> candidatasAntesDe(@Param("servicioId") Long servicioId, @Param("hueco") LocalDateTime hueco,
+                                       @Param("esperando") EstadoEspera esperando, @Param("prioridad") int prioridad,
+                                       @Param("creada") LocalDateTime creada, @Param("id") Long id, Pageable pagina);
+
+    @Modifying
+    @Query("update ListaEspera e set e.estado = :ofrecida, e.ofertaInicio = :inicio, e.ofertaExpira = :expira, "
+            + "e.version = e.version + 1 where e.id = :id and e.estado = :esperando")
+    int ofrecer(@Param("id") Long id, @Param("inicio") LocalDateTime inicio, @Param("expira") LocalDateTime expira,
+                @Param("esperando") EstadoEspera esperando, @Param("ofrecida") EstadoEspera ofrecida);
+
+    // aceptar solo una oferta abierta y no caducada; la cita ya está insertada en la misma transacción
+    @Modifying
+    @Query("update ListaEspera e set e.estado = :aceptada, e.citaId = :citaId, e.version = e.version + 1 "
+            + "where e.id = :id and e.estado = :ofrecida and e.ofertaExpira > :ahora")
+    int aceptar(@Param("id") Long id, @Param("citaId") Long citaId, @Param("ahora") LocalDateTime ahora,
+                @Param("ofrecida") EstadoEspera ofrecida, @Param("aceptada") EstadoEspera aceptada);
+
+    @Modifying
+    @Query("update ListaEspera e set e.estado = :expirada, e.version = e.version + 1 "
+            + "where e.id = :id and e.estado = :ofrecida and e.ofertaExpira <= :ahora")
+    int expirar(@Param("id") Long id, @Param("ahora") LocalDateTime ahora,
+                @Param("ofrecida") EstadoEspera ofrecida, @Param("expirada") EstadoEspera expirada);
+
+    // fusión de clientes duplicados: las inscripciones pasan al cliente que se conserva
+    @Modifying
+    @Query("update ListaEspera e set e.clienteId = :destino, e.version = e.version + 1 where e.clienteId in :origen")
+    int reasignarCliente(@Param("origen") List<Long> origen, @Param("destino") Long destino);
+
+    // el hueco de una oferta cerrada pasa a la siguiente una sola vez, en la instancia que lo reclame
+    @Modifying
+    @Query("update ListaEspera e set e.huecoTraspasado = true "
+            + "where e.id = :id and e.estado in :cerradas and e.huecoTraspasado = false")
+    int traspasar(@Param("id") Long id, @Param("cerradas") Collection<EstadoEspera> cerradas);
+
+    @Modifying
+    @Query("update ListaEspera e set e.estado = :destino, e.version = e.version + 1 where e.id = :id and e.estado in :origen")
+    int transicionar(@Param("id") Long id, @Param("origen") Collection<EstadoEspera> origen, @Param("destino") EstadoEspera destino);
+}
@@ -0,0 +1,33 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+    // índice parcial/compuesto en V4: (publicado_en, id). Las filas quedan bloqueadas hasta el fin de la
+    // transacción y las que ya tiene otra instancia se saltan: cada evento pendiente lo reclama una sola
+    @Query(value = "select * from outbox_eventos where publicado_en is null order by id limit :limite "
+            + "for update skip locked", nativeQuery = true)
+    List<OutboxEvento> reclamarPendientes(@Param("limite") int limite);
+
+    @Query("select max(e.id) from OutboxEvento e")
+    Long ultimoId();
+
+    // agregados con eventos posteriores a una marca; el margen por creadoEn recoge transacciones que
+    // confirmaron tarde con un id menor (idx_outbox_eventos_creado en V11)
+    @Query("select distinct e.agregadoId from OutboxEvento e where e.agregado = :agregado "
+            + "and (e.id > :marca or e.creadoEn >= :desde)")
+    List<Long> agregadosCambiados(@Param("agregado") String agregado, @Param("marca") long marca,
+                                  @Param("desde") LocalDateTime desde);
+
+    @Modifying
+    @Query("update OutboxEvento e set e.publicadoEn = :ahora where e.id in :ids")
+    int marcarPublicados(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+}
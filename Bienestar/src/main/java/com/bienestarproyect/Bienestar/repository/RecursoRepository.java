@@ -0,0 +1,20 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RecursoRepository extends JpaRepository<Recurso, Long> {
+
+    // SELECT ... FOR UPDATE de los recursos de una reserva hasta el fin de la transacción; siempre en orden
+    // de id para que dos reservas con recursos en común no se bloqueen mutuamente
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Recurso r where r.id in :ids order by r.id")
+    List<Recurso> bloquear(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,37 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.ReservaRecurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReservaRecursoRepository extends JpaRepository<ReservaRecurso, Long> {
+
+    // reservas aún vigentes de citas activas, para reconstruir la ocupación al arrancar (idx_reservas_recurso_fin)
+    @Query("select r from ReservaRecurso r where r.fin > :desde "
+            + "and exists (select 1 from Cita c where c.id = r.citaId and c.estado = :estado) order by r.citaId, r.id")
+    List<ReservaRecurso> findVigentes(@Param("desde") LocalDateTime desde, @Param("estado") EstadoCita estado);
+
+    // las mismas, solo de unas citas: repaso de los cambios posteriores a un snapshot del calendario
+    @Query("select r from ReservaRecurso r where r.citaId in :citaIds and r.fin > :desde "
+            + "and exists (select 1 from Cita c where c.id = r.citaId and c.estado = :estado) order by r.citaId, r.id")
+    List<ReservaRecurso> findVigentesDeCitas(@Param("citaIds") Collection<Long> citaIds, @Param("desde") LocalDateTime desde,
+                                             @Param("estado") EstadoCita estado);
+
+    // reservas de citas activas que se solapan con [inicio, fin) en esos recursos (idx_reservas_recurso_recurso_inicio)
+    @Query("select r from ReservaRecurso r where r.recursoId in :recursoIds and r.inicio < :fin and r.fin > :inicio "
+            + "and exists (select 1 from Cita c where c.id = r.citaId and c.estado = :estado)")
+    List<ReservaRecurso> findSolapadas(@Param("recursoIds") Collection<Long> recursoIds, @Param("inicio") LocalDateTime inicio,
+                                       @Param("fin") LocalDateTime fin, @Param("estado") EstadoCita estado);
+
+    // reprogramación de una cita con recursos: sus filas se sustituyen por las del nuevo horario, en la misma transacción
+    @Modifying
+    @Query("delete from ReservaRecurso r where r.citaId = :citaId")
+    int borrarDeCita(@Param("citaId") Long citaId);
+}
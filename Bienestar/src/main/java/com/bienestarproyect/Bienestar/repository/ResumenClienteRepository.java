@@ -0,0 +1,87 @@
+package com.bienestarproyect.Bienestar.repository;
+
+import com.bienestarproyect.Bienestar.dto.ClienteListadoItem;
+import com.bienestarproyect.Bienestar.entity.ResumenCliente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ResumenClienteRepository extends JpaRepository<ResumenCliente, Long> {
+
+    String LISTADO = "select new com.bienestarproyect.Bienestar.dto.ClienteListadoItem(c.id, c.nombre, c.email, c.telefono, "
+            + "r.visitas, r.ultimaVisita, r.facturas, r.gastoTotal) from ResumenCliente r join Cliente c on c.id = r.clienteId ";
+
+    // incrementos atómicos: sin leer la fila, el bloqueo de la fila ordena las transacciones concurrentes
+    @Modifying
+    @Query("update ResumenCliente r set r.visitas = r.visitas + 1, r.ultimaVisita = case "
+            + "when r.ultimaVisita is null or r.ultimaVisita < :fecha then :fecha else r.ultimaVisita end "
+            + "where r.clienteId = :clienteId")
+    int sumarVisita(@Param("clienteId") Long clienteId, @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("update ResumenCliente r set r.facturas = r.facturas + 1, r.gastoTotal = r.gastoTotal + :total "
+            + "where r.clienteId = :clienteId")
+    int sumarFactura(@Param("clienteId") Long clienteId, @Param("total") BigDecimal total);
+
+    // los tres órdenes siguen los índices de V12 (columna desc, cliente_id desc)
+    @Query(LISTADO + "order by r.gastoTotal desc, r.clienteId desc")
+    List<ClienteListadoItem> porGasto(Pageable pagina);
+
+    @Query(LISTADO + "order by r.ultimaVisita desc nulls last, r.clienteId desc")
+    List<ClienteListadoItem> porUltimaVisita(Pageable pagina);
+
+    @Query(LISTADO + "order by r.visitas desc, r.clienteId desc")
+    List<ClienteListadoItem> porVisitas(Pageable pagina);
+
+    // fila calculada desde citas y facturas: alta de cliente, fila que faltaba
+    @Modifying
+    @Query(value = "INSERT INTO cliente_resumen (cliente_id, visitas, ultima_visita, facturas, gasto_total) "
+            + "SELECT c.id, "
+            + "(SELECT COUNT(*) FROM citas x WHERE x.cliente_id = c.id AND x.estado = :atendida), "
+            + "(SELECT MAX(x.fecha_hora) FROM citas x WHERE x.cliente_id = c.id AND x.estado = :atendida), "
+            + "(SELECT COUNT(*) FROM facturas f WHERE f.cliente_id = c.id), "
+            + "(SELECT COALESCE(SUM(f.total), 0) FROM facturas f WHERE f.cliente_id = c.id) "
+            + "FROM clientes c WHERE c.id = :clienteId "
+            + "AND NOT EXISTS (SELECT 1 FROM cliente_resumen r WHERE r.cliente_id = c.id)", nativeQuery = true)
+    int insertarCalculado(@Param("clienteId") Long clienteId, @Param("atendida") String atendida);
+
+    @Modifying
+    @Query(value = "INSERT INTO cliente_resumen (cliente_id, visitas, facturas, gasto_total) "
+            + "SELECT c.id, 0, 0, 0 FROM clientes c "
+            + "WHERE NOT EXISTS (SELECT 1 FROM cliente_resumen r WHERE r.cliente_id = c.id)", nativeQuery = true)
+    int insertarFaltantes();
+
+    // fusión de clientes duplicados: las filas de los borrados sobran
+    @Modifying
+    @Query("delete from ResumenCliente r where r.clienteId in :ids")
+    int borrarDe(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM cliente_resumen "
+            + "WHERE NOT EXISTS (SELECT 1 FROM clientes c WHERE c.id = cliente_resumen.cliente_id)", nativeQuery = true)
+    int borrarHuerfanos();
+
+    /** Recalcula un tramo de ids; solo toca (y cuenta) las filas que no cuadraban. */
+    @Modifying
+    @Query(value = "UPDATE cliente_resumen SET "
+            + "visitas = (SELECT COUNT(*) FROM citas x WHERE x.cliente_id = cliente_resumen.cliente_id AND x.estado = :atendida), "
+            + "ultima_visita = (SELECT MAX(x.fecha_hora) FROM citas x WHERE x.cliente_id = cliente_resumen.cliente_id AND x.estado = :atendida), "
+            + "facturas = (SELECT COUNT(*) FROM facturas f WHERE f.cliente_id = cliente_resumen.cliente_id), "
+            + "gasto_total = (SELECT COALESCE(SUM(f.total), 0) FROM facturas f WHERE f.cliente_id = cliente_resumen.cliente_id) "
+            + "WHERE cliente_id BETWEEN :desde AND :hasta AND ("
+            + "visitas <> (SELECT COUNT(*) FROM citas x WHERE x.cliente_id = cliente_resumen.cliente_id AND x.estado = :atendida) "
+            + "OR ultima_visita IS DISTINCT FROM (SELECT MAX(x.fecha_hora) FROM citas x WHERE x.cliente_id = cliente_resumen.cliente_id AND x.estado = :atendida) "
+            + "OR facturas <> (SELECT COUNT(*) FROM facturas f WHERE f.cliente_id = cliente_resumen.cliente_id) "
+            + "OR gasto_total <> (SELECT COALESCE(SUM(f.total), 0) FROM facturas f WHERE f.cliente_id = cliente_resumen.cliente_id))",
+            nativeQuery = true)
+    int recalcular(@Param("desde") long desde, @Param("hasta") long hasta, @Param("atendida") String atendida);
+
+    @Query("select coalesce(max(c.id), 0) from Cliente c")
+    long maxClienteId();
+}
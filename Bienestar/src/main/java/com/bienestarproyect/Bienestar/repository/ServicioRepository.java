@@ -2,5 +2,20 @@ package com.bienestarproyect.Bienestar.repository;
 
 import com.bienestarproyect.Bienestar.entity.Servicio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface ServicioRepository extends JpaRepository<Servicio, Long> {}
\ No newline at end of file
+import java.math.BigDecimal;
+
+public interface ServicioRepository extends JpaRepository<Servicio, Long> {
+    // PUT condicional: un único UPDATE sin lectura previa; version null = sin If-Match (incondicional)
+    @Modifying
+    @Query("update Servicio s set s.nombre = :nombre, s.descripcion = :descripcion, s.precio = :precio, "
+            + "s.version = s.version + 1 where s.id = :id and (:version is null or s.version = :version)")
+    int actualizarSiVersion(@Param("id") Long id, @Param("nombre") String nombre, @Param("descripcion") String descripcion,
+                            @Param("precio") BigDecimal precio, @Param("version") Long version);
+
+    @Query("select s.version from Servicio s where s.id = :id")
+    Long findVersionById(@Param("id") Long id);
+}
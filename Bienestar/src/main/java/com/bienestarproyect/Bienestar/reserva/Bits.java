@@ -0,0 +1,76 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+/**
+ * Operaciones sobre la máscara de un día: un bit por cuanto de {@link #QUANTUM_MINUTOS} minutos,
+ * el bit i del día es el bit (i &amp; 63) de la palabra i &gt;&gt;&gt; 6.
+ */
+final class Bits {
+
+    static final int QUANTUM_MINUTOS = 15;
+    static final int CUANTOS_DIA = 24 * 60 / QUANTUM_MINUTOS;
+    static final int PALABRAS = (CUANTOS_DIA + 63) >>> 6;
+
+    private Bits() {}
+
+    /** Máscara con los bits [desde, hasta). */
+    static long[] rango(int desde, int hasta) {
+        long[] r = new long[PALABRAS];
+        for (int w = desde >>> 6; w < PALABRAS && (w << 6) < hasta; w++) {
+            int lo = Math.max(desde - (w << 6), 0);
+            int hi = Math.min(hasta - (w << 6), 64);
+            long alto = hi == 64 ? -1L : (1L << hi) - 1;
+            r[w] = alto & (-1L << lo);
+        }
+        return r;
+    }
+
+    static long[] dia() {
+        return rango(0, CUANTOS_DIA);
+    }
+
+    /**
+     * Bit s activo si s..s+n-1 están todos activos en {@code libres}: AND con la máscara desplazada,
+     * doblando el tramo cubierto en cada paso (log2(n) pasadas sobre PALABRAS palabras).
+     */
+    static long[] inicios(long[] libres, int n) {
+        long[] x = libres.clone();
+        for (int cubierto = 1; cubierto < n; ) {
+            int paso = Math.min(cubierto, n - cubierto);
+            long[] d = desplazar(x, paso);
+            for (int w = 0; w < PALABRAS; w++) x[w] &= d[w];
+            cubierto += paso;
+        }
+        return x;
+    }
+
+    /** r[i] = x[i + k]: el bit i del resultado es el bit i+k de la entrada. */
+    static long[] desplazar(long[] x, int k) {
+        long[] r = new long[PALABRAS];
+        int palabras = k >>> 6, bits = k & 63;
+        for (int w = 0; w + palabras < PALABRAS; w++) {
+            long v = x[w + palabras] >>> bits;
+            if (bits != 0 && w + palabras + 1 < PALABRAS) v |= x[w + palabras + 1] << (64 - bits);
+            r[w] = v;
+        }
+        return r;
+    }
+
+    static boolean algunoComun(long[] a, long[] b) {
+        for (int w = 0; w < PALABRAS; w++) if ((a[w] & b[w]) != 0) return true;
+        return false;
+    }
+
+    static boolean activo(long[] x, int i) {
+        return (x[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Primer bit activo en posición &gt;= desde, o -1. */
+    static int siguiente(long[] x, int desde) {
+        for (int w = desde >>> 6; w < PALABRAS; w++) {
+            long v = x[w];
+            if (w == desde >>> 6) v &= -1L << (desde & 63);
+            if (v != 0) return (w << 6) + Long.numberOfTrailingZeros(v);
+        }
+        return -1;
+    }
+}
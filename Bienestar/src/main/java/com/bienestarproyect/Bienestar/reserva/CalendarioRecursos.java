@@ -0,0 +1,305 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.TipoRecurso;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ocupación en memoria de terapeutas y salas: por recurso y día, una {@link OcupacionDia} (bits de 15 minutos).
+ *
+ * Buscar hueco no toca la base: para cada necesidad del requisito se hace el OR de los inicios posibles de sus
+ * recursos candidatos, los de todas las necesidades se combinan con AND, junto con los inicios que el
+ * {@link Horario} de la clínica permite ese día, y el primer bit activo es el hueco.
+ * Reservar comprueba y ocupa todos los recursos bajo el mismo cerrojo, así que dos reservas no pueden
+ * quedarse el mismo hueco. Las clases de grupo (plazas &gt; 1) ocupan los recursos una vez por sesión y
+ * las citas siguientes se suman a la sesión mientras queden plazas.
+ *
+ * Es estado de la instancia, como el índice de búsqueda de clientes: se reconstruye al arrancar desde
+ * reservas_recurso o desde el {@link SnapshotCalendario} de la propia instancia.
+ */
+public class CalendarioRecursos {
+
+    public static final int QUANTUM_MINUTOS = Bits.QUANTUM_MINUTOS;
+
+    private record Info(long id, TipoRecurso tipo, int capacidad, Set<String> habilidades) {}
+
+    private record Sesion(long servicioId, LocalDateTime inicio, List<Long> recursos) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Info> recursos = new TreeMap<>();
+    private final Map<Long, Map<LocalDate, OcupacionDia>> ocupacion = new HashMap<>();
+    private final Map<Sesion, int[]> sesiones = new HashMap<>();
+    private final Horario horario;
+
+    public CalendarioRecursos() {
+        this(Horario.SIEMPRE);
+    }
+
+    CalendarioRecursos(Horario horario) {
+        this.horario = horario;
+    }
+
+    /** Sustituye los recursos y borra toda la ocupación; después se restauran las reservas vigentes. */
+    public void reiniciar(Collection<Recurso> todos) {
+        lock.writeLock().lock();
+        try {
+            recursos.clear();
+            ocupacion.clear();
+            sesiones.clear();
+            for (Recurso r : todos) {
+                recursos.put(r.getId(), new Info(r.getId(), r.getTipo(), Math.max(1, r.getCapacidad()),
+                        Set.copyOf(r.getHabilidades())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Primer hueco en [desde, desde + dias) que cumpla el requisito, contando sesiones de grupo con plazas. */
+    public Optional<Hueco> buscar(Requisito req, LocalDateTime desde, int dias) {
+        if (req.cuantos() > Bits.CUANTOS_DIA) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            Hueco grupo = req.plazas() > 1 ? primeraSesionConPlazas(req, desde, desde.plusDays(dias)) : null;
+            int primero = cuantoTecho(desde.toLocalTime());
+            for (int d = 0; d < dias; d++) {
+                LocalDate fecha = desde.toLocalDate().plusDays(d);
+                int desdeCuanto = d == 0 ? primero : 0;
+                if (grupo != null && grupo.inicio().toLocalDate().equals(fecha)) {
+                    // una sesión existente con plazas gana a cualquier hueco nuevo posterior
+                    return Optional.of(buscarEnDia(req, fecha, desdeCuanto, cuanto(grupo.inicio().toLocalTime())).orElse(grupo));
+                }
+                Optional<Hueco> h = buscarEnDia(req, fecha, desdeCuanto, Bits.CUANTOS_DIA);
+                if (h.isPresent()) return h;
+            }
+            return Optional.ofNullable(grupo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** El hueco que empieza exactamente en {@code inicio}, si lo hay (inicio alineado a 15 minutos). */
+    public Optional<Hueco> comprobar(Requisito req, LocalDateTime inicio) {
+        if (!alineado(inicio)) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            if (req.plazas() > 1) {
+                for (Map.Entry<Sesion, int[]> e : sesiones.entrySet()) {
+                    Sesion s = e.getKey();
+                    if (s.servicioId() == req.servicioId() && s.inicio().equals(inicio) && e.getValue()[0] < req.plazas()) {
+                        return Optional.of(new Hueco(inicio, fin(inicio, req), s.recursos()));
+                    }
+                }
+            }
+            int c = cuanto(inicio.toLocalTime());
+            return buscarEnDia(req, inicio.toLocalDate(), c, c + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ocupa los recursos del hueco (o una plaza de la sesión de grupo) si siguen libres; false si
+     * otra reserva se adelantó desde que se buscó.
+     */
+    public boolean reservar(Requisito req, Hueco h) {
+        lock.writeLock().lock();
+        try {
+            if (req.plazas() > 1) {
+                int[] ocupadas = sesiones.get(new Sesion(req.servicioId(), h.inicio(), h.recursos()));
+                if (ocupadas != null) {
+                    if (ocupadas[0] >= req.plazas()) return false;
+                    ocupadas[0]++;
+                    return true;
+                }
+            }
+            long[] rango = rango(h);
+            LocalDate fecha = h.inicio().toLocalDate();
+            for (Long id : h.recursos()) {
+                if (!recursos.containsKey(id)) return false;
+                OcupacionDia o = dia(id, fecha, false);
+                if (o != null && !o.cabe(rango)) return false;
+            }
+            for (Long id : h.recursos()) dia(id, fecha, true).ocupar(rango);
+            if (req.plazas() > 1) sesiones.put(new Sesion(req.servicioId(), h.inicio(), h.recursos()), new int[] {1});
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Restaura una reserva ya persistida sin comprobar capacidad (arranque, reprogramaciones ya confirmadas). */
+    public void restaurar(Requisito req, Hueco h) {
+        lock.writeLock().lock();
+        try {
+            if (req.plazas() > 1) {
+                int[] ocupadas = sesiones.computeIfAbsent(new Sesion(req.servicioId(), h.inicio(), h.recursos()), k -> new int[1]);
+                if (ocupadas[0]++ > 0) return;
+            }
+            long[] rango = rango(h);
+            for (Long id : h.recursos()) {
+                if (recursos.containsKey(id)) dia(id, h.inicio().toLocalDate(), true).ocupar(rango);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void liberar(Requisito req, Hueco h) {
+        lock.writeLock().lock();
+        try {
+            if (req.plazas() > 1) {
+                Sesion s = new Sesion(req.servicioId(), h.inicio(), h.recursos());
+                int[] ocupadas = sesiones.get(s);
+                if (ocupadas == null || --ocupadas[0] > 0) return;
+                sesiones.remove(s);
+            }
+            long[] rango = rango(h);
+            LocalDate fecha = h.inicio().toLocalDate();
+            for (Long id : h.recursos()) {
+                OcupacionDia o = dia(id, fecha, false);
+                if (o == null) continue;
+                o.liberar(rango);
+                if (o.vacio()) ocupacion.get(id).remove(fecha);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Olvida los días anteriores a {@code fecha}; ya no se pueden reservar. */
+    public void purgarAntesDe(LocalDate fecha) {
+        lock.writeLock().lock();
+        try {
+            for (Map<LocalDate, OcupacionDia> dias : ocupacion.values()) dias.keySet().removeIf(d -> d.isBefore(fecha));
+            sesiones.keySet().removeIf(s -> s.inicio().toLocalDate().isBefore(fecha));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int recursos() {
+        lock.readLock().lock();
+        try {
+            return recursos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Cuantos [primero, limite) del día como inicio; el primero que todas las necesidades cubren a la vez. */
+    private Optional<Hueco> buscarEnDia(Requisito req, LocalDate fecha, int primero, int limite) {
+        if (primero >= limite) return Optional.empty();
+        List<Candidatos> necesidades = req.necesidades().stream().map(n -> new Candidatos(candidatos(n))).toList();
+        long[] comun = Bits.rango(primero, limite);
+        long[] abierto = horario.inicios(fecha.getDayOfWeek(), req.cuantos());
+        for (int w = 0; w < Bits.PALABRAS; w++) comun[w] &= abierto[w];
+        for (Candidatos n : necesidades) {
+            long[] alguno = new long[Bits.PALABRAS];
+            for (Info r : n.recursos()) {
+                OcupacionDia o = dia(r.id(), fecha, false);
+                long[] ini = Bits.inicios(o != null ? o.libres() : Bits.dia(), req.cuantos());
+                n.inicios().add(ini);
+                for (int w = 0; w < Bits.PALABRAS; w++) alguno[w] |= ini[w];
+            }
+            for (int w = 0; w < Bits.PALABRAS; w++) comun[w] &= alguno[w];
+        }
+        // en cada inicio común, un recurso distinto por necesidad (dos necesidades del mismo tipo no comparten)
+        for (int s = Bits.siguiente(comun, primero); s >= 0 && s < limite; s = Bits.siguiente(comun, s + 1)) {
+            List<Long> elegidos = asignar(necesidades, s);
+            if (elegidos != null) {
+                LocalDateTime inicio = fecha.atTime(LocalTime.MIN).plusMinutes((long) s * Bits.QUANTUM_MINUTOS);
+                return Optional.of(new Hueco(inicio, fin(inicio, req), elegidos));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static List<Long> asignar(List<Candidatos> necesidades, int s) {
+        List<Long> elegidos = new ArrayList<>(necesidades.size());
+        Set<Long> usados = new HashSet<>();
+        for (Candidatos n : necesidades) {
+            Long elegido = null;
+            for (int i = 0; i < n.recursos().size() && elegido == null; i++) {
+                long id = n.recursos().get(i).id();
+                if (Bits.activo(n.inicios().get(i), s) && !usados.contains(id)) elegido = id;
+            }
+            if (elegido == null) return null;
+            usados.add(elegido);
+            elegidos.add(elegido);
+        }
+        return elegidos;
+    }
+
+    private Hueco primeraSesionConPlazas(Requisito req, LocalDateTime desde, LocalDateTime hasta) {
+        Sesion mejor = null;
+        for (Map.Entry<Sesion, int[]> e : sesiones.entrySet()) {
+            Sesion s = e.getKey();
+            if (s.servicioId() != req.servicioId() || e.getValue()[0] >= req.plazas()) continue;
+            if (s.inicio().isBefore(desde) || !s.inicio().isBefore(hasta)) continue;
+            if (mejor == null || s.inicio().isBefore(mejor.inicio())) mejor = s;
+        }
+        return mejor != null ? new Hueco(mejor.inicio(), fin(mejor.inicio(), req), mejor.recursos()) : null;
+    }
+
+    private List<Info> candidatos(Requisito.Necesidad n) {
+        List<Info> r = new ArrayList<>();
+        for (Info i : recursos.values()) {
+            if (i.tipo() == n.tipo() && (n.habilidad() == null || i.habilidades().contains(n.habilidad()))) r.add(i);
+        }
+        return r;
+    }
+
+    private OcupacionDia dia(Long recursoId, LocalDate fecha, boolean crear) {
+        if (!crear) {
+            Map<LocalDate, OcupacionDia> dias = ocupacion.get(recursoId);
+            return dias != null ? dias.get(fecha) : null;
+        }
+        int capacidad = recursos.get(recursoId).capacidad();
+        return ocupacion.computeIfAbsent(recursoId, k -> new HashMap<>()).computeIfAbsent(fecha, k -> new OcupacionDia(capacidad));
+    }
+
+    private static long[] rango(Hueco h) {
+        int desde = cuanto(h.inicio().toLocalTime());
+        long minutos = Duration.between(h.inicio(), h.fin()).toMinutes();
+        return Bits.rango(desde, desde + (int) ((minutos + Bits.QUANTUM_MINUTOS - 1) / Bits.QUANTUM_MINUTOS));
+    }
+
+    private static LocalDateTime fin(LocalDateTime inicio, Requisito req) {
+        return inicio.plusMinutes((long) req.cuantos() * Bits.QUANTUM_MINUTOS);
+    }
+
+    static boolean alineado(LocalDateTime t) {
+        return t.getSecond() == 0 && t.getNano() == 0 && t.getMinute() % Bits.QUANTUM_MINUTOS == 0;
+    }
+
+    private static int cuanto(LocalTime t) {
+        return t.toSecondOfDay() / 60 / Bits.QUANTUM_MINUTOS;
+    }
+
+    private static int cuantoTecho(LocalTime t) {
+        long q = Duration.ofMinutes(Bits.QUANTUM_MINUTOS).toNanos();
+        return (int) ((t.toNanoOfDay() + q - 1) / q);
+    }
+
+    /** Recursos candidatos de una necesidad y, por candidato, sus inicios posibles en el día. */
+    private record Candidatos(List<Info> recursos, List<long[]> inicios) {
+        Candidatos(List<Info> recursos) {
+            this(recursos, new ArrayList<>(recursos.size()));
+        }
+    }
+}
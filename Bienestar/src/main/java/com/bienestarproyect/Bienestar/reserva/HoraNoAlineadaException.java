@@ -0,0 +1,10 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import java.time.LocalDateTime;
+
+/** La hora pedida no cae en un múltiplo de 15 minutos (el calendario reserva por cuantos). Se responde con 400. */
+public class HoraNoAlineadaException extends RuntimeException {
+    public HoraNoAlineadaException(LocalDateTime hora) {
+        super("La hora debe caer en un múltiplo de " + CalendarioRecursos.QUANTUM_MINUTOS + " minutos (:00, :15, :30, :45): " + hora);
+    }
+}
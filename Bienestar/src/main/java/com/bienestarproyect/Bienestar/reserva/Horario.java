@@ -0,0 +1,68 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Horario de apertura de la clínica por día de la semana, en cuantos de 15 minutos [abre, cierra).
+ * Un hueco solo se ofrece si empieza y termina dentro del horario de su día.
+ */
+final class Horario {
+
+    /** Sin horario: todo el día, todos los días. */
+    static final Horario SIEMPRE = new Horario(new int[7], todos(Bits.CUANTOS_DIA));
+
+    private final int[] abre;
+    private final int[] cierra;
+
+    private Horario(int[] abre, int[] cierra) {
+        this.abre = abre;
+        this.cierra = cierra;
+    }
+
+    /**
+     * {@code general} ("09:00-21:00") para todos los días salvo los de {@code porDia}; "cerrado" o vacío
+     * es un día sin citas. Las horas deben caer en múltiplos de 15 minutos ("24:00" es el fin del día).
+     */
+    static Horario de(String general, Map<DayOfWeek, String> porDia) {
+        int[] abre = new int[7], cierra = new int[7];
+        for (DayOfWeek d : DayOfWeek.values()) {
+            int[] tramo = tramo(porDia.getOrDefault(d, general));
+            abre[d.ordinal()] = tramo[0];
+            cierra[d.ordinal()] = tramo[1];
+        }
+        return new Horario(abre, cierra);
+    }
+
+    /** Inicios posibles de un servicio de {@code cuantos} cuantos en un día {@code dia}. */
+    long[] inicios(DayOfWeek dia, int cuantos) {
+        return Bits.rango(abre[dia.ordinal()], cierra[dia.ordinal()] - cuantos + 1);
+    }
+
+    private static int[] tramo(String s) {
+        if (s == null || s.isBlank() || s.trim().equalsIgnoreCase("cerrado")) return new int[] {0, 0};
+        String[] partes = s.trim().split("-");
+        if (partes.length != 2) throw new IllegalStateException("Horario no válido (HH:mm-HH:mm): " + s);
+        int desde = cuanto(partes[0].trim(), s), hasta = cuanto(partes[1].trim(), s);
+        if (hasta <= desde) throw new IllegalStateException("Horario no válido, cierra antes de abrir: " + s);
+        return new int[] {desde, hasta};
+    }
+
+    private static int cuanto(String hora, String s) {
+        if (hora.equals("24:00")) return Bits.CUANTOS_DIA;
+        LocalTime t = LocalTime.parse(hora);
+        if (t.getMinute() % Bits.QUANTUM_MINUTOS != 0) {
+            throw new IllegalStateException("Horario no válido, las horas van de " + Bits.QUANTUM_MINUTOS + " en "
+                    + Bits.QUANTUM_MINUTOS + " minutos: " + s);
+        }
+        return t.toSecondOfDay() / 60 / Bits.QUANTUM_MINUTOS;
+    }
+
+    private static int[] todos(int v) {
+        int[] r = new int[7];
+        Arrays.fill(r, v);
+        return r;
+    }
+}
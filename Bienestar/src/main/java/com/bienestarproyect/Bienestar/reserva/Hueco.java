@@ -0,0 +1,7 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Intervalo [inicio, fin) y los recursos elegidos, uno por necesidad del {@link Requisito} y en su orden. */
+public record Hueco(LocalDateTime inicio, LocalDateTime fin, List<Long> recursos) {}
@@ -0,0 +1,54 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+/**
+ * Ocupación de un recurso en un día, en unario por capas: capas[k] tiene activos los cuantos con más de k
+ * reservas. Ocupar sube cada cuanto del rango a la primera capa libre; liberar lo baja de la última ocupada.
+ * La capa capacidad-1 es "lleno", así que los cuantos libres son su complemento.
+ */
+final class OcupacionDia {
+
+    private final long[][] capas;
+
+    OcupacionDia(int capacidad) {
+        this.capas = new long[Math.max(1, capacidad)][Bits.PALABRAS];
+    }
+
+    long[] libres() {
+        long[] lleno = capas[capas.length - 1];
+        long[] dia = Bits.dia();
+        for (int w = 0; w < Bits.PALABRAS; w++) dia[w] &= ~lleno[w];
+        return dia;
+    }
+
+    boolean cabe(long[] rango) {
+        return !Bits.algunoComun(capas[capas.length - 1], rango);
+    }
+
+    /** Sin comprobar capacidad: lo que no cabe en la última capa se pierde (solo al restaurar datos inconsistentes). */
+    void ocupar(long[] rango) {
+        for (int w = 0; w < Bits.PALABRAS; w++) {
+            long pendiente = rango[w];
+            for (int k = 0; k < capas.length && pendiente != 0; k++) {
+                long nuevos = pendiente & ~capas[k][w];
+                capas[k][w] |= nuevos;
+                pendiente &= ~nuevos;
+            }
+        }
+    }
+
+    void liberar(long[] rango) {
+        for (int w = 0; w < Bits.PALABRAS; w++) {
+            long pendiente = rango[w];
+            for (int k = capas.length - 1; k >= 0 && pendiente != 0; k--) {
+                long quitados = pendiente & capas[k][w];
+                capas[k][w] &= ~quitados;
+                pendiente &= ~quitados;
+            }
+        }
+    }
+
+    boolean vacio() {
+        for (long v : capas[0]) if (v != 0) return false;
+        return true;
+    }
+}
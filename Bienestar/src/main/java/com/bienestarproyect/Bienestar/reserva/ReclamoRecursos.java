@@ -0,0 +1,120 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.ReservaRecurso;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.repository.RecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ReservaRecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Comprobación en la base de que un hueco sigue libre, la que decide entre instancias: el calendario en
+ * memoria de cada una solo ve sus propias reservas hasta que se sincroniza.
+ *
+ * Se bloquean las filas de recursos del hueco (FOR UPDATE, hasta el fin de la transacción) y, con ellas
+ * bloqueadas, se cuentan las reservas de citas AGENDADA que se solapan. Dos reservas de los mismos recursos,
+ * en la instancia que sea, pasan por aquí una detrás de otra y la segunda ya ve la fila de la primera.
+ * Las reglas son las del calendario: cada recurso admite {@code capacidad} reservas a la vez y una clase de
+ * grupo ocupa los recursos una vez por sesión, con tantas citas como plazas.
+ */
+class ReclamoRecursos {
+
+    private record Ocupacion(LocalDateTime inicio, LocalDateTime fin) {}
+
+    private final RecursoRepository recursos;
+    private final ReservaRecursoRepository reservas;
+    private final ServicioRepository servicios;
+
+    ReclamoRecursos(RecursoRepository recursos, ReservaRecursoRepository reservas, ServicioRepository servicios) {
+        this.recursos = recursos;
+        this.reservas = reservas;
+        this.servicios = servicios;
+    }
+
+    /**
+     * Bloquea los recursos del hueco y devuelve las citas con las que choca (vacío: el hueco es de quien llama
+     * hasta que su transacción termine). Debe llamarse dentro de la transacción que inserta la reserva.
+     *
+     * @param excluida cita que se está reprogramando: sus propias filas no cuentan
+     */
+    List<Long> conflictos(Requisito req, Hueco h, Long excluida) {
+        List<Recurso> bloqueados = recursos.bloquear(new TreeSet<>(h.recursos()));
+        if (bloqueados.size() != new LinkedHashSet<>(h.recursos()).size()) {
+            throw new ReservaNoDisponibleException("Alguno de los recursos " + h.recursos() + " ya no existe");
+        }
+        List<ReservaRecurso> solapadas = new ArrayList<>();
+        for (ReservaRecurso r : reservas.findSolapadas(h.recursos(), h.inicio(), h.fin(), EstadoCita.AGENDADA)) {
+            if (!Objects.equals(r.getCitaId(), excluida)) solapadas.add(r);
+        }
+        if (solapadas.isEmpty()) return List.of();
+
+        if (req.plazas() > 1) {
+            Set<Long> sesion = new LinkedHashSet<>();
+            for (ReservaRecurso r : solapadas) {
+                if (r.getServicioId() == req.servicioId() && r.getInicio().equals(h.inicio())) sesion.add(r.getCitaId());
+            }
+            // la sesión ya ocupa sus recursos: solo cuentan las plazas
+            if (!sesion.isEmpty()) return sesion.size() < req.plazas() ? List.of() : List.copyOf(sesion);
+        }
+
+        Map<Long, Integer> plazas = plazas(solapadas);
+        Set<Long> conflictos = new LinkedHashSet<>();
+        for (Recurso recurso : bloqueados) {
+            List<Ocupacion> ocupaciones = new ArrayList<>();
+            Set<Object> vistas = new HashSet<>();
+            for (ReservaRecurso r : solapadas) {
+                if (!r.getRecursoId().equals(recurso.getId())) continue;
+                // las citas de una misma sesión de grupo ocupan el recurso una sola vez
+                Object clave = plazas.getOrDefault(r.getServicioId(), 1) > 1
+                        ? List.of(r.getServicioId(), r.getInicio()) : r.getCitaId();
+                if (vistas.add(clave)) ocupaciones.add(new Ocupacion(r.getInicio(), r.getFin()));
+            }
+            if (maximoSimultaneo(ocupaciones, h) >= Math.max(1, recurso.getCapacidad())) {
+                for (ReservaRecurso r : solapadas) {
+                    if (r.getRecursoId().equals(recurso.getId())) conflictos.add(r.getCitaId());
+                }
+            }
+        }
+        return List.copyOf(conflictos);
+    }
+
+    // el máximo de ocupaciones a la vez dentro del hueco se alcanza en su inicio o en el inicio de alguna de ellas
+    private static int maximoSimultaneo(List<Ocupacion> ocupaciones, Hueco h) {
+        int maximo = 0;
+        List<LocalDateTime> puntos = new ArrayList<>();
+        puntos.add(h.inicio());
+        for (Ocupacion o : ocupaciones) {
+            if (o.inicio().isAfter(h.inicio()) && o.inicio().isBefore(h.fin())) puntos.add(o.inicio());
+        }
+        for (LocalDateTime p : puntos) {
+            int n = 0;
+            for (Ocupacion o : ocupaciones) {
+                if (!o.inicio().isAfter(p) && o.fin().isAfter(p)) n++;
+            }
+            maximo = Math.max(maximo, n);
+        }
+        return maximo;
+    }
+
+    private Map<Long, Integer> plazas(List<ReservaRecurso> filas) {
+        Set<Long> ids = new LinkedHashSet<>();
+        filas.forEach(r -> ids.add(r.getServicioId()));
+        Map<Long, Integer> plazas = new HashMap<>();
+        for (Servicio s : servicios.findAllById(ids)) {
+            plazas.put(s.getId(), s.getCapacidad() != null ? Math.max(1, s.getCapacidad()) : 1);
+        }
+        return plazas;
+    }
+}
@@ -0,0 +1,29 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TipoRecurso;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lo que necesita una reserva de un servicio: un recurso por {@link Necesidad}, durante {@code cuantos}
+ * cuantos seguidos. Con {@code plazas} &gt; 1 es una clase de grupo: varias citas comparten los mismos recursos.
+ */
+public record Requisito(long servicioId, List<Necesidad> necesidades, int cuantos, int plazas) {
+
+    public static final int DURACION_POR_DEFECTO = 60;
+
+    /** Recurso de un tipo; si {@code habilidad} no es null, el recurso debe tenerla. */
+    public record Necesidad(TipoRecurso tipo, String habilidad) {}
+
+    public static Requisito de(Servicio s) {
+        List<Necesidad> n = new ArrayList<>();
+        n.add(new Necesidad(TipoRecurso.TERAPEUTA, s.getHabilidad()));
+        if (Boolean.TRUE.equals(s.getRequiereSala())) n.add(new Necesidad(TipoRecurso.SALA, null));
+        int minutos = s.getDuracionMinutos() != null ? s.getDuracionMinutos() : DURACION_POR_DEFECTO;
+        int cuantos = (minutos + Bits.QUANTUM_MINUTOS - 1) / Bits.QUANTUM_MINUTOS;
+        int plazas = s.getCapacidad() != null ? Math.max(1, s.getCapacidad()) : 1;
+        return new Requisito(s.getId(), List.copyOf(n), cuantos, plazas);
+    }
+}
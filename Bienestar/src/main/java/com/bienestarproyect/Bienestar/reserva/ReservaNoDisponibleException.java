@@ -0,0 +1,8 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+/** No hay recursos libres para la reserva pedida (o otra reserva se los quedó antes). Se responde con 409. */
+public class ReservaNoDisponibleException extends RuntimeException {
+    public ReservaNoDisponibleException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,574 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.ReservaRecurso;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.event.CitaEvento;
+import com.bienestarproyect.Bienestar.event.CitaReprogramacion;
+import com.bienestarproyect.Bienestar.repository.OutboxEventoRepository;
+import com.bienestarproyect.Bienestar.repository.RecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ReservaRecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.bienestarproyect.Bienestar.service.CitaService;
+import com.bienestarproyect.Bienestar.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reservas que ocupan terapeutas y salas. La búsqueda y el reparto de recursos se hacen en
+ * {@link CalendarioRecursos}; aquí se persiste la cita con sus filas de reservas_recurso y se mantiene
+ * el calendario al día:
+ * - al arrancar (y al cambiar recursos) se reconstruye desde las reservas vigentes,
+ * - una reserva ocupa los recursos antes de insertar y los devuelve si la transacción no confirma,
+ * - una reprogramación (PUT/PATCH de la cita) ocupa el nuevo horario antes del UPDATE ({@link CitaReprogramacion})
+ *   y se rechaza con 409 si no está libre; las cancelaciones llegan como {@link CitaEvento} ya confirmados,
+ * - cada {@code app.reservas.sincronizacion-ms} se releen las citas con eventos CITA nuevos en el outbox,
+ *   que incluyen las reservadas o canceladas desde otras instancias.
+ *
+ * El calendario es una caché para buscar huecos: quien decide es la base. Antes del INSERT se bloquean las
+ * filas de los recursos y se comprueba el solape en reservas_recurso ({@link ReclamoRecursos}); si otra
+ * instancia se adelantó, 409 y el calendario incorpora esas reservas.
+ *
+ * Para no releer reservas_recurso entero en cada despliegue, las reservas vigentes se guardan cada cierto
+ * tiempo (y al parar) en un {@link SnapshotCalendario} junto con el último id de outbox_eventos. Al arrancar
+ * se carga el snapshot y solo se releen las citas con eventos CITA posteriores a esa marca.
+ */
+@Service
+public class ReservaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaService.class);
+    private static final int REINTENTOS = 3;
+
+    private record Activa(Requisito requisito, Hueco hueco) {}
+
+    /**
+     * Ocupación del calendario que aún no está en porCita: una reserva o reprogramación cuya transacción no ha
+     * terminado ({@code citaId} se conoce tras el INSERT) o una retención de la lista de espera. Sobrevive a
+     * las recargas. Una reprogramación guarda lo que la cita ocupaba, que vuelve si la transacción no confirma.
+     */
+    private static final class Reclamo {
+        final Activa activa;
+        final boolean retencion;
+        final Activa anterior;
+        volatile Long citaId;
+
+        Reclamo(Activa activa, boolean retencion) {
+            this(activa, retencion, null, null);
+        }
+
+        Reclamo(Activa activa, boolean retencion, Activa anterior, Long citaId) {
+            this.activa = activa;
+            this.retencion = retencion;
+            this.anterior = anterior;
+            this.citaId = citaId;
+        }
+    }
+
+    // app.reservas.horario.<día>, en el orden de DayOfWeek
+    private static final String[] DIAS = {"lunes", "martes", "miercoles", "jueves", "viernes", "sabado", "domingo"};
+
+    private final CalendarioRecursos calendario;
+    private final Map<Long, Activa> porCita = new ConcurrentHashMap<>();
+    // bajo el monitor de la instancia, como todo cambio de calendario + porCita
+    private final List<Reclamo> enCurso = new ArrayList<>();
+    private final ReclamoRecursos reclamos;
+    private final RecursoRepository recursos;
+    private final ReservaRecursoRepository reservas;
+    private final ServicioRepository servicios;
+    private final CitaService citas;
+    private final OutboxEventoRepository eventos;
+    private final SnapshotCalendario snapshot;
+    private final Duration snapshotMargen;
+    private final Duration snapshotEdadMaxima;
+    private volatile boolean cargado;
+    // último id de outbox_eventos repasado y cuándo: la sincronización relee lo posterior
+    private volatile long marca;
+    private volatile LocalDateTime repasadoEn;
+    private final int diasBusqueda;
+    private final Timer busqueda;
+    private final Counter ok;
+    private final Counter sinHueco;
+    private final Counter conflicto;
+    private final Counter otraInstancia;
+
+    public ReservaService(RecursoRepository recursos, ReservaRecursoRepository reservas, ServicioRepository servicios,
+                          CitaService citas, OutboxEventoRepository eventos, Environment env, MeterRegistry meterRegistry) {
+        this.recursos = recursos;
+        this.reservas = reservas;
+        this.servicios = servicios;
+        this.citas = citas;
+        this.eventos = eventos;
+        this.reclamos = new ReclamoRecursos(recursos, reservas, servicios);
+        Map<DayOfWeek, String> porDia = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek d : DayOfWeek.values()) {
+            String h = env.getProperty("app.reservas.horario." + DIAS[d.ordinal()]);
+            if (h != null) porDia.put(d, h);
+        }
+        this.calendario = new CalendarioRecursos(Horario.de(env.getProperty("app.reservas.horario", "00:00-24:00"), porDia));
+        String ruta = env.getProperty("app.reservas.snapshot.path", "");
+        this.snapshot = env.getProperty("app.reservas.snapshot.enabled", Boolean.class, true) && !ruta.isBlank()
+                ? new SnapshotCalendario(Path.of(ruta)) : null;
+        this.snapshotMargen = env.getProperty("app.reservas.snapshot.margen", Duration.class, Duration.ofMinutes(2));
+        this.snapshotEdadMaxima = env.getProperty("app.reservas.snapshot.edad-maxima", Duration.class, Duration.ofDays(7));
+        this.diasBusqueda = env.getProperty("app.reservas.dias-busqueda", Integer.class, 14);
+        this.busqueda = Timer.builder("bienestar.reservas.busqueda").register(meterRegistry);
+        this.ok = Counter.builder("bienestar.reservas").tag("resultado", "ok").register(meterRegistry);
+        this.sinHueco = Counter.builder("bienestar.reservas").tag("resultado", "sin_hueco").register(meterRegistry);
+        this.conflicto = Counter.builder("bienestar.reservas").tag("resultado", "conflicto").register(meterRegistry);
+        this.otraInstancia = Counter.builder("bienestar.reservas").tag("resultado", "otra_instancia").register(meterRegistry);
+        Gauge.builder("bienestar.reservas.activas", porCita, Map::size).register(meterRegistry);
+    }
+
+    // antes que la lista de espera, que retiene huecos en este calendario
+    @Order(0)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        long t0 = System.nanoTime();
+        Long m = eventos.ultimoId();
+        LocalDateTime t = LocalDateTime.now();
+        if (!desdeSnapshot()) recargar();
+        marca = m != null ? m : 0;
+        repasadoEn = t;
+        cargado = true;
+        log.info("Calendario de recursos listo en {} ms", (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /**
+     * Reconstruye recursos y ocupación desde la base. Las reservas en curso y las retenciones se vuelven a
+     * ocupar encima, así que una reserva que confirme mientras tanto no queda fuera ni contada dos veces.
+     */
+    public void recargar() {
+        List<Recurso> todos = recursos.findAll();
+        Map<Long, SnapshotCalendario.Reserva> vigentes =
+                agrupar(reservas.findVigentes(LocalDate.now().atStartOfDay(), EstadoCita.AGENDADA));
+        reconstruir(todos, vigentes.values());
+        log.info("Calendario de recursos: {} recursos, {} reservas vigentes", todos.size(), porCita.size());
+    }
+
+    /**
+     * Carga el snapshot y repasa las citas con eventos posteriores a su marca (más un margen por transacciones
+     * que confirmaron tarde con un id menor): se quitan del snapshot y se releen de la base. false si no hay
+     * snapshot válido y reciente; entonces se hace la recarga completa.
+     */
+    private boolean desdeSnapshot() {
+        if (snapshot == null) return false;
+        Optional<SnapshotCalendario.Contenido> leido;
+        try {
+            leido = snapshot.leer();
+        } catch (IOException e) {
+            log.warn("No se pudo leer el snapshot {}: {}", snapshot.archivo(), e.toString());
+            return false;
+        }
+        if (leido.isEmpty()) return false;
+        SnapshotCalendario.Contenido c = leido.get();
+        if (c.tomada().isBefore(LocalDateTime.now().minus(snapshotEdadMaxima))) {
+            log.info("Snapshot del calendario de {} demasiado antiguo: recarga completa", c.tomada());
+            return false;
+        }
+        LocalDateTime hoy = LocalDate.now().atStartOfDay();
+        Map<Long, SnapshotCalendario.Reserva> vigentes = new LinkedHashMap<>();
+        for (SnapshotCalendario.Reserva r : c.reservas()) {
+            if (r.fin().isAfter(hoy)) vigentes.put(r.citaId(), r);
+        }
+        List<Long> cambiadas = eventos.agregadosCambiados(OutboxService.CITA, c.marca(), c.tomada().minus(snapshotMargen));
+        for (int i = 0; i < cambiadas.size(); i += 1000) {
+            List<Long> lote = cambiadas.subList(i, Math.min(i + 1000, cambiadas.size()));
+            vigentes.keySet().removeAll(lote);
+            vigentes.putAll(agrupar(reservas.findVigentesDeCitas(lote, hoy, EstadoCita.AGENDADA)));
+        }
+        List<Recurso> todos = recursos.findAll();
+        reconstruir(todos, vigentes.values());
+        log.info("Calendario de recursos desde snapshot de {}: {} recursos, {} reservas vigentes, {} citas repasadas",
+                c.tomada(), todos.size(), porCita.size(), cambiadas.size());
+        return true;
+    }
+
+    /** Guarda las reservas vigentes; la marca se lee antes de copiarlas, así que lo posterior se repasa al cargar. */
+    @Scheduled(fixedDelayString = "${app.reservas.snapshot.intervalo-ms:300000}",
+            initialDelayString = "${app.reservas.snapshot.intervalo-ms:300000}")
+    public void guardarSnapshot() {
+        if (snapshot == null || !cargado) return;
+        Long marca = eventos.ultimoId();
+        LocalDateTime tomada = LocalDateTime.now();
+        List<SnapshotCalendario.Reserva> copia = new ArrayList<>(porCita.size());
+        porCita.forEach((citaId, a) -> copia.add(new SnapshotCalendario.Reserva(citaId, a.requisito().servicioId(),
+                a.hueco().inicio(), a.hueco().fin(), a.hueco().recursos())));
+        try {
+            snapshot.escribir(new SnapshotCalendario.Contenido(tomada, marca != null ? marca : 0, copia));
+        } catch (IOException e) {
+            log.warn("No se pudo escribir el snapshot {}: {}", snapshot.archivo(), e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        guardarSnapshot();
+    }
+
+    private void reconstruir(List<Recurso> todos, Collection<SnapshotCalendario.Reserva> vigentes) {
+        Map<Long, Servicio> porId = serviciosDe(vigentes);
+        synchronized (this) {
+            calendario.reiniciar(todos);
+            porCita.clear();
+            for (SnapshotCalendario.Reserva r : vigentes) {
+                Activa a = activa(r, porId);
+                if (a == null) continue;
+                calendario.restaurar(a.requisito(), a.hueco());
+                porCita.put(r.citaId(), a);
+            }
+            for (Reclamo r : enCurso) {
+                Activa leida = r.citaId != null ? porCita.get(r.citaId) : null;
+                // ya confirmada y leída arriba: no se cuenta dos veces
+                if (r.activa.equals(leida)) continue;
+                // lo que ocupaba antes una reprogramación en curso ya no se cuenta hasta que termine
+                if (leida != null && porCita.remove(r.citaId, leida)) calendario.liberar(leida.requisito(), leida.hueco());
+                calendario.restaurar(r.activa.requisito(), r.activa.hueco());
+            }
+        }
+    }
+
+    /**
+     * Relee de la base las reservas de estas citas y sustituye lo que el calendario tenía de ellas: citas de
+     * otras instancias, canceladas o reprogramadas, o que ya no existen. Las que aún están en curso aquí se
+     * dejan, las completa su propia transacción.
+     */
+    private void releer(Collection<Long> citaIds) {
+        List<Long> ids = List.copyOf(citaIds);
+        LocalDateTime hoy = LocalDate.now().atStartOfDay();
+        for (int i = 0; i < ids.size(); i += 1000) {
+            List<Long> lote = ids.subList(i, Math.min(i + 1000, ids.size()));
+            Map<Long, SnapshotCalendario.Reserva> vigentes = agrupar(reservas.findVigentesDeCitas(lote, hoy, EstadoCita.AGENDADA));
+            Map<Long, Servicio> porId = serviciosDe(vigentes.values());
+            synchronized (this) {
+                Set<Long> propias = new HashSet<>();
+                enCurso.forEach(r -> { if (r.citaId != null) propias.add(r.citaId); });
+                for (Long citaId : lote) {
+                    if (propias.contains(citaId)) continue;
+                    Activa vieja = porCita.remove(citaId);
+                    if (vieja != null) calendario.liberar(vieja.requisito(), vieja.hueco());
+                    SnapshotCalendario.Reserva r = vigentes.get(citaId);
+                    Activa nueva = r != null ? activa(r, porId) : null;
+                    if (nueva == null) continue;
+                    calendario.restaurar(nueva.requisito(), nueva.hueco());
+                    porCita.put(citaId, nueva);
+                }
+            }
+        }
+    }
+
+    /** Incorpora al calendario lo que otras instancias reservaron o cancelaron desde el último repaso. */
+    @Scheduled(fixedDelayString = "${app.reservas.sincronizacion-ms:5000}",
+            initialDelayString = "${app.reservas.sincronizacion-ms:5000}")
+    public void sincronizar() {
+        if (!cargado) return;
+        Long m = eventos.ultimoId();
+        LocalDateTime t = LocalDateTime.now();
+        // el mismo margen que el snapshot, por transacciones que confirmaron tarde con un id menor
+        releer(eventos.agregadosCambiados(OutboxService.CITA, marca, repasadoEn.minus(snapshotMargen)));
+        if (m != null) marca = m;
+        repasadoEn = t;
+    }
+
+    private Map<Long, Servicio> serviciosDe(Collection<SnapshotCalendario.Reserva> vigentes) {
+        Set<Long> ids = vigentes.stream().map(SnapshotCalendario.Reserva::servicioId).collect(Collectors.toSet());
+        return servicios.findAllById(ids).stream().collect(Collectors.toMap(Servicio::getId, Function.identity()));
+    }
+
+    private static Activa activa(SnapshotCalendario.Reserva r, Map<Long, Servicio> porId) {
+        Servicio s = porId.get(r.servicioId());
+        return s != null ? new Activa(Requisito.de(s), new Hueco(r.inicio(), r.fin(), r.recursos())) : null;
+    }
+
+    private static Map<Long, SnapshotCalendario.Reserva> agrupar(List<ReservaRecurso> filas) {
+        Map<Long, List<ReservaRecurso>> porCita = new LinkedHashMap<>();
+        for (ReservaRecurso r : filas) porCita.computeIfAbsent(r.getCitaId(), k -> new ArrayList<>()).add(r);
+        Map<Long, SnapshotCalendario.Reserva> r = new LinkedHashMap<>();
+        porCita.forEach((citaId, rs) -> r.put(citaId, new SnapshotCalendario.Reserva(citaId, rs.get(0).getServicioId(),
+                rs.get(0).getInicio(), rs.get(0).getFin(), rs.stream().map(ReservaRecurso::getRecursoId).toList())));
+        return r;
+    }
+
+    public List<Recurso> listarRecursos() {
+        return recursos.findAll();
+    }
+
+    public Recurso guardarRecurso(Recurso r) {
+        Recurso saved = recursos.save(r);
+        recargar();
+        return saved;
+    }
+
+    public Optional<Hueco> primerHueco(Servicio servicio, LocalDateTime desde) {
+        return buscar(Requisito.de(servicio), desde);
+    }
+
+    /**
+     * Cita con recursos a la hora {@code inicio} o, si es null, en el primer hueco desde {@code desde}.
+     * Los recursos se ocupan en memoria antes del INSERT, así que una reserva concurrente de esta instancia
+     * ya no los ve libres; la base resuelve las de otras instancias (409 si se adelantaron).
+     */
+    @Transactional
+    public Cita reservar(Cliente cliente, Servicio servicio, LocalDateTime inicio, LocalDateTime desde) {
+        if (inicio != null && !CalendarioRecursos.alineado(inicio)) throw new HoraNoAlineadaException(inicio);
+        Requisito req = Requisito.de(servicio);
+        Reclamo r = null;
+        for (int i = 0; i < REINTENTOS && r == null; i++) {
+            Optional<Hueco> candidato = inicio != null ? comprobar(req, inicio) : buscar(req, desde);
+            if (candidato.isEmpty()) {
+                sinHueco.increment();
+                throw new ReservaNoDisponibleException(inicio != null
+                        ? "No hay recursos libres para el servicio " + servicio.getId() + " a las " + inicio
+                        : "No hay hueco para el servicio " + servicio.getId() + " en los próximos " + diasBusqueda + " días");
+            }
+            r = ocupar(req, candidato.get(), false);
+            if (r == null) conflicto.increment();
+        }
+        if (r == null) throw new ReservaNoDisponibleException("Los recursos se reservaron mientras tanto; reintente");
+
+        return persistir(cliente, servicio, r, true);
+    }
+
+    /** true si hay recursos dados de alta: las citas nuevas deben pasar por el calendario. */
+    public boolean gestionaRecursos() {
+        return calendario.recursos() > 0;
+    }
+
+    /**
+     * Ocupa los recursos del hueco que empieza en {@code inicio} sin crear la cita (retención de una oferta
+     * de la lista de espera). Vacío si ya no están libres. Se devuelve con {@link #soltar} o se confirma
+     * con {@link #confirmar}.
+     */
+    public Optional<Hueco> retener(Servicio servicio, LocalDateTime inicio) {
+        Requisito req = Requisito.de(servicio);
+        Optional<Hueco> h = comprobar(req, inicio);
+        return h.isPresent() && ocupar(req, h.get(), true) != null ? h : Optional.empty();
+    }
+
+    public synchronized void soltar(Servicio servicio, Hueco h) {
+        Reclamo r = retencion(Requisito.de(servicio), h);
+        if (r != null && enCurso.remove(r)) calendario.liberar(r.activa.requisito(), h);
+    }
+
+    /**
+     * Crea la cita sobre un hueco ya retenido; si la transacción no confirma, la retención sigue en pie.
+     * Si la retención ya no existe, se intenta reservar el mismo hueco.
+     */
+    @Transactional
+    public Cita confirmar(Cliente cliente, Servicio servicio, Hueco h) {
+        Reclamo r;
+        synchronized (this) {
+            r = retencion(Requisito.de(servicio), h);
+        }
+        return r != null ? persistir(cliente, servicio, r, false) : reservar(cliente, servicio, h.inicio(), null);
+    }
+
+    private synchronized Reclamo ocupar(Requisito req, Hueco h, boolean retencion) {
+        if (!calendario.reservar(req, h)) return null;
+        Reclamo r = new Reclamo(new Activa(req, h), retencion);
+        enCurso.add(r);
+        return r;
+    }
+
+    private Reclamo retencion(Requisito req, Hueco h) {
+        for (Reclamo r : enCurso) {
+            if (r.retencion && r.citaId == null && r.activa.equals(new Activa(req, h))) return r;
+        }
+        return null;
+    }
+
+    /**
+     * Tras el commit la ocupación pasa a porCita; si no, una reserva devuelve los recursos, una retención sigue
+     * en pie y una reprogramación recupera lo que ocupaba antes.
+     */
+    private synchronized void completar(Reclamo r, boolean confirmada, boolean liberarSiFalla) {
+        if (confirmada && r.citaId != null) {
+            // una retención soltada mientras tanto (caducidad de la oferta) ya no ocupaba: vuelve a ocupar
+            if (!enCurso.remove(r)) calendario.restaurar(r.activa.requisito(), r.activa.hueco());
+            porCita.put(r.citaId, r.activa);
+            return;
+        }
+        if (r.anterior != null) {
+            if (enCurso.remove(r)) calendario.liberar(r.activa.requisito(), r.activa.hueco());
+            if (!r.anterior.equals(porCita.get(r.citaId))) {
+                calendario.restaurar(r.anterior.requisito(), r.anterior.hueco());
+                porCita.put(r.citaId, r.anterior);
+            }
+            return;
+        }
+        r.citaId = null;
+        if (liberarSiFalla && enCurso.remove(r)) calendario.liberar(r.activa.requisito(), r.activa.hueco());
+    }
+
+    private Cita persistir(Cliente cliente, Servicio servicio, Reclamo r, boolean liberarSiFalla) {
+        Hueco h = r.activa.hueco();
+        Cita c = new Cita();
+        c.setCliente(cliente);
+        c.setServicio(servicio);
+        c.setFechaHora(h.inicio());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completar(r, status == STATUS_COMMITTED, liberarSiFalla);
+            }
+        });
+        reclamarEnBase(r, null);
+        Cita saved = citas.agendar(c);
+        r.citaId = saved.getId();
+        for (Long recursoId : h.recursos()) {
+            reservas.save(new ReservaRecurso(saved.getId(), recursoId, servicio.getId(), h.inicio(), h.fin()));
+        }
+        ok.increment();
+        return saved;
+    }
+
+    /**
+     * Bloquea los recursos del hueco en la base hasta el fin de la transacción; 409 si otra instancia ya los
+     * ocupó. Sus reservas pasan al calendario para que las búsquedas siguientes no vuelvan a ofrecerlos.
+     */
+    private void reclamarEnBase(Reclamo r, Long excluida) {
+        Hueco h = r.activa.hueco();
+        List<Long> conflictos = reclamos.conflictos(r.activa.requisito(), h, excluida);
+        if (conflictos.isEmpty()) return;
+        otraInstancia.increment();
+        // el hueco es de la otra reserva: lo nuestro se suelta antes de leerla, el calendario no cuenta por
+        // encima de la capacidad y al soltarlo después se llevaría la suya
+        synchronized (this) {
+            if (enCurso.remove(r)) calendario.liberar(r.activa.requisito(), h);
+        }
+        releer(conflictos);
+        throw new ReservaNoDisponibleException("Los recursos " + h.recursos() + " ya están reservados a las " + h.inicio() + "; reintente");
+    }
+
+    /**
+     * Reprogramación de una cita con recursos, antes del UPDATE y dentro de su transacción: se ocupa el nuevo
+     * horario (preferiblemente con los mismos recursos) en el calendario y en la base, y las filas de
+     * reservas_recurso pasan a él. 409 si no está libre; entonces la cita no se toca.
+     */
+    @EventListener
+    public void onReprogramacion(CitaReprogramacion e) {
+        if (e.citaId() == null || !gestionaRecursos()) return;
+        Map<Long, SnapshotCalendario.Reserva> filas =
+                agrupar(reservas.findVigentesDeCitas(List.of(e.citaId()), LocalDate.now().atStartOfDay(), EstadoCita.AGENDADA));
+        SnapshotCalendario.Reserva actual = filas.get(e.citaId());
+        // sin recursos (o ya no AGENDADA, y entonces el UPDATE no hará nada): nada que mover
+        if (actual == null) return;
+        Servicio servicio = e.servicio() != null ? e.servicio() : servicios.findById(actual.servicioId()).orElse(null);
+        LocalDateTime inicio = e.fechaHora() != null ? e.fechaHora() : actual.inicio();
+        if (servicio == null || (servicio.getId().equals(actual.servicioId()) && inicio.equals(actual.inicio()))) return;
+        if (!CalendarioRecursos.alineado(inicio)) throw new HoraNoAlineadaException(inicio);
+
+        Requisito req = Requisito.de(servicio);
+        Reclamo r = reprogramar(e.citaId(), req, inicio);
+        if (r == null) {
+            sinHueco.increment();
+            throw new ReservaNoDisponibleException("No hay recursos libres para mover la cita " + e.citaId() + " a las " + inicio);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                completar(r, status == STATUS_COMMITTED, true);
+            }
+        });
+        reclamarEnBase(r, e.citaId());
+        Hueco h = r.activa.hueco();
+        reservas.borrarDeCita(e.citaId());
+        for (Long recursoId : h.recursos()) {
+            reservas.save(new ReservaRecurso(e.citaId(), recursoId, servicio.getId(), h.inicio(), h.fin()));
+        }
+        ok.increment();
+    }
+
+    // suelta lo que ocupa la cita y ocupa el nuevo horario; si no cabe, todo queda como estaba y devuelve null
+    private synchronized Reclamo reprogramar(Long citaId, Requisito req, LocalDateTime inicio) {
+        Activa anterior = porCita.remove(citaId);
+        if (anterior != null) calendario.liberar(anterior.requisito(), anterior.hueco());
+        Hueco h = null;
+        if (anterior != null && anterior.requisito().equals(req) && CalendarioRecursos.alineado(inicio) && !inicio.isBefore(LocalDateTime.now())) {
+            Hueco mismos = new Hueco(inicio, inicio.plusMinutes((long) req.cuantos() * CalendarioRecursos.QUANTUM_MINUTOS),
+                    anterior.hueco().recursos());
+            if (calendario.reservar(req, mismos)) h = mismos;
+        }
+        if (h == null) {
+            Optional<Hueco> otro = comprobar(req, inicio);
+            if (otro.isPresent() && calendario.reservar(req, otro.get())) h = otro.get();
+        }
+        if (h == null) {
+            if (anterior != null) {
+                calendario.restaurar(anterior.requisito(), anterior.hueco());
+                porCita.put(citaId, anterior);
+            }
+            return null;
+        }
+        Reclamo r = new Reclamo(new Activa(req, h), false, anterior, citaId);
+        enCurso.add(r);
+        return r;
+    }
+
+    // antes que la lista de espera: el hueco de una cancelación ya está libre cuando se ofrece
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCita(CitaEvento e) {
+        if (e.citaId() == null) return;
+        Activa a = porCita.get(e.citaId());
+        if (a == null) return;
+        if (CitaEvento.CANCELADA.equals(e.tipo()) || e.estado() == EstadoCita.CANCELADA || e.estado() == EstadoCita.NO_ASISTIO) {
+            if (porCita.remove(e.citaId(), a)) calendario.liberar(a.requisito(), a.hueco());
+        }
+    }
+
+    // los días pasados ya no se reservan: fuera del calendario
+    @Scheduled(cron = "${app.reservas.purga-cron:0 5 0 * * *}")
+    public synchronized void purgar() {
+        LocalDate hoy = LocalDate.now();
+        calendario.purgarAntesDe(hoy);
+        porCita.values().removeIf(a -> a.hueco().fin().toLocalDate().isBefore(hoy));
+    }
+
+    private Optional<Hueco> buscar(Requisito req, LocalDateTime desde) {
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime d = desde == null || desde.isBefore(ahora) ? ahora : desde;
+        return busqueda.record(() -> calendario.buscar(req, d, diasBusqueda));
+    }
+
+    private Optional<Hueco> comprobar(Requisito req, LocalDateTime inicio) {
+        if (inicio.isBefore(LocalDateTime.now())) return Optional.empty();
+        return calendario.comprobar(req, inicio);
+    }
+}
@@ -0,0 +1,127 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Fichero con las reservas vigentes del calendario de recursos, para arrancar sin leer reservas_recurso entero.
+ *
+ * Formato (big endian): cabecera con MAGIA, VERSION, momento de la toma, marca (último id de outbox_eventos
+ * visto), número de reservas y CRC32 del cuerpo; el cuerpo son las reservas una tras otra:
+ * citaId, servicioId, inicio y fin en minutos desde la época, número de recursos y sus ids.
+ * Las fechas son LocalDateTime, así que se codifican con UTC como offset neutro.
+ *
+ * Se lee mapeando el fichero; se escribe en un temporal que luego se renombra, de modo que un lector
+ * nunca ve un fichero a medias. Un fichero de otra versión, truncado o con CRC distinto se ignora.
+ */
+public final class SnapshotCalendario {
+
+    static final int MAGIA = 0x4243414C; // "BCAL"
+    static final short VERSION = 1;
+    static final int CABECERA = 4 + 2 + 2 + 8 + 8 + 4 + 4;
+
+    /** Una cita con recursos tal como se restaura en el calendario. */
+    public record Reserva(long citaId, long servicioId, LocalDateTime inicio, LocalDateTime fin, List<Long> recursos) {}
+
+    public record Contenido(LocalDateTime tomada, long marca, List<Reserva> reservas) {}
+
+    private final Path archivo;
+
+    public SnapshotCalendario(Path archivo) {
+        this.archivo = archivo;
+    }
+
+    public Path archivo() {
+        return archivo;
+    }
+
+    public void escribir(Contenido c) throws IOException {
+        int tam = CABECERA;
+        for (Reserva r : c.reservas()) tam += 8 + 8 + 8 + 8 + 2 + 8 * r.recursos().size();
+        ByteBuffer buf = ByteBuffer.allocate(tam);
+        buf.position(CABECERA);
+        for (Reserva r : c.reservas()) {
+            buf.putLong(r.citaId()).putLong(r.servicioId())
+                    .putLong(minutos(r.inicio())).putLong(minutos(r.fin()))
+                    .putShort((short) r.recursos().size());
+            for (Long id : r.recursos()) buf.putLong(id);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), CABECERA, tam - CABECERA);
+        buf.position(0);
+        buf.putInt(MAGIA).putShort(VERSION).putShort((short) 0)
+                .putLong(c.tomada().toEpochSecond(ZoneOffset.UTC)).putLong(c.marca())
+                .putInt(c.reservas().size()).putInt((int) crc.getValue());
+        buf.position(0);
+
+        Path dir = archivo.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, archivo.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** El contenido del fichero, o vacío si no existe o no es válido. */
+    public Optional<Contenido> leer() throws IOException {
+        try (FileChannel ch = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tam = ch.size();
+            if (tam < CABECERA || tam > Integer.MAX_VALUE) return Optional.empty();
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, tam);
+            if (buf.getInt() != MAGIA || buf.getShort() != VERSION) return Optional.empty();
+            buf.getShort();
+            LocalDateTime tomada = LocalDateTime.ofEpochSecond(buf.getLong(), 0, ZoneOffset.UTC);
+            long marca = buf.getLong();
+            int n = buf.getInt();
+            int crcEsperado = buf.getInt();
+            CRC32 crc = new CRC32();
+            crc.update(buf.slice());
+            if ((int) crc.getValue() != crcEsperado) return Optional.empty();
+
+            List<Reserva> reservas = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                long citaId = buf.getLong();
+                long servicioId = buf.getLong();
+                LocalDateTime inicio = fecha(buf.getLong());
+                LocalDateTime fin = fecha(buf.getLong());
+                int k = buf.getShort();
+                List<Long> recursos = new ArrayList<>(k);
+                for (int j = 0; j < k; j++) recursos.add(buf.getLong());
+                reservas.add(new Reserva(citaId, servicioId, inicio, fin, List.copyOf(recursos)));
+            }
+            return buf.hasRemaining() ? Optional.empty() : Optional.of(new Contenido(tomada, marca, reservas));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            // BufferUnderflowException y similares: un fichero que no cuadra con su cabecera
+            return Optional.empty();
+        }
+    }
+
+    private static long minutos(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalDateTime fecha(long minutos) {
+        return LocalDateTime.ofEpochSecond(minutos * 60, 0, ZoneOffset.UTC);
+    }
+}
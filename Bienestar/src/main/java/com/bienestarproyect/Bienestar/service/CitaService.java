@@ -1,29 +1,242 @@
 package com.bienestarproyect.Bienestar.service;
 
+import com.bienestarproyect.Bienestar.audit.AuditService;
+import com.bienestarproyect.Bienestar.audit.AuditTipo;
+import com.bienestarproyect.Bienestar.dto.CitaAgendaItem;
+import com.bienestarproyect.Bienestar.dto.CitaDTO;
+import com.bienestarproyect.Bienestar.dto.CursorAgenda;
+import com.bienestarproyect.Bienestar.dto.FiltroAgenda;
+import com.bienestarproyect.Bienestar.dto.PaginaAgenda;
 import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TransicionInvalidaException;
+import com.bienestarproyect.Bienestar.event.CitaEvento;
+import com.bienestarproyect.Bienestar.event.CitaReprogramacion;
 import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CitaService {
+    static final String HISTORIAL = "citas.historial";
+    // PUT sin If-Match: lecturas y UPDATE que se reintentan si otra petición cambia la cita entre medias
+    private static final int INTENTOS = 3;
+
     private final CitaRepository repo;
-    public CitaService(CitaRepository repo){ this.repo = repo; }
+    private final AuditService audit;
+    private final OutboxService outbox;
+    private final ApplicationEventPublisher events;
+    private final ParcheJson parches;
+    private final TotalesClienteService totales;
+    private final LecturasCompartidas lecturas;
+    public CitaService(CitaRepository repo, AuditService audit, OutboxService outbox, ApplicationEventPublisher events,
+                       ParcheJson parches, TotalesClienteService totales, LecturasCompartidas lecturas){
+        this.repo = repo;
+        this.audit = audit;
+        this.outbox = outbox;
+        this.events = events;
+        this.parches = parches;
+        this.totales = totales;
+        this.lecturas = lecturas;
+    }
 
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "cita.agendar"})
     @Transactional
-    public Cita agendar(Cita c){ c.setEstado("AGENDADA"); return repo.save(c); }
+    public Cita agendar(Cita c){
+        c.setEstado(EstadoCita.AGENDADA);
+        Cita saved = repo.save(c);
+        publicar(CitaEvento.AGENDADA, saved);
+        auditarAlConfirmar(AuditTipo.CITA_AGENDADA, saved.getId());
+        return saved;
+    }
 
+    /**
+     * PUT de una cita AGENDADA, en un UPDATE condicionado al estado y a la versión.
+     * Con If-Match la versión es la de la cabecera: 412 si no coincide ninguna, y solo entonces se lee la fila.
+     * Sin If-Match se lee estado y versión (404/409 sin más consultas) y se aplica sobre esa versión; si otra
+     * petición la cambia entre medias se vuelve a leer, nunca 412.
+     * @param versiones las del If-Match, o null sin precondición
+     * @return la cita con la versión nueva, o null si no existe
+     */
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "cita.actualizar"})
     @Transactional
-    public Cita actualizar(Cita c){ return repo.save(c); }
+    public Cita actualizar(Cita c, List<Long> versiones){
+        events.publishEvent(new CitaReprogramacion(c.getId(), c.getServicio(), c.getFechaHora()));
+        Long anterior;
+        if (versiones != null) {
+            anterior = Precondicion.aplicar(versiones, v -> reprogramar(c, v));
+            if (anterior == null) {
+                CitaRepository.EstadoVersion actual = repo.findEstadoVersionById(c.getId()).orElse(null);
+                if (actual == null) return null;
+                comprobarModificable(c.getId(), actual.getEstado());
+                throw new VersionObsoletaException("cita", c.getId());
+            }
+        } else {
+            anterior = null;
+            for (int i = 0; i < INTENTOS && anterior == null; i++) {
+                CitaRepository.EstadoVersion actual = repo.findEstadoVersionById(c.getId()).orElse(null);
+                if (actual == null) return null;
+                comprobarModificable(c.getId(), actual.getEstado());
+                if (reprogramar(c, actual.getVersion()) > 0) anterior = actual.getVersion();
+            }
+            if (anterior == null) {
+                throw new OptimisticLockingFailureException("La cita " + c.getId() + " cambia sin parar; no se pudo reprogramar");
+            }
+        }
+        c.setEstado(EstadoCita.AGENDADA);
+        c.setVersion(anterior + 1);
+        publicar(CitaEvento.ACTUALIZADA, c);
+        return c;
+    }
 
+    private int reprogramar(Cita c, Long version){
+        return repo.reprogramarSiVersion(c.getId(), c.getCliente(), c.getServicio(), c.getFechaHora(),
+                EstadoCita.AGENDADA, version);
+    }
+
+    private static void comprobarModificable(Long id, EstadoCita estado){
+        if (estado != EstadoCita.AGENDADA) {
+            throw new TransicionInvalidaException("La cita " + id + " está " + estado + " y no se puede modificar");
+        }
+    }
+
+    /**
+     * PATCH (merge patch) de clienteId, servicioId, fechaHora (validados como en CitaDTO) y/o estado,
+     * en un único UPDATE. La transición de estado se comprueba en el propio WHERE (estado IN anteriores);
+     * cambiar datos solo se permite en citas AGENDADA. null si no existe.
+     */
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "cita.parchear"})
+    @Transactional
+    public Cita parchear(Long id, JsonNode parche, List<Long> versiones){
+        JsonNode resto = parche;
+        EstadoCita destino = null;
+        if (parche != null && parche.isObject() && parche.has("estado")) {
+            ObjectNode copia = parche.deepCopy();
+            String estado = copia.remove("estado").asText();
+            resto = copia;
+            try {
+                destino = EstadoCita.valueOf(estado);
+            } catch (IllegalArgumentException e) {
+                throw new ParcheInvalidoException(Map.of("estado", "Estado inválido"));
+            }
+        }
+        Map<String, Object> v = parches.validar(resto, CitaDTO.class, Set.of("clienteId", "servicioId", "fechaHora"));
+        Map<String, Object> columnas = new LinkedHashMap<>();
+        if (v.containsKey("clienteId")) columnas.put("cliente", parches.referencia(Cliente.class, v.get("clienteId"), "clienteId"));
+        if (v.containsKey("servicioId")) columnas.put("servicio", parches.referencia(Servicio.class, v.get("servicioId"), "servicioId"));
+        if (v.containsKey("fechaHora")) columnas.put("fechaHora", v.get("fechaHora"));
+        Set<EstadoCita> origen = columnas.isEmpty() ? EnumSet.allOf(EstadoCita.class) : EnumSet.of(EstadoCita.AGENDADA);
+        if (destino != null) {
+            origen.retainAll(destino.anteriores());
+            if (origen.isEmpty()) throw new TransicionInvalidaException("Ninguna cita modificable puede pasar a " + destino);
+            columnas.put("estado", destino);
+        }
+        if (columnas.isEmpty()) return repo.findById(id).orElse(null);
+        if ((columnas.containsKey("fechaHora") || columnas.containsKey("servicio")) && (destino == null || destino == EstadoCita.AGENDADA)) {
+            events.publishEvent(new CitaReprogramacion(id, (Servicio) columnas.get("servicio"), (LocalDateTime) columnas.get("fechaHora")));
+        }
+
+        if (parches.actualizar(Cita.class, id, columnas, versiones, (cb, r) -> r.get("estado").in(origen)) == 0) {
+            Cita actual = repo.findById(id).orElse(null);
+            if (actual == null) return null;
+            if (!origen.contains(actual.getEstado())) {
+                throw new TransicionInvalidaException("La cita " + id + " está " + actual.getEstado() + " y no admite ese cambio");
+            }
+            throw new VersionObsoletaException("cita", id);
+        }
+        Cita saved = repo.findById(id).orElse(null);
+        if (destino == EstadoCita.CANCELADA) {
+            publicar(CitaEvento.CANCELADA, saved);
+            auditarAlConfirmar(AuditTipo.CITA_CANCELADA, id);
+        } else {
+            publicar(CitaEvento.ACTUALIZADA, saved);
+        }
+        if (destino == EstadoCita.ATENDIDA) visita(saved);
+        return saved;
+    }
+
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "cita.cancelar"})
     @Transactional
     public void cancelar(Long id){
-        repo.findById(id).ifPresent(c -> { c.setEstado("CANCELADA"); repo.save(c); });
+        repo.findById(id).ifPresent(c -> {
+            c.transicionarA(EstadoCita.CANCELADA);
+            repo.save(c);
+            publicar(CitaEvento.CANCELADA, c);
+            auditarAlConfirmar(AuditTipo.CITA_CANCELADA, id);
+        });
+    }
+
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "cita.atender"})
+    @Transactional
+    public Cita marcarAtendida(Long id){
+        Cita c = repo.findById(id).orElse(null);
+        if (c == null) return null;
+        c.transicionarA(EstadoCita.ATENDIDA);
+        Cita saved = repo.save(c);
+        publicar(CitaEvento.ACTUALIZADA, saved);
+        visita(saved);
+        return saved;
+    }
+
+    // ATENDIDA es final: cada cita suma como mucho una visita
+    private void visita(Cita c){
+        totales.visita(c.getCliente() != null ? c.getCliente().getId() : null, c.getFechaHora());
+    }
+
+    // una cita que no llega a confirmarse no deja entrada en la auditoría
+    private void auditarAlConfirmar(AuditTipo tipo, Long id){
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    audit.registrar(tipo, "cita=" + id);
+                }
+            });
+        } else {
+            audit.registrar(tipo, "cita=" + id);
+        }
+    }
+
+    // outbox (consumidores externos) + evento en proceso (SSE, recordatorios...) tras el commit
+    private void publicar(String tipo, Cita c){
+        outbox.cita(tipo, c);
+        events.publishEvent(CitaEvento.de(tipo, c));
+        if (c.getCliente() != null) lecturas.olvidarAlConfirmar(HISTORIAL, c.getCliente().getId());
+    }
+
+    @Transactional(readOnly = true)
+    public Cita obtener(Long id){
+        return repo.findById(id).orElse(null);
+    }
+
+    /** Agenda paginada por (fechaHora, id): se pide una fila de más para saber si hay página siguiente. */
+    @Transactional(readOnly = true)
+    public PaginaAgenda agenda(FiltroAgenda filtro, int limite){
+        List<CitaAgendaItem> filas = repo.buscarAgenda(filtro, limite + 1);
+        if (filas.size() <= limite) return new PaginaAgenda(filas, null);
+        List<CitaAgendaItem> pagina = filas.subList(0, limite);
+        CitaAgendaItem ultima = pagina.get(limite - 1);
+        return new PaginaAgenda(pagina, new CursorAgenda(ultima.fechaHora(), ultima.id()));
     }
 
+    /** Historial del cliente; las peticiones simultáneas del mismo cliente comparten una consulta. */
     public List<Cita> historialPorCliente(Long clienteId){
-        return repo.findByCliente_IdOrderByFechaHoraDesc(clienteId);
+        return lecturas.leer(HISTORIAL, clienteId, () -> List.copyOf(repo.findByCliente_IdOrderByFechaHoraDesc(clienteId)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pasa a NO_ASISTIO las citas AGENDADA cuya hora ya pasó (más un margen de gracia).
+ *
+ * Trabaja por lotes: cada lote lee hasta {@code chunk} ids por idx_citas_estado_fecha y los
+ * actualiza con un único UPDATE condicionado a estado = AGENDADA, en su propia transacción,
+ * así los bloqueos duran lo que dura un lote y no todo el barrido.
+ */
+@Component
+@ConditionalOnProperty(name = "app.citas.sweeper.enabled", havingValue = "true", matchIfMissing = true)
+public class CitaSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(CitaSweeper.class);
+
+    private final CitaRepository repo;
+    private final TransactionTemplate tx;
+    private final Duration gracia;
+    private final int chunk;
+    private final long pausaMs;
+    private final Counter transicionadas;
+    private final Counter lotes;
+    private final Timer duracion;
+    private final AtomicLong ultimoLote = new AtomicLong();
+
+    public CitaSweeper(CitaRepository repo, PlatformTransactionManager txManager, Environment env, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.tx = new TransactionTemplate(txManager);
+        this.gracia = env.getProperty("app.citas.sweeper.gracia", Duration.class, Duration.ofHours(2));
+        this.chunk = env.getProperty("app.citas.sweeper.chunk", Integer.class, 500);
+        this.pausaMs = env.getProperty("app.citas.sweeper.pausa-ms", Long.class, 50L);
+        this.transicionadas = Counter.builder("bienestar.citas.sweeper.transicionadas").tag("estado", EstadoCita.NO_ASISTIO.name()).register(meterRegistry);
+        this.lotes = Counter.builder("bienestar.citas.sweeper.lotes").register(meterRegistry);
+        this.duracion = Timer.builder("bienestar.citas.sweeper.duracion").register(meterRegistry);
+        meterRegistry.gauge("bienestar.citas.sweeper.ultimo.lote", ultimoLote);
+    }
+
+    @Scheduled(fixedDelayString = "${app.citas.sweeper.interval-ms:300000}", initialDelayString = "${app.citas.sweeper.initial-delay-ms:60000}")
+    public void barrer() {
+        long total = duracion.record(() -> barrerHasta(LocalDateTime.now().minus(gracia)));
+        if (total > 0) log.info("Sweeper de citas: {} citas pasadas a {}", total, EstadoCita.NO_ASISTIO);
+    }
+
+    /** Procesa lotes hasta que no quedan citas AGENDADA anteriores a {@code limite}. */
+    public long barrerHasta(LocalDateTime limite) {
+        long total = 0;
+        while (true) {
+            Integer n = tx.execute(s -> {
+                List<Long> ids = repo.findIdsPorEstadoAntesDe(EstadoCita.AGENDADA, limite, PageRequest.of(0, chunk));
+                return ids.isEmpty() ? 0 : repo.transicionarLote(ids, EstadoCita.AGENDADA, EstadoCita.NO_ASISTIO);
+            });
+            int hechas = n != null ? n : 0;
+            if (hechas == 0) return total;
+            total += hechas;
+            lotes.increment();
+            transicionadas.increment(hechas);
+            ultimoLote.set(hechas);
+            if (!pausa()) return total;
+        }
+    }
+
+    // deja respirar a la base entre lotes
+    private boolean pausa() {
+        if (pausaMs <= 0) return true;
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.busqueda.ClienteSearchIndex;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de clientes por nombre, email o teléfono.
+ *
+ * Modo "memoria" (por defecto): {@link ClienteSearchIndex} cargado en segundo plano al arrancar
+ * y mantenido por {@link ClienteService#guardar}/{@link ClienteService#eliminar}.
+ * Mientras carga, o con app.clientes.busqueda.modo=sql, se consulta la base: en PostgreSQL
+ * con el índice GIN de trigramas (pg_trgm) que se crea al arrancar, en otras con LIKE.
+ */
+@Service
+public class ClienteBusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClienteBusquedaService.class);
+
+    // debe coincidir con la expresión de idx_clientes_busqueda_trgm para que PostgreSQL use el índice
+    static final String EXPRESION = "lower(coalesce(nombre, '') || ' ' || coalesce(email, '') || ' ' || coalesce(telefono, ''))";
+
+    private final ClienteRepository repo;
+    private final JdbcTemplate jdbc;
+    private final ClienteSearchIndex index;
+    private final int paginaCarga;
+    private final Set<Long> eliminadosDuranteCarga = ConcurrentHashMap.newKeySet();
+    private final Timer enMemoria;
+    private final Timer enBase;
+    private volatile boolean listo;
+    private volatile boolean postgres;
+
+    public ClienteBusquedaService(ClienteRepository repo, JdbcTemplate jdbc, Environment env, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.jdbc = jdbc;
+        boolean memoria = !"sql".equalsIgnoreCase(env.getProperty("app.clientes.busqueda.modo", "memoria"));
+        this.index = memoria ? new ClienteSearchIndex() : null;
+        this.paginaCarga = env.getProperty("app.clientes.busqueda.pagina-carga", Integer.class, 5_000);
+        this.enMemoria = Timer.builder("bienestar.clientes.busqueda").tag("via", "memoria").register(meterRegistry);
+        this.enBase = Timer.builder("bienestar.clientes.busqueda").tag("via", "sql").register(meterRegistry);
+        if (index != null) {
+            Gauge.builder("bienestar.clientes.busqueda.indexados", index, ClienteSearchIndex::size).register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        String producto = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        postgres = producto != null && producto.toLowerCase().contains("postgres");
+        if (postgres) crearIndiceTrigramas();
+        if (index != null) {
+            Thread t = new Thread(this::cargar, "clientes-busqueda-carga");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    private void crearIndiceTrigramas() {
+        try {
+            jdbc.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_clientes_busqueda_trgm ON clientes USING gin ((" + EXPRESION + ") gin_trgm_ops)");
+        } catch (Exception e) {
+            // sin permisos para CREATE EXTENSION la búsqueda SQL funciona igual, solo que sin índice
+            log.warn("No se pudo crear el índice de trigramas de clientes: {}", e.getMessage());
+        }
+    }
+
+    private void cargar() {
+        long t0 = System.nanoTime();
+        try {
+            long desde = 0;
+            List<Cliente> pagina;
+            do {
+                pagina = repo.findByIdGreaterThanOrderByIdAsc(desde, PageRequest.of(0, paginaCarga));
+                for (Cliente c : pagina) {
+                    if (!eliminadosDuranteCarga.contains(c.getId())) index.indexarSiAusente(c);
+                }
+                if (!pagina.isEmpty()) desde = pagina.get(pagina.size() - 1).getId();
+            } while (pagina.size() == paginaCarga);
+            listo = true;
+            eliminadosDuranteCarga.clear();
+            log.info("Índice de búsqueda de clientes cargado: {} clientes en {} ms", index.size(), (System.nanoTime() - t0) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Fallo cargando el índice de búsqueda de clientes; se seguirá buscando en la base", e);
+        }
+    }
+
+    public void indexar(Cliente c) {
+        if (index != null) index.indexar(c);
+    }
+
+    public void eliminar(Long id) {
+        if (index == null) return;
+        if (!listo) eliminadosDuranteCarga.add(id);
+        index.eliminar(id);
+    }
+
+    public boolean enMemoria() {
+        return listo;
+    }
+
+    public List<Cliente> buscar(String q, int limite) {
+        if (q == null || q.isBlank()) return List.of();
+        if (listo) return enMemoria.record(() -> index.buscar(q, limite));
+        return enBase.record(() -> postgres ? buscarTrigramas(q, limite) : buscarPatron(q, limite));
+    }
+
+    private List<Cliente> buscarPatron(String q, int limite) {
+        String patron = "%" + ClienteSearchIndex.normalizar(q).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return repo.buscarPorPatron(patron, PageRequest.of(0, limite));
+    }
+
+    private List<Cliente> buscarTrigramas(String q, int limite) {
+        String t = q.trim().toLowerCase();
+        String patron = "%" + t.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        List<Long> ids = jdbc.queryForList(
+                "SELECT id FROM clientes WHERE " + EXPRESION + " LIKE ? OR " + EXPRESION + " % ? "
+                        + "ORDER BY similarity(" + EXPRESION + ", ?) DESC, id LIMIT ?",
+                Long.class, patron, t, t, limite);
+        Map<Long, Cliente> porId = repo.findAllById(ids).stream().collect(Collectors.toMap(Cliente::getId, Function.identity()));
+        List<Cliente> res = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Cliente c = porId.get(id);
+            if (c != null) res.add(c);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,304 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.FusionCliente;
+import com.bienestarproyect.Bienestar.entity.TransicionInvalidaException;
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.bienestarproyect.Bienestar.repository.FacturaRepository;
+import com.bienestarproyect.Bienestar.repository.FusionClienteRepository;
+import com.bienestarproyect.Bienestar.repository.ListaEsperaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Puesta al día de los contactos canónicos de clientes (V6), en pasos idempotentes:
+ * 1. rellena email_normalizado / telefono_normalizado que falten, por lotes de id;
+ * 2. fusiona clientes con el mismo email y, solo si se pide, con el mismo teléfono (una familia suele
+ *    compartirlo): se conserva el más antiguo, sus citas, facturas e inscripciones en lista de espera se
+ *    reasignan con UPDATE por conjunto, su fila de cliente_resumen se recalcula y los demás se borran.
+ *    Cada borrado queda en clientes_fusiones con lo que se le movió, para auditarlo y poder deshacerlo.
+ *    Cada grupo es una transacción corta, sin bloquear las tablas enteras;
+ * 3. crea los índices únicos (CONCURRENTLY en PostgreSQL) una vez que no quedan duplicados; el de teléfono
+ *    espera mientras haya teléfonos compartidos.
+ * Es un trabajo puntual y no se puede deshacer en bloque: solo se lanza desde /api/admin/clientes/deduplicacion.
+ */
+@Component
+public class ClienteDeduplicador {
+
+    private static final Logger log = LoggerFactory.getLogger(ClienteDeduplicador.class);
+
+    static final String IDX_EMAIL = "ux_clientes_email_norm";
+    static final String IDX_TELEFONO = "ux_clientes_telefono_norm";
+
+    private final ClienteRepository clientes;
+    private final CitaRepository citas;
+    private final FacturaRepository facturas;
+    private final ListaEsperaRepository esperas;
+    private final FusionClienteRepository fusiones;
+    private final ClienteBusquedaService busqueda;
+    private final TotalesClienteService totales;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int chunk;
+    private final long pausaMs;
+    private final Counter fusionados;
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    private volatile Map<String, Object> ultimo = Map.of();
+
+    public ClienteDeduplicador(ClienteRepository clientes, CitaRepository citas, FacturaRepository facturas,
+                               ListaEsperaRepository esperas, FusionClienteRepository fusiones, ClienteBusquedaService busqueda,
+                               TotalesClienteService totales, JdbcTemplate jdbc, PlatformTransactionManager txManager,
+                               Environment env, MeterRegistry meterRegistry) {
+        this.clientes = clientes;
+        this.citas = citas;
+        this.facturas = facturas;
+        this.esperas = esperas;
+        this.fusiones = fusiones;
+        this.busqueda = busqueda;
+        this.totales = totales;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.chunk = env.getProperty("app.clientes.dedup.chunk", Integer.class, 200);
+        this.pausaMs = env.getProperty("app.clientes.dedup.pausa-ms", Long.class, 20L);
+        this.fusionados = Counter.builder("bienestar.clientes.fusionados").register(meterRegistry);
+    }
+
+    /**
+     * @param porTelefono fusionar también los que comparten teléfono (revisados antes: pueden ser familiares)
+     * @return false si ya hay una ejecución en curso
+     */
+    public boolean ejecutarEnSegundoPlano(boolean porTelefono) {
+        if (!enCurso.compareAndSet(false, true)) return false;
+        Thread t = new Thread(() -> {
+            try {
+                ejecutar(porTelefono);
+            } finally {
+                enCurso.set(false);
+            }
+        }, "clientes-dedup");
+        t.setDaemon(true);
+        t.start();
+        return true;
+    }
+
+    public Map<String, Object> estado() {
+        Map<String, Object> m = new LinkedHashMap<>(ultimo);
+        m.put("enCurso", enCurso.get());
+        return m;
+    }
+
+    void ejecutar(boolean porTelefono) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("inicio", LocalDateTime.now());
+        r.put("porTelefono", porTelefono);
+        try {
+            r.put("normalizados", normalizar());
+            r.put("fusionadosPorEmail", fusionar("email", clientes::findEmailsDuplicados, clientes::findByEmailNormalizadoOrderByIdAsc));
+            if (porTelefono) {
+                r.put("fusionadosPorTelefono", fusionar("telefono", clientes::findTelefonosDuplicados,
+                        clientes::findByTelefonoNormalizadoOrderByIdAsc));
+            }
+            // hasta chunk, como muestra para revisarlos a mano
+            List<String> compartidos = clientes.findTelefonosDuplicados(PageRequest.of(0, chunk));
+            r.put("telefonosCompartidos", compartidos.size());
+            boolean pg = esPostgres();
+            r.put("indiceEmail", crearIndiceUnico(IDX_EMAIL, "email_normalizado", pg));
+            r.put("indiceTelefono", compartidos.isEmpty() && crearIndiceUnico(IDX_TELEFONO, "telefono_normalizado", pg));
+            log.info("Deduplicación de clientes terminada: {}", r);
+        } catch (Exception e) {
+            r.put("error", e.getMessage());
+            log.error("Deduplicación de clientes interrumpida", e);
+        }
+        r.put("fin", LocalDateTime.now());
+        ultimo = r;
+    }
+
+    private int normalizar() {
+        int total = 0;
+        long desde = 0;
+        while (true) {
+            long inicio = desde;
+            List<Long> ids = tx.execute(s -> {
+                List<Long> lote = clientes.findIdsSinNormalizar(inicio, PageRequest.of(0, chunk));
+                // los setters recalculan las formas canónicas; el dirty checking escribe solo lo que cambia
+                for (Cliente c : clientes.findAllById(lote)) {
+                    c.setEmail(c.getEmail());
+                    c.setTelefono(c.getTelefono());
+                }
+                return lote;
+            });
+            if (ids == null || ids.isEmpty()) return total;
+            total += ids.size();
+            desde = ids.get(ids.size() - 1);
+            if (!pausa()) return total;
+        }
+    }
+
+    private int fusionar(String criterio, Function<Pageable, List<String>> duplicados, Function<String, List<Cliente>> grupo) {
+        int total = 0;
+        while (true) {
+            List<String> claves = duplicados.apply(PageRequest.of(0, chunk));
+            int antes = total;
+            for (String clave : claves) {
+                Integer n = tx.execute(s -> fusionarGrupo(criterio, grupo.apply(clave), s));
+                total += n != null ? n : 0;
+                if (!pausa()) return total;
+            }
+            // sin duplicados, o ninguno se pudo fusionar en esta vuelta: no insistir
+            if (claves.isEmpty() || total == antes) return total;
+        }
+    }
+
+    private int fusionarGrupo(String criterio, List<Cliente> grupo, TransactionStatus status) {
+        if (grupo.size() < 2) return 0;
+        Cliente destino = grupo.get(0);
+        List<Cliente> resto = grupo.subList(1, grupo.size());
+        List<Long> ids = resto.stream().map(Cliente::getId).toList();
+        // lo que se va a mover se anota antes, por cliente borrado
+        int aCitas = 0, aFacturas = 0, aEsperas = 0;
+        for (Cliente o : resto) {
+            FusionCliente f = fusiones.save(new FusionCliente(criterio, destino.getId(), o));
+            f.setCitas(fusiones.anotarCitas(f.getId(), o.getId()));
+            f.setFacturas(fusiones.anotarFacturas(f.getId(), o.getId()));
+            f.setEsperas(fusiones.anotarEsperas(f.getId(), o.getId()));
+            aCitas += f.getCitas();
+            aFacturas += f.getFacturas();
+            aEsperas += f.getEsperas();
+        }
+        int nCitas = citas.reasignarCliente(ids, destino);
+        int nFacturas = facturas.reasignarCliente(ids, destino);
+        // sin esto, aceptar una oferta del borrado no encontraría al cliente
+        int nEsperas = esperas.reasignarCliente(ids, destino.getId());
+        if (nCitas != aCitas || nFacturas != aFacturas || nEsperas != aEsperas) {
+            // algo se creó para un duplicado entre la anotación y el UPDATE: el registro no estaría completo
+            status.setRollbackOnly();
+            log.warn("Clientes {} no fusionados en {}: sus citas o facturas cambiaron durante la fusión", ids, destino.getId());
+            return 0;
+        }
+        totales.fusion(destino.getId(), ids);
+        clientes.borrarPorIds(ids);
+        // conservar datos de contacto que solo tenga el duplicado (ya borrado, así no choca con los índices únicos)
+        for (Cliente o : resto) {
+            if (destino.getNombre() == null) destino.setNombre(o.getNombre());
+            if (destino.getEmail() == null) destino.setEmail(o.getEmail());
+            if (destino.getTelefono() == null) destino.setTelefono(o.getTelefono());
+        }
+        fusionados.increment(ids.size());
+        log.info("Clientes {} fusionados en {} ({} citas, {} facturas y {} inscripciones en espera reasignadas)",
+                ids, destino.getId(), nCitas, nFacturas, nEsperas);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(busqueda::eliminar);
+                busqueda.indexar(destino);
+            }
+        });
+        return ids.size();
+    }
+
+    /**
+     * Deshace una fusión: el cliente borrado vuelve con su id y sus datos, y lo que se le movió y sigue en el que
+     * se conservó vuelve a él. Un email o teléfono que ya es de otro cliente (el que se conservó, si se fusionaron
+     * por ese dato) no se restaura, para no chocar con los índices únicos. null si la fusión no existe.
+     */
+    public Map<String, Object> deshacer(Long fusionId) {
+        return tx.execute(s -> {
+            FusionCliente f = fusiones.findById(fusionId).orElse(null);
+            if (f == null) return null;
+            if (f.getDeshechaEn() != null) throw new TransicionInvalidaException("La fusión " + fusionId + " ya se deshizo");
+            if (clientes.existsById(f.getOrigenId())) {
+                throw new TransicionInvalidaException("El cliente " + f.getOrigenId() + " ya existe");
+            }
+            Cliente probe = new Cliente();
+            probe.setEmail(f.getOrigenEmail());
+            probe.setTelefono(f.getOrigenTelefono());
+            boolean email = probe.getEmailNormalizado() == null
+                    || clientes.findFirstByEmailNormalizadoOrderByIdAsc(probe.getEmailNormalizado()).isEmpty();
+            boolean telefono = probe.getTelefonoNormalizado() == null
+                    || clientes.findFirstByTelefonoNormalizadoOrderByIdAsc(probe.getTelefonoNormalizado()).isEmpty();
+            fusiones.restaurarCliente(f.getOrigenId(), f.getOrigenNombre(), email ? f.getOrigenEmail() : null,
+                    telefono ? f.getOrigenTelefono() : null, email ? probe.getEmailNormalizado() : null,
+                    telefono ? probe.getTelefonoNormalizado() : null);
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("clienteId", f.getOrigenId());
+            r.put("citas", fusiones.devolverCitas(fusionId, f.getOrigenId(), f.getDestinoId()));
+            r.put("facturas", fusiones.devolverFacturas(fusionId, f.getOrigenId(), f.getDestinoId()));
+            r.put("esperas", fusiones.devolverEsperas(fusionId, f.getOrigenId(), f.getDestinoId()));
+            r.put("emailRestaurado", email);
+            r.put("telefonoRestaurado", telefono);
+            totales.separacion(f.getDestinoId(), f.getOrigenId());
+            f.setDeshechaEn(LocalDateTime.now());
+            log.info("Fusión {} deshecha: cliente {} separado de {} {}", fusionId, f.getOrigenId(), f.getDestinoId(), r);
+            List<Cliente> reindexar = clientes.findAllById(List.of(f.getOrigenId(), f.getDestinoId()));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reindexar.forEach(busqueda::indexar);
+                }
+            });
+            return r;
+        });
+    }
+
+    public List<FusionCliente> fusiones(Long destinoId, int limite) {
+        PageRequest p = PageRequest.of(0, limite);
+        return destinoId != null ? fusiones.findByDestinoIdOrderByIdDesc(destinoId, p) : fusiones.findByOrderByIdDesc(p);
+    }
+
+    private boolean crearIndiceUnico(String nombre, String columna, boolean pg) {
+        try {
+            if (pg) {
+                // un CREATE INDEX CONCURRENTLY fallido deja un índice inválido que IF NOT EXISTS daría por bueno
+                Integer invalidos = jdbc.queryForObject("SELECT COUNT(1) FROM pg_class c JOIN pg_index i ON i.indexrelid = c.oid "
+                        + "WHERE c.relname = ? AND NOT i.indisvalid", Integer.class, nombre);
+                if (invalidos != null && invalidos > 0) jdbc.execute("DROP INDEX CONCURRENTLY IF EXISTS " + nombre);
+                jdbc.execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS " + nombre + " ON clientes (" + columna + ")");
+            } else {
+                jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + nombre + " ON clientes (" + columna + ")");
+            }
+            return true;
+        } catch (DataAccessException e) {
+            // un duplicado entró entre la fusión y el índice: la próxima ejecución lo resuelve
+            log.warn("No se pudo crear el índice único {}: {}", nombre, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean esPostgres() {
+        String producto = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        return producto != null && producto.toLowerCase().contains("postgres");
+    }
+
+    private boolean pausa() {
+        if (pausaMs <= 0) return true;
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
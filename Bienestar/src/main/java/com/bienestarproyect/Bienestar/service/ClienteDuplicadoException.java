@@ -0,0 +1,18 @@
+package com.bienestarproyect.Bienestar.service;
+
+/**
+ * Ya existe otro cliente con el mismo email o teléfono (en forma canónica). Se responde con 409.
+ */
+public class ClienteDuplicadoException extends RuntimeException {
+    private final String campo;
+    private final Long clienteId;
+
+    public ClienteDuplicadoException(String campo, Long clienteId) {
+        super("Ya existe un cliente con ese " + campo + " (id " + clienteId + ")");
+        this.campo = campo;
+        this.clienteId = clienteId;
+    }
+
+    public String getCampo() { return campo; }
+    public Long getClienteId() { return clienteId; }
+}
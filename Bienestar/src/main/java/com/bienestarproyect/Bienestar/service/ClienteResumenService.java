@@ -0,0 +1,163 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.dto.ClienteResumen;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ficha del cliente en una sola petición: cliente, historial de citas y facturas se leen a la vez, cada uno
+ * en su transacción de solo lectura, en un pool acotado ({@code app.clientes.resumen.hilos}, cola
+ * {@code cola}). Con el pool y la cola llenos la parte no se lanza y se devuelve como incompleta: la petición
+ * no se queda ejecutando consultas en su propio hilo. Cada lectura ocupa una conexión: hilos debe quedar por
+ * debajo del pool de Hikari.
+ *
+ * Las tres comparten un plazo ({@code timeout}); lo que no llega a tiempo se devuelve como incompleto. La
+ * transacción de cada parte lleva como timeout lo que queda del plazo, así que sus sentencias JDBC se cancelan
+ * en la base poco después en vez de seguir ocupando la conexión (por eso el historial no se suma a una
+ * consulta compartida de {@link LecturasCompartidas}, que no tendría ese límite).
+ *
+ * Los hilos del pool heredan los atributos de la petición para que el enrutado a réplicas (y su
+ * read-your-writes por sesión) decida igual que en el hilo de la petición. Cuando la petición deja de esperar,
+ * las partes que aún no habían empezado ya no los toman y no se ejecutan.
+ */
+@Service
+public class ClienteResumenService {
+
+    public static final String CLIENTE = "cliente";
+    public static final String CITAS = "citas";
+    public static final String FACTURAS = "facturas";
+
+    private final ClienteService clientes;
+    private final CitaService citas;
+    private final FacturaService facturas;
+    private final ThreadPoolExecutor pool;
+    private final PlatformTransactionManager txManager;
+    private final Duration timeout;
+    private final Timer tiempo;
+    private final MeterRegistry meterRegistry;
+
+    public ClienteResumenService(ClienteService clientes, CitaService citas, FacturaService facturas,
+                                 PlatformTransactionManager txManager, Environment env, MeterRegistry meterRegistry) {
+        this.clientes = clientes;
+        this.citas = citas;
+        this.facturas = facturas;
+        this.txManager = txManager;
+        this.meterRegistry = meterRegistry;
+        this.timeout = env.getProperty("app.clientes.resumen.timeout", Duration.class, Duration.ofSeconds(2));
+        int hilos = env.getProperty("app.clientes.resumen.hilos", Integer.class, 8);
+        int cola = env.getProperty("app.clientes.resumen.cola", Integer.class, 64);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(cola), r -> {
+            Thread t = new Thread(r, "cliente-resumen-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.tiempo = Timer.builder("bienestar.clientes.resumen").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /** null si el cliente no existe; si el propio cliente no llegó a tiempo, {@code cliente} es null. */
+    public ClienteResumen resumen(Long id) {
+        return tiempo.record(() -> {
+            RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+            AtomicBoolean esperando = new AtomicBoolean(true);
+            long limite = System.nanoTime() + timeout.toNanos();
+            CompletableFuture<Cliente> cliente = lanzar(attrs, esperando, limite, () -> clientes.buscar(id));
+            CompletableFuture<List<ClienteResumen.CitaItem>> historial = lanzar(attrs, esperando, limite,
+                    () -> citas.historialPorCliente(id).stream().map(ClienteResumen.CitaItem::de).toList());
+            CompletableFuture<List<ClienteResumen.FacturaItem>> cobros = lanzar(attrs, esperando, limite,
+                    () -> facturas.porCliente(id).stream().map(ClienteResumen.FacturaItem::de).toList());
+
+            try {
+                List<String> incompletos = new ArrayList<>();
+                Cliente c = esperar(cliente, limite, CLIENTE, incompletos);
+                if (c == null && incompletos.isEmpty()) {
+                    historial.cancel(false);
+                    cobros.cancel(false);
+                    return null;
+                }
+                return new ClienteResumen(c, esperar(historial, limite, CITAS, incompletos),
+                        esperar(cobros, limite, FACTURAS, incompletos), List.copyOf(incompletos));
+            } finally {
+                // lo que siga en el pool ya no debe ver esta petición
+                esperando.set(false);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> lanzar(RequestAttributes attrs, AtomicBoolean esperando, long limite, Supplier<T> consulta) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long queda = limite - System.nanoTime();
+                // la petición ya no espera: ni se consulta ni se toman sus atributos
+                if (!esperando.get() || queda <= 0) throw new CompletionException(new TimeoutException());
+                RequestContextHolder.setRequestAttributes(attrs);
+                try {
+                    TransactionTemplate tx = new TransactionTemplate(txManager);
+                    tx.setReadOnly(true);
+                    // en segundos, redondeando hacia arriba: Hibernate lo aplica como query timeout de cada sentencia
+                    tx.setTimeout((int) ((queda + 999_999_999L) / 1_000_000_000L));
+                    return tx.execute(s -> consulta.get());
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T esperar(CompletableFuture<T> f, long limite, String parte, List<String> incompletos) {
+        try {
+            return f.get(Math.max(0, limite - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(false);
+            return incompleta(parte, "plazo", incompletos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            incompletos.add(parte);
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) return incompleta(parte, "plazo", incompletos);
+            if (e.getCause() instanceof RejectedExecutionException) return incompleta(parte, "pool", incompletos);
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> T incompleta(String parte, String motivo, List<String> incompletos) {
+        incompletos.add(parte);
+        Counter.builder("bienestar.clientes.resumen.incompletos").tag("parte", parte).tag("motivo", motivo)
+                .register(meterRegistry).increment();
+        return null;
+    }
+}
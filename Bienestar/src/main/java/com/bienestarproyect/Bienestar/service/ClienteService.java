@@ -1,18 +1,129 @@
 package com.bienestarproyect.Bienestar.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.bienestarproyect.Bienestar.dto.ClienteDTO;
 import com.bienestarproyect.Bienestar.entity.Cliente;
 import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @Service
 public class ClienteService {
     private final ClienteRepository repo;
-    public ClienteService(ClienteRepository repo){ this.repo = repo; }
+    private final ClienteBusquedaService busqueda;
+    private final ParcheJson parches;
+    private final TotalesClienteService totales;
+    public ClienteService(ClienteRepository repo, ClienteBusquedaService busqueda, ParcheJson parches,
+                          TotalesClienteService totales){
+        this.repo = repo;
+        this.busqueda = busqueda;
+        this.parches = parches;
+        this.totales = totales;
+    }
+    @Transactional(readOnly = true)
     public List<Cliente> listar(){ return repo.findAll(); }
-    public Cliente guardar(Cliente c){ return repo.save(c); }
+    public Cliente guardar(Cliente c){
+        comprobarDuplicado(c);
+        boolean nuevo = c.getId() == null;
+        Cliente saved;
+        try {
+            saved = repo.saveAndFlush(c);
+        } catch (DataIntegrityViolationException e) {
+            // alta concurrente con el mismo contacto: el índice único gana la carrera
+            comprobarDuplicado(c);
+            throw e;
+        }
+        busqueda.indexar(saved);
+        // fila de cliente_resumen con totales a cero; si se pierde, la crea la reconstrucción
+        if (nuevo) totales.alta(saved.getId());
+        return saved;
+    }
+    /**
+     * PUT condicional: un UPDATE con la versión en el WHERE, sin leer antes la fila.
+     * @param versiones las del If-Match, o null para sobrescribir sin comprobar
+     * @return el cliente con la versión nueva, o null si no existe
+     */
+    @Transactional
+    public Cliente actualizar(Long id, Cliente c, List<Long> versiones){
+        c.setId(id);
+        comprobarDuplicado(c);
+        if (versiones == null) {
+            if (actualizarSiVersion(id, c, null) == 0) return null;
+            c.setVersion(repo.findVersionById(id));
+        } else {
+            Long v = Precondicion.aplicar(versiones, x -> actualizarSiVersion(id, c, x));
+            if (v == null) {
+                if (!repo.existsById(id)) return null;
+                throw new VersionObsoletaException("cliente", id);
+            }
+            c.setVersion(v + 1);
+        }
+        busqueda.indexar(c);
+        return c;
+    }
+    private int actualizarSiVersion(Long id, Cliente c, Long version){
+        return repo.actualizarSiVersion(id, c.getNombre(), c.getEmail(), c.getTelefono(),
+                c.getEmailNormalizado(), c.getTelefonoNormalizado(), version);
+    }
+    /** PATCH (merge patch): UPDATE solo de los campos enviados, validados como en ClienteDTO; null si no existe. */
+    @Transactional
+    public Cliente parchear(Long id, JsonNode parche, List<Long> versiones){
+        Map<String, Object> campos = parches.validar(parche, ClienteDTO.class, Set.of("nombre", "email", "telefono"));
+        if (campos.isEmpty()) return buscar(id);
+        Cliente probe = new Cliente();
+        probe.setId(id);
+        if (campos.containsKey("email")) {
+            probe.setEmail((String) campos.get("email"));
+            campos.put("emailNormalizado", probe.getEmailNormalizado());
+        }
+        if (campos.containsKey("telefono")) {
+            probe.setTelefono((String) campos.get("telefono"));
+            campos.put("telefonoNormalizado", probe.getTelefonoNormalizado());
+        }
+        comprobarDuplicado(probe);
+        if (parches.actualizar(Cliente.class, id, campos, versiones, null) == 0) {
+            if (!repo.existsById(id)) return null;
+            throw new VersionObsoletaException("cliente", id);
+        }
+        Cliente c = buscar(id);
+        busqueda.indexar(c);
+        return c;
+    }
     public Cliente buscar(Long id){ return repo.findById(id).orElse(null); }
-    public void eliminar(Long id){ repo.deleteById(id); }
-}
\ No newline at end of file
+    public void eliminar(Long id){
+        repo.deleteById(id);
+        busqueda.eliminar(id);
+    }
+    public List<Cliente> buscarTexto(String q, int limite){ return busqueda.buscar(q, Math.max(1, Math.min(limite, 100))); }
+
+    /** Cliente con ese email o, si no, con ese teléfono (comparando formas canónicas). */
+    public Cliente buscarPorContacto(String email, String telefono){
+        String e = Cliente.normalizarEmail(email);
+        String t = Cliente.normalizarTelefono(telefono);
+        if (e != null) {
+            Cliente c = repo.findFirstByEmailNormalizadoOrderByIdAsc(e).orElse(null);
+            if (c != null) return c;
+        }
+        return t != null ? repo.findFirstByTelefonoNormalizadoOrderByIdAsc(t).orElse(null) : null;
+    }
+
+    private void comprobarDuplicado(Cliente c){
+        if (c.getEmailNormalizado() != null) {
+            repo.findFirstByEmailNormalizadoOrderByIdAsc(c.getEmailNormalizado())
+                    .filter(o -> !Objects.equals(o.getId(), c.getId()))
+                    .ifPresent(o -> { throw new ClienteDuplicadoException("email", o.getId()); });
+        }
+        if (c.getTelefonoNormalizado() != null) {
+            repo.findFirstByTelefonoNormalizadoOrderByIdAsc(c.getTelefonoNormalizado())
+                    .filter(o -> !Objects.equals(o.getId(), c.getId()))
+                    .ifPresent(o -> { throw new ClienteDuplicadoException("teléfono", o.getId()); });
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.bienestarproyect.Bienestar.service;
 
 import com.bienestarproyect.Bienestar.entity.Factura;
 import com.bienestarproyect.Bienestar.repository.FacturaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,7 +12,22 @@ import java.util.List;
 @Service
 public class FacturaService {
     private final FacturaRepository repo;
-    public FacturaService(FacturaRepository repo){ this.repo = repo; }
-    public Factura crear(Factura f){ f.setFecha(LocalDateTime.now()); return repo.save(f); }
+    private final OutboxService outbox;
+    private final TotalesClienteService totales;
+    public FacturaService(FacturaRepository repo, OutboxService outbox, TotalesClienteService totales){
+        this.repo = repo;
+        this.outbox = outbox;
+        this.totales = totales;
+    }
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "factura.crear"})
+    @Transactional
+    public Factura crear(Factura f){
+        f.setFecha(LocalDateTime.now());
+        Factura saved = repo.save(f);
+        outbox.factura("FACTURA_CREADA", saved);
+        totales.factura(saved.getCliente() != null ? saved.getCliente().getId() : null, saved.getTotal());
+        return saved;
+    }
+    @Transactional(readOnly = true)
     public List<Factura> porCliente(Long clienteId){ return repo.findByCliente_IdOrderByFechaDesc(clienteId); }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.replica.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lecturas idénticas a la vez comparten una sola consulta (single-flight): la primera llamada para una
+ * clave la ejecuta, en su transacción de solo lectura, y las que llegan mientras tanto esperan y reciben
+ * el mismo resultado. No es una caché: en cuanto la consulta termina, la siguiente llamada consulta de nuevo.
+ *
+ * Quien espera no abre transacción ni ocupa conexión, por eso los métodos que lo usan no son @Transactional.
+ * El resultado se comparte entre hilos y no debe modificarse. No se comparte nada desde dentro de una
+ * transacción ya abierta (podría ver cambios sin confirmar) ni entre sesiones que leen de la primaria por
+ * haber escrito hace poco y las que no (read-your-writes, ver {@link ReplicaRoutingDataSource}).
+ * {@link #olvidarAlConfirmar} hace que las lecturas posteriores a una escritura no se sumen a una consulta
+ * empezada antes de ella.
+ */
+@Service
+public class LecturasCompartidas {
+
+    private static final int MAX_CLAVES = 1000;
+
+    private record Clave(String lectura, Object valor, boolean primaria) {}
+
+    private static final class Estadistica {
+        final LongAdder consultas = new LongAdder();
+        final LongAdder compartidas = new LongAdder();
+    }
+
+    private final Map<Clave, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+    private final Map<String, Estadistica> porClave = new ConcurrentHashMap<>();
+    private final TransactionTemplate tx;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public LecturasCompartidas(PlatformTransactionManager txManager, Environment env, MeterRegistry meterRegistry) {
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.enabled = env.getProperty("app.lecturas-compartidas.enabled", Boolean.class, true);
+    }
+
+    /** Resultado de {@code consulta} para ({@code lectura}, {@code valor}), compartido con las llamadas simultáneas. */
+    @SuppressWarnings("unchecked")
+    public <T> T leer(String lectura, Object valor, Supplier<T> consulta) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) return tx.execute(s -> consulta.get());
+        Clave k = new Clave(lectura, valor, ReplicaRoutingDataSource.escrituraReciente());
+        CompletableFuture<Object> propia = new CompletableFuture<>();
+        CompletableFuture<Object> otra = enCurso.putIfAbsent(k, propia);
+        if (otra != null) {
+            contar(k, true);
+            return (T) esperar(otra);
+        }
+        contar(k, false);
+        T r;
+        try {
+            r = tx.execute(s -> consulta.get());
+        } catch (RuntimeException | Error e) {
+            enCurso.remove(k, propia);
+            propia.completeExceptionally(e);
+            throw e;
+        }
+        // fuera del mapa antes de publicar: quien llegue ahora consulta de nuevo
+        enCurso.remove(k, propia);
+        propia.complete(r);
+        return r;
+    }
+
+    /** Tras el commit de la transacción actual (o ya, si no hay), las lecturas de esa clave vuelven a consultar. */
+    public void olvidarAlConfirmar(String lectura, Object valor) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    olvidar(lectura, valor);
+                }
+            });
+        } else {
+            olvidar(lectura, valor);
+        }
+    }
+
+    /** Claves con más llamadas compartidas: consultas ejecutadas, llamadas que esperaron a otra y su proporción. */
+    public List<Map<String, Object>> top(int limit) {
+        List<Map.Entry<String, Estadistica>> entradas = new ArrayList<>(porClave.entrySet());
+        entradas.sort(Comparator.comparingLong((Map.Entry<String, Estadistica> e) -> e.getValue().compartidas.sum()).reversed());
+        List<Map<String, Object>> r = new ArrayList<>();
+        for (Map.Entry<String, Estadistica> e : entradas.subList(0, Math.min(Math.max(limit, 0), entradas.size()))) {
+            long consultas = e.getValue().consultas.sum();
+            long compartidas = e.getValue().compartidas.sum();
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("clave", e.getKey());
+            m.put("consultas", consultas);
+            m.put("compartidas", compartidas);
+            m.put("proporcionCompartida", consultas + compartidas > 0 ? (double) compartidas / (consultas + compartidas) : 0.0);
+            r.add(m);
+        }
+        return r;
+    }
+
+    public void reset() {
+        porClave.clear();
+    }
+
+    private void olvidar(String lectura, Object valor) {
+        enCurso.remove(new Clave(lectura, valor, false));
+        enCurso.remove(new Clave(lectura, valor, true));
+    }
+
+    private static Object esperar(CompletableFuture<Object> otra) {
+        try {
+            return otra.join();
+        } catch (CompletionException e) {
+            // el mismo fallo que la consulta compartida
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    private void contar(Clave k, boolean compartida) {
+        String resultado = compartida ? "compartida" : "consulta";
+        Counter.builder("bienestar.lecturas").tag("lectura", k.lectura()).tag("resultado", resultado)
+                .register(meterRegistry).increment();
+        String nombre = k.valor() != null ? k.lectura() + ":" + k.valor() : k.lectura();
+        Estadistica e = porClave.get(nombre);
+        if (e == null) {
+            if (porClave.size() >= MAX_CLAVES) return;
+            e = porClave.computeIfAbsent(nombre, x -> new Estadistica());
+        }
+        (compartida ? e.compartidas : e.consultas).increment();
+    }
+}
@@ -0,0 +1,75 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Factura;
+import com.bienestarproyect.Bienestar.entity.ListaEspera;
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+import com.bienestarproyect.Bienestar.repository.OutboxEventoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes domain events into the outbox table. MANDATORY propagation: an event is only
+ * stored together with the change that produced it, never on its own.
+ */
+@Service
+public class OutboxService {
+    public static final String CITA = "CITA";
+    public static final String FACTURA = "FACTURA";
+    public static final String LISTA_ESPERA = "LISTA_ESPERA";
+
+    private final OutboxEventoRepository repo;
+    private final ObjectMapper mapper;
+
+    public OutboxService(OutboxEventoRepository repo, ObjectMapper mapper){ this.repo = repo; this.mapper = mapper; }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cita(String tipo, Cita c){
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("id", c.getId());
+        p.put("clienteId", c.getCliente() != null ? c.getCliente().getId() : null);
+        p.put("servicioId", c.getServicio() != null ? c.getServicio().getId() : null);
+        p.put("fechaHora", c.getFechaHora());
+        p.put("estado", c.getEstado());
+        registrar(CITA, c.getId(), tipo, p);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void factura(String tipo, Factura f){
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("id", f.getId());
+        p.put("clienteId", f.getCliente() != null ? f.getCliente().getId() : null);
+        p.put("total", f.getTotal());
+        p.put("fecha", f.getFecha());
+        p.put("descripcion", f.getDescripcion());
+        registrar(FACTURA, f.getId(), tipo, p);
+    }
+
+    // LISTA_ESPERA_OFERTA lo consume el canal que avisa al cliente (SMS, push...)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void listaEspera(String tipo, ListaEspera e){
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("id", e.getId());
+        p.put("clienteId", e.getClienteId());
+        p.put("servicioId", e.getServicioId());
+        p.put("estado", e.getEstado());
+        p.put("ofertaInicio", e.getOfertaInicio());
+        p.put("ofertaExpira", e.getOfertaExpira());
+        p.put("citaId", e.getCitaId());
+        registrar(LISTA_ESPERA, e.getId(), tipo, p);
+    }
+
+    private void registrar(String agregado, Long id, String tipo, Map<String, Object> payload){
+        try {
+            repo.save(new OutboxEvento(agregado, id, tipo, mapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + tipo, e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.bienestarproyect.Bienestar.service;
+
+import java.util.Map;
+
+/**
+ * Merge patch con campos desconocidos, no modificables o que no pasan la validación del DTO.
+ * Se responde con 400 y el mismo formato campo -> mensaje que los errores de @Valid.
+ */
+public class ParcheInvalidoException extends RuntimeException {
+    private final Map<String, String> errores;
+
+    public ParcheInvalidoException(Map<String, String> errores) {
+        super("Parche inválido: " + errores);
+        this.errores = errores;
+    }
+
+    public Map<String, String> getErrores() { return errores; }
+}
@@ -0,0 +1,110 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.validation.Validator;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * JSON merge patch (RFC 7396) sobre entidades planas: solo los campos presentes en el cuerpo
+ * se validan (con las restricciones del DTO correspondiente) y se escriben, en un único
+ * UPDATE por columnas que además incrementa la versión. Un null explícito borra el valor,
+ * si la validación lo permite.
+ */
+@Component
+public class ParcheJson {
+
+    private final EntityManager em;
+    private final ObjectMapper mapper;
+    private final Validator validator;
+
+    public ParcheJson(EntityManager em, ObjectMapper mapper, Validator validator) {
+        this.em = em;
+        this.mapper = mapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Convierte cada campo del parche al tipo de la propiedad en {@code tipo} y lo valida con sus anotaciones.
+     * @return campo -> valor convertido, en el orden del cuerpo (vacío si el parche no trae campos)
+     */
+    public Map<String, Object> validar(JsonNode parche, Class<?> tipo, Set<String> modificables) {
+        if (parche == null || !parche.isObject()) {
+            throw new ParcheInvalidoException(Map.of("parche", "Se esperaba un objeto JSON"));
+        }
+        Map<String, String> errores = new LinkedHashMap<>();
+        Map<String, Object> valores = new LinkedHashMap<>();
+        parche.fields().forEachRemaining(e -> {
+            String campo = e.getKey();
+            PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(tipo, campo);
+            if (!modificables.contains(campo) || pd == null) {
+                errores.put(campo, "Campo no modificable");
+                return;
+            }
+            Object valor;
+            try {
+                valor = e.getValue().isNull() ? null : mapper.convertValue(e.getValue(), pd.getPropertyType());
+            } catch (IllegalArgumentException ex) {
+                errores.put(campo, "Valor inválido");
+                return;
+            }
+            validator.validateValue(tipo, campo, valor).forEach(v -> errores.putIfAbsent(campo, v.getMessage()));
+            valores.put(campo, valor);
+        });
+        if (!errores.isEmpty()) throw new ParcheInvalidoException(errores);
+        return valores;
+    }
+
+    /** Entidad referenciada por un campo del parche (p. ej. clienteId); 400 si no existe. */
+    public <T> T referencia(Class<T> entidad, Object id, String campo) {
+        T e = em.find(entidad, id);
+        if (e == null) throw new ParcheInvalidoException(Map.of(campo, "No encontrado"));
+        return e;
+    }
+
+    /**
+     * UPDATE entidad SET columnas..., version = version + 1 WHERE id = :id [AND version IN :versiones] [AND condicion].
+     * Debe llamarse dentro de una transacción.
+     * @param versiones las del If-Match, o null para no comprobar la versión (vacía: no coincide ninguna)
+     * @return filas actualizadas (0: no existe, versión distinta o condición no cumplida)
+     */
+    public <T> int actualizar(Class<T> entidad, Long id, Map<String, Object> columnas, List<Long> versiones,
+                              BiFunction<CriteriaBuilder, Root<T>, Predicate> condicion) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaUpdate<T> u = cb.createCriteriaUpdate(entidad);
+        Root<T> r = u.from(entidad);
+        columnas.forEach((campo, valor) -> {
+            Path<Object> p = r.get(campo);
+            // con Path<Object> set(path, valor) y set(path, expresión) son ambiguos: se fija el tipo
+            if (valor == null) u.<Object>set(p, cb.nullLiteral(p.getJavaType()));
+            else u.set(p, valor);
+        });
+        Path<Long> v = r.get("version");
+        u.set(v, cb.sum(v, 1L));
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(r.get("id"), id));
+        if (versiones != null) where.add(versiones.isEmpty() ? cb.disjunction() : v.in(versiones));
+        if (condicion != null) where.add(condicion.apply(cb, r));
+        u.where(where.toArray(new Predicate[0]));
+        int n = em.createQuery(u).executeUpdate();
+        // el UPDATE no pasa por el contexto de persistencia: si esta entidad estaba cargada quedó desfasada y se
+        // suelta (getReference no consulta); el resto de lo cargado en la transacción sigue gestionado
+        if (n > 0) em.detach(em.getReference(entidad, id));
+        return n;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bienestarproyect.Bienestar.service;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * If-Match con varias versiones (basta con que coincida una): el UPDATE condicional se prueba con cada una,
+ * en orden, hasta que alguna actualiza la fila. Con un solo ETag, lo habitual, es un único UPDATE.
+ */
+final class Precondicion {
+    private Precondicion(){}
+
+    /** @return la versión que coincidió (la fila pasa a la siguiente), o null si ninguna */
+    static Long aplicar(List<Long> versiones, ToIntFunction<Long> update) {
+        for (Long v : versiones) {
+            if (update.applyAsInt(v) > 0) return v;
+        }
+        return null;
+    }
+}
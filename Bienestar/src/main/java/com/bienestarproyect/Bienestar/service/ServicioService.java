@@ -2,16 +2,68 @@ package com.bienestarproyect.Bienestar.service;
 
 import com.bienestarproyect.Bienestar.entity.Servicio;
 import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ServicioService {
+    static final String LISTADO = "servicios.listar";
+
     private final ServicioRepository repo;
-    public ServicioService(ServicioRepository repo){ this.repo = repo; }
-    public List<Servicio> listar(){ return repo.findAll(); }
-    public Servicio guardar(Servicio s){ return repo.save(s); }
+    private final ParcheJson parches;
+    private final LecturasCompartidas lecturas;
+    public ServicioService(ServicioRepository repo, ParcheJson parches, LecturasCompartidas lecturas){
+        this.repo = repo;
+        this.parches = parches;
+        this.lecturas = lecturas;
+    }
+    /** Catálogo; las peticiones simultáneas comparten una consulta (ver LecturasCompartidas). */
+    public List<Servicio> listar(){ return lecturas.leer(LISTADO, null, () -> List.copyOf(repo.findAll())); }
+    public Servicio guardar(Servicio s){
+        Servicio r = repo.save(s);
+        lecturas.olvidarAlConfirmar(LISTADO, null);
+        return r;
+    }
+    /** PUT condicional (ver ClienteService#actualizar); null si no existe. */
+    @Transactional
+    public Servicio actualizar(Long id, Servicio s, List<Long> versiones){
+        if (versiones == null) {
+            if (repo.actualizarSiVersion(id, s.getNombre(), s.getDescripcion(), s.getPrecio(), null) == 0) return null;
+            s.setVersion(repo.findVersionById(id));
+        } else {
+            Long v = Precondicion.aplicar(versiones,
+                    x -> repo.actualizarSiVersion(id, s.getNombre(), s.getDescripcion(), s.getPrecio(), x));
+            if (v == null) {
+                if (!repo.existsById(id)) return null;
+                throw new VersionObsoletaException("servicio", id);
+            }
+            s.setVersion(v + 1);
+        }
+        s.setId(id);
+        lecturas.olvidarAlConfirmar(LISTADO, null);
+        return s;
+    }
+    /** PATCH (merge patch) de nombre, descripción, precio y requisitos de reserva; null si no existe. */
+    @Transactional
+    public Servicio parchear(Long id, JsonNode parche, List<Long> versiones){
+        Map<String, Object> campos = parches.validar(parche, Servicio.class, Set.of("nombre", "descripcion", "precio",
+                "duracionMinutos", "habilidad", "requiereSala", "capacidad"));
+        if (campos.isEmpty()) return buscar(id);
+        if (parches.actualizar(Servicio.class, id, campos, versiones, null) == 0) {
+            if (!repo.existsById(id)) return null;
+            throw new VersionObsoletaException("servicio", id);
+        }
+        lecturas.olvidarAlConfirmar(LISTADO, null);
+        return buscar(id);
+    }
     public Servicio buscar(Long id){ return repo.findById(id).orElse(null); }
-    public void eliminar(Long id){ repo.deleteById(id); }
+    public void eliminar(Long id){
+        repo.deleteById(id);
+        lecturas.olvidarAlConfirmar(LISTADO, null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.dto.ClienteListadoItem;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.repository.ResumenClienteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mantiene cliente_resumen (visitas, última visita, facturas, gasto total).
+ *
+ * Las citas que pasan a ATENDIDA y las facturas nuevas suman en la misma transacción que las produce
+ * (MANDATORY, como el outbox), con un UPDATE de incremento sobre la fila del cliente. Si la fila no existe
+ * se inserta calculada desde citas y facturas. {@link #reconstruir} repara cualquier deriva por tramos de ids.
+ */
+@Service
+public class TotalesClienteService {
+
+    private static final Logger log = LoggerFactory.getLogger(TotalesClienteService.class);
+    private static final int TRAMO = 1000;
+    private static final String ATENDIDA = EstadoCita.ATENDIDA.name();
+
+    public enum Orden {
+        GASTO, RECIENTE, VISITAS;
+
+        /** null si no es un orden conocido. */
+        public static Orden de(String s) {
+            try {
+                return s == null ? GASTO : valueOf(s.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final ResumenClienteRepository repo;
+    private final TransactionTemplate tx;
+    private final Counter corregidos;
+
+    public TotalesClienteService(ResumenClienteRepository repo, PlatformTransactionManager txManager, MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.tx = new TransactionTemplate(txManager);
+        // un incremento concurrente sobre una fila del tramo hace fallar el tramo en vez de quedar pisado
+        // por el cálculo hecho con la foto anterior; ese tramo se repasa en la siguiente ejecución
+        this.tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.corregidos = Counter.builder("bienestar.clientes.resumen.corregidos").register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void visita(Long clienteId, LocalDateTime fecha) {
+        if (clienteId == null) return;
+        if (repo.sumarVisita(clienteId, fecha) == 0) insertar(clienteId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void factura(Long clienteId, BigDecimal total) {
+        if (clienteId == null) return;
+        if (repo.sumarFactura(clienteId, total != null ? total : BigDecimal.ZERO) == 0) insertar(clienteId);
+    }
+
+    /**
+     * Fusión de clientes, en su misma transacción y después de reasignar citas y facturas: las filas de los
+     * borrados desaparecen y la del que se conserva se recalcula con todo lo que ahora es suyo.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void fusion(Long destinoId, List<Long> borrados) {
+        repo.borrarDe(borrados);
+        if (repo.recalcular(destinoId, destinoId, ATENDIDA) == 0) repo.insertarCalculado(destinoId, ATENDIDA);
+    }
+
+    /** Fusión deshecha, en su misma transacción: se recalcula el que se conservó y el restaurado vuelve a tener fila. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void separacion(Long destinoId, Long restauradoId) {
+        if (repo.recalcular(destinoId, destinoId, ATENDIDA) == 0) repo.insertarCalculado(destinoId, ATENDIDA);
+        repo.insertarCalculado(restauradoId, ATENDIDA);
+    }
+
+    /** Fila de un cliente nuevo (el alta ya confirmó en su propia transacción). */
+    @Transactional
+    public void alta(Long clienteId) {
+        repo.insertarCalculado(clienteId, ATENDIDA);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ClienteListadoItem> listado(Orden orden, int pagina, int limite) {
+        PageRequest p = PageRequest.of(pagina, limite);
+        return switch (orden) {
+            case GASTO -> repo.porGasto(p);
+            case RECIENTE -> repo.porUltimaVisita(p);
+            case VISITAS -> repo.porVisitas(p);
+        };
+    }
+
+    /**
+     * Inserta las filas que faltan, borra las de clientes eliminados y recalcula por tramos de ids, cada tramo
+     * en su transacción. Devuelve cuántas filas no cuadraban.
+     */
+    @Scheduled(cron = "${app.clientes.resumen-tabla.reconstruir-cron:0 30 3 * * *}")
+    public int reconstruir() {
+        Integer faltantes = tx.execute(s -> repo.insertarFaltantes() + repo.borrarHuerfanos());
+        int total = faltantes != null ? faltantes : 0;
+        long max = repo.maxClienteId();
+        for (long desde = 1; desde <= max; desde += TRAMO) {
+            long d = desde;
+            try {
+                Integer n = tx.execute(s -> repo.recalcular(d, d + TRAMO - 1, ATENDIDA));
+                total += n != null ? n : 0;
+            } catch (ConcurrencyFailureException e) {
+                log.info("cliente_resumen: tramo {}-{} con cambios concurrentes, se repasará en la próxima reconstrucción",
+                        d, d + TRAMO - 1);
+            }
+        }
+        corregidos.increment(total);
+        if (total > 0) log.warn("cliente_resumen: {} filas corregidas al reconstruir", total);
+        return total;
+    }
+
+    private void insertar(Long clienteId) {
+        // el cambio que se está sumando ya debe estar en la base para que el cálculo lo incluya
+        repo.flush();
+        repo.insertarCalculado(clienteId, ATENDIDA);
+    }
+}
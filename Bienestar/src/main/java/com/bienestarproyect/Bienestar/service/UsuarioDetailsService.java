@@ -1,6 +1,9 @@
 package com.bienestarproyect.Bienestar.service;
 
 import com.bienestarproyect.Bienestar.repository.UsuarioRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
@@ -11,6 +14,8 @@ import java.util.stream.Collectors;
 @Service
 public class UsuarioDetailsService implements UserDetailsService {
 
+    private static final Logger log = LoggerFactory.getLogger(UsuarioDetailsService.class);
+
     private final UsuarioRepository usuarioRepository;
 
     public UsuarioDetailsService(UsuarioRepository usuarioRepository) {
@@ -18,17 +23,20 @@ public class UsuarioDetailsService implements UserDetailsService {
     }
 
     @Override
+    @Timed(value = "bienestar.operacion", extraTags = {"operacion", "auth.cargar-usuario"})
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(UsuarioDetailsService.class);
-        log.info("Attempting login for username='{}'", username);
+        // los intentos de login (ok/fallido) se registran en la auditoría asíncrona; aquí solo DEBUG
+        log.debug("Attempting login for username='{}'", username);
 
         var usuario = usuarioRepository.findByUsername(username)
                 .orElseThrow(() -> {
-                    log.warn("Usuario no encontrado: {}", username);
+                    log.debug("Usuario no encontrado: {}", username);
                     return new UsernameNotFoundException("Usuario no encontrado: " + username);
                 });
 
-        log.info("Found user '{}' with roles {}", usuario.getUsername(), usuario.getRoles());
+        if (log.isDebugEnabled()) {
+            log.debug("Found user '{}' with roles {}", usuario.getUsername(), usuario.getRoles());
+        }
 
         Set<GrantedAuthority> authorities = usuario.getRoles().stream()
                 .map(r -> new SimpleGrantedAuthority("ROLE_" + r.getName()))
@@ -0,0 +1,11 @@
+package com.bienestarproyect.Bienestar.service;
+
+/**
+ * El If-Match de la petición no coincide con la versión actual (alguien modificó el recurso antes).
+ * Se responde con 412.
+ */
+public class VersionObsoletaException extends RuntimeException {
+    public VersionObsoletaException(String recurso, Long id) {
+        super("El " + recurso + " " + id + " fue modificado por otra petición; vuelva a leerlo y reintente");
+    }
+}
@@ -0,0 +1,172 @@
+package com.bienestarproyect.Bienestar.stream;
+
+import com.bienestarproyect.Bienestar.event.CitaEvento;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed Cita changes to SSE subscribers (GET /api/citas/stream).
+ *
+ * Fan-out never blocks the committing thread: each subscriber has a bounded queue and is drained
+ * by a small shared pool. Slow-consumer policy: when a queue is full the oldest event is dropped;
+ * a subscriber that keeps overflowing (app.sse.max-drops in a row) is disconnected so its client
+ * reconnects and reloads the agenda instead of working with a gappy stream.
+ *
+ * Heartbeats take the same path: the scheduler only flags a pending ping and the subscriber's sender
+ * writes it, so one stalled client never holds up the scheduler thread (or the pings of everyone
+ * else) and each emitter only ever has one thread writing to it.
+ */
+@Component
+public class AgendaBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaBroadcaster.class);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService senders;
+    private final long timeoutMs;
+    private final int queueSize;
+    private final int maxDrops;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    public AgendaBroadcaster(Environment env, MeterRegistry meterRegistry) {
+        this.timeoutMs = env.getProperty("app.sse.timeout-ms", Long.class, 30 * 60 * 1000L);
+        this.queueSize = env.getProperty("app.sse.queue-size", Integer.class, 64);
+        this.maxDrops = env.getProperty("app.sse.max-drops", Integer.class, 64);
+        int threads = env.getProperty("app.sse.sender-threads", Integer.class, 4);
+        AtomicInteger n = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-sender-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("bienestar.sse.suscriptores", subscribers, Set::size).register(meterRegistry);
+        this.dropped = Counter.builder("bienestar.sse.eventos.descartados").register(meterRegistry);
+        this.disconnected = Counter.builder("bienestar.sse.desconexiones.lentos").register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long servicioId) {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber s = new Subscriber(emitter, servicioId, queueSize);
+        subscribers.add(s);
+        emitter.onCompletion(() -> subscribers.remove(s));
+        emitter.onTimeout(() -> { subscribers.remove(s); emitter.complete(); });
+        emitter.onError(e -> subscribers.remove(s));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCita(CitaEvento e) {
+        for (Subscriber s : subscribers) {
+            if (s.servicioId != null && !s.servicioId.equals(e.servicioId())) continue;
+            if (s.enqueue(e)) {
+                schedule(s);
+            } else {
+                // disconnect: the client will reconnect and reload instead of missing events silently
+                disconnected.increment();
+                subscribers.remove(s);
+                s.emitter.complete();
+            }
+        }
+    }
+
+    /** Keeps idle connections alive through proxies and detects dead clients; the senders write the pings. */
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber s : subscribers) {
+            // a ping still pending from the last round is not doubled
+            s.ping.set(true);
+            schedule(s);
+        }
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void schedule(Subscriber s) {
+        if (s.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(s));
+        }
+    }
+
+    private void drain(Subscriber s) {
+        do {
+            try {
+                if (s.ping.compareAndSet(true, false)) s.emitter.send(SseEmitter.event().comment("ping"));
+                CitaEvento e;
+                while ((e = s.queue.poll()) != null) {
+                    s.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(e.citaId()))
+                            .name(e.tipo())
+                            .data(e, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("SSE subscriber gone: {}", ex.getMessage());
+                subscribers.remove(s);
+                s.queue.clear();
+                s.draining.set(false);
+                return;
+            }
+            s.draining.set(false);
+            // an event or a ping may have arrived between the last poll and releasing the flag
+        } while ((!s.queue.isEmpty() || s.ping.get()) && s.draining.compareAndSet(false, true));
+    }
+
+    public int suscriptores() { return subscribers.size(); }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(s -> s.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Long servicioId;
+        final BlockingQueue<CitaEvento> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean ping = new AtomicBoolean();
+        final AtomicInteger consecutiveDrops = new AtomicInteger();
+
+        Subscriber(SseEmitter emitter, Long servicioId, int queueSize) {
+            this.emitter = emitter;
+            this.servicioId = servicioId;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        /** @return false when the subscriber should be disconnected as a slow consumer */
+        boolean enqueue(CitaEvento e) {
+            if (queue.offer(e)) {
+                consecutiveDrops.set(0);
+                return true;
+            }
+            queue.poll(); // drop oldest
+            dropped.increment();
+            queue.offer(e);
+            return consecutiveDrops.incrementAndGet() < maxDrops;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.bienestarproyect.Bienestar.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local stand-in for an OTLP collector: appends every exported span as one JSON line.
+ * Called from the OpenTelemetry BatchSpanProcessor thread, never from request threads.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final ObjectMapper mapper;
+    private final BufferedWriter writer;
+
+    public FileSpanExporter(Path path, ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                writer.write(mapper.writeValueAsString(toMap(span)));
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Could not write {} spans: {}", spans.size(), e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private static Map<String, Object> toMap(SpanData span) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("traceId", span.getTraceId());
+        out.put("spanId", span.getSpanId());
+        out.put("parentSpanId", span.getParentSpanId());
+        out.put("name", span.getName());
+        out.put("kind", span.getKind().name());
+        out.put("startEpochNanos", span.getStartEpochNanos());
+        out.put("durationMicros", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000);
+        out.put("status", span.getStatus().getStatusCode().name());
+        Map<String, Object> attrs = new LinkedHashMap<>();
+        span.getAttributes().forEach((k, v) -> attrs.put(k.getKey(), v));
+        out.put("attributes", attrs);
+        return out;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        try {
+            synchronized (this) { writer.flush(); }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bienestarproyect.Bienestar.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens one observation (span) per service and repository call so a trace shows
+ * controller -> service -> repository -> JDBC. Ordered before the transaction
+ * interceptor, so the service span also covers the transaction commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LayerObservationAspect {
+
+    private final ObservationRegistry registry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public LayerObservationAspect(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.bienestarproyect.Bienestar.service..*(..))")
+    public Object observeService(ProceedingJoinPoint pjp) throws Throwable {
+        String clase = pjp.getSignature().getDeclaringType().getSimpleName();
+        return observe("bienestar.service", clase, pjp);
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object observeRepository(ProceedingJoinPoint pjp) throws Throwable {
+        String repo = repositoryNames.computeIfAbsent(pjp.getTarget().getClass(), LayerObservationAspect::repositoryName);
+        return observe("bienestar.repository", repo, pjp);
+    }
+
+    private Object observe(String name, String clase, ProceedingJoinPoint pjp) throws Throwable {
+        String metodo = pjp.getSignature().getName();
+        Observation observation = Observation.createNotStarted(name, registry)
+                .contextualName(clase + "." + metodo)
+                .lowCardinalityKeyValue("class", clase)
+                .lowCardinalityKeyValue("method", metodo)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return pjp.proceed();
+        } catch (Throwable t) {
+            observation.error(t);
+            throw t;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    // repository beans are JDK proxies; report the application interface (CitaRepository), not $ProxyNN
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> i : proxyClass.getInterfaces()) {
+            if (i.getName().startsWith("com.bienestarproyect.")) {
+                return i.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
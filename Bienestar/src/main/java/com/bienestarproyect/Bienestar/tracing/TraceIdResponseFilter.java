@@ -0,0 +1,39 @@
+package com.bienestarproyect.Bienestar.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Returns the current trace id as X-Trace-Id so the Android client can log it next to
+ * a slow or failed call and we can find the trace.
+ */
+@Component
+public class TraceIdResponseFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private final Tracer tracer;
+
+    public TraceIdResponseFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            response.setHeader(HEADER, span.context().traceId());
+        }
+        chain.doFilter(request, response);
+    }
+}
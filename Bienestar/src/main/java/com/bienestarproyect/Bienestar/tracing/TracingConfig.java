@@ -0,0 +1,25 @@
+package com.bienestarproyect.Bienestar.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class TracingConfig {
+
+    /**
+     * File exporter, picked up by Spring Boot's OpenTelemetry auto-configuration next to
+     * the OTLP exporter (if management.otlp.tracing.endpoint is set).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.file.enabled", havingValue = "true")
+    public FileSpanExporter fileSpanExporter(Environment env, ObjectMapper mapper) throws IOException {
+        Path path = Path.of(env.getProperty("app.tracing.file.path", "logs/traces.jsonl"));
+        return new FileSpanExporter(path, mapper);
+    }
+}
@@ -0,0 +1,19 @@
+-- V10: waitlist. Matching runs on in-memory queues; the table is read in full only on startup recovery.
+
+CREATE TABLE IF NOT EXISTS lista_espera (
+  id BIGSERIAL PRIMARY KEY,
+  cliente_id BIGINT NOT NULL,
+  servicio_id BIGINT NOT NULL,
+  desde TIMESTAMP NOT NULL,
+  hasta TIMESTAMP NOT NULL,
+  prioridad INTEGER DEFAULT 0 NOT NULL,
+  creada TIMESTAMP NOT NULL,
+  estado VARCHAR(20) NOT NULL,
+  oferta_inicio TIMESTAMP,
+  oferta_expira TIMESTAMP,
+  cita_id BIGINT,
+  version BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_lista_espera_estado_hasta ON lista_espera (estado, hasta);
+CREATE INDEX IF NOT EXISTS idx_lista_espera_servicio_estado ON lista_espera (servicio_id, estado);
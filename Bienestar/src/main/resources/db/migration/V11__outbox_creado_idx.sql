@@ -0,0 +1,3 @@
+-- V11: replay of outbox events after a calendar snapshot (ReservaService): id > marca OR creado_en >= desde
+
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_creado ON outbox_eventos (creado_en);
@@ -0,0 +1,24 @@
+-- V12: per-client totals (ResumenCliente), kept in the same transaction as citas ATENDIDA and new facturas.
+-- Backfilled here; TotalesClienteService.reconstruir repairs drift later.
+
+CREATE TABLE IF NOT EXISTS cliente_resumen (
+  cliente_id BIGINT PRIMARY KEY,
+  visitas INTEGER DEFAULT 0 NOT NULL,
+  ultima_visita TIMESTAMP,
+  facturas INTEGER DEFAULT 0 NOT NULL,
+  gasto_total NUMERIC(38,2) DEFAULT 0 NOT NULL
+);
+
+INSERT INTO cliente_resumen (cliente_id, visitas, ultima_visita, facturas, gasto_total)
+SELECT c.id,
+  (SELECT COUNT(*) FROM citas x WHERE x.cliente_id = c.id AND x.estado = 'ATENDIDA'),
+  (SELECT MAX(x.fecha_hora) FROM citas x WHERE x.cliente_id = c.id AND x.estado = 'ATENDIDA'),
+  (SELECT COUNT(*) FROM facturas f WHERE f.cliente_id = c.id),
+  (SELECT COALESCE(SUM(f.total), 0) FROM facturas f WHERE f.cliente_id = c.id)
+FROM clientes c
+WHERE NOT EXISTS (SELECT 1 FROM cliente_resumen r WHERE r.cliente_id = c.id);
+
+-- /api/clientes/listado: ORDER BY <column> DESC, cliente_id DESC LIMIT n reads one of these in order
+CREATE INDEX IF NOT EXISTS idx_cliente_resumen_gasto ON cliente_resumen (gasto_total DESC, cliente_id DESC);
+CREATE INDEX IF NOT EXISTS idx_cliente_resumen_ultima_visita ON cliente_resumen (ultima_visita DESC NULLS LAST, cliente_id DESC);
+CREATE INDEX IF NOT EXISTS idx_cliente_resumen_visitas ON cliente_resumen (visitas DESC, cliente_id DESC);
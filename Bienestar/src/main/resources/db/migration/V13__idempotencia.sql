@@ -0,0 +1,14 @@
+-- V13: stored responses for Idempotency-Key on POST /api/citas and POST /api/facturas (IdempotenciaService).
+-- id = sha256(user, route, key); rows are written in the same transaction as the change they answer.
+
+CREATE TABLE IF NOT EXISTS idempotencia (
+  id VARCHAR(64) PRIMARY KEY,
+  huella VARCHAR(64) NOT NULL,
+  status INTEGER,
+  cuerpo VARCHAR(8000),
+  creado_en TIMESTAMP NOT NULL,
+  expira_en TIMESTAMP NOT NULL
+);
+
+-- TTL purge: DELETE ... WHERE expira_en < now
+CREATE INDEX IF NOT EXISTS idx_idempotencia_expira ON idempotencia (expira_en);
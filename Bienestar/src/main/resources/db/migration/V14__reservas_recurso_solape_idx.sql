@@ -0,0 +1,2 @@
+-- V14: overlap lookup per resource when a booking claims its resources (rows of recursos locked FOR UPDATE first).
+CREATE INDEX IF NOT EXISTS idx_reservas_recurso_recurso_inicio ON reservas_recurso (recurso_id, inicio);
@@ -0,0 +1,3 @@
+-- V15: reminder sent marker. Holds the fecha_hora the reminder was sent for, so a restart (or another
+-- instance) does not send it again, while a rescheduled cita gets a new one. Claimed with a conditional UPDATE.
+ALTER TABLE citas ADD COLUMN IF NOT EXISTS recordatorio_para TIMESTAMP;
@@ -0,0 +1,7 @@
+-- V16: the slot of a rejected or withdrawn offer was handed to the next entry. Offers are held in the memory of
+-- the instance that opened them, but can be closed on any instance; whichever sees the closed offer first claims
+-- the hand-off with a conditional UPDATE, so the slot is passed on exactly once.
+ALTER TABLE lista_espera ADD COLUMN IF NOT EXISTS hueco_traspasado BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- offers closed before this column existed were already handed on by the instance that held them
+UPDATE lista_espera SET hueco_traspasado = TRUE WHERE estado IN ('RECHAZADA', 'RETIRADA');
@@ -0,0 +1,26 @@
+-- V17: one row per client deleted by a duplicate merge, with the contact data it had, plus the citas, facturas and
+-- waitlist entries that were moved to the kept client. Enough to audit a merge and to undo it.
+
+CREATE TABLE IF NOT EXISTS clientes_fusiones (
+  id BIGSERIAL PRIMARY KEY,
+  fusionada_en TIMESTAMP NOT NULL,
+  criterio VARCHAR(20) NOT NULL,
+  destino_id BIGINT NOT NULL,
+  origen_id BIGINT NOT NULL,
+  origen_nombre VARCHAR(255),
+  origen_email VARCHAR(255),
+  origen_telefono VARCHAR(255),
+  citas INTEGER DEFAULT 0 NOT NULL,
+  facturas INTEGER DEFAULT 0 NOT NULL,
+  esperas INTEGER DEFAULT 0 NOT NULL,
+  deshecha_en TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_clientes_fusiones_destino ON clientes_fusiones (destino_id);
+
+CREATE TABLE IF NOT EXISTS clientes_fusiones_movidos (
+  fusion_id BIGINT NOT NULL REFERENCES clientes_fusiones(id),
+  tipo VARCHAR(20) NOT NULL,
+  registro_id BIGINT NOT NULL,
+  PRIMARY KEY (fusion_id, tipo, registro_id)
+);
@@ -0,0 +1,4 @@
+-- V18: databases migrated with the first V6 stored '' as the canonical email of blank emails, which grouped every
+-- client without an email as one duplicate. The canonical form of a blank contact is NULL.
+UPDATE clientes SET email_normalizado = NULL WHERE email_normalizado = '';
+UPDATE clientes SET telefono_normalizado = NULL WHERE telefono_normalizado = '';
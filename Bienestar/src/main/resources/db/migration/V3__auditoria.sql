@@ -0,0 +1,11 @@
+-- V3: audit events written in batches by AuditService (JdbcAuditSink)
+
+CREATE TABLE IF NOT EXISTS auditoria (
+  id BIGSERIAL PRIMARY KEY,
+  tipo VARCHAR(40) NOT NULL,
+  usuario VARCHAR(150),
+  detalle VARCHAR(500),
+  instante TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_auditoria_instante ON auditoria (instante);
@@ -0,0 +1,14 @@
+-- V4: transactional outbox for Cita / Factura domain events (OutboxService, OutboxRelay)
+
+CREATE TABLE IF NOT EXISTS outbox_eventos (
+  id BIGSERIAL PRIMARY KEY,
+  agregado VARCHAR(40) NOT NULL,
+  agregado_id BIGINT,
+  tipo VARCHAR(60) NOT NULL,
+  payload VARCHAR(4000),
+  creado_en TIMESTAMP NOT NULL,
+  publicado_en TIMESTAMP
+);
+
+-- relay query: WHERE publicado_en IS NULL ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_outbox_pendientes ON outbox_eventos (publicado_en, id);
@@ -0,0 +1,3 @@
+-- V5: range queries by state and date (reminder recovery, agenda sweeps)
+
+CREATE INDEX IF NOT EXISTS idx_citas_estado_fecha ON citas (estado, fecha_hora);
@@ -0,0 +1,9 @@
+-- V6: canonical email / phone for O(1) lookups and duplicate detection.
+-- Phones are backfilled from code (ClienteDeduplicador) because digit extraction differs
+-- between H2 and PostgreSQL; the unique indexes are created there once duplicates are merged.
+
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS email_normalizado VARCHAR(255);
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS telefono_normalizado VARCHAR(100);
+
+-- blank emails stay NULL, as Cliente.normalizarEmail leaves them
+UPDATE clientes SET email_normalizado = NULLIF(lower(trim(email)), '') WHERE email IS NOT NULL AND email_normalizado IS NULL;
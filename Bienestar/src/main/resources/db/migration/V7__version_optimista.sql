@@ -0,0 +1,15 @@
+-- V7: optimistic locking (@Version) for clientes, servicios, citas and facturas.
+-- facturas is normally created by Hibernate; make sure it exists before altering it.
+
+CREATE TABLE IF NOT EXISTS facturas (
+  id BIGSERIAL PRIMARY KEY,
+  cliente_id BIGINT,
+  total NUMERIC(38,2),
+  fecha TIMESTAMP,
+  descripcion VARCHAR(255)
+);
+
+ALTER TABLE clientes ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE servicios ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE citas ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE facturas ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
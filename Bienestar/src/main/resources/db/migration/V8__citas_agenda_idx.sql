@@ -0,0 +1,5 @@
+-- V8: agenda keyset pagination over (fecha_hora, id), optionally narrowed by servicio or cliente
+
+CREATE INDEX IF NOT EXISTS idx_citas_fecha_id ON citas (fecha_hora, id);
+CREATE INDEX IF NOT EXISTS idx_citas_servicio_fecha_id ON citas (servicio_id, fecha_hora, id);
+CREATE INDEX IF NOT EXISTS idx_citas_cliente_fecha_id ON citas (cliente_id, fecha_hora, id);
@@ -0,0 +1,31 @@
+-- V9: resources (therapists, rooms) and the resources claimed by each booking.
+-- servicios gains the booking requirements; existing rows keep NULL (60 min, any therapist, no room, 1 seat).
+
+ALTER TABLE servicios ADD COLUMN IF NOT EXISTS duracion_minutos INTEGER;
+ALTER TABLE servicios ADD COLUMN IF NOT EXISTS habilidad VARCHAR(100);
+ALTER TABLE servicios ADD COLUMN IF NOT EXISTS requiere_sala BOOLEAN;
+ALTER TABLE servicios ADD COLUMN IF NOT EXISTS capacidad INTEGER;
+
+CREATE TABLE IF NOT EXISTS recursos (
+  id BIGSERIAL PRIMARY KEY,
+  nombre VARCHAR(255) NOT NULL,
+  tipo VARCHAR(20) NOT NULL,
+  capacidad INTEGER DEFAULT 1 NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS recurso_habilidades (
+  recurso_id BIGINT NOT NULL REFERENCES recursos(id),
+  habilidad VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS reservas_recurso (
+  id BIGSERIAL PRIMARY KEY,
+  cita_id BIGINT NOT NULL,
+  recurso_id BIGINT NOT NULL REFERENCES recursos(id),
+  servicio_id BIGINT NOT NULL,
+  inicio TIMESTAMP NOT NULL,
+  fin TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservas_recurso_fin ON reservas_recurso (fin);
+CREATE INDEX IF NOT EXISTS idx_reservas_recurso_cita ON reservas_recurso (cita_id);
@@ -3,7 +3,7 @@ package com.bienestarproyect.Bienestar;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"app.reservas.snapshot.enabled=false"})
 class BienestarApplicationTests {
 
 	@Test
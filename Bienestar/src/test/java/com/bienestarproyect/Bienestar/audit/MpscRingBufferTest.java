@@ -0,0 +1,65 @@
+package com.bienestarproyect.Bienestar.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void lleno_rechaza_sin_bloquear() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) assertTrue(buffer.offer(i));
+        assertFalse(buffer.offer(99));
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        List<Integer> out = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(out, 10));
+        assertEquals(List.of(1, 2, 3, 4), out);
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void capacidad_se_redondea_a_potencia_de_dos() {
+        assertEquals(8, new MpscRingBuffer<>(5).capacity());
+        assertEquals(8, new MpscRingBuffer<>(8).capacity());
+    }
+
+    @Test
+    public void varios_productores_no_pierden_ni_duplican() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1024);
+        int productores = 4;
+        int porProductor = 20_000;
+        AtomicInteger aceptados = new AtomicInteger();
+        CountDownLatch listos = new CountDownLatch(productores);
+        for (int p = 0; p < productores; p++) {
+            int base = p * porProductor;
+            new Thread(() -> {
+                for (int i = 0; i < porProductor; i++) {
+                    if (buffer.offer(base + i)) aceptados.incrementAndGet();
+                }
+                listos.countDown();
+            }).start();
+        }
+
+        Set<Integer> vistos = new HashSet<>();
+        List<Integer> lote = new ArrayList<>();
+        while (listos.getCount() > 0 || buffer.size() > 0) {
+            buffer.drainTo(lote, 256);
+            for (Integer v : lote) assertTrue(vistos.add(v), "duplicado " + v);
+            lote.clear();
+        }
+        buffer.drainTo(lote, Integer.MAX_VALUE);
+        vistos.addAll(lote);
+
+        assertEquals(aceptados.get(), vistos.size());
+    }
+}
@@ -0,0 +1,138 @@
+package com.bienestarproyect.Bienestar.batch;
+
+import com.bienestarproyect.Bienestar.dto.LotePeticion;
+import com.bienestarproyect.Bienestar.dto.LoteRespuesta;
+import com.bienestarproyect.Bienestar.monitoring.PersistenceWatchdog;
+import com.bienestarproyect.Bienestar.replica.ReplicaRoutingDataSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.WebInvocationPrivilegeEvaluator;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoteServiceTest {
+
+    private final List<String> traza = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Boolean> primaria = Collections.synchronizedMap(new HashMap<>());
+    private final CyclicBarrier lecturasALaVez = new CyclicBarrier(2);
+    private LoteService service;
+
+    /** Hace de DispatcherServlet: anota cada operación y responde 200 con su ruta. */
+    private final DispatcherServlet dispatcher = new DispatcherServlet() {
+        @Override
+        public void service(ServletRequest request, ServletResponse response) throws IOException {
+            HttpServletRequest req = (HttpServletRequest) request;
+            String op = req.getMethod() + " " + req.getServletPath();
+            traza.add("inicio " + op);
+            primaria.put(op, (Boolean) req.getAttribute(ReplicaRoutingDataSource.PETICION_PRIMARIA));
+            if (req.getServletPath().startsWith("/api/servicios")) {
+                // las dos lecturas seguidas tienen que estar en curso a la vez
+                try {
+                    lecturasALaVez.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException("las lecturas no se lanzaron en paralelo", e);
+                }
+            }
+            traza.add("fin " + op);
+            HttpServletResponse res = (HttpServletResponse) response;
+            res.setStatus(200);
+            res.setContentType("application/json");
+            res.getWriter().write("{\"ruta\":\"" + req.getServletPath() + "\"}");
+        }
+    };
+
+    private final WebInvocationPrivilegeEvaluator autorizacion = new WebInvocationPrivilegeEvaluator() {
+        @Override
+        public boolean isAllowed(String uri, Authentication authentication) {
+            return isAllowed("", uri, "GET", authentication);
+        }
+
+        @Override
+        public boolean isAllowed(String contextPath, String uri, String method, Authentication authentication) {
+            return !uri.startsWith("/api/admin/");
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    @Test
+    public void lecturas_seguidas_en_paralelo_y_la_escritura_espera_a_todo_lo_anterior() {
+        LoteRespuesta r = ejecutar(new MockEnvironment(), op("1", "GET", "/api/servicios"), op("2", "GET", "/api/servicios?activo=true"),
+                op("3", "POST", "/api/citas"), op("4", "GET", "/api/citas/7"));
+
+        assertEquals(List.of("1", "2", "3", "4"), r.resultados().stream().map(LoteRespuesta.Resultado::id).toList());
+        r.resultados().forEach(x -> assertEquals(200, x.status()));
+        assertEquals("/api/citas/7", r.resultados().get(3).cuerpo().get("ruta").asText());
+        int escritura = traza.indexOf("inicio POST /api/citas");
+        assertEquals(4, escritura, "la escritura empieza cuando las dos lecturas terminaron: " + traza);
+        assertEquals(List.of("fin POST /api/citas", "inicio GET /api/citas/7"), traza.subList(5, 7));
+        // lo que se lee después de escribir va a la primaria; lo de antes, no
+        assertEquals(false, primaria.get("GET /api/servicios"));
+        assertEquals(true, primaria.get("GET /api/citas/7"));
+    }
+
+    @Test
+    public void operacion_no_autorizada_es_403_y_no_se_despacha() {
+        LoteRespuesta r = ejecutar(new MockEnvironment(), op("a", "GET", "/api/admin/clientes/deduplicacion"), op("b", "POST", "/api/citas"));
+
+        assertEquals(403, r.resultados().get(0).status());
+        assertEquals(200, r.resultados().get(1).status());
+        assertEquals(List.of("inicio POST /api/citas", "fin POST /api/citas"), traza);
+    }
+
+    @Test
+    public void lote_anidado_y_rutas_fuera_de_la_api_se_rechazan() {
+        LoteRespuesta r = ejecutar(new MockEnvironment(), op("a", "POST", "/api/batch"), op("b", "GET", "/api/batch?x=1"),
+                op("c", "GET", "/actuator/health"), op("d", "TRACE", "/api/citas"));
+
+        r.resultados().forEach(x -> assertEquals(400, x.status()));
+        assertEquals("No se admiten lotes anidados", r.resultados().get(0).cuerpo().asText());
+        assertTrue(traza.isEmpty());
+    }
+
+    @Test
+    public void mas_operaciones_que_el_limite_se_rechaza_entero() {
+        service = nuevo(new MockEnvironment().withProperty("app.batch.max-operaciones", "2"));
+
+        assertNull(service.rechazo(List.of(op("1", "GET", "/api/citas"), op("2", "GET", "/api/citas"))));
+        assertEquals("Como mucho 2 operaciones por lote",
+                service.rechazo(List.of(op("1", "GET", "/api/citas"), op("2", "GET", "/api/citas"), op("3", "GET", "/api/citas"))));
+    }
+
+    private LoteRespuesta ejecutar(MockEnvironment env, LotePeticion.Operacion... ops) {
+        service = nuevo(env);
+        return service.ejecutar(List.of(ops), new MockHttpServletRequest("POST", "/api/batch"), new MockHttpServletResponse());
+    }
+
+    private LoteService nuevo(MockEnvironment env) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new LoteService(dispatcher, autorizacion, new PersistenceWatchdog(env, registry), new ObjectMapper(), env, registry);
+    }
+
+    private static LotePeticion.Operacion op(String id, String metodo, String ruta) {
+        return new LotePeticion.Operacion(id, metodo, ruta, null, null);
+    }
+}
@@ -0,0 +1,62 @@
+package com.bienestarproyect.Bienestar.batch;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubPeticionTest {
+
+    @Test
+    public void ruta_query_y_cuerpo_son_los_de_la_operacion() throws Exception {
+        MockHttpServletRequest lote = new MockHttpServletRequest("POST", "/api/batch");
+        lote.addHeader("Content-Type", "application/json");
+        lote.addHeader("If-Match", "\"3\"");
+        lote.addHeader("Accept-Language", "es");
+
+        SubPeticion req = new SubPeticion(lote, "GET", "/api/citas?limite=20&estado=AGENDADA&q=ana+maria", Map.of("X-Extra", "1"), null, false);
+
+        assertEquals("GET", req.getMethod());
+        assertEquals("/api/citas", req.getRequestURI());
+        assertEquals("/api/citas", req.getServletPath());
+        assertEquals("20", req.getParameter("limite"));
+        assertEquals("ana maria", req.getParameter("q"));
+        assertNull(req.getHeader("If-Match"));
+        assertNull(req.getContentType());
+        assertEquals("es", req.getHeader("accept-language"));
+        assertEquals("1", req.getHeader("X-Extra"));
+        assertEquals(0, req.getInputStream().readAllBytes().length);
+    }
+
+    @Test
+    public void los_atributos_no_se_comparten_con_el_lote() {
+        MockHttpServletRequest lote = new MockHttpServletRequest("POST", "/api/batch");
+        lote.setAttribute("handler", "lote");
+        SubPeticion req = new SubPeticion(lote, "POST", "/api/clientes", null, "{}".getBytes(StandardCharsets.UTF_8), false);
+
+        assertNull(req.getAttribute("handler"));
+        req.setAttribute("handler", "clientes");
+        assertEquals("lote", lote.getAttribute("handler"));
+        assertEquals("application/json", req.getContentType());
+    }
+
+    @Test
+    public void la_respuesta_queda_en_memoria() throws Exception {
+        MockHttpServletResponse real = new MockHttpServletResponse();
+        SubRespuesta res = new SubRespuesta(real);
+        res.setStatus(201);
+        res.setContentType("application/json;charset=UTF-8");
+        res.setHeader("ETag", "\"1\"");
+        res.getWriter().write("{\"id\":1}");
+
+        assertEquals(201, res.status());
+        assertEquals("{\"id\":1}", new String(res.cuerpo(), StandardCharsets.UTF_8));
+        assertEquals("\"1\"", res.cabeceras().get("ETag"));
+        assertEquals(200, real.getStatus());
+        assertEquals(0, real.getContentAsByteArray().length);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bienestarproyect.Bienestar.busqueda;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClienteSearchIndexTest {
+
+    private static Cliente cliente(long id, String nombre, String email, String telefono) {
+        Cliente c = new Cliente();
+        c.setId(id);
+        c.setNombre(nombre);
+        c.setEmail(email);
+        c.setTelefono(telefono);
+        return c;
+    }
+
+    private static List<Long> ids(List<Cliente> cs) {
+        return cs.stream().map(Cliente::getId).toList();
+    }
+
+    private static ClienteSearchIndex indice() {
+        ClienteSearchIndex ix = new ClienteSearchIndex();
+        ix.indexar(cliente(1, "José González", "jose.g@gmail.com", "555-123-4567"));
+        ix.indexar(cliente(2, "Ana María Pérez", "ana@correo.es", "555 987 6543"));
+        ix.indexar(cliente(3, "Mariana Josefina", "mj@x.org", "+34 600 111 222"));
+        return ix;
+    }
+
+    @Test
+    public void palabra_exacta_antes_que_prefijo_y_sin_tildes() {
+        ClienteSearchIndex ix = indice();
+        assertEquals(List.of(1L, 3L), ids(ix.buscar("jose", 10)));
+        assertEquals(List.of(2L, 3L), ids(ix.buscar("MARI", 10)));
+        assertEquals(List.of(2L), ids(ix.buscar("pérez ana", 10)));
+    }
+
+    @Test
+    public void email_telefono_y_errores_de_tecleo() {
+        ClienteSearchIndex ix = indice();
+        assertEquals(List.of(1L), ids(ix.buscar("gmail", 10)));
+        assertEquals(List.of(3L), ids(ix.buscar("600 111", 10)));
+        assertEquals(List.of(1L), ids(ix.buscar("gonzales", 10)));
+        assertTrue(ix.buscar("zzz", 10).isEmpty());
+    }
+
+    @Test
+    public void la_mejor_coincidencia_gana_aunque_llegue_la_ultima() {
+        ClienteSearchIndex ix = new ClienteSearchIndex();
+        for (long id = 1; id <= 20_000; id++) ix.indexar(cliente(id, "Mariana " + id, null, null));
+        ix.indexar(cliente(20_001, "Ana", null, null));
+
+        assertEquals(List.of(20_001L), ids(ix.buscar("ana", 1)));
+    }
+
+    @Test
+    public void actualizar_y_eliminar_mantienen_el_indice() {
+        ClienteSearchIndex ix = indice();
+        ix.indexar(cliente(2, "Ana Torres", "ana@correo.es", null));
+        assertTrue(ix.buscar("perez", 10).isEmpty());
+        assertEquals(List.of(2L), ids(ix.buscar("torres", 10)));
+
+        ix.eliminar(1L);
+        assertEquals(List.of(3L), ids(ix.buscar("jose", 10)));
+        assertEquals(2, ix.size());
+    }
+}
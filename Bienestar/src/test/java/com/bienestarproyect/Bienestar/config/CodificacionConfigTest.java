@@ -0,0 +1,48 @@
+package com.bienestarproyect.Bienestar.config;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodificacionConfigTest {
+
+    private final Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    public void json_sigue_primero_y_los_binarios_usan_el_builder_de_boot() throws Exception {
+        MappingJackson2CborHttpMessageConverter porDefecto = new MappingJackson2CborHttpMessageConverter();
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+                new MappingJackson2HttpMessageConverter(), porDefecto));
+
+        new CodificacionConfig(builder).extendMessageConverters(converters);
+
+        assertEquals(3, converters.size());
+        assertInstanceOf(MappingJackson2HttpMessageConverter.class, converters.get(0));
+        MappingJackson2CborHttpMessageConverter cbor = assertInstanceOf(MappingJackson2CborHttpMessageConverter.class, converters.get(1));
+        assertNotSame(porDefecto, cbor);
+        assertTrue(cbor.getSupportedMediaTypes().contains(MediaType.APPLICATION_CBOR));
+        assertInstanceOf(MappingJackson2SmileHttpMessageConverter.class, converters.get(2));
+
+        // fechas ISO como en JSON, no arrays de números
+        Cita c = new Cita();
+        c.setId(7L);
+        c.setFechaHora(LocalDateTime.of(2030, 1, 2, 9, 30));
+        byte[] bytes = cbor.getObjectMapper().writeValueAsBytes(c);
+        JsonNode leido = cbor.getObjectMapper().readTree(bytes);
+        assertEquals("2030-01-02T09:30:00", leido.get("fechaHora").asText());
+    }
+}
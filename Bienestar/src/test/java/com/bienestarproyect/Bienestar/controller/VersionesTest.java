@@ -0,0 +1,31 @@
+package com.bienestarproyect.Bienestar.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionesTest {
+
+    @Test
+    public void if_match_a_version() {
+        assertEquals(List.of(3L), Versiones.desdeIfMatch("\"3\""));
+        assertNull(Versiones.desdeIfMatch(null));
+        assertNull(Versiones.desdeIfMatch("*"));
+        assertEquals(List.of(), Versiones.desdeIfMatch("\"abc\""));
+        assertEquals("\"5\"", Versiones.etag(5L));
+    }
+
+    @Test
+    public void comparacion_fuerte_los_etag_debiles_no_coinciden() {
+        assertEquals(List.of(), Versiones.desdeIfMatch("W/\"3\""));
+        assertEquals(List.of(4L), Versiones.desdeIfMatch("W/\"3\", \"4\""));
+    }
+
+    @Test
+    public void cuenta_cada_etag_de_la_lista() {
+        assertEquals(List.of(3L, 4L), Versiones.desdeIfMatch("\"3\", \"4\""));
+        assertEquals(List.of(4L), Versiones.desdeIfMatch("\"abc\",\"4\", \"4\""));
+    }
+}
@@ -0,0 +1,26 @@
+package com.bienestarproyect.Bienestar.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorAgendaTest {
+
+    @Test
+    public void codificar_y_decodificar_conserva_fecha_e_id() {
+        CursorAgenda c = new CursorAgenda(LocalDateTime.of(2025, 3, 14, 9, 30, 15, 123_000_000), 4711L);
+        String s = c.codificar();
+        assertTrue(s.matches("[A-Za-z0-9_-]+"), s);
+        assertEquals(c, CursorAgenda.decodificar(s));
+    }
+
+    @Test
+    public void cursor_manipulado_es_invalido() {
+        assertThrows(IllegalArgumentException.class, () -> CursorAgenda.decodificar("no es base64!"));
+        assertThrows(IllegalArgumentException.class, () -> CursorAgenda.decodificar("c2luLXNlcGFyYWRvcg"));
+        assertThrows(IllegalArgumentException.class, () -> CursorAgenda.decodificar(
+                new CursorAgenda(LocalDateTime.of(2025, 1, 1, 0, 0), 1L).codificar().substring(3)));
+    }
+}
@@ -0,0 +1,27 @@
+package com.bienestarproyect.Bienestar.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EstadoCitaTest {
+
+    @Test
+    public void agendada_puede_pasar_a_cualquier_estado_final() {
+        Cita c = new Cita();
+        c.setEstado(EstadoCita.AGENDADA);
+        c.transicionarA(EstadoCita.NO_ASISTIO);
+        assertEquals(EstadoCita.NO_ASISTIO, c.getEstado());
+        assertTrue(EstadoCita.AGENDADA.puedePasarA(EstadoCita.ATENDIDA));
+        assertTrue(EstadoCita.AGENDADA.puedePasarA(EstadoCita.CANCELADA));
+    }
+
+    @Test
+    public void estados_finales_no_cambian() {
+        Cita c = new Cita();
+        c.setEstado(EstadoCita.CANCELADA);
+        assertThrows(TransicionInvalidaException.class, () -> c.transicionarA(EstadoCita.ATENDIDA));
+        assertEquals(EstadoCita.CANCELADA, c.getEstado());
+        assertFalse(EstadoCita.NO_ASISTIO.puedePasarA(EstadoCita.AGENDADA));
+    }
+}
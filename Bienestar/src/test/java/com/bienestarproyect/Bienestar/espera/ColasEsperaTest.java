@@ -0,0 +1,69 @@
+package com.bienestarproyect.Bienestar.espera;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColasEsperaTest {
+
+    private static final LocalDateTime LUNES = LocalDateTime.of(2025, 6, 2, 0, 0);
+
+    private final ColasEspera colas = new ColasEspera();
+
+    @Test
+    public void entrega_por_prioridad_y_antiguedad() {
+        colas.agregar(entrada(1, 1, LUNES, LUNES.plusDays(1), 0, 1));
+        colas.agregar(entrada(2, 1, LUNES, LUNES.plusDays(1), 5, 2));
+        colas.agregar(entrada(3, 1, LUNES, LUNES.plusDays(1), 0, 0));
+
+        LocalDateTime hueco = LUNES.plusHours(10);
+        assertEquals(2, colas.extraer(1, hueco).orElseThrow().id());
+        assertEquals(3, colas.extraer(1, hueco).orElseThrow().id());
+        assertEquals(1, colas.extraer(1, hueco).orElseThrow().id());
+        assertTrue(colas.extraer(1, hueco).isEmpty());
+    }
+
+    @Test
+    public void salta_las_que_no_admiten_el_hueco_sin_perderlas() {
+        colas.agregar(entrada(1, 1, LUNES.plusHours(16), LUNES.plusHours(20), 9, 0));
+        colas.agregar(entrada(2, 1, LUNES, LUNES.plusHours(12), 0, 1));
+
+        assertEquals(2, colas.extraer(1, LUNES.plusHours(9)).orElseThrow().id());
+        assertTrue(colas.extraer(1, LUNES.plusHours(9)).isEmpty());
+        assertEquals(1, colas.extraer(1, LUNES.plusHours(17)).orElseThrow().id());
+    }
+
+    @Test
+    public void solo_mira_el_servicio_del_hueco() {
+        colas.agregar(entrada(1, 1, LUNES, LUNES.plusDays(1), 0, 0));
+        assertTrue(colas.extraer(2, LUNES.plusHours(10)).isEmpty());
+        assertEquals(1, colas.size());
+    }
+
+    @Test
+    public void una_entrada_de_varios_dias_sale_una_sola_vez() {
+        colas.agregar(entrada(1, 1, LUNES, LUNES.plusDays(3), 0, 0));
+        assertEquals(1, colas.extraer(1, LUNES.plusDays(1).plusHours(10)).orElseThrow().id());
+        assertTrue(colas.extraer(1, LUNES.plusDays(2).plusHours(10)).isEmpty());
+        assertEquals(0, colas.size());
+    }
+
+    @Test
+    public void quitar_y_purgar_descartan_entradas() {
+        colas.agregar(entrada(1, 1, LUNES, LUNES.plusDays(2), 0, 0));
+        colas.agregar(entrada(2, 1, LUNES, LUNES.plusHours(12), 0, 1));
+        colas.agregar(entrada(3, 1, LUNES, LUNES.plusDays(2), 0, 2));
+        colas.quitar(1);
+
+        colas.purgarAntesDe(LUNES.plusDays(1));
+        assertEquals(1, colas.size());
+        assertEquals(3, colas.extraer(1, LUNES.plusDays(1).plusHours(9)).orElseThrow().id());
+    }
+
+    private static ColasEspera.Entrada entrada(long id, long servicioId, LocalDateTime desde, LocalDateTime hasta,
+                                               int prioridad, int minutoAlta) {
+        return new ColasEspera.Entrada(id, servicioId, desde, hasta, prioridad, LUNES.minusDays(1).plusMinutes(minutoAlta));
+    }
+}
@@ -0,0 +1,137 @@
+package com.bienestarproyect.Bienestar.espera;
+
+import com.bienestarproyect.Bienestar.entity.EstadoEspera;
+import com.bienestarproyect.Bienestar.entity.ListaEspera;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.bienestarproyect.Bienestar.repository.ListaEsperaRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.bienestarproyect.Bienestar.reserva.Hueco;
+import com.bienestarproyect.Bienestar.reserva.ReservaService;
+import com.bienestarproyect.Bienestar.service.CitaService;
+import com.bienestarproyect.Bienestar.service.OutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/** Ofertas abiertas en esta instancia que se cierran en otra. */
+public class ListaEsperaServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+
+    private final ListaEsperaRepository repo = mock(ListaEsperaRepository.class);
+    private final ServicioRepository servicios = mock(ServicioRepository.class);
+    private final ReservaService reservas = mock(ReservaService.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final Servicio servicio = new Servicio();
+    private final Hueco retenido = new Hueco(INICIO, INICIO.plusHours(1), List.of(3L));
+    private ListaEsperaService service;
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) service.stop();
+    }
+
+    /** La inscripción 10 recibe el hueco retenido; la 11 es la siguiente de la lista. */
+    private void ofrecidaA10(String ttl) {
+        servicio.setId(1L);
+        when(txManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        when(servicios.findById(1L)).thenReturn(Optional.of(servicio));
+        when(reservas.gestionaRecursos()).thenReturn(true);
+        when(reservas.retener(servicio, INICIO)).thenReturn(Optional.of(retenido));
+        when(repo.candidatas(eq(1L), eq(INICIO), eq(EstadoEspera.ESPERANDO), any()))
+                .thenReturn(List.of(fila(10L, EstadoEspera.ESPERANDO)))
+                .thenReturn(List.of(fila(11L, EstadoEspera.ESPERANDO)));
+        when(repo.ofrecer(anyLong(), eq(INICIO), any(), eq(EstadoEspera.ESPERANDO), eq(EstadoEspera.OFRECIDA))).thenReturn(1);
+        MockEnvironment env = new MockEnvironment().withProperty("app.lista-espera.oferta-ttl", ttl);
+        env.setConversionService(new ApplicationConversionService());
+        service = new ListaEsperaService(repo, mock(ClienteRepository.class), servicios, mock(CitaService.class), reservas,
+                mock(OutboxService.class), txManager, env, new SimpleMeterRegistry());
+
+        service.ofrecerHueco(1L, INICIO);
+
+        verify(repo).ofrecer(eq(10L), eq(INICIO), any(), eq(EstadoEspera.ESPERANDO), eq(EstadoEspera.OFRECIDA));
+    }
+
+    @Test
+    public void rechazada_en_otra_instancia_el_hueco_pasa_a_la_siguiente() {
+        ofrecidaA10("15m");
+        when(repo.findAllById(List.of(10L))).thenReturn(List.of(fila(10L, EstadoEspera.RECHAZADA)));
+        when(repo.traspasar(eq(10L), anyCollection())).thenReturn(1);
+
+        service.sincronizar();
+
+        verify(repo).ofrecer(eq(11L), eq(INICIO), any(), eq(EstadoEspera.ESPERANDO), eq(EstadoEspera.OFRECIDA));
+        verify(reservas, never()).soltar(any(), any());
+        // ya es de la 11: la 10 no se vuelve a repasar
+        when(repo.findAllById(List.of(11L))).thenReturn(List.of(fila(11L, EstadoEspera.OFRECIDA)));
+        service.sincronizar();
+        verify(repo, times(1)).traspasar(anyLong(), anyCollection());
+    }
+
+    @Test
+    public void traspaso_reclamado_por_otra_instancia_solo_suelta_la_retencion() {
+        ofrecidaA10("15m");
+        when(repo.findAllById(List.of(10L))).thenReturn(List.of(fila(10L, EstadoEspera.RETIRADA)));
+        when(repo.traspasar(eq(10L), anyCollection())).thenReturn(0);
+
+        service.sincronizar();
+
+        verify(reservas).soltar(servicio, retenido);
+        verify(repo, never()).ofrecer(eq(11L), any(), any(), any(), any());
+    }
+
+    @Test
+    public void aceptada_en_otra_instancia_suelta_la_retencion() {
+        ofrecidaA10("15m");
+        when(repo.findAllById(List.of(10L))).thenReturn(List.of(fila(10L, EstadoEspera.ACEPTADA)));
+
+        service.sincronizar();
+
+        verify(reservas).soltar(servicio, retenido);
+        verify(repo, never()).traspasar(anyLong(), anyCollection());
+    }
+
+    @Test
+    public void la_caducidad_que_no_actualiza_nada_suelta_la_retencion() throws InterruptedException {
+        // la caducidad vence enseguida, pero otra instancia ya la había aceptado
+        when(repo.expirar(eq(10L), any(), eq(EstadoEspera.OFRECIDA), eq(EstadoEspera.EXPIRADA))).thenReturn(0);
+        when(repo.findById(10L)).thenReturn(Optional.of(fila(10L, EstadoEspera.ACEPTADA)));
+        // soltar es synchronized: un verify con timeout retendría el monitor del mock mientras espera
+        CountDownLatch soltada = new CountDownLatch(1);
+        doAnswer(i -> {
+            soltada.countDown();
+            return null;
+        }).when(reservas).soltar(servicio, retenido);
+
+        ofrecidaA10("0s");
+
+        assertTrue(soltada.await(2, TimeUnit.SECONDS));
+        verify(repo, never()).ofrecer(eq(11L), any(), any(), any(), any());
+    }
+
+    private static ListaEspera fila(Long id, EstadoEspera estado) {
+        ListaEspera e = new ListaEspera();
+        e.setId(id);
+        e.setServicioId(1L);
+        e.setEstado(estado);
+        e.setPrioridad(0);
+        e.setCreada(LocalDateTime.now().minusDays(1));
+        e.setOfertaInicio(INICIO);
+        return e;
+    }
+}
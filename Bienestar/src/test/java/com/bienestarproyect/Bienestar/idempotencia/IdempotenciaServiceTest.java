@@ -0,0 +1,106 @@
+package com.bienestarproyect.Bienestar.idempotencia;
+
+import com.bienestarproyect.Bienestar.repository.ClaveIdempotenciaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotenciaServiceTest {
+
+    private final ClaveIdempotenciaRepository repo = mock(ClaveIdempotenciaRepository.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+    private IdempotenciaService service;
+
+    @BeforeEach
+    public void setup() {
+        when(txManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        service = new IdempotenciaService(repo, new ObjectMapper(), txManager, new MockEnvironment(), new SimpleMeterRegistry());
+    }
+
+    private ResponseEntity<?> crear() {
+        return ResponseEntity.ok(Map.of("id", ejecuciones.incrementAndGet()));
+    }
+
+    @Test
+    public void sin_clave_se_ejecuta_siempre() {
+        service.ejecutar(null, "POST /api/citas", Map.of("a", 1), this::crear);
+        service.ejecutar(null, "POST /api/citas", Map.of("a", 1), this::crear);
+
+        assertEquals(2, ejecuciones.get());
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    public void el_reintento_repite_la_respuesta_sin_ejecutar() {
+        ResponseEntity<?> primera = service.ejecutar("k1", "POST /api/citas", Map.of("a", 1), this::crear);
+        ResponseEntity<?> segunda = service.ejecutar("k1", "POST /api/citas", Map.of("a", 1), this::crear);
+
+        assertEquals(1, ejecuciones.get());
+        verify(repo).reservar(anyString(), anyString(), any(), any());
+        verify(repo).guardar(anyString(), eq(200), eq("{\"id\":1}"));
+        assertNull(primera.getHeaders().getFirst(IdempotenciaService.REPETIDA));
+        assertEquals("true", segunda.getHeaders().getFirst(IdempotenciaService.REPETIDA));
+        assertEquals(1, ((JsonNode) segunda.getBody()).get("id").asInt());
+    }
+
+    @Test
+    public void misma_clave_con_otro_cuerpo_es_422() {
+        service.ejecutar("k1", "POST /api/facturas", Map.of("total", 10), this::crear);
+        ResponseEntity<?> r = service.ejecutar("k1", "POST /api/facturas", Map.of("total", 99), this::crear);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, r.getStatusCode());
+        assertEquals(1, ejecuciones.get());
+    }
+
+    @Test
+    public void un_error_no_se_guarda() {
+        service.ejecutar("k1", "POST /api/citas", Map.of("a", 1), () -> ResponseEntity.badRequest().body("no"));
+        service.ejecutar("k1", "POST /api/citas", Map.of("a", 1), this::crear);
+
+        assertEquals(1, ejecuciones.get());
+        verify(repo, times(1)).guardar(anyString(), anyInt(), any());
+    }
+
+    @Test
+    public void duplicados_concurrentes_comparten_una_ejecucion() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> primera = CompletableFuture.supplyAsync(() ->
+                service.ejecutar("k1", "POST /api/citas", Map.of("a", 1), () -> {
+                    dentro.countDown();
+                    try {
+                        seguir.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return crear();
+                }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ResponseEntity<?>> segunda = CompletableFuture.supplyAsync(() ->
+                service.ejecutar("k1", "POST /api/citas", Map.of("a", 1), this::crear));
+        seguir.countDown();
+
+        assertEquals(Map.of("id", 1), primera.get(5, TimeUnit.SECONDS).getBody());
+        ResponseEntity<?> r = segunda.get(5, TimeUnit.SECONDS);
+        assertEquals("true", r.getHeaders().getFirst(IdempotenciaService.REPETIDA));
+        assertEquals(1, ejecuciones.get());
+    }
+}
@@ -40,7 +40,7 @@ public class DTOMapperTest {
         Cita cita = DTOMapper.toEntity(dto, cliente, servicio);
         assertEquals(cliente, cita.getCliente());
         assertEquals(servicio, cita.getServicio());
-        assertEquals("AGENDADA", cita.getEstado());
+        assertEquals(EstadoCita.AGENDADA, cita.getEstado());
         assertNotNull(cita.getFechaHora());
     }
 
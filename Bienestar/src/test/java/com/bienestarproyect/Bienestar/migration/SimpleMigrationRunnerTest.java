@@ -0,0 +1,29 @@
+package com.bienestarproyect.Bienestar.migration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimpleMigrationRunnerTest {
+
+    @Test
+    public void ordena_por_version_numerica_y_no_por_nombre() {
+        List<String> nombres = new ArrayList<>(List.of("V10__lista_espera.sql", "V2__demo.sql", "V1__init.sql",
+                "V14__reservas_recurso_solape_idx.sql", "V9__outbox.sql"));
+        nombres.sort(SimpleMigrationRunner.BY_VERSION);
+
+        assertEquals(List.of("V1__init.sql", "V2__demo.sql", "V9__outbox.sql", "V10__lista_espera.sql",
+                "V14__reservas_recurso_solape_idx.sql"), nombres);
+    }
+
+    @Test
+    public void versiones_con_partes_y_nombres_sin_version_al_final() {
+        List<String> nombres = new ArrayList<>(List.of("Vx.sql", "V2__b.sql", "V1_10__c.sql", "V1_2__a.sql", "V1__init.sql"));
+        nombres.sort(SimpleMigrationRunner.BY_VERSION);
+
+        assertEquals(List.of("V1__init.sql", "V1_2__a.sql", "V1_10__c.sql", "V2__b.sql", "Vx.sql"), nombres);
+    }
+}
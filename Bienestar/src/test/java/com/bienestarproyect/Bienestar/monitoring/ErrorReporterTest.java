@@ -0,0 +1,75 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorReporterTest {
+
+    @Test
+    public void mismaExcepcion_misma_huella_y_contador() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ErrorReporter reporter = new ErrorReporter(Duration.ofMinutes(1), registry);
+        RuntimeException ex = new RuntimeException("db down", new IllegalStateException("pool"));
+
+        String first = reporter.report(ex);
+        for (int i = 0; i < 999; i++) {
+            assertEquals(first, reporter.report(ex));
+        }
+
+        assertEquals(1000, reporter.count(first));
+        assertEquals(1000.0, registry.get("bienestar.errores").tag("exception", "RuntimeException").counter().count());
+        assertEquals(1, reporter.snapshot().size());
+    }
+
+    @Test
+    public void huellas_distintas_por_tipo() {
+        ErrorReporter reporter = new ErrorReporter(Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+        String a = reporter.report(new IllegalArgumentException("a"));
+        String b = reporter.report(new IllegalStateException("b"));
+
+        assertNotEquals(a, b);
+        assertTrue(a.startsWith("IllegalArgumentException-"));
+        assertEquals(2, reporter.snapshot().size());
+    }
+
+    @Test
+    public void con_la_tabla_llena_las_huellas_nuevas_van_a_overflow() {
+        ErrorReporter reporter = new ErrorReporter(Duration.ofMinutes(1), new SimpleMeterRegistry());
+        for (int i = 0; i < 1000; i++) reporter.report(enLinea(i));
+
+        String nueva = reporter.report(enLinea(5000));
+        reporter.report(enLinea(5001));
+
+        assertEquals(0, reporter.count(nueva));
+        assertEquals(2, reporter.count(ErrorReporter.OVERFLOW));
+        assertEquals(1001, reporter.snapshot().size());
+        // las ya conocidas siguen contando en la suya
+        reporter.report(enLinea(7));
+        assertEquals(2, reporter.count(ErrorReporter.fingerprint(enLinea(7))));
+    }
+
+    @Test
+    public void con_la_tabla_llena_se_olvidan_las_inactivas() throws InterruptedException {
+        ErrorReporter reporter = new ErrorReporter(Duration.ofMinutes(1), Duration.ofMillis(50), new SimpleMeterRegistry());
+        for (int i = 0; i < 1000; i++) reporter.report(enLinea(i));
+        Thread.sleep(60);
+
+        String nueva = reporter.report(enLinea(5000));
+
+        assertEquals(1, reporter.count(nueva));
+        assertEquals(0, reporter.count(ErrorReporter.OVERFLOW));
+        assertEquals(1, reporter.snapshot().size());
+    }
+
+    // misma excepción lanzada desde otra línea: otra huella
+    private static RuntimeException enLinea(int linea) {
+        RuntimeException ex = new RuntimeException("fallo");
+        ex.setStackTrace(new StackTraceElement[] {new StackTraceElement("Servicio", "metodo", "Servicio.java", linea)});
+        return ex;
+    }
+}
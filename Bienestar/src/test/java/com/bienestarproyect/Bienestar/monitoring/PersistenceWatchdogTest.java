@@ -0,0 +1,153 @@
+package com.bienestarproyect.Bienestar.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Filtro y listener reales sobre el watchdog, sin base: las sentencias se simulan en la cadena del filtro. */
+public class PersistenceWatchdogTest {
+
+    private SimpleMeterRegistry registry;
+    private PersistenceWatchdog watchdog;
+    private WatchdogQueryListener listener;
+    private WatchdogFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        watchdog = new PersistenceWatchdog(new MockEnvironment()
+                .withProperty("app.watchdog.max-statements-per-request", "4")
+                .withProperty("app.watchdog.repeated-statement-threshold", "3")
+                .withProperty("app.watchdog.slow-query-ms", "100")
+                .withProperty("app.watchdog.explain", "false"), registry);
+        listener = new WatchdogQueryListener(watchdog);
+        filter = new WatchdogFilter(watchdog);
+    }
+
+    @Test
+    public void cuenta_las_sentencias_de_cada_peticion_y_marca_la_que_pasa_el_umbral() throws Exception {
+        peticion("/api/clientes/{id}", "select * from clientes where id = ?", "select * from citas where cliente_id = ?");
+        assertTrue(watchdog.topRequests(10).isEmpty());
+
+        peticion("/api/citas", "select 1", "select 2", "select 3", "select 4", "select 5");
+
+        List<Map<String, Object>> top = watchdog.topRequests(10);
+        assertEquals(1, top.size());
+        assertEquals("GET /api/citas", top.get(0).get("endpoint"));
+        assertEquals(1L, top.get(0).get("flagged"));
+        assertEquals(5L, top.get(0).get("maxStatements"));
+        assertNull(top.get(0).get("repeatedSql"));
+        assertEquals(1.0, registry.get("bienestar.persistencia.peticiones.marcadas").counter().count());
+    }
+
+    @Test
+    public void la_misma_sentencia_repetida_marca_la_peticion_aunque_no_pase_el_total() throws Exception {
+        peticion("/api/citas/{id}", "select * from servicios where id = ?", "select * from servicios  where id = ?",
+                "select *\n from servicios where id = ?");
+
+        Map<String, Object> o = watchdog.topRequests(10).get(0);
+        assertEquals("GET /api/citas/{id}", o.get("endpoint"));
+        assertEquals(3L, o.get("maxStatements"));
+        assertEquals("select * from servicios where id = ?", o.get("repeatedSql"));
+    }
+
+    @Test
+    public void la_sentencia_lenta_se_guarda_con_sus_parametros_en_orden() throws Exception {
+        // datasource-proxy anota los set* en el orden de la llamada, no en el del índice JDBC
+        QueryInfo lenta = consulta("select * from citas  where cliente_id = ? and estado = ?",
+                set("setString", 2, "AGENDADA"), set("setLong", 1, 7L));
+        QueryInfo rapida = consulta("select * from clientes where id = ?", set("setLong", 1, 7L));
+
+        listener.afterQuery(ejecucion(250), List.of(lenta));
+        listener.afterQuery(ejecucion(150), List.of(lenta));
+        listener.afterQuery(ejecucion(5), List.of(rapida));
+
+        List<Map<String, Object>> top = watchdog.topSlowQueries(10);
+        assertEquals(1, top.size());
+        Map<String, Object> q = top.get(0);
+        assertEquals("select * from citas where cliente_id = ? and estado = ?", q.get("sql"));
+        assertEquals(2L, q.get("count"));
+        assertEquals(400L, q.get("totalMs"));
+        assertEquals(250L, q.get("maxMs"));
+        assertEquals(List.of("7", "AGENDADA"), q.get("lastParams"));
+        assertNull(q.get("plan"));
+        assertEquals(2.0, registry.get("bienestar.persistencia.consultas.lentas").counter().count());
+    }
+
+    @Test
+    public void los_peores_primero_y_solo_los_pedidos() throws Exception {
+        String[] muchas = {"select 1", "select 2", "select 3", "select 4", "select 5"};
+        peticion("/api/facturas", muchas);
+        for (int i = 0; i < 3; i++) peticion("/api/clientes", muchas);
+        for (int i = 0; i < 2; i++) peticion("/api/citas", muchas);
+        watchdog.onStatement("select * from facturas", 300, List.of());
+        watchdog.onStatement("select * from citas", 200, List.of());
+        watchdog.onStatement("select * from citas", 200, List.of());
+
+        List<Map<String, Object>> top = watchdog.topRequests(2);
+        assertEquals(List.of("GET /api/clientes", "GET /api/citas"), top.stream().map(m -> m.get("endpoint")).toList());
+        assertEquals(List.of(3L, 2L), top.stream().map(m -> m.get("flagged")).toList());
+        assertEquals(List.of("select * from citas", "select * from facturas"),
+                watchdog.topSlowQueries(10).stream().map(m -> m.get("sql")).toList());
+
+        watchdog.reset();
+        assertTrue(watchdog.topRequests(10).isEmpty());
+        assertTrue(watchdog.topSlowQueries(10).isEmpty());
+    }
+
+    @Test
+    public void una_peticion_anidada_se_juzga_aparte_y_la_externa_sigue_contando() {
+        watchdog.beginRequest();
+        watchdog.onStatement("select 1", 1, List.of());
+        watchdog.beginRequest();
+        for (int i = 0; i < 5; i++) watchdog.onStatement("select " + (i + 10), 1, List.of());
+        watchdog.endRequest("POST /api/batch#0");
+        watchdog.onStatement("select 2", 1, List.of());
+        watchdog.endRequest("POST /api/batch");
+
+        List<Map<String, Object>> top = watchdog.topRequests(10);
+        assertEquals(1, top.size());
+        assertEquals("POST /api/batch#0", top.get(0).get("endpoint"));
+    }
+
+    private void peticion(String patron, String... sentencias) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", patron.replace("{id}", "1"));
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, patron);
+        FilterChain chain = (req, res) -> {
+            for (String sql : sentencias) listener.afterQuery(ejecucion(1), List.of(new QueryInfo(sql)));
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+    }
+
+    private static ExecutionInfo ejecucion(long ms) {
+        ExecutionInfo e = new ExecutionInfo();
+        e.setElapsedTime(ms);
+        return e;
+    }
+
+    private static QueryInfo consulta(String sql, ParameterSetOperation... ops) {
+        QueryInfo q = new QueryInfo(sql);
+        q.getParametersList().add(List.of(ops));
+        return q;
+    }
+
+    private static ParameterSetOperation set(String metodo, int indice, Object valor) throws Exception {
+        Class<?> tipo = valor instanceof Long ? long.class : valor.getClass();
+        return new ParameterSetOperation(PreparedStatement.class.getMethod(metodo, int.class, tipo),
+                new Object[] {indice, valor});
+    }
+}
@@ -0,0 +1,84 @@
+package com.bienestarproyect.Bienestar.outbox;
+
+import com.bienestarproyect.Bienestar.entity.OutboxEvento;
+import com.bienestarproyect.Bienestar.repository.OutboxEventoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Dos relays sobre la misma base (H2), como dos instancias. Sin transacción de test: cada lote confirma la suya. */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=none"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OutboxRelayJpaTest {
+
+    @Autowired
+    private OutboxEventoRepository repo;
+    @Autowired
+    private PlatformTransactionManager txManager;
+
+    @Test
+    public void el_lote_que_publica_una_instancia_no_lo_publica_la_otra() {
+        repo.deleteAll();
+        repo.saveAll(List.of(evento(1L), evento(2L), evento(3L)));
+        InMemoryEventoSink sinkA = new InMemoryEventoSink(10);
+        InMemoryEventoSink sinkB = new InMemoryEventoSink(10);
+        OutboxRelay b = relay(sinkB, 10);
+        // mientras A publica su lote, B releva en otra conexión
+        OutboxRelay a = relay(new EventoSink() {
+            @Override
+            public String nombre() { return "a"; }
+
+            @Override
+            public void publicar(List<OutboxEvento> lote) {
+                sinkA.publicar(lote);
+                CompletableFuture.runAsync(b::relayBatch).join();
+            }
+        }, 2);
+
+        assertEquals(2, a.relayBatch());
+        // PostgreSQL le da a B el tercero; H2 no devuelve nada mientras haya filas bloqueadas en el índice
+        a.relay();
+
+        List<Long> deA = sinkA.eventos().stream().map(OutboxEvento::getId).toList();
+        List<Long> deB = sinkB.eventos().stream().map(OutboxEvento::getId).toList();
+        assertEquals(3, deA.size() + deB.size());
+        assertTrue(deB.stream().noneMatch(deA::contains));
+        assertTrue(repo.findAll().stream().allMatch(e -> e.getPublicadoEn() != null));
+    }
+
+    @Test
+    public void si_un_sink_falla_el_lote_sigue_pendiente() {
+        repo.deleteAll();
+        repo.save(evento(1L));
+        OutboxRelay relay = relay(new InMemoryEventoSink(10) {
+            @Override
+            public synchronized void publicar(List<OutboxEvento> lote) {
+                throw new IllegalStateException("broker caído");
+            }
+        }, 10);
+
+        assertEquals(0, relay.relayBatch());
+
+        InMemoryEventoSink sink = new InMemoryEventoSink(10);
+        assertEquals(1, relay(sink, 10).relayBatch());
+        assertEquals(1, sink.eventos().size());
+    }
+
+    private OutboxRelay relay(EventoSink sink, int lote) {
+        return new OutboxRelay(repo, List.of(sink), new TransactionTemplate(txManager), lote, new SimpleMeterRegistry());
+    }
+
+    private static OutboxEvento evento(Long citaId) {
+        return new OutboxEvento("CITA", citaId, "CITA_AGENDADA", "{}");
+    }
+}
@@ -0,0 +1,76 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    public void dispara_en_su_tick_y_no_antes() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        wheel.schedule(1, 5_000, "a");
+        wheel.schedule(2, 500_000, "b"); // varios niveles por encima
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(4_999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(5_000, fired::add);
+        assertEquals(List.of("a"), fired);
+
+        wheel.advanceTo(499_999, fired::add);
+        assertEquals(List.of("a"), fired);
+        wheel.advanceTo(500_000, fired::add);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void cancelar_y_reprogramar() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+        wheel.schedule(1, 10_000, "a");
+        wheel.schedule(2, 20_000, "b");
+        assertTrue(wheel.cancel(2));
+        wheel.schedule(1, 30_000, "a2"); // reprogramada
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(25_000, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(30_000, fired::add);
+        assertEquals(List.of("a2"), fired);
+    }
+
+    @Test
+    public void plazo_pasado_dispara_en_el_siguiente_avance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 100_000);
+        wheel.schedule(1, 50_000, "tarde");
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(100_000, fired::add);
+        assertEquals(List.of("tarde"), fired);
+    }
+
+    @Test
+    public void aleatorio_cada_entrada_dispara_una_vez_a_tiempo() {
+        Random rnd = new Random(42);
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 16, 0);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long k = 0; k < 5_000; k++) {
+            long d = rnd.nextInt(1_000_000);
+            wheel.schedule(k, d, k);
+            deadlines.put(k, d);
+        }
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 1_000_010; now += 1 + rnd.nextInt(100)) {
+            long t = now;
+            wheel.advanceTo(now, k -> assertNull(firedAt.put(k, t)));
+        }
+        assertEquals(deadlines.size(), firedAt.size());
+        deadlines.forEach((k, d) -> assertTrue(firedAt.get(k) >= d, "disparo anticipado " + k));
+    }
+}
@@ -0,0 +1,110 @@
+package com.bienestarproyect.Bienestar.recordatorio;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RecordatorioSchedulerTest {
+
+    private final CitaRepository citas = mock(CitaRepository.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final List<Long> enviados = new CopyOnWriteArrayList<>();
+    private volatile boolean canalCaido;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RecordatorioScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        when(txManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        // al arrancar, las citas 7 y 8 son dentro de una hora: su recordatorio (24 h antes) ya tocaba
+        LocalDateTime enUnaHora = LocalDateTime.now().plusHours(1);
+        when(citas.findRecordatorios(eq(EstadoCita.AGENDADA), any(), any())).thenReturn(List.of(
+                new Recordatorio(7L, 1L, 100L, enUnaHora), new Recordatorio(8L, 2L, 100L, enUnaHora)));
+        Notificador notificador = r -> {
+            if (canalCaido) throw new IllegalStateException("canal caído");
+            enviados.add(r.citaId());
+        };
+        scheduler = new RecordatorioScheduler(citas, notificador, txManager, Duration.ofHours(24), Duration.ofHours(48),
+                10, 64, Duration.ofMillis(20), 3, registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void tras_reiniciar_no_se_reenvia_lo_ya_reclamado() throws Exception {
+        // la 7 ya se envió antes del reinicio (o la envió otra instancia): el reclamo no actualiza nada
+        when(citas.reclamarRecordatorio(7L, EstadoCita.AGENDADA)).thenReturn(0);
+        when(citas.reclamarRecordatorio(8L, EstadoCita.AGENDADA)).thenReturn(1);
+
+        scheduler.start();
+
+        esperarHasta(() -> registry.get("bienestar.recordatorios").tag("resultado", "ya_enviado").counter().count() == 1
+                && enviados.size() == 1);
+        assertEquals(List.of(8L), enviados);
+        verify(citas, never()).liberarRecordatorio(any());
+    }
+
+    @Test
+    public void si_el_envio_falla_se_libera_el_reclamo_y_se_descarta_tras_el_ultimo_intento() throws Exception {
+        List<Long> liberados = new CopyOnWriteArrayList<>();
+        when(citas.reclamarRecordatorio(anyLong(), eq(EstadoCita.AGENDADA))).thenReturn(1);
+        when(citas.liberarRecordatorio(anyLong())).thenAnswer(i -> {
+            liberados.add(i.getArgument(0));
+            return 1;
+        });
+        canalCaido = true;
+
+        scheduler.start();
+
+        esperarHasta(() -> registry.get("bienestar.recordatorios").tag("resultado", "descartado").counter().count() == 2);
+        // tres intentos por cita, cada uno con su reclamo liberado
+        assertEquals(6, liberados.size());
+        assertEquals(List.of(7L, 7L, 7L), liberados.stream().filter(id -> id == 7L).toList());
+        assertEquals(6.0, registry.get("bienestar.recordatorios").tag("resultado", "fallido").counter().count());
+        assertTrue(enviados.isEmpty());
+        assertEquals(0, scheduler.pendientes());
+    }
+
+    @Test
+    public void un_fallo_pasajero_se_reintenta_y_se_envia() throws Exception {
+        // el primer reclamo de la 7 falla (base caída un momento); el canal falla una vez para la 8
+        when(citas.reclamarRecordatorio(7L, EstadoCita.AGENDADA)).thenThrow(new IllegalStateException("sin conexión")).thenReturn(1);
+        when(citas.reclamarRecordatorio(8L, EstadoCita.AGENDADA)).thenReturn(1);
+        when(citas.liberarRecordatorio(8L)).thenAnswer(i -> {
+            canalCaido = false;
+            return 1;
+        });
+        canalCaido = true;
+
+        scheduler.start();
+
+        esperarHasta(() -> enviados.size() == 2);
+        assertTrue(enviados.containsAll(List.of(7L, 8L)));
+        assertEquals(0.0, registry.get("bienestar.recordatorios").tag("resultado", "descartado").counter().count());
+    }
+
+    private static void esperarHasta(java.util.function.BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) fail("no se cumplió a tiempo");
+            Thread.sleep(10);
+        }
+    }
+}
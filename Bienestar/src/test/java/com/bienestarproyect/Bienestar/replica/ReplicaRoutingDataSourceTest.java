@@ -0,0 +1,129 @@
+package com.bienestarproyect.Bienestar.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos H2 en memoria hacen de primaria y réplica; cada una tiene una fila "marca" distinta
+ * para saber a cuál fue cada lectura.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private final RelojManual reloj = new RelojManual();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private JdbcTemplate jdbc;
+    private TransactionTemplate lectura;
+    private TransactionTemplate escritura;
+
+    @BeforeEach
+    public void setUp() {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(1, Duration.ofSeconds(5), reloj, registry);
+        routing.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARIA, base("primaria"),
+                ReplicaRoutingDataSource.replica(0), base("replica")));
+        routing.afterPropertiesSet();
+        DataSource ds = new LazyConnectionDataSourceProxy(routing);
+        jdbc = new JdbcTemplate(ds);
+        DataSourceTransactionManager tm = new DataSourceTransactionManager(ds);
+        lectura = new TransactionTemplate(tm);
+        lectura.setReadOnly(true);
+        escritura = new TransactionTemplate(tm);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void get_de_solo_lectura_va_a_la_replica() {
+        peticion("GET", new MockHttpServletRequest());
+        assertEquals("replica", leer(lectura));
+        // sin readOnly (p. ej. un servicio con @Transactional normal) se queda en la primaria
+        assertEquals("primaria", leer(escritura));
+        assertEquals(1.0, registry.get("bienestar.db.conexiones").tag("destino", "replica").counter().count());
+    }
+
+    @Test
+    public void tras_escribir_la_sesion_lee_de_la_primaria_durante_la_ventana() {
+        MockHttpServletRequest post = new MockHttpServletRequest();
+        post.getSession(true);
+        peticion("POST", post);
+        assertEquals("primaria", leer(escritura));
+
+        MockHttpServletRequest get = new MockHttpServletRequest();
+        get.setSession(post.getSession());
+        peticion("GET", get);
+        reloj.avanzar(Duration.ofSeconds(4));
+        assertEquals("primaria", leer(lectura));
+
+        reloj.avanzar(Duration.ofSeconds(2));
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    public void otra_sesion_no_se_ve_afectada_por_la_escritura() {
+        MockHttpServletRequest post = new MockHttpServletRequest();
+        post.getSession(true);
+        peticion("POST", post);
+        leer(escritura);
+
+        MockHttpServletRequest get = new MockHttpServletRequest();
+        get.getSession(true);
+        peticion("GET", get);
+        assertEquals("replica", leer(lectura));
+    }
+
+    @Test
+    public void sin_peticion_todo_va_a_la_primaria() {
+        assertEquals("primaria", leer(lectura));
+    }
+
+    private static void peticion(String metodo, MockHttpServletRequest request) {
+        request.setMethod(metodo);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private String leer(TransactionTemplate tx) {
+        return tx.execute(s -> jdbc.queryForObject("select nombre from marca", String.class));
+    }
+
+    private static DataSource base(String nombre) {
+        DriverManagerDataSource ds = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + nombre + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate t = new JdbcTemplate(ds);
+        t.execute("create table marca (nombre varchar(20))");
+        t.update("insert into marca values (?)", nombre);
+        return ds;
+    }
+
+    private static class RelojManual extends Clock {
+        private Instant ahora = Instant.parse("2025-01-01T10:00:00Z");
+
+        void avanzar(Duration d) { ahora = ahora.plus(d); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return ahora; }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TipoRecurso;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalendarioRecursosTest {
+
+    private static final LocalDateTime LUNES = LocalDateTime.of(2025, 6, 2, 0, 0);
+
+    private final CalendarioRecursos calendario = new CalendarioRecursos();
+
+    @BeforeEach
+    public void setUp() {
+        calendario.reiniciar(List.of(
+                recurso(1L, TipoRecurso.TERAPEUTA, 1, "masaje"),
+                recurso(2L, TipoRecurso.TERAPEUTA, 1, "fisio"),
+                recurso(10L, TipoRecurso.SALA, 1),
+                recurso(11L, TipoRecurso.SALA, 2)));
+    }
+
+    @Test
+    public void inicios_cruzan_el_limite_de_palabra() {
+        long[] libres = Bits.rango(60, 70);
+        long[] ini = Bits.inicios(libres, 10);
+        assertEquals(60, Bits.siguiente(ini, 0));
+        assertEquals(-1, Bits.siguiente(ini, 61));
+        assertEquals(-1, Bits.siguiente(Bits.inicios(libres, 11), 0));
+        // la racha no puede pasar del final del día
+        assertEquals(Bits.CUANTOS_DIA - 4, Bits.siguiente(Bits.inicios(Bits.dia(), 4), Bits.CUANTOS_DIA - 4));
+        assertEquals(-1, Bits.siguiente(Bits.inicios(Bits.dia(), 4), Bits.CUANTOS_DIA - 3));
+    }
+
+    @Test
+    public void primer_hueco_con_terapeuta_de_la_habilidad_y_sala_libres_a_la_vez() {
+        Requisito masajeConSala = requisito(100L, 60, "masaje", true, null);
+        Requisito individual = requisito(101L, 60, null, false, null);
+        // masajista ocupado 9-10, las dos salas llenas 10-11
+        assertTrue(calendario.reservar(individual, new Hueco(LUNES.withHour(9), LUNES.withHour(10), List.of(1L))));
+        Hueco salas = new Hueco(LUNES.withHour(10), LUNES.withHour(11), List.of(10L, 11L));
+        assertTrue(calendario.reservar(individual, salas));
+        assertTrue(calendario.reservar(individual, new Hueco(LUNES.withHour(10), LUNES.withHour(11), List.of(11L))));
+
+        Hueco h = calendario.buscar(masajeConSala, LUNES.withHour(9), 1).orElseThrow();
+        assertEquals(LUNES.withHour(11), h.inicio());
+        assertEquals(LUNES.withHour(12), h.fin());
+        assertEquals(List.of(1L, 10L), h.recursos());
+        // el fisioterapeuta está libre, pero no tiene la habilidad
+        assertEquals(LUNES.withHour(11), calendario.buscar(masajeConSala, LUNES.withHour(10), 1).orElseThrow().inicio());
+    }
+
+    @Test
+    public void el_mismo_hueco_no_se_reserva_dos_veces() {
+        Requisito r = requisito(100L, 30, "masaje", false, null);
+        Hueco h = calendario.buscar(r, LUNES.withHour(9), 1).orElseThrow();
+        assertTrue(calendario.reservar(r, h));
+        assertFalse(calendario.reservar(r, h));
+        assertEquals(LUNES.withHour(9).withMinute(30), calendario.buscar(r, LUNES.withHour(9), 1).orElseThrow().inicio());
+
+        calendario.liberar(r, h);
+        assertEquals(LUNES.withHour(9), calendario.buscar(r, LUNES.withHour(9), 1).orElseThrow().inicio());
+    }
+
+    @Test
+    public void sala_con_capacidad_dos_admite_dos_reservas_simultaneas() {
+        Hueco en11 = new Hueco(LUNES.withHour(9), LUNES.withHour(10), List.of(11L));
+        Requisito sala = requisito(101L, 60, null, true, null);
+        assertTrue(calendario.reservar(sala, en11));
+        assertTrue(calendario.reservar(sala, en11));
+        assertFalse(calendario.reservar(sala, en11));
+        calendario.liberar(sala, en11);
+        assertTrue(calendario.reservar(sala, en11));
+    }
+
+    @Test
+    public void clase_de_grupo_llena_la_sesion_antes_de_abrir_otra() {
+        Requisito yoga = requisito(200L, 60, "fisio", true, 3);
+        LocalDateTime desde = LUNES.withHour(18);
+        Hueco primera = calendario.buscar(yoga, desde, 1).orElseThrow();
+        for (int i = 0; i < 3; i++) {
+            Hueco h = calendario.buscar(yoga, desde, 1).orElseThrow();
+            assertEquals(primera, h);
+            assertTrue(calendario.reservar(yoga, h));
+        }
+        Hueco otra = calendario.buscar(yoga, desde, 1).orElseThrow();
+        assertEquals(LUNES.withHour(19), otra.inicio());
+
+        calendario.liberar(yoga, primera);
+        assertEquals(primera, calendario.buscar(yoga, desde, 1).orElseThrow());
+    }
+
+    @Test
+    public void comprobar_exige_inicio_alineado() {
+        Requisito r = requisito(100L, 45, "masaje", false, null);
+        assertTrue(calendario.comprobar(r, LUNES.withHour(9).withMinute(15)).isPresent());
+        assertTrue(calendario.comprobar(r, LUNES.withHour(9).withMinute(10)).isEmpty());
+        assertTrue(calendario.comprobar(r, LUNES.withHour(23).withMinute(30)).isEmpty());
+    }
+
+    @Test
+    public void solo_se_ofrecen_huecos_dentro_del_horario() {
+        CalendarioRecursos conHorario = new CalendarioRecursos(
+                Horario.de("09:00-21:00", Map.of(DayOfWeek.SUNDAY, "cerrado")));
+        conHorario.reiniciar(List.of(recurso(1L, TipoRecurso.TERAPEUTA, 1, "masaje")));
+        Requisito masaje = requisito(100L, 60, "masaje", false, null);
+
+        assertEquals(LUNES.withHour(9), conHorario.buscar(masaje, LUNES, 1).orElseThrow().inicio());
+        // a las 20:30 ya no cabe una hora: el martes a las 9
+        assertEquals(LUNES.plusDays(1).withHour(9), conHorario.buscar(masaje, LUNES.withHour(20).withMinute(30), 2).orElseThrow().inicio());
+        assertEquals(LUNES.withHour(20), conHorario.comprobar(masaje, LUNES.withHour(20)).orElseThrow().inicio());
+        assertTrue(conHorario.comprobar(masaje, LUNES.withHour(3).withMinute(15)).isEmpty());
+        assertTrue(conHorario.buscar(masaje, LUNES.minusDays(1), 1).isEmpty());
+        assertThrows(IllegalStateException.class, () -> Horario.de("09:10-21:00", Map.of()));
+    }
+
+    private static Requisito requisito(Long servicioId, int minutos, String habilidad, boolean sala, Integer plazas) {
+        Servicio s = new Servicio();
+        s.setId(servicioId);
+        s.setDuracionMinutos(minutos);
+        s.setHabilidad(habilidad);
+        s.setRequiereSala(sala);
+        s.setCapacidad(plazas);
+        return Requisito.de(s);
+    }
+
+    private static Recurso recurso(Long id, TipoRecurso tipo, int capacidad, String... habilidades) {
+        Recurso r = new Recurso();
+        r.setId(id);
+        r.setNombre(tipo + "-" + id);
+        r.setTipo(tipo);
+        r.setCapacidad(capacidad);
+        r.setHabilidades(Set.of(habilidades));
+        return r;
+    }
+}
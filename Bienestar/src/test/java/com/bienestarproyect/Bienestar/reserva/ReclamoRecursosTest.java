@@ -0,0 +1,114 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.ReservaRecurso;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TipoRecurso;
+import com.bienestarproyect.Bienestar.repository.RecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ReservaRecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ReclamoRecursosTest {
+
+    private static final LocalDateTime LUNES = LocalDateTime.of(2030, 6, 3, 0, 0);
+
+    private final RecursoRepository recursos = mock(RecursoRepository.class);
+    private final ReservaRecursoRepository reservas = mock(ReservaRecursoRepository.class);
+    private final ServicioRepository servicios = mock(ServicioRepository.class);
+    private final ReclamoRecursos reclamo = new ReclamoRecursos(recursos, reservas, servicios);
+    private final List<ReservaRecurso> filas = new ArrayList<>();
+
+    private void dados(Recurso... r) {
+        when(recursos.bloquear(anyCollection())).thenReturn(List.of(r));
+        when(reservas.findSolapadas(anyCollection(), any(), any(), eq(EstadoCita.AGENDADA))).thenReturn(filas);
+    }
+
+    @Test
+    public void hueco_libre_bloquea_los_recursos_en_orden() {
+        dados(recurso(1L, TipoRecurso.TERAPEUTA, 1), recurso(10L, TipoRecurso.SALA, 1));
+
+        assertEquals(List.of(), reclamo.conflictos(requisito(100L, 1), hueco(10, 11, 10L, 1L), null));
+        verify(recursos).bloquear(argThat((Collection<Long> ids) -> List.copyOf(ids).equals(List.of(1L, 10L))));
+    }
+
+    @Test
+    public void terapeuta_ocupado_en_otra_instancia_es_conflicto() {
+        dados(recurso(1L, TipoRecurso.TERAPEUTA, 1));
+        filas.add(new ReservaRecurso(7L, 1L, 100L, LUNES.withHour(10).withMinute(30), LUNES.withHour(11).withMinute(30)));
+        servicio(100L, null);
+
+        assertEquals(List.of(7L), reclamo.conflictos(requisito(100L, 1), hueco(10, 11, 1L), null));
+        // la propia cita (reprogramación) no cuenta
+        assertEquals(List.of(), reclamo.conflictos(requisito(100L, 1), hueco(10, 11, 1L), 7L));
+    }
+
+    @Test
+    public void sala_doble_admite_dos_a_la_vez_pero_no_tres() {
+        dados(recurso(11L, TipoRecurso.SALA, 2));
+        servicio(100L, 1);
+        // 9-10:30 y 10:30-12 no coinciden nunca: como mucho una a la vez en 10-11
+        filas.add(new ReservaRecurso(7L, 11L, 100L, LUNES.withHour(9), LUNES.withHour(10).withMinute(30)));
+        filas.add(new ReservaRecurso(8L, 11L, 100L, LUNES.withHour(10).withMinute(30), LUNES.withHour(12)));
+        assertEquals(List.of(), reclamo.conflictos(requisito(100L, 1), hueco(10, 11, 11L), null));
+
+        filas.add(new ReservaRecurso(9L, 11L, 100L, LUNES.withHour(10).withMinute(45), LUNES.withHour(11).withMinute(45)));
+        assertEquals(List.of(7L, 8L, 9L), reclamo.conflictos(requisito(100L, 1), hueco(10, 11, 11L), null));
+    }
+
+    @Test
+    public void clase_de_grupo_suma_plazas_a_la_sesion_hasta_llenarla() {
+        dados(recurso(1L, TipoRecurso.TERAPEUTA, 1));
+        servicio(200L, 2);
+        filas.add(new ReservaRecurso(7L, 1L, 200L, LUNES.withHour(10), LUNES.withHour(11)));
+        assertEquals(List.of(), reclamo.conflictos(requisito(200L, 2), hueco(10, 11, 1L), null));
+
+        filas.add(new ReservaRecurso(8L, 1L, 200L, LUNES.withHour(10), LUNES.withHour(11)));
+        assertEquals(List.of(7L, 8L), reclamo.conflictos(requisito(200L, 2), hueco(10, 11, 1L), null));
+        // otra sesión que empieza a las 10:30 choca con la de las 10, aunque esta tenga plazas
+        filas.remove(1);
+        assertEquals(List.of(7L), reclamo.conflictos(requisito(200L, 2), new Hueco(LUNES.withHour(10).withMinute(30),
+                LUNES.withHour(11).withMinute(30), List.of(1L)), null));
+    }
+
+    @Test
+    public void recurso_borrado_no_se_puede_reservar() {
+        dados(recurso(1L, TipoRecurso.TERAPEUTA, 1));
+
+        assertThrows(ReservaNoDisponibleException.class, () -> reclamo.conflictos(requisito(100L, 1), hueco(10, 11, 1L, 10L), null));
+        verifyNoInteractions(reservas);
+    }
+
+    private void servicio(long id, Integer capacidad) {
+        Servicio s = new Servicio();
+        s.setId(id);
+        s.setCapacidad(capacidad);
+        when(servicios.findAllById(any())).thenReturn(List.of(s));
+    }
+
+    private static Hueco hueco(int desde, int hasta, Long... recursos) {
+        return new Hueco(LUNES.withHour(desde), LUNES.withHour(hasta), List.of(recursos));
+    }
+
+    private static Requisito requisito(long servicioId, int plazas) {
+        return new Requisito(servicioId, List.of(new Requisito.Necesidad(TipoRecurso.TERAPEUTA, null)), 4, plazas);
+    }
+
+    private static Recurso recurso(long id, TipoRecurso tipo, int capacidad) {
+        Recurso r = new Recurso();
+        r.setId(id);
+        r.setTipo(tipo);
+        r.setCapacidad(capacidad);
+        return r;
+    }
+}
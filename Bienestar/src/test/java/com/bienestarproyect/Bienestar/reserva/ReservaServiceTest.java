@@ -0,0 +1,128 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.Recurso;
+import com.bienestarproyect.Bienestar.entity.ReservaRecurso;
+import com.bienestarproyect.Bienestar.entity.Servicio;
+import com.bienestarproyect.Bienestar.entity.TipoRecurso;
+import com.bienestarproyect.Bienestar.event.CitaReprogramacion;
+import com.bienestarproyect.Bienestar.repository.OutboxEventoRepository;
+import com.bienestarproyect.Bienestar.repository.RecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ReservaRecursoRepository;
+import com.bienestarproyect.Bienestar.repository.ServicioRepository;
+import com.bienestarproyect.Bienestar.service.CitaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ReservaServiceTest {
+
+    private static final LocalDateTime DIA = LocalDate.now().plusDays(7).atStartOfDay();
+
+    private final RecursoRepository recursos = mock(RecursoRepository.class);
+    private final ReservaRecursoRepository reservas = mock(ReservaRecursoRepository.class);
+    private final ServicioRepository servicios = mock(ServicioRepository.class);
+    private final OutboxEventoRepository eventos = mock(OutboxEventoRepository.class);
+    private final Servicio masaje = new Servicio();
+    private final Recurso terapeuta = new Recurso();
+    private ReservaService service;
+
+    @BeforeEach
+    public void setUp() {
+        masaje.setId(100L);
+        masaje.setDuracionMinutos(60);
+        terapeuta.setId(1L);
+        terapeuta.setTipo(TipoRecurso.TERAPEUTA);
+        when(recursos.findAll()).thenReturn(List.of(terapeuta));
+        when(recursos.bloquear(anyCollection())).thenReturn(List.of(terapeuta));
+        when(servicios.findAllById(any())).thenReturn(List.of(masaje));
+        when(servicios.findById(100L)).thenReturn(Optional.of(masaje));
+        // un único terapeuta, con la cita 7 de 10 a 11 y la 8 de 12 a 13
+        when(reservas.findVigentes(any(), eq(EstadoCita.AGENDADA))).thenReturn(List.of(fila(7L, 10), fila(8L, 12)));
+        when(reservas.findVigentesDeCitas(eq(List.of(7L)), any(), eq(EstadoCita.AGENDADA))).thenReturn(List.of(fila(7L, 10)));
+        service = new ReservaService(recursos, reservas, servicios, mock(CitaService.class), eventos,
+                new MockEnvironment(), new SimpleMeterRegistry());
+        service.start();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void reprogramar_a_un_horario_ocupado_es_409_antes_del_update() {
+        assertThrows(ReservaNoDisponibleException.class,
+                () -> service.onReprogramacion(new CitaReprogramacion(7L, null, DIA.withHour(12))));
+
+        verify(reservas, never()).borrarDeCita(any());
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        // la cita sigue ocupando su horario
+        assertEquals(DIA.withHour(11), service.primerHueco(masaje, DIA.withHour(10)).orElseThrow().inicio());
+    }
+
+    @Test
+    public void una_hora_fuera_de_los_cuartos_es_400_no_409() {
+        assertThrows(HoraNoAlineadaException.class, () -> service.reservar(new Cliente(), masaje, DIA.withHour(14).withMinute(10), null));
+        assertThrows(HoraNoAlineadaException.class,
+                () -> service.onReprogramacion(new CitaReprogramacion(7L, null, DIA.withHour(14).withMinute(10))));
+        verify(reservas, never()).borrarDeCita(any());
+    }
+
+    @Test
+    public void reprogramar_a_un_horario_libre_mueve_las_filas_y_suelta_el_anterior_al_confirmar() {
+        service.onReprogramacion(new CitaReprogramacion(7L, null, DIA.withHour(14)));
+
+        verify(reservas).borrarDeCita(7L);
+        verify(reservas).save(argThat((ReservaRecurso r) -> r.getCitaId() == 7L && r.getInicio().equals(DIA.withHour(14))));
+        terminar(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(DIA.withHour(10), service.primerHueco(masaje, DIA.withHour(10)).orElseThrow().inicio());
+        assertEquals(DIA.withHour(15), service.primerHueco(masaje, DIA.withHour(14)).orElseThrow().inicio());
+    }
+
+    @Test
+    public void si_la_transaccion_no_confirma_la_cita_recupera_su_horario() {
+        service.onReprogramacion(new CitaReprogramacion(7L, null, DIA.withHour(14)));
+
+        terminar(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(DIA.withHour(11), service.primerHueco(masaje, DIA.withHour(10)).orElseThrow().inicio());
+        assertEquals(DIA.withHour(14), service.primerHueco(masaje, DIA.withHour(14)).orElseThrow().inicio());
+    }
+
+    @Test
+    public void reserva_tomada_desde_otra_instancia_es_409_y_pasa_al_calendario() {
+        // en este calendario las 15 están libres, pero otra instancia ya las reservó para la cita 9
+        when(reservas.findSolapadas(anyCollection(), any(), any(), eq(EstadoCita.AGENDADA))).thenReturn(List.of(fila(9L, 15)));
+        when(reservas.findVigentesDeCitas(eq(List.of(9L)), any(), eq(EstadoCita.AGENDADA))).thenReturn(List.of(fila(9L, 15)));
+
+        assertThrows(ReservaNoDisponibleException.class, () -> service.reservar(new Cliente(), masaje, DIA.withHour(15), null));
+
+        terminar(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(DIA.withHour(16), service.primerHueco(masaje, DIA.withHour(15)).orElseThrow().inicio());
+    }
+
+    private static void terminar(int estado) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(estado));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static ReservaRecurso fila(Long citaId, int hora) {
+        return new ReservaRecurso(citaId, 1L, 100L, DIA.withHour(hora), DIA.withHour(hora + 1));
+    }
+}
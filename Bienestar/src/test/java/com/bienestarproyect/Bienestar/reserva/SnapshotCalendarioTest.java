@@ -0,0 +1,62 @@
+package com.bienestarproyect.Bienestar.reserva;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotCalendarioTest {
+
+    private static final LocalDateTime LUNES = LocalDateTime.of(2025, 6, 2, 9, 0);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void escribe_y_lee_las_reservas() throws Exception {
+        SnapshotCalendario s = new SnapshotCalendario(dir.resolve("cal.snap"));
+        List<SnapshotCalendario.Reserva> reservas = List.of(
+                new SnapshotCalendario.Reserva(1, 7, LUNES, LUNES.plusMinutes(60), List.of(1L, 10L)),
+                new SnapshotCalendario.Reserva(2, 8, LUNES.plusDays(1), LUNES.plusDays(1).plusMinutes(45), List.of(2L)));
+        s.escribir(new SnapshotCalendario.Contenido(LUNES, 42, reservas));
+
+        SnapshotCalendario.Contenido leido = s.leer().orElseThrow();
+        assertEquals(LUNES, leido.tomada());
+        assertEquals(42, leido.marca());
+        assertEquals(reservas, leido.reservas());
+    }
+
+    @Test
+    public void sin_fichero_no_hay_snapshot() throws Exception {
+        assertTrue(new SnapshotCalendario(dir.resolve("no-existe.snap")).leer().isEmpty());
+    }
+
+    @Test
+    public void ignora_ficheros_corruptos_o_truncados() throws Exception {
+        Path p = dir.resolve("cal.snap");
+        SnapshotCalendario s = new SnapshotCalendario(p);
+        s.escribir(new SnapshotCalendario.Contenido(LUNES, 1,
+                List.of(new SnapshotCalendario.Reserva(1, 7, LUNES, LUNES.plusMinutes(60), List.of(1L)))));
+        byte[] bytes = Files.readAllBytes(p);
+
+        byte[] alterado = bytes.clone();
+        alterado[alterado.length - 1] ^= 1;
+        Files.write(p, alterado);
+        assertTrue(s.leer().isEmpty());
+
+        Files.write(p, Arrays.copyOf(bytes, bytes.length - 8));
+        assertTrue(s.leer().isEmpty());
+
+        byte[] otraVersion = bytes.clone();
+        ByteBuffer.wrap(otraVersion).putShort(4, (short) (SnapshotCalendario.VERSION + 1));
+        Files.write(p, otraVersion);
+        assertTrue(s.leer().isEmpty());
+    }
+}
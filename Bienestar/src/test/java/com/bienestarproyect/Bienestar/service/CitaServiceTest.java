@@ -0,0 +1,125 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.audit.AuditService;
+import com.bienestarproyect.Bienestar.audit.AuditTipo;
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.TransicionInvalidaException;
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CitaServiceTest {
+
+    private final CitaRepository repo = mock(CitaRepository.class);
+    private final AuditService audit = mock(AuditService.class);
+    private final CitaService service = new CitaService(repo, audit, mock(OutboxService.class),
+            mock(ApplicationEventPublisher.class), mock(ParcheJson.class), mock(TotalesClienteService.class),
+            mock(LecturasCompartidas.class));
+
+    private void enVersion(long version, int filas) {
+        when(repo.reprogramarSiVersion(eq(7L), any(), any(), any(), eq(EstadoCita.AGENDADA), eq(version))).thenReturn(filas);
+    }
+
+    @Test
+    public void con_if_match_un_solo_update_y_la_version_siguiente() {
+        enVersion(3L, 1);
+
+        Cita r = service.actualizar(cita(), List.of(3L));
+
+        assertEquals(4L, r.getVersion());
+        assertEquals(EstadoCita.AGENDADA, r.getEstado());
+        verify(repo, never()).findEstadoVersionById(any());
+    }
+
+    @Test
+    public void basta_con_que_coincida_una_de_las_versiones_del_if_match() {
+        enVersion(3L, 1);
+
+        assertEquals(4L, service.actualizar(cita(), List.of(2L, 3L)).getVersion());
+    }
+
+    @Test
+    public void if_match_de_otra_version_es_412() {
+        when(repo.findEstadoVersionById(7L)).thenReturn(Optional.of(fila(EstadoCita.AGENDADA, 5L)));
+
+        assertThrows(VersionObsoletaException.class, () -> service.actualizar(cita(), List.of(3L)));
+        assertThrows(VersionObsoletaException.class, () -> service.actualizar(cita(), List.of()));
+    }
+
+    @Test
+    public void sin_if_match_nunca_es_412_se_relee_y_se_aplica() {
+        // entre la lectura y el UPDATE otra petición pasó la cita de la versión 5 a la 6
+        when(repo.findEstadoVersionById(7L)).thenReturn(Optional.of(fila(EstadoCita.AGENDADA, 5L)))
+                .thenReturn(Optional.of(fila(EstadoCita.AGENDADA, 6L)));
+        enVersion(6L, 1);
+
+        assertEquals(7L, service.actualizar(cita(), null).getVersion());
+        verify(repo, times(2)).reprogramarSiVersion(eq(7L), any(), any(), any(), eq(EstadoCita.AGENDADA), anyLong());
+    }
+
+    @Test
+    public void cita_en_estado_final_es_409_con_o_sin_if_match() {
+        when(repo.findEstadoVersionById(7L)).thenReturn(Optional.of(fila(EstadoCita.CANCELADA, 5L)));
+
+        assertThrows(TransicionInvalidaException.class, () -> service.actualizar(cita(), List.of(5L)));
+        assertThrows(TransicionInvalidaException.class, () -> service.actualizar(cita(), null));
+        verify(repo, never()).reprogramarSiVersion(any(), any(), any(), any(), any(), isNull());
+    }
+
+    @Test
+    public void cita_inexistente_es_404() {
+        when(repo.findEstadoVersionById(7L)).thenReturn(Optional.empty());
+
+        assertNull(service.actualizar(cita(), List.of(3L)));
+        assertNull(service.actualizar(cita(), null));
+    }
+
+    @Test
+    public void la_cancelacion_se_audita_solo_si_confirma() {
+        Cita c = cita();
+        c.setEstado(EstadoCita.AGENDADA);
+        when(repo.findById(7L)).thenReturn(Optional.of(c));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.cancelar(7L);
+            verify(audit, never()).registrar(any(), any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(audit).registrar(AuditTipo.CITA_CANCELADA, "cita=7");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Cita cita() {
+        Cita c = new Cita();
+        c.setId(7L);
+        c.setFechaHora(LocalDateTime.of(2030, 6, 3, 10, 0));
+        return c;
+    }
+
+    private static CitaRepository.EstadoVersion fila(EstadoCita estado, Long version) {
+        return new CitaRepository.EstadoVersion() {
+            @Override
+            public EstadoCita getEstado() {
+                return estado;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Búsqueda en la base (modo sql, H2): sin distinguir acentos ni mayúsculas, como el índice en memoria. */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=none"})
+public class ClienteBusquedaServiceJpaTest {
+
+    @Autowired
+    private ClienteRepository clientes;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    public void el_patron_sin_acentos_encuentra_el_nombre_con_acentos() {
+        Long jose = cliente("José Muñoz", "JOSÉ@correo.es").getId();
+        cliente("Ana", "ana@correo.es");
+        ClienteBusquedaService service = new ClienteBusquedaService(clientes, jdbc,
+                new MockEnvironment().withProperty("app.clientes.busqueda.modo", "sql"), new SimpleMeterRegistry());
+
+        assertEquals(List.of(jose), ids(service.buscar("jose", 10)));
+        assertEquals(List.of(jose), ids(service.buscar("MUNOZ", 10)));
+        assertEquals(List.of(jose), ids(service.buscar("Muñoz", 10)));
+        assertEquals(List.of(jose), ids(service.buscar("jose@", 10)));
+    }
+
+    private Cliente cliente(String nombre, String email) {
+        Cliente c = new Cliente();
+        c.setNombre(nombre);
+        c.setEmail(email);
+        return clientes.save(c);
+    }
+
+    private static List<Long> ids(List<Cliente> r) {
+        return r.stream().map(Cliente::getId).toList();
+    }
+}
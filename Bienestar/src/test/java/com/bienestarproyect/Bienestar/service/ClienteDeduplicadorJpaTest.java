@@ -0,0 +1,143 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.bienestarproyect.Bienestar.entity.FusionCliente;
+import com.bienestarproyect.Bienestar.entity.TransicionInvalidaException;
+import com.bienestarproyect.Bienestar.repository.CitaRepository;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import com.bienestarproyect.Bienestar.repository.FacturaRepository;
+import com.bienestarproyect.Bienestar.repository.FusionClienteRepository;
+import com.bienestarproyect.Bienestar.repository.ListaEsperaRepository;
+import com.bienestarproyect.Bienestar.repository.ResumenClienteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/** Fusión y vuelta atrás contra el esquema de las migraciones (H2). Sin transacción de test: el job confirma las suyas. */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=none"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ClienteDeduplicadorJpaTest {
+
+    @Autowired
+    private ClienteRepository clientes;
+    @Autowired
+    private CitaRepository citas;
+    @Autowired
+    private FacturaRepository facturas;
+    @Autowired
+    private ListaEsperaRepository esperas;
+    @Autowired
+    private FusionClienteRepository fusiones;
+    @Autowired
+    private ResumenClienteRepository resumenes;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager txManager;
+    private ClienteDeduplicador deduplicador;
+
+    @BeforeEach
+    public void setUp() {
+        // los índices únicos que crea cada ejecución no deben llegar a la siguiente prueba
+        jdbc.execute("DROP INDEX IF EXISTS " + ClienteDeduplicador.IDX_EMAIL);
+        jdbc.execute("DROP INDEX IF EXISTS " + ClienteDeduplicador.IDX_TELEFONO);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        deduplicador = new ClienteDeduplicador(clientes, citas, facturas, esperas, fusiones, mock(ClienteBusquedaService.class),
+                new TotalesClienteService(resumenes, txManager, registry), jdbc, txManager,
+                new MockEnvironment().withProperty("app.clientes.dedup.pausa-ms", "0"), registry);
+    }
+
+    @Test
+    public void fusiona_por_email_anota_lo_movido_y_no_toca_los_telefonos_compartidos() {
+        Cliente ana = cliente("Ana", "ana@correo.es", "600111222");
+        Cliente duplicada = cliente("Ana P.", " ANA@correo.es", null);
+        // la hija, con el teléfono de la familia
+        Cliente hija = cliente("Lucía", "lucia@correo.es", "600 111 222");
+        Cita c = cita(duplicada);
+
+        deduplicador.ejecutar(false);
+
+        assertFalse(clientes.existsById(duplicada.getId()));
+        assertTrue(clientes.existsById(hija.getId()));
+        assertEquals(ana.getId(), citas.findById(c.getId()).orElseThrow().getCliente().getId());
+        FusionCliente f = fusiones.findByDestinoIdOrderByIdDesc(ana.getId(), PageRequest.of(0, 10)).get(0);
+        assertEquals(duplicada.getId(), f.getOrigenId());
+        assertEquals("email", f.getCriterio());
+        assertEquals(" ANA@correo.es", f.getOrigenEmail());
+        assertEquals(1, f.getCitas());
+        Map<String, Object> estado = deduplicador.estado();
+        assertEquals(1, estado.get("telefonosCompartidos"));
+        assertEquals(false, estado.get("indiceTelefono"));
+    }
+
+    @Test
+    public void deshacer_devuelve_el_cliente_con_su_id_y_sus_citas() {
+        Cliente pedro = cliente("Pedro", "pedro@correo.es", "622000222");
+        Cliente duplicado = cliente("Pedro G.", "PEDRO@correo.es", "611000111");
+        Cita c = cita(duplicado);
+        deduplicador.ejecutar(false);
+        FusionCliente f = fusiones.findByDestinoIdOrderByIdDesc(pedro.getId(), PageRequest.of(0, 10)).get(0);
+
+        Map<String, Object> r = deduplicador.deshacer(f.getId());
+
+        Cliente restaurado = clientes.findById(duplicado.getId()).orElseThrow();
+        assertEquals("Pedro G.", restaurado.getNombre());
+        // el email es del que se conservó: vuelve sin él; el teléfono era solo suyo
+        assertNull(restaurado.getEmail());
+        assertEquals("611000111", restaurado.getTelefono());
+        assertEquals(false, r.get("emailRestaurado"));
+        assertEquals(1, r.get("citas"));
+        assertEquals(duplicado.getId(), citas.findById(c.getId()).orElseThrow().getCliente().getId());
+        assertNotNull(fusiones.findById(f.getId()).orElseThrow().getDeshechaEn());
+        assertThrows(TransicionInvalidaException.class, () -> deduplicador.deshacer(f.getId()));
+        assertNull(deduplicador.deshacer(-1L));
+    }
+
+    @Test
+    public void los_contactos_vacios_no_son_duplicados() {
+        Cliente a = cliente("Sin contacto A", null, null);
+        Cliente b = cliente("Sin contacto B", null, null);
+        // como los dejaba la primera versión del relleno de V6
+        jdbc.update("UPDATE clientes SET email = ' ', email_normalizado = '', telefono_normalizado = '' WHERE id IN (?, ?)",
+                a.getId(), b.getId());
+
+        assertTrue(clientes.findEmailsDuplicados(PageRequest.of(0, 10)).isEmpty());
+        assertTrue(clientes.findTelefonosDuplicados(PageRequest.of(0, 10)).isEmpty());
+        deduplicador.ejecutar(true);
+
+        assertTrue(clientes.existsById(a.getId()));
+        assertTrue(clientes.existsById(b.getId()));
+    }
+
+    private Cliente cliente(String nombre, String email, String telefono) {
+        Cliente c = new Cliente();
+        c.setNombre(nombre);
+        c.setEmail(email);
+        c.setTelefono(telefono);
+        return clientes.save(c);
+    }
+
+    private Cita cita(Cliente cliente) {
+        Cita c = new Cita();
+        c.setCliente(cliente);
+        c.setFechaHora(LocalDateTime.now().plusDays(3));
+        c.setEstado(EstadoCita.AGENDADA);
+        return citas.save(c);
+    }
+}
@@ -0,0 +1,147 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.dto.ClienteResumen;
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.entity.Factura;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ClienteResumenServiceTest {
+
+    private final ClienteService clientes = mock(ClienteService.class);
+    private final CitaService citas = mock(CitaService.class);
+    private final FacturaService facturas = mock(FacturaService.class);
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ClienteResumenService service;
+
+    @BeforeEach
+    public void setUp() {
+        when(txManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        service = nuevo(new MockEnvironment().withProperty("app.clientes.resumen.timeout", "200ms"));
+    }
+
+    private ClienteResumenService nuevo(MockEnvironment env) {
+        if (service != null) service.stop();
+        // como en la aplicación: "200ms" se convierte a Duration con los conversores de Spring Boot
+        env.setConversionService(new ApplicationConversionService());
+        return new ClienteResumenService(clientes, citas, facturas, txManager, env, registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    public void junta_cliente_citas_y_facturas() {
+        Cliente c = new Cliente();
+        c.setId(1L);
+        Cita cita = new Cita();
+        cita.setId(10L);
+        Factura f = new Factura();
+        f.setId(20L);
+        when(clientes.buscar(1L)).thenReturn(c);
+        when(citas.historialPorCliente(1L)).thenReturn(List.of(cita));
+        when(facturas.porCliente(1L)).thenReturn(List.of(f));
+
+        ClienteResumen r = service.resumen(1L);
+
+        assertSame(c, r.cliente());
+        assertEquals(10L, r.citas().get(0).id());
+        assertEquals(20L, r.facturas().get(0).id());
+        assertTrue(r.incompletos().isEmpty());
+    }
+
+    @Test
+    public void cliente_inexistente_devuelve_null() {
+        when(clientes.buscar(2L)).thenReturn(null);
+        assertNull(service.resumen(2L));
+    }
+
+    @Test
+    public void la_parte_que_no_llega_a_tiempo_queda_incompleta() {
+        Cliente c = new Cliente();
+        c.setId(3L);
+        when(clientes.buscar(3L)).thenReturn(c);
+        when(citas.historialPorCliente(3L)).thenReturn(List.of());
+        when(facturas.porCliente(3L)).thenAnswer(inv -> {
+            Thread.sleep(1000);
+            return List.of();
+        });
+
+        ClienteResumen r = service.resumen(3L);
+
+        assertSame(c, r.cliente());
+        assertNotNull(r.citas());
+        assertNull(r.facturas());
+        assertEquals(List.of(ClienteResumenService.FACTURAS), r.incompletos());
+    }
+
+    @Test
+    public void cada_parte_lee_en_una_transaccion_con_el_plazo_como_timeout() {
+        service = nuevo(new MockEnvironment().withProperty("app.clientes.resumen.timeout", "3s"));
+        when(clientes.buscar(4L)).thenReturn(new Cliente());
+        when(citas.historialPorCliente(4L)).thenReturn(List.of());
+        when(facturas.porCliente(4L)).thenReturn(List.of());
+
+        service.resumen(4L);
+
+        verify(txManager, times(3)).getTransaction(argThat((TransactionDefinition d) ->
+                d.isReadOnly() && d.getTimeout() >= 1 && d.getTimeout() <= 3));
+    }
+
+    @Test
+    public void con_el_pool_lleno_la_parte_queda_incompleta_sin_ejecutarse_en_la_peticion() {
+        // un hilo y un hueco en cola: la tercera parte no cabe
+        service = nuevo(new MockEnvironment().withProperty("app.clientes.resumen.timeout", "2s")
+                .withProperty("app.clientes.resumen.hilos", "1").withProperty("app.clientes.resumen.cola", "1"));
+        Cliente c = new Cliente();
+        when(clientes.buscar(5L)).thenAnswer(inv -> {
+            Thread.sleep(100);
+            return c;
+        });
+        when(citas.historialPorCliente(5L)).thenReturn(List.of());
+
+        ClienteResumen r = service.resumen(5L);
+
+        assertSame(c, r.cliente());
+        assertNotNull(r.citas());
+        assertEquals(List.of(ClienteResumenService.FACTURAS), r.incompletos());
+        verify(facturas, never()).porCliente(anyLong());
+        assertEquals(1.0, registry.get("bienestar.clientes.resumen.incompletos").tag("motivo", "pool").counter().count());
+    }
+
+    @Test
+    public void las_partes_que_empiezan_fuera_de_plazo_no_consultan() throws Exception {
+        service = nuevo(new MockEnvironment().withProperty("app.clientes.resumen.timeout", "200ms")
+                .withProperty("app.clientes.resumen.hilos", "1"));
+        when(clientes.buscar(6L)).thenAnswer(inv -> {
+            Thread.sleep(400);
+            return new Cliente();
+        });
+
+        ClienteResumen r = service.resumen(6L);
+        Thread.sleep(400);
+
+        assertNull(r.cliente());
+        assertEquals(List.of(ClienteResumenService.CLIENTE, ClienteResumenService.CITAS, ClienteResumenService.FACTURAS),
+                r.incompletos());
+        verify(citas, never()).historialPorCliente(anyLong());
+        verify(facturas, never()).porCliente(anyLong());
+    }
+}
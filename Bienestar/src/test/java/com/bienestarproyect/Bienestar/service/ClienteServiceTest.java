@@ -0,0 +1,67 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.Cliente;
+import com.bienestarproyect.Bienestar.repository.ClienteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClienteServiceTest {
+
+    @Mock
+    private ClienteRepository repo;
+
+    @Mock
+    private ClienteBusquedaService busqueda;
+
+    @InjectMocks
+    private ClienteService service;
+
+    private static Cliente cliente(Long id, String email, String telefono) {
+        Cliente c = new Cliente();
+        c.setId(id);
+        c.setNombre("Ana");
+        c.setEmail(email);
+        c.setTelefono(telefono);
+        return c;
+    }
+
+    @Test
+    public void contacto_se_normaliza() {
+        Cliente c = cliente(null, "  Ana@Correo.ES ", "0034 600-11 22 33");
+        assertEquals("ana@correo.es", c.getEmailNormalizado());
+        assertEquals("+34600112233", c.getTelefonoNormalizado());
+        assertEquals("600112233", Cliente.normalizarTelefono("600 11 22 33"));
+        assertNull(Cliente.normalizarEmail(" "));
+    }
+
+    @Test
+    public void crear_con_email_existente_da_conflicto() {
+        when(repo.findFirstByEmailNormalizadoOrderByIdAsc("ana@correo.es")).thenReturn(Optional.of(cliente(7L, "ana@correo.es", null)));
+
+        ClienteDuplicadoException ex = assertThrows(ClienteDuplicadoException.class,
+                () -> service.guardar(cliente(null, "ANA@correo.es", "600112233")));
+
+        assertEquals(7L, ex.getClienteId());
+        verify(repo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void actualizar_el_mismo_cliente_no_es_duplicado() {
+        Cliente c = cliente(7L, "ana@correo.es", "600112233");
+        when(repo.findFirstByEmailNormalizadoOrderByIdAsc("ana@correo.es")).thenReturn(Optional.of(cliente(7L, "ana@correo.es", null)));
+        when(repo.findFirstByTelefonoNormalizadoOrderByIdAsc("600112233")).thenReturn(Optional.empty());
+        when(repo.saveAndFlush(c)).thenReturn(c);
+
+        assertSame(c, service.guardar(c));
+        verify(busqueda).indexar(c);
+    }
+}
@@ -18,6 +18,12 @@ public class FacturaServiceTest {
     @Mock
     private FacturaRepository repo;
 
+    @Mock
+    private OutboxService outbox;
+
+    @Mock
+    private TotalesClienteService totales;
+
     @InjectMocks
     private FacturaService service;
 
@@ -35,5 +41,7 @@ public class FacturaServiceTest {
 
         assertNotNull(saved.getFecha());
         assertEquals(saved.getFecha(), result.getFecha());
+        verify(outbox).factura("FACTURA_CREADA", saved);
+        verify(totales).factura(null, null);
     }
 }
\ No newline at end of file
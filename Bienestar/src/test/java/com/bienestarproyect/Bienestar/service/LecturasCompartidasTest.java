@@ -0,0 +1,93 @@
+package com.bienestarproyect.Bienestar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LecturasCompartidasTest {
+
+    private final PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+    private final AtomicInteger consultas = new AtomicInteger();
+    private LecturasCompartidas lecturas;
+
+    @BeforeEach
+    public void setup() {
+        when(txManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+        lecturas = new LecturasCompartidas(txManager, new MockEnvironment(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void llamadas_simultaneas_comparten_una_consulta() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        CompletableFuture<List<Integer>> primera = CompletableFuture.supplyAsync(() -> lecturas.leer("servicios", null, () -> {
+            dentro.countDown();
+            try {
+                seguir.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(consultas.incrementAndGet());
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<Integer>> segunda = CompletableFuture.supplyAsync(() ->
+                lecturas.leer("servicios", null, () -> List.of(consultas.incrementAndGet())));
+        // la segunda se registra antes de soltar la consulta en curso
+        while (lecturas.top(1).isEmpty() || (long) lecturas.top(1).get(0).get("compartidas") == 0) Thread.onSpinWait();
+        seguir.countDown();
+
+        assertSame(primera.get(5, TimeUnit.SECONDS), segunda.get(5, TimeUnit.SECONDS));
+        assertEquals(1, consultas.get());
+        Map<String, Object> stats = lecturas.top(10).get(0);
+        assertEquals("servicios", stats.get("clave"));
+        assertEquals(1L, stats.get("consultas"));
+        assertEquals(1L, stats.get("compartidas"));
+    }
+
+    @Test
+    public void terminada_la_consulta_la_siguiente_vuelve_a_consultar() {
+        assertEquals(1, (int) lecturas.leer("citas.historial", 7L, consultas::incrementAndGet));
+        assertEquals(2, (int) lecturas.leer("citas.historial", 7L, consultas::incrementAndGet));
+        assertEquals(3, (int) lecturas.leer("citas.historial", 8L, consultas::incrementAndGet));
+        assertEquals(2L, lecturas.top(10).stream().filter(m -> m.get("clave").equals("citas.historial:7"))
+                .findFirst().orElseThrow().get("consultas"));
+    }
+
+    @Test
+    public void el_fallo_llega_a_quien_esperaba() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        CompletableFuture<Object> primera = CompletableFuture.supplyAsync(() -> lecturas.leer("servicios", null, () -> {
+            dentro.countDown();
+            try {
+                seguir.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("base caída");
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Object> segunda = CompletableFuture.supplyAsync(() -> lecturas.leer("servicios", null, () -> "otra"));
+        while ((long) lecturas.top(1).get(0).get("compartidas") == 0) Thread.onSpinWait();
+        seguir.countDown();
+
+        Exception e = assertThrows(Exception.class, () -> primera.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        Exception f = assertThrows(Exception.class, () -> segunda.get(5, TimeUnit.SECONDS));
+        assertEquals("base caída", f.getCause().getMessage());
+    }
+}
@@ -0,0 +1,93 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.entity.Cita;
+import com.bienestarproyect.Bienestar.entity.EstadoCita;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** El UPDATE de ParcheJson contra una base de verdad (H2, esquema generado desde las entidades). */
+@DataJpaTest(properties = {"spring.flyway.enabled=false", "spring.jpa.hibernate.ddl-auto=create-drop"})
+public class ParcheJsonJpaTest {
+
+    private static final LocalDateTime LUNES = LocalDateTime.of(2030, 6, 3, 10, 0);
+
+    @Autowired
+    private EntityManager em;
+    private ParcheJson parches;
+
+    @BeforeEach
+    public void setUp() {
+        parches = new ParcheJson(em, JsonMapper.builder().findAndAddModules().build(),
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    public void escribe_las_columnas_y_sube_la_version() {
+        Cita c = cita(EstadoCita.AGENDADA);
+        Long version = c.getVersion();
+
+        assertEquals(1, parches.actualizar(Cita.class, c.getId(), Map.of("fechaHora", LUNES.plusDays(1)), List.of(version), null));
+
+        // la cargada estaba desfasada: se soltó y se vuelve a leer de la base
+        assertFalse(em.contains(c));
+        Cita leida = em.find(Cita.class, c.getId());
+        assertEquals(version + 1, leida.getVersion());
+        assertEquals(LUNES.plusDays(1), leida.getFechaHora());
+        // con la versión anterior ya no coincide
+        assertEquals(0, parches.actualizar(Cita.class, c.getId(), Map.of("fechaHora", LUNES), List.of(version), null));
+        assertEquals(0, parches.actualizar(Cita.class, c.getId(), Map.of("fechaHora", LUNES), List.of(), null));
+    }
+
+    @Test
+    public void la_transicion_se_comprueba_en_el_where_con_los_estados_anteriores() {
+        Cita agendada = cita(EstadoCita.AGENDADA);
+        Cita cancelada = cita(EstadoCita.CANCELADA);
+        Set<EstadoCita> origen = EstadoCita.ATENDIDA.anteriores();
+        BiFunction<CriteriaBuilder, Root<Cita>, Predicate> condicion = (cb, r) -> r.get("estado").in(origen);
+
+        assertEquals(0, parches.actualizar(Cita.class, cancelada.getId(), Map.of("estado", EstadoCita.ATENDIDA), null, condicion));
+        assertEquals(1, parches.actualizar(Cita.class, agendada.getId(), Map.of("estado", EstadoCita.ATENDIDA), null, condicion));
+
+        // solo se suelta la cita parcheada, no todo el contexto de persistencia
+        assertTrue(em.contains(cancelada));
+        assertEquals(EstadoCita.CANCELADA, cancelada.getEstado());
+        assertEquals(EstadoCita.ATENDIDA, em.find(Cita.class, agendada.getId()).getEstado());
+    }
+
+    @Test
+    public void null_explicito_borra_el_valor() {
+        Cita c = cita(EstadoCita.AGENDADA);
+        Map<String, Object> columnas = new HashMap<>();
+        columnas.put("fechaHora", null);
+
+        assertEquals(1, parches.actualizar(Cita.class, c.getId(), columnas, null, null));
+
+        assertNull(em.find(Cita.class, c.getId()).getFechaHora());
+    }
+
+    private Cita cita(EstadoCita estado) {
+        Cita c = new Cita();
+        c.setFechaHora(LUNES);
+        c.setEstado(estado);
+        em.persist(c);
+        em.flush();
+        return c;
+    }
+}
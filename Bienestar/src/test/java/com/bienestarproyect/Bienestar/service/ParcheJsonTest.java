@@ -0,0 +1,43 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.dto.CitaDTO;
+import com.bienestarproyect.Bienestar.dto.ClienteDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParcheJsonTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private final ParcheJson parches = new ParcheJson(null, mapper, Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Test
+    public void solo_los_campos_enviados_y_convertidos() throws Exception {
+        Map<String, Object> v = parches.validar(mapper.readTree("{\"telefono\":\"600 11 22 33\"}"),
+                ClienteDTO.class, Set.of("nombre", "email", "telefono"));
+        assertEquals(Map.of("telefono", "600 11 22 33"), v);
+
+        String futura = LocalDateTime.now().plusDays(1).withNano(0).toString();
+        Map<String, Object> c = parches.validar(mapper.readTree("{\"fechaHora\":\"" + futura + "\"}"),
+                CitaDTO.class, Set.of("clienteId", "servicioId", "fechaHora"));
+        assertEquals(LocalDateTime.parse(futura), c.get("fechaHora"));
+    }
+
+    @Test
+    public void reutiliza_la_validacion_del_dto() throws Exception {
+        ParcheInvalidoException ex = assertThrows(ParcheInvalidoException.class, () -> parches.validar(
+                mapper.readTree("{\"email\":\"no-es-email\",\"nombre\":null,\"id\":5}"),
+                ClienteDTO.class, Set.of("nombre", "email", "telefono")));
+
+        assertEquals("Email inválido", ex.getErrores().get("email"));
+        assertEquals("Nombre obligatorio", ex.getErrores().get("nombre"));
+        assertEquals("Campo no modificable", ex.getErrores().get("id"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.bienestarproyect.Bienestar.service;
+
+import com.bienestarproyect.Bienestar.repository.ResumenClienteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TotalesClienteServiceTest {
+
+    private final ResumenClienteRepository repo = mock(ResumenClienteRepository.class);
+    private final TotalesClienteService service =
+            new TotalesClienteService(repo, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    @Test
+    public void visita_incrementa_la_fila_existente() {
+        LocalDateTime t = LocalDateTime.of(2025, 6, 2, 10, 0);
+        when(repo.sumarVisita(1L, t)).thenReturn(1);
+
+        service.visita(1L, t);
+
+        verify(repo, never()).insertarCalculado(any(), any());
+    }
+
+    @Test
+    public void sin_fila_se_inserta_calculada() {
+        when(repo.sumarFactura(2L, BigDecimal.ZERO)).thenReturn(0);
+
+        service.factura(2L, null);
+
+        verify(repo).flush();
+        verify(repo).insertarCalculado(2L, "ATENDIDA");
+    }
+
+    @Test
+    public void fusion_borra_las_filas_de_los_duplicados_y_recalcula_la_del_que_queda() {
+        when(repo.recalcular(1L, 1L, "ATENDIDA")).thenReturn(1);
+
+        service.fusion(1L, List.of(5L, 9L));
+
+        verify(repo).borrarDe(List.of(5L, 9L));
+        verify(repo).recalcular(1L, 1L, "ATENDIDA");
+        // insertarCalculado no hace nada si la fila existe; sin cambios no hace falta
+        verify(repo, never()).insertarCalculado(any(), any());
+    }
+
+    @Test
+    public void orden_del_listado() {
+        assertEquals(TotalesClienteService.Orden.GASTO, TotalesClienteService.Orden.de(null));
+        assertEquals(TotalesClienteService.Orden.RECIENTE, TotalesClienteService.Orden.de(" Reciente"));
+        assertNull(TotalesClienteService.Orden.de("nombre"));
+    }
+}
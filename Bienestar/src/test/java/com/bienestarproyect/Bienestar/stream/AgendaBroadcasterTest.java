@@ -0,0 +1,129 @@
+package com.bienestarproyect.Bienestar.stream;
+
+import com.bienestarproyect.Bienestar.event.CitaEvento;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgendaBroadcasterTest {
+
+    /** Emisor que anota lo que se le envía y desde qué hilo; puede quedarse atascado o estar roto. */
+    private static final class Emisor extends SseEmitter {
+        final List<String> enviados = Collections.synchronizedList(new ArrayList<>());
+        final List<String> hilos = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch atasco;
+        volatile boolean roto;
+
+        Emisor() {
+            super(0L);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (roto) throw new IOException("cliente desconectado");
+            CountDownLatch a = atasco;
+            if (a != null) {
+                try {
+                    a.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            hilos.add(Thread.currentThread().getName());
+            enviados.add(builder.build().stream().map(d -> String.valueOf(d.getData())).collect(Collectors.joining()));
+        }
+
+        boolean recibio(String texto) {
+            synchronized (enviados) {
+                return enviados.stream().anyMatch(s -> s.contains(texto));
+            }
+        }
+    }
+
+    private final Deque<Emisor> siguientes = new ArrayDeque<>();
+    private final AgendaBroadcaster broadcaster = new AgendaBroadcaster(new MockEnvironment(), new SimpleMeterRegistry()) {
+        @Override
+        SseEmitter newEmitter(long timeoutMs) {
+            return siguientes.removeFirst();
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void el_heartbeat_no_escribe_en_el_hilo_del_scheduler_ni_espera_a_un_cliente_atascado() {
+        Emisor atascado = suscribir(null);
+        Emisor sano = suscribir(null);
+        atascado.atasco = new CountDownLatch(1);
+
+        assertTimeoutPreemptively(Duration.ofMillis(500), broadcaster::heartbeat);
+
+        esperarHasta(() -> sano.recibio("ping"));
+        assertTrue(sano.hilos.stream().allMatch(h -> h.startsWith("sse-sender-")), sano.hilos.toString());
+        atascado.atasco.countDown();
+        esperarHasta(() -> atascado.recibio("ping"));
+    }
+
+    @Test
+    public void el_heartbeat_detecta_clientes_caidos() {
+        suscribir(null).roto = true;
+        suscribir(null);
+
+        broadcaster.heartbeat();
+
+        esperarHasta(() -> broadcaster.suscriptores() == 1);
+    }
+
+    @Test
+    public void cada_suscriptor_recibe_solo_los_eventos_de_su_servicio() {
+        Emisor todos = suscribir(null);
+        Emisor masajes = suscribir(100L);
+        Emisor yoga = suscribir(200L);
+
+        broadcaster.onCita(new CitaEvento(CitaEvento.AGENDADA, 7L, 1L, 100L, null, null));
+
+        esperarHasta(() -> todos.recibio(CitaEvento.AGENDADA) && masajes.recibio(CitaEvento.AGENDADA));
+        broadcaster.heartbeat();
+        esperarHasta(() -> yoga.recibio("ping"));
+        assertFalse(yoga.recibio(CitaEvento.AGENDADA));
+    }
+
+    private Emisor suscribir(Long servicioId) {
+        Emisor e = new Emisor();
+        siguientes.add(e);
+        assertSame(e, broadcaster.subscribe(servicioId));
+        return e;
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) fail("no se cumplió a tiempo");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("interrumpido");
+            }
+        }
+    }
+}